@@ -14,8 +14,15 @@
 package com.google.dart.command.analyze;
 
 import com.google.dart.engine.AnalysisEngine;
+import com.google.dart.engine.ast.CompilationUnit;
+import com.google.dart.engine.ast.Directive;
+import com.google.dart.engine.ast.PartDirective;
+import com.google.dart.engine.ast.UriBasedDirective;
 import com.google.dart.engine.context.AnalysisContext;
 import com.google.dart.engine.context.AnalysisException;
+import com.google.dart.engine.context.AnalysisResult;
+import com.google.dart.engine.context.ChangeNotice;
+import com.google.dart.engine.context.ChangeSet;
 import com.google.dart.engine.element.CompilationUnitElement;
 import com.google.dart.engine.element.LibraryElement;
 import com.google.dart.engine.error.AnalysisError;
@@ -33,13 +40,17 @@ import com.google.dart.engine.source.Source;
 import com.google.dart.engine.source.SourceFactory;
 import com.google.dart.engine.source.SourceKind;
 import com.google.dart.engine.source.UriKind;
+import com.google.dart.engine.source.UserSourceContainer;
 import com.google.dart.engine.utilities.source.LineInfo;
 
 import java.io.File;
 import java.io.IOException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -48,13 +59,326 @@ import java.util.Set;
  * Scans, parses, and analyzes a library.
  */
 public class AnalyzerImpl {
+  /**
+   * The interface {@code LibraryListener} defines the behavior of objects that are notified as each
+   * of the libraries analyzed by {@link AnalyzerImpl#analyzeLibraries} is completed.
+   */
+  public interface LibraryListener {
+    /**
+     * Report that the library in the given file has been analyzed.
+     * 
+     * @param sourceFile the file containing the library that was analyzed
+     * @param errors the errors in the sources of the library that have not already been reported
+     * @param lineInfoMap line information for all of the sources that have errors
+     */
+    public void libraryAnalyzed(File sourceFile, List<AnalysisError> errors,
+        Map<Source, LineInfo> lineInfoMap);
+  }
+
+  /**
+   * Instances of the class {@code SourceState} record the state of a source at the time it was
+   * last seen by a {@link WarmContext}, together with the libraries analyzed in that context that
+   * depend on the source.
+   */
+  private static class SourceState {
+    /**
+     * The number of milliseconds after a modification during which a file can be modified again
+     * without changing its modification stamp, because of the granularity of the file system.
+     */
+    private static final long RACY_INTERVAL = 2000L;
+
+    /**
+     * Return the state of the given source.
+     * 
+     * @param source the source whose state is to be returned
+     * @return the state of the given source
+     */
+    public static SourceState forSource(Source source) {
+      if (!source.exists()) {
+        return new SourceState(false, -1L, null);
+      }
+      long modificationStamp = source.getModificationStamp();
+      byte[] digest = null;
+      if (isRacy(modificationStamp)) {
+        digest = computeDigest(source);
+      }
+      return new SourceState(true, modificationStamp, digest);
+    }
+
+    /**
+     * Return a digest of the contents of the given source, or an empty array if the contents
+     * could not be read.
+     * 
+     * @param source the source whose contents are to be digested
+     * @return a digest of the contents of the given source
+     */
+    private static byte[] computeDigest(Source source) {
+      try {
+        MessageDigest digest = MessageDigest.getInstance("MD5");
+        digest.update(source.getContents().getData().toString().getBytes("UTF-8"));
+        return digest.digest();
+      } catch (Exception exception) {
+        return new byte[0];
+      }
+    }
+
+    /**
+     * Return {@code true} if a file with the given modification stamp could still be modified
+     * without changing its modification stamp.
+     * 
+     * @param modificationStamp the modification stamp of the file
+     * @return {@code true} if the modification stamp cannot be trusted to detect changes
+     */
+    private static boolean isRacy(long modificationStamp) {
+      return System.currentTimeMillis() - modificationStamp < RACY_INTERVAL;
+    }
+
+    /**
+     * A flag indicating whether the source existed.
+     */
+    private final boolean exists;
+
+    /**
+     * The modification stamp of the source, or {@code -1} if the source did not exist.
+     */
+    private final long modificationStamp;
+
+    /**
+     * A digest of the contents of the source, or {@code null} if the modification stamp of the
+     * source was old enough to be trusted to detect changes.
+     */
+    private byte[] digest;
+
+    /**
+     * The sources of the libraries that depend on the source.
+     */
+    private final HashSet<Source> libraries = new HashSet<Source>();
+
+    private SourceState(boolean exists, long modificationStamp, byte[] digest) {
+      this.exists = exists;
+      this.modificationStamp = modificationStamp;
+      this.digest = digest;
+    }
+
+    /**
+     * Return {@code true} if the contents of the given source might not be the same as they were
+     * when this state was recorded.
+     * 
+     * @param source the source whose state was recorded
+     * @param currentState the current state of the source
+     * @return {@code true} if the contents of the source might have changed
+     */
+    public boolean isRewritten(Source source, SourceState currentState) {
+      if (digest == null) {
+        return false;
+      }
+      byte[] currentDigest = currentState.digest;
+      if (currentDigest == null) {
+        currentDigest = computeDigest(source);
+      }
+      if (!Arrays.equals(digest, currentDigest)) {
+        return true;
+      }
+      if (!isRacy(modificationStamp)) {
+        // the modification stamp can now be trusted
+        digest = null;
+      }
+      return false;
+    }
+  }
+
+  /**
+   * Instances of the class {@code WarmContext} hold an analysis context that is reused by all of
+   * the analyses performed with the same configuration. For each library that has been analyzed in
+   * the context it records the sources outside the SDK that the library depends on, including the
+   * sources that do not exist, so that only those sources need to be checked for changes before
+   * the library is analyzed again.
+   */
+  private static class WarmContext {
+    /**
+     * The context in which sources are analyzed.
+     */
+    private final AnalysisContext context;
+
+    /**
+     * A table mapping the sources of the libraries that have been analyzed in the context to the
+     * sources they depend on.
+     */
+    private final HashMap<Source, Set<Source>> dependencies = new HashMap<Source, Set<Source>>();
+
+    /**
+     * A table mapping the sources that analyzed libraries depend on to their recorded states.
+     */
+    private final HashMap<Source, SourceState> sourceStates = new HashMap<Source, SourceState>();
+
+    /**
+     * The sources of the libraries whose dependencies need to be computed again because one of
+     * the sources they depend on has changed.
+     */
+    private final HashSet<Source> staleLibraries = new HashSet<Source>();
+
+    public WarmContext(AnalysisContext context) {
+      this.context = context;
+    }
+
+    /**
+     * Inform the context about the sources that the given library depends on that have been
+     * created, modified or deleted since they were last seen, so that only those sources, and the
+     * sources that depend on them, are analyzed again.
+     * 
+     * @param librarySource the source of the library that is about to be analyzed
+     * @return the number of sources that were created, modified or deleted
+     */
+    public int invalidateChangedSources(Source librarySource) {
+      int count = 0;
+      while (true) {
+        Set<Source> sources = dependencies.get(librarySource);
+        if (sources == null || staleLibraries.remove(librarySource)) {
+          sources = computeDependencies(librarySource);
+          setDependencies(librarySource, sources);
+        }
+        ChangeSet changeSet = new ChangeSet();
+        ArrayList<Source> replacedSources = new ArrayList<Source>();
+        for (Source source : sources) {
+          SourceState state = sourceStates.get(source);
+          SourceState currentState = SourceState.forSource(source);
+          if (state.exists != currentState.exists) {
+            if (currentState.exists) {
+              // libraries referencing the source are only analyzed again when it is added
+              replacedSources.add(source);
+            } else {
+              changeSet.deletedSource(source);
+            }
+          } else if (state.modificationStamp != currentState.modificationStamp) {
+            changeSet.changedSource(source);
+          } else if (state.isRewritten(source, currentState)) {
+            // the context ignores changes that leave the modification stamp as it was
+            replacedSources.add(source);
+          } else {
+            continue;
+          }
+          currentState.libraries.addAll(state.libraries);
+          sourceStates.put(source, currentState);
+          staleLibraries.addAll(state.libraries);
+        }
+        if (changeSet.isEmpty() && replacedSources.isEmpty()) {
+          return count;
+        }
+        count += changeSet.getChangedSources().size() + changeSet.getDeletedSources().size()
+            + replacedSources.size();
+        for (Source source : replacedSources) {
+          changeSet.removedSource(source);
+        }
+        context.applyChanges(changeSet);
+        if (!replacedSources.isEmpty()) {
+          changeSet = new ChangeSet();
+          for (Source source : replacedSources) {
+            changeSet.addedSource(source);
+          }
+          context.applyChanges(changeSet);
+        }
+      }
+    }
+
+    /**
+     * Return the sources outside the SDK that the given library depends on: the sources of the
+     * library and of the parts of the library, and the sources of the libraries that are imported
+     * or exported by the library, directly or indirectly, whether or not they exist.
+     * 
+     * @param librarySource the source of the library whose dependencies are to be computed
+     * @return the sources that the library depends on
+     */
+    private Set<Source> computeDependencies(Source librarySource) {
+      HashSet<Source> sources = new HashSet<Source>();
+      ArrayList<Source> librariesToVisit = new ArrayList<Source>();
+      librariesToVisit.add(librarySource);
+      while (!librariesToVisit.isEmpty()) {
+        Source library = librariesToVisit.remove(librariesToVisit.size() - 1);
+        if (library.isInSystemLibrary() || !sources.add(library) || !context.exists(library)) {
+          continue;
+        }
+        CompilationUnit unit;
+        try {
+          unit = context.parseCompilationUnit(library);
+        } catch (AnalysisException exception) {
+          continue;
+        }
+        for (Directive directive : unit.getDirectives()) {
+          if (directive instanceof UriBasedDirective) {
+            Source source = ((UriBasedDirective) directive).getSource();
+            if (source == null || source.isInSystemLibrary()) {
+              continue;
+            } else if (directive instanceof PartDirective) {
+              sources.add(source);
+            } else {
+              librariesToVisit.add(source);
+            }
+          }
+        }
+      }
+      return sources;
+    }
+
+    /**
+     * Record that the given library depends on the given sources, recording the current state of
+     * the sources that were not already recorded and forgetting the sources that no analyzed
+     * library depends on any longer.
+     * 
+     * @param librarySource the source of the library whose dependencies are being recorded
+     * @param sources the sources that the library depends on
+     */
+    private void setDependencies(Source librarySource, Set<Source> sources) {
+      Set<Source> oldSources = dependencies.put(librarySource, sources);
+      if (oldSources != null) {
+        for (Source source : oldSources) {
+          SourceState state = sourceStates.get(source);
+          state.libraries.remove(librarySource);
+          if (state.libraries.isEmpty() && !sources.contains(source)) {
+            sourceStates.remove(source);
+          }
+        }
+      }
+      for (Source source : sources) {
+        SourceState state = sourceStates.get(source);
+        if (state == null) {
+          state = SourceState.forSource(source);
+          sourceStates.put(source, state);
+        }
+        state.libraries.add(librarySource);
+      }
+    }
+  }
+
   /**
    * The maximum number of sources for which AST structures should be kept in the cache.
    */
   private static final int MAX_CACHE_SIZE = 256;
 
+  /**
+   * The maximum number of contexts that are kept for reuse by later analyses.
+   */
+  private static final int MAX_WARM_CONTEXTS = 4;
+
   private static final HashMap<File, DirectoryBasedDartSdk> sdkMap = new HashMap<File, DirectoryBasedDartSdk>();
 
+  /**
+   * A table mapping the configurations used to analyze sources to the contexts that are reused by
+   * all of the analyses with that configuration. The contexts are kept in the order in which they
+   * were last used, and the least recently used context is disposed of when there are too many.
+   */
+  @SuppressWarnings("serial")
+  private static final Map<String, WarmContext> warmContextMap =
+      new LinkedHashMap<String, WarmContext>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, WarmContext> eldest) {
+      if (size() > MAX_WARM_CONTEXTS) {
+        eldest.getValue().context.dispose();
+        return true;
+      }
+      return false;
+    }
+  };
+
   /**
    * @return the new or cached instance of the {@link DartSdk} with the given directory.
    */
@@ -71,6 +395,12 @@ public class AnalyzerImpl {
 
   private DirectoryBasedDartSdk sdk;
 
+  /**
+   * The number of sources that were modified or removed since the last analysis in a reused
+   * context.
+   */
+  private int invalidatedSourceCount = 0;
+
   public AnalyzerImpl(AnalyzerOptions options) {
     this.options = options;
     this.sdk = getSdk(options.getDartSdkPath(), options.getUseDart2jsPaths());
@@ -92,22 +422,114 @@ public class AnalyzerImpl {
       throw new IllegalArgumentException("sourceFile cannot be null");
     }
 
-    // create options for context
-    AnalysisOptionsImpl contextOptions = new AnalysisOptionsImpl();
-    contextOptions.setCacheSize(MAX_CACHE_SIZE);
-    contextOptions.setHint(!options.getDisableHints());
+    // prepare Source
+    File absoluteFile = sourceFile.getAbsoluteFile();
+    UriKind uriKind = getUriKind(absoluteFile);
+    Source librarySource = new FileBasedSource(absoluteFile, uriKind);
+
+    if (options.getWarmContext()) {
+      // reuse the context, analyzing again only what has changed
+      WarmContext warmContext = getWarmContext(sourceFile);
+      invalidatedSourceCount = warmContext.invalidateChangedSources(librarySource);
+      return performAnalysis(warmContext.context, librarySource, absoluteFile, lineInfoMap, errors);
+    }
 
-    // prepare AnalysisContext
-    AnalysisContext context = AnalysisEngine.getInstance().createAnalysisContext();
-    context.setSourceFactory(createSourceFactory(sourceFile));
-    context.setAnalysisOptions(contextOptions);
+    AnalysisContext context = createContext(sourceFile);
+    return performAnalysis(context, librarySource, absoluteFile, lineInfoMap, errors);
+  }
 
-    // prepare Source
-    sourceFile = sourceFile.getAbsoluteFile();
-    UriKind uriKind = getUriKind(sourceFile);
-    Source librarySource = new FileBasedSource(sourceFile, uriKind);
+  /**
+   * Treats each of the {@code sourceFiles} as a top level library and analyzes them for warnings
+   * and errors. The libraries that are analyzed with the same configuration share a single context,
+   * so the libraries they have in common (including the SDK) are analyzed only once, and the
+   * context uses up to {@code workerCount} threads to scan, parse and resolve them. The errors in
+   * each library are reported to the given listener as soon as the library has been resolved, and
+   * the errors in sources that are shared by several libraries are reported only once. Files that
+   * contain parts rather than libraries are ignored.
+   * 
+   * @param sourceFiles the files to analyze
+   * @param workerCount the maximum number of threads used to analyze the libraries
+   * @param listener the listener to be notified as each library is analyzed
+   * @return the severity of the most severe error or warning
+   */
+  public ErrorSeverity analyzeLibraries(List<File> sourceFiles, int workerCount,
+      LibraryListener listener) throws AnalysisException {
+    // group the libraries by the configuration used to analyze them
+    LinkedHashMap<String, List<File>> filesByKey = new LinkedHashMap<String, List<File>>();
+    for (File sourceFile : sourceFiles) {
+      String key = getContextKey(sourceFile);
+      List<File> files = filesByKey.get(key);
+      if (files == null) {
+        files = new ArrayList<File>();
+        filesByKey.put(key, files);
+      }
+      files.add(sourceFile);
+    }
 
-    return performAnalysis(context, librarySource, sourceFile, lineInfoMap, errors);
+    ErrorSeverity severity = ErrorSeverity.NONE;
+    for (List<File> files : filesByKey.values()) {
+      AnalysisContext context = createContext(files.get(0));
+      AnalysisOptionsImpl contextOptions = new AnalysisOptionsImpl(context.getAnalysisOptions());
+      contextOptions.setParseThreadCount(workerCount);
+      contextOptions.setResolutionThreadCount(workerCount);
+      context.setAnalysisOptions(contextOptions);
+
+      // add the libraries to the context
+      LinkedHashMap<Source, File> pendingLibraries = new LinkedHashMap<Source, File>();
+      ChangeSet changeSet = new ChangeSet();
+      for (File sourceFile : files) {
+        File absoluteFile = sourceFile.getAbsoluteFile();
+        Source librarySource = new FileBasedSource(absoluteFile, getUriKind(absoluteFile));
+        changeSet.addedSource(librarySource);
+        pendingLibraries.put(librarySource, sourceFile);
+      }
+      context.applyChanges(changeSet);
+
+      // report each library as soon as it has been resolved, looking only at the libraries whose
+      // analysis results were changed by the task that was just performed
+      Set<Source> reportedSources = new HashSet<Source>();
+      while (!pendingLibraries.isEmpty()) {
+        AnalysisResult result = context.performAnalysisTask();
+        ChangeNotice[] notices = result.getChangeNotices();
+        if (notices == null) {
+          // analysis is complete, so report whatever has not yet been reported
+          for (Map.Entry<Source, File> entry : pendingLibraries.entrySet()) {
+            severity = severity.max(reportLibrary(
+                context,
+                entry.getKey(),
+                entry.getValue(),
+                reportedSources,
+                listener));
+          }
+          pendingLibraries.clear();
+          break;
+        }
+        for (ChangeNotice notice : notices) {
+          Source librarySource = notice.getSource();
+          File sourceFile = pendingLibraries.get(librarySource);
+          if (sourceFile != null && context.getLibraryElement(librarySource) != null) {
+            pendingLibraries.remove(librarySource);
+            severity = severity.max(reportLibrary(
+                context,
+                librarySource,
+                sourceFile,
+                reportedSources,
+                listener));
+          }
+        }
+      }
+    }
+    return severity;
+  }
+
+  /**
+   * Return the number of sources that were modified or removed since they were last analyzed in
+   * the reused context, or {@code 0} if the context is not being reused.
+   * 
+   * @return the number of sources that had to be analyzed again
+   */
+  public int getInvalidatedSourceCount() {
+    return invalidatedSourceCount;
   }
 
   protected ErrorSeverity getMaxErrorSeverity(List<AnalysisError> errors) {
@@ -204,6 +626,29 @@ public class AnalyzerImpl {
     }
   }
 
+  /**
+   * Create the analysis context in which the given file will be analyzed.
+   * 
+   * @param sourceFile the file to be analyzed
+   * @return the analysis context that was created
+   */
+  private AnalysisContext createContext(File sourceFile) {
+    // create options for context
+    AnalysisOptionsImpl contextOptions = new AnalysisOptionsImpl();
+    contextOptions.setCacheSize(MAX_CACHE_SIZE);
+    contextOptions.setCacheBudget(AnalysisOptionsImpl.getDefaultCacheBudget());
+    contextOptions.setHint(!options.getDisableHints());
+    // dependencies are only resolved, unless their warnings are to be shown
+    contextOptions.setGeneratePackageErrors(options.getShowPackageWarnings());
+    contextOptions.setUserSources(new UserSourceContainer(getUserSourceDirectory(sourceFile)));
+
+    // prepare AnalysisContext
+    AnalysisContext context = AnalysisEngine.getInstance().createAnalysisContext();
+    context.setSourceFactory(createSourceFactory(sourceFile));
+    context.setAnalysisOptions(contextOptions);
+    return context;
+  }
+
   /**
    * Create the source factory to be used in the analysis context.
    * 
@@ -266,6 +711,34 @@ public class AnalyzerImpl {
     }
   }
 
+  /**
+   * Return a key identifying the configuration of the context in which the given file is to be
+   * analyzed. The configuration consists of the SDK, the way {@code package:} URI's are resolved,
+   * whether hints are computed and which sources are owned by the user.
+   * 
+   * @param sourceFile the file to be analyzed
+   * @return a key identifying the configuration used to analyze the given file
+   */
+  private String getContextKey(File sourceFile) {
+    StringBuilder builder = new StringBuilder();
+    builder.append(sdk.getDirectory().getAbsolutePath());
+    builder.append(options.getUseDart2jsPaths() ? ";dart2js" : ";vm");
+    builder.append(options.getDisableHints() ? ";no-hints" : ";hints");
+    builder.append(options.getShowPackageWarnings() ? ";package-warnings" : ";no-package-warnings");
+    builder.append(";user-sources:");
+    builder.append(getUserSourceDirectory(sourceFile).getAbsolutePath());
+    if (options.getUsePackageMap()) {
+      builder.append(";package-map:");
+      builder.append(getPubDir(sourceFile).getAbsolutePath());
+    } else {
+      File packageDirectory = getPackageDirectory(sourceFile);
+      if (packageDirectory != null) {
+        builder.append(";package-root:");
+        builder.append(packageDirectory.getAbsolutePath());
+      }
+    }
+    return builder.toString();
+  }
   /**
    * Return the package directory to be used to resolve {@code package:} URI's.
    * 
@@ -325,6 +798,28 @@ public class AnalyzerImpl {
     return new File(System.getProperty("user.dir"));
   }
 
+  /**
+   * Return the directory containing the sources owned by the user. This is the directory containing
+   * the pubspec.yaml file of the given source file or, if there is no such file, the root of the
+   * file system, so that only the sources within {@code packages} directories are excluded.
+   * 
+   * @param sourceFile the file to be analyzed
+   * @return the directory containing the sources owned by the user
+   */
+  private File getUserSourceDirectory(File sourceFile) {
+    File dir = sourceFile.getAbsoluteFile().getParentFile();
+    while (dir != null) {
+      if (new File(dir, "pubspec.yaml").exists()) {
+        return dir;
+      }
+      if (dir.getParentFile() == null) {
+        return dir;
+      }
+      dir = dir.getParentFile();
+    }
+    return sourceFile.getAbsoluteFile();
+  }
+
   /**
    * Returns the {@link UriKind} for the given input file. Usually {@link UriKind#FILE_URI}, but if
    * the given file is located in the "lib" directory of the {@link #sdk}, then returns
@@ -348,4 +843,52 @@ public class AnalyzerImpl {
     return UriKind.FILE_URI;
   }
 
+  /**
+   * Return the context that is reused by all of the analyses with the same configuration as the
+   * analysis of the given file, creating it if necessary.
+   * 
+   * @param sourceFile the file to be analyzed
+   * @return the context in which the given file is to be analyzed
+   */
+  private WarmContext getWarmContext(File sourceFile) {
+    String key = getContextKey(sourceFile);
+    WarmContext warmContext = warmContextMap.get(key);
+    if (warmContext == null) {
+      warmContext = new WarmContext(createContext(sourceFile));
+      warmContextMap.put(key, warmContext);
+    }
+    return warmContext;
+  }
+
+  /**
+   * Report the errors in the given library that have not already been reported to the given
+   * listener.
+   * 
+   * @param context the context in which the library was analyzed
+   * @param librarySource the source of the library
+   * @param sourceFile the file from which the library was read
+   * @param reportedSources the sources whose errors have already been reported
+   * @param listener the listener to be notified of the errors in the library
+   * @return the severity of the most severe error or warning that was reported
+   */
+  private ErrorSeverity reportLibrary(AnalysisContext context, Source librarySource,
+      File sourceFile, Set<Source> reportedSources, LibraryListener listener)
+      throws AnalysisException {
+    if (context.computeKindOf(librarySource) == SourceKind.PART) {
+      return ErrorSeverity.NONE;
+    }
+    List<AnalysisError> errors = new ArrayList<AnalysisError>();
+    Map<Source, LineInfo> lineInfoMap = new HashMap<Source, LineInfo>();
+    LibraryElement library = context.computeLibraryElement(librarySource);
+    Set<Source> sources = getAllSources(library);
+    sources.removeAll(reportedSources);
+    reportedSources.addAll(sources);
+    getAllErrors(context, sources, errors, lineInfoMap);
+    filterOutTodos(errors);
+    if (options.getDisableHints()) {
+      filterOutHints(errors);
+    }
+    listener.libraryAnalyzed(sourceFile, errors, lineInfoMap);
+    return getMaxErrorSeverity(errors);
+  }
 }
@@ -13,11 +13,13 @@
  */
 package com.google.dart.command.analyze;
 
+import com.google.dart.command.analyze.AnalyzerImpl.LibraryListener;
 import com.google.dart.command.analyze.BatchRunner.BatchRunnerInvocation;
 import com.google.dart.engine.AnalysisEngine;
 import com.google.dart.engine.context.AnalysisException;
 import com.google.dart.engine.error.AnalysisError;
 import com.google.dart.engine.error.ErrorSeverity;
+import com.google.dart.engine.internal.cache.PartitionManager;
 import com.google.dart.engine.internal.context.PerformanceStatistics;
 import com.google.dart.engine.source.Source;
 import com.google.dart.engine.utilities.source.LineInfo;
@@ -26,6 +28,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -34,6 +37,36 @@ import java.util.Map;
  * Entry point for the Dart command line analyzer.
  */
 public class AnalyzerMain {
+  /**
+   * Instances of the class {@code LibraryReporter} print the errors in each library as soon as the
+   * library has been analyzed, and count the libraries and errors that were reported.
+   */
+  private static class LibraryReporter implements LibraryListener {
+    private final PrintStream out;
+
+    private final AnalyzerOptions options;
+
+    private int libraryCount = 0;
+
+    private int errorCount = 0;
+
+    public LibraryReporter(PrintStream out, AnalyzerOptions options) {
+      this.out = out;
+      this.options = options;
+    }
+
+    @Override
+    public void libraryAnalyzed(File sourceFile, List<AnalysisError> errors,
+        Map<Source, LineInfo> lineInfoMap) {
+      ErrorFormatter formatter = new ErrorFormatter(out, options, lineInfoMap);
+      formatter.startAnalysis(sourceFile.getPath());
+      formatter.formatErrors(errors);
+      out.flush();
+      libraryCount++;
+      errorCount += errors.size();
+    }
+  }
+
   /**
    * @return the version of the dart-analyzer tool
    */
@@ -53,6 +86,31 @@ public class AnalyzerMain {
     new AnalyzerMain().run(args);
   }
 
+  /**
+   * Add the Dart files in the given directory and its subdirectories to the given list. Hidden
+   * directories and {@code packages} directories are skipped.
+   * 
+   * @param directory the directory containing the files to be added
+   * @param sourceFiles the list to which the files are to be added
+   */
+  private static void addDartFiles(File directory, List<File> sourceFiles) {
+    File[] children = directory.listFiles();
+    if (children == null) {
+      return;
+    }
+    Arrays.sort(children);
+    for (File child : children) {
+      String name = child.getName();
+      if (child.isDirectory()) {
+        if (!name.startsWith(".") && !name.equals("packages")) {
+          addDartFiles(child, sourceFiles);
+        }
+      } else if (AnalysisEngine.isDartFileName(name)) {
+        sourceFiles.add(child);
+      }
+    }
+  }
+
   /**
    * Return the return code appropriate for the given severity.
    * 
@@ -112,6 +170,10 @@ public class AnalyzerMain {
       System.exit(1);
     }
 
+    // bound the AST structures of the SDK, which are shared by all of the contexts
+    AnalysisEngine.getInstance().getPartitionManager().setSdkCacheBudget(
+        PartitionManager.getDefaultSdkCacheBudget());
+
     try {
 
       if (options.shouldBatch()) {
@@ -128,6 +190,10 @@ public class AnalyzerMain {
               compilerOptions.setWarningsAreFatal(true);
             }
 
+            if (options.getWarmContext()) {
+              compilerOptions.setWarmContext(true);
+            }
+
             return runAnalyzer(compilerOptions);
           }
         });
@@ -178,6 +244,10 @@ public class AnalyzerMain {
       return ErrorSeverity.ERROR;
     }
 
+    if (options.getSourceFiles().size() > 1 || sourceFile.isDirectory()) {
+      return runParallelAnalyzer(options);
+    }
+
     // TODO: also support analyzing html files (via AnalysisEngine.isHtmlFileName())
     if (!AnalysisEngine.isDartFileName(sourceFile.getName())) {
       System.out.println(sourceFile + " is not a Dart file");
@@ -231,6 +301,62 @@ public class AnalyzerMain {
       showPerformanceResults(startTime, "");
     }
 
+    if (options.getWarmContext()) {
+      showWarmContextResults(startTime, analyzer.getInvalidatedSourceCount());
+    }
+
+    return status;
+  }
+
+  /**
+   * Invoke the analyzer to analyze all of the libraries in the files and directories passed on the
+   * command line. The errors in each library are printed as soon as the library has been analyzed,
+   * followed by the throughput of the whole analysis.
+   * 
+   * @param options parsed command line arguments
+   * @return the severity of the most severe error or warning
+   */
+  protected ErrorSeverity runParallelAnalyzer(AnalyzerOptions options) throws AnalysisException {
+    List<File> sourceFiles = new ArrayList<File>();
+    for (String path : options.getSourceFiles()) {
+      File file = new File(path);
+      if (file.isDirectory()) {
+        addDartFiles(file, sourceFiles);
+      } else if (!file.exists()) {
+        System.out.println("File not found: " + file);
+        System.out.println();
+        showUsage(System.out);
+        return ErrorSeverity.ERROR;
+      } else if (!AnalysisEngine.isDartFileName(file.getName())) {
+        System.out.println(file + " is not a Dart file");
+        System.out.println();
+        showUsage(System.out);
+        return ErrorSeverity.ERROR;
+      } else {
+        sourceFiles.add(file);
+      }
+    }
+
+    LibraryReporter reporter = new LibraryReporter(options.getMachineFormat() ? System.err
+        : System.out, options);
+
+    long startTime = System.currentTimeMillis();
+    AnalyzerImpl analyzer = newAnalyzer(options);
+    ErrorSeverity status = analyzer.analyzeLibraries(
+        sourceFiles,
+        options.getWorkerCount(),
+        reporter);
+
+    if (status.equals(ErrorSeverity.WARNING) && options.getWarningsAreFatal()) {
+      status = ErrorSeverity.ERROR;
+    }
+
+    if (options.getPerf()) {
+      showPerformanceResults(startTime, "");
+    }
+
+    showThroughputResults(startTime, reporter.libraryCount, reporter.errorCount);
+
     return status;
   }
 
@@ -260,8 +386,36 @@ public class AnalyzerMain {
     System.out.println("tota" + suffix + "l:" + totalTime);
   }
 
+  /**
+   * Print the number of libraries that were analyzed, the number of errors that were reported and
+   * the rate at which the libraries were analyzed.
+   * 
+   * @param startTime the time at which the analysis was started
+   * @param libraryCount the number of libraries that were analyzed
+   * @param errorCount the number of errors that were reported
+   */
+  protected void showThroughputResults(long startTime, int libraryCount, int errorCount) {
+    long totalTime = Math.max(1, System.currentTimeMillis() - startTime);
+    System.out.println("libraries:" + libraryCount);
+    System.out.println("errors:" + errorCount);
+    System.out.println("time:" + totalTime);
+    System.out.println("libraries-per-second:" + (libraryCount * 1000L / totalTime));
+  }
+
+  /**
+   * Print the time taken to analyze a single command line in a reused context, and the number of
+   * sources that had changed since the previous command line.
+   * 
+   * @param startTime the time at which the analysis was started
+   * @param invalidatedSourceCount the number of sources that had to be analyzed again
+   */
+  protected void showWarmContextResults(long startTime, int invalidatedSourceCount) {
+    System.out.println("warm-context:" + (System.currentTimeMillis() - startTime));
+    System.out.println("invalidated:" + invalidatedSourceCount);
+  }
+
   private void showUsage(PrintStream out) {
-    out.println("Usage: " + getProgramName() + " [<options>] <dart-script>");
+    out.println("Usage: " + getProgramName() + " [<options>] <dart-script-or-directory>...");
     out.println();
     out.println("Options:");
     AnalyzerOptions.printUsage(out);
@@ -194,8 +194,17 @@ public class AnalyzerOptions {
   // usage = "Print both cold and warm performance statistics") // don't show in help
   private boolean warmPerf = false;
 
+  @Option(name = "--warm-context")
+  // usage = "In batch mode, reuse the analysis context between command lines" // don't show in help
+  private boolean warmContext = false;
+
+  @Option(name = "--workers", //
+  metaVar = "<count>", //
+  usage = "The number of threads used when analyzing several libraries (default 1)")
+  private int workerCount = 1;
+
   @Argument
-  private final String sourceFile = null;
+  private List<String> sourceFiles = new ArrayList<String>();
 
   public AnalyzerOptions() {
     super();
@@ -256,10 +265,17 @@ public class AnalyzerOptions {
   }
 
   /**
-   * Returns the file passed to the analyzer.
+   * Returns the first file passed to the analyzer, or {@code null} if no files were passed.
    */
   public String getSourceFile() {
-    return sourceFile;
+    return sourceFiles.isEmpty() ? null : sourceFiles.get(0);
+  }
+
+  /**
+   * Returns the files and directories passed to the analyzer.
+   */
+  public List<String> getSourceFiles() {
+    return sourceFiles;
   }
 
   /**
@@ -289,6 +305,16 @@ public class AnalyzerOptions {
     return warmPerf;
   }
 
+  /**
+   * Return whether a long-lived analysis context should be reused by all of the command lines that
+   * are analyzed with the same configuration. This is only useful for batch mode.
+   * 
+   * @return whether the analysis context should be reused between command lines
+   */
+  public boolean getWarmContext() {
+    return warmContext;
+  }
+
   /**
    * Return whether warnings are reported as fatal errors. This is only useful for batch mode.
    * 
@@ -298,6 +324,16 @@ public class AnalyzerOptions {
     return warningsAreFatal;
   }
 
+  /**
+   * Return the number of threads used to analyze several libraries in a single invocation. If no
+   * valid count was given, a single thread is used.
+   * 
+   * @return the number of threads used to analyze several libraries
+   */
+  public int getWorkerCount() {
+    return Math.max(workerCount, 1);
+  }
+
   /**
    * Initialize the SDK path.
    */
@@ -330,6 +366,10 @@ public class AnalyzerOptions {
     this.dartSdkPath = dartSdkPath;
   }
 
+  public void setWarmContext(boolean value) {
+    this.warmContext = value;
+  }
+
   public void setWarningsAreFatal(boolean value) {
     this.warningsAreFatal = value;
   }
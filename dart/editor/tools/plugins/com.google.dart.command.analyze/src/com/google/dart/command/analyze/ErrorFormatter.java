@@ -183,8 +183,12 @@ public class ErrorFormatter {
   }
 
   public void startAnalysis() {
+    startAnalysis(options.getSourceFile());
+  }
+
+  public void startAnalysis(String sourcePath) {
     if (!options.getMachineFormat()) {
-      out.println("Analyzing " + options.getSourceFile() + "...");
+      out.println("Analyzing " + sourcePath + "...");
     }
   }
 
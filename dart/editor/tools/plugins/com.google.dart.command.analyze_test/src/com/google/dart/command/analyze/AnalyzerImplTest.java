@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.command.analyze;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import com.google.dart.engine.error.AnalysisError;
+import com.google.dart.engine.sdk.DirectoryBasedDartSdk;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.utilities.io.FileUtilities2;
+import com.google.dart.engine.utilities.source.LineInfo;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+public class AnalyzerImplTest extends TestCase {
+  public void test_analyze_warmContext_createdImport() throws Exception {
+    File directory = FileUtilities2.createTempDir("createdImport");
+    File libraryFile = new File(directory, "lib.dart");
+    Files.write("import 'b.dart';\nB b;\n", libraryFile, Charsets.UTF_8);
+    List<AnalysisError> errors = analyzeWarm(libraryFile);
+    assertFalse(errors.isEmpty());
+    // the missing import is created between two lines of a batch
+    Files.write("class B {}\n", new File(directory, "b.dart"), Charsets.UTF_8);
+    AnalyzerImpl analyzer = new AnalyzerImpl(createWarmOptions());
+    errors = new ArrayList<AnalysisError>();
+    analyzer.analyze(libraryFile, errors, new HashMap<Source, LineInfo>());
+    assertEquals(1, analyzer.getInvalidatedSourceCount());
+    assertEquals(0, errors.size());
+  }
+
+  public void test_analyze_warmContext_rewrittenWithSameStamp() throws Exception {
+    File directory = FileUtilities2.createTempDir("rewrittenWithSameStamp");
+    File libraryFile = new File(directory, "lib.dart");
+    Files.write("int x = 0;\n", libraryFile, Charsets.UTF_8);
+    long modificationStamp = libraryFile.lastModified();
+    assertEquals(0, analyzeWarm(libraryFile).size());
+    // the file is modified again within the granularity of its modification stamp
+    Files.write("int x = '';\n", libraryFile, Charsets.UTF_8);
+    assertTrue(libraryFile.setLastModified(modificationStamp));
+    assertEquals(1, analyzeWarm(libraryFile).size());
+  }
+
+  public void test_analyze_warmContext_unchanged() throws Exception {
+    File directory = FileUtilities2.createTempDir("unchanged");
+    File libraryFile = new File(directory, "lib.dart");
+    Files.write("library lib;\npart 'part.dart';\n", libraryFile, Charsets.UTF_8);
+    Files.write("part of lib;\nint x = '';\n", new File(directory, "part.dart"), Charsets.UTF_8);
+    assertFalse(analyzeWarm(libraryFile).isEmpty());
+    AnalyzerImpl analyzer = new AnalyzerImpl(createWarmOptions());
+    List<AnalysisError> errors = new ArrayList<AnalysisError>();
+    analyzer.analyze(libraryFile, errors, new HashMap<Source, LineInfo>());
+    assertEquals(0, analyzer.getInvalidatedSourceCount());
+    assertFalse(errors.isEmpty());
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    FileUtilities2.deleteTempDir();
+    super.tearDown();
+  }
+
+  private List<AnalysisError> analyzeWarm(File libraryFile) throws Exception {
+    List<AnalysisError> errors = new ArrayList<AnalysisError>();
+    new AnalyzerImpl(createWarmOptions()).analyze(
+        libraryFile,
+        errors,
+        new HashMap<Source, LineInfo>());
+    return errors;
+  }
+
+  private AnalyzerOptions createWarmOptions() {
+    AnalyzerOptions options = new AnalyzerOptions();
+    options.setDartSdkPath(DirectoryBasedDartSdk.getDefaultSdkDirectory());
+    options.setWarmContext(true);
+    return options;
+  }
+}
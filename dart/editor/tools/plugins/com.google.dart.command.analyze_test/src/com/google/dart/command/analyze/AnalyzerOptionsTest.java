@@ -58,6 +58,30 @@ public class AnalyzerOptionsTest extends TestCase {
     assertNotNull(options);
   }
 
+  public void test_getSourceFiles() {
+    AnalyzerOptions options = AnalyzerOptions.createFromArgs(new String[] {"a.dart", "lib"});
+    assertEquals("a.dart", options.getSourceFile());
+    assertEquals(2, options.getSourceFiles().size());
+    assertEquals("lib", options.getSourceFiles().get(1));
+  }
+
+  public void test_getWarmContext() {
+    AnalyzerOptions options = AnalyzerOptions.createFromArgs(new String[] {
+        "--batch", "--warm-context"});
+    assertTrue(options.shouldBatch());
+    assertTrue(options.getWarmContext());
+  }
+
+  public void test_getWorkerCount() {
+    AnalyzerOptions options = AnalyzerOptions.createFromArgs(new String[] {"--workers", "3"});
+    assertEquals(3, options.getWorkerCount());
+  }
+
+  public void test_getWorkerCount_default() {
+    AnalyzerOptions options = AnalyzerOptions.createFromArgs(new String[] {});
+    assertEquals(1, options.getWorkerCount());
+  }
+
   public void test_undocumentedFlags() throws Exception {
     ByteArrayOutputStream bytesOut = new ByteArrayOutputStream();
     PrintStream writer = new PrintStream(bytesOut);
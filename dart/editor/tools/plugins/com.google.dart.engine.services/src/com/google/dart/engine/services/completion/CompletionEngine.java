@@ -118,6 +118,8 @@ import com.google.dart.engine.element.VariableElement;
 import com.google.dart.engine.error.AnalysisError;
 import com.google.dart.engine.internal.context.InternalAnalysisContext;
 import com.google.dart.engine.internal.resolver.TypeProvider;
+import com.google.dart.engine.internal.scope.CandidateTable;
+import com.google.dart.engine.internal.scope.CompletionCandidateCache;
 import com.google.dart.engine.internal.type.DynamicTypeImpl;
 import com.google.dart.engine.scanner.Token;
 import com.google.dart.engine.scanner.TokenType;
@@ -143,15 +145,16 @@ import org.apache.commons.lang3.StringUtils;
 
 import java.io.File;
 import java.net.URI;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
 import java.util.regex.Pattern;
 
@@ -486,6 +489,21 @@ public class CompletionEngine {
       prefix = prefix.toLowerCase();
     }
 
+    /**
+     * @return the lower-case prefix of every name that matches this filter.
+     */
+    String getCandidatePrefix() {
+      if (pattern == null) {
+        return prefix;
+      }
+      // the pattern matches names that start with the characters before its first upper-case one
+      int end = Math.min(1, originalPrefix.length());
+      while (end < originalPrefix.length() && !Character.isUpperCase(originalPrefix.charAt(end))) {
+        end++;
+      }
+      return originalPrefix.substring(0, end).toLowerCase();
+    }
+
     /**
      * @return {@code true} if the given name starts with the same prefix as used for filter.
      */
@@ -2375,7 +2393,7 @@ public class CompletionEngine {
   private InterfaceType[] allSubtypes(final ClassElement classElement) {
     SearchEngine engine = context.getSearchEngine();
     SearchScope scope = SearchScopeFactory.createUniverseScope();
-    SearchFilter directSubsOnly = new SearchFilter() {
+    SearchFilter subclassesOnly = new SearchFilter() {
       @Override
       public boolean passes(SearchMatch match) {
         Element element = match.getElement();
@@ -2395,14 +2413,15 @@ public class CompletionEngine {
         return false;
       }
     };
-    List<SearchMatch> matches = engine.searchSubtypes(classElement, scope, directSubsOnly);
-    InterfaceType[] subtypes = new InterfaceType[matches.size()];
-    int i = 0;
+    List<SearchMatch> matches = engine.searchSubtypes(classElement, true, scope, subclassesOnly);
+    Set<ClassElement> subclasses = Sets.newLinkedHashSet();
     for (SearchMatch match : matches) {
-      Element element = match.getElement();
-      if (element instanceof ClassElement) {
-        subtypes[i++] = ((ClassElement) element).getType();
-      }
+      subclasses.add((ClassElement) match.getElement());
+    }
+    InterfaceType[] subtypes = new InterfaceType[subclasses.size()];
+    int i = 0;
+    for (ClassElement subclass : subclasses) {
+      subtypes[i++] = subclass.getType();
     }
     return subtypes;
   }
@@ -2508,15 +2527,15 @@ public class CompletionEngine {
     Set<LibraryElement> libraries = new HashSet<LibraryElement>();
     LibraryElement curLib = getCurrentLibrary();
     libraries.add(curLib);
-    List<LibraryElement> queue = new LinkedList<LibraryElement>();
+    Queue<LibraryElement> queue = new ArrayDeque<LibraryElement>();
     Collections.addAll(queue, curLib.getImportedLibraries());
     currentLibraryLister(queue, libraries);
     return libraries.toArray(new LibraryElement[libraries.size()]);
   }
 
-  private void currentLibraryLister(List<LibraryElement> queue, Set<LibraryElement> libraries) {
+  private void currentLibraryLister(Queue<LibraryElement> queue, Set<LibraryElement> libraries) {
     while (!queue.isEmpty()) {
-      LibraryElement sourceLib = queue.remove(0);
+      LibraryElement sourceLib = queue.remove();
       libraries.add(sourceLib);
       LibraryElement[] expLibs = sourceLib.getExportedLibraries();
       for (LibraryElement lib : expLibs) {
@@ -2577,18 +2596,25 @@ public class CompletionEngine {
   }
 
   private List<Element> findTopLevelElements(LibraryElement library, TopLevelNamesKind topKind) {
-    List<Element> elements = Lists.newArrayList();
+    AnalysisContext context = library.getContext();
+    CompletionCandidateCache cache;
+    if (context instanceof InternalAnalysisContext) {
+      cache = ((InternalAnalysisContext) context).getCompletionCandidateCache();
+    } else {
+      cache = new CompletionCandidateCache();
+    }
+    CandidateTable candidates;
     if (topKind == TopLevelNamesKind.DECLARED_AND_IMPORTS) {
-      elements.addAll(CorrectionUtils.getTopLevelElements(library));
-      for (ImportElement imp : library.getImports()) {
-        elements.addAll(CorrectionUtils.getImportNamespace(imp).values());
-      }
-      removeNotMatchingFilter(elements);
+      candidates = cache.getImportTable(library);
+    } else {
+      candidates = cache.getExportTable(library);
     }
-    if (topKind == TopLevelNamesKind.DECLARED_AND_EXPORTS) {
-      elements.addAll(CorrectionUtils.getExportNamespace(library).values());
-      removeNotMatchingFilter(elements);
+    if (filter == null) {
+      return candidates.getElements("");
     }
+    filter.makePattern();
+    List<Element> elements = candidates.getElements(filter.getCandidatePrefix());
+    filter.removeNotMatching(elements);
     return elements;
   }
 
@@ -3069,14 +3095,6 @@ public class CompletionEngine {
     requestor.accept(prop);
   }
 
-  private void removeNotMatchingFilter(List<Element> elements) {
-    if (filter == null) {
-      return;
-    }
-    filter.makePattern();
-    filter.removeNotMatching(elements);
-  }
-
   private void setParameterInfo(FunctionType functionType, CompletionProposal prop) {
     List<String> params = new ArrayList<String>();
     List<String> types = new ArrayList<String>();
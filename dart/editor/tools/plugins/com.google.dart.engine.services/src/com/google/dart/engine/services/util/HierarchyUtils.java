@@ -18,6 +18,7 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.dart.engine.context.AnalysisContext;
 import com.google.dart.engine.element.ClassElement;
 import com.google.dart.engine.element.ClassMemberElement;
 import com.google.dart.engine.element.CompilationUnitElement;
@@ -175,16 +176,24 @@ public class HierarchyUtils {
    * @return the {@link Set} with all direct and indirect sub {@link ClassElement}s of the given.
    */
   public static Set<ClassElement> getSubClasses(SearchEngine searchEngine, ClassElement seed) {
+    // ask SearchEngine for the whole hierarchy at once
+    Map<ClassElement, List<ClassElement>> hierarchy = searchEngine.searchSubtypeHierarchy(
+        seed,
+        null);
+    // the hierarchy crosses contexts, so walk it from "seed" through the classes in its context
+    AnalysisContext context = seed.getContext();
     Set<ClassElement> subClasses = Sets.newHashSet();
-    // prepare queue
-    LinkedList<ClassElement> subClassQueue = Lists.newLinkedList();
-    subClassQueue.add(seed);
-    // process queue
-    while (!subClassQueue.isEmpty()) {
-      ClassElement subClass = subClassQueue.removeFirst();
-      if (subClasses.add(subClass)) {
-        List<ClassElement> directSubClasses = getDirectSubClasses(searchEngine, subClass);
-        subClassQueue.addAll(directSubClasses);
+    LinkedList<ClassElement> queue = Lists.newLinkedList();
+    queue.add(seed);
+    while (!queue.isEmpty()) {
+      List<ClassElement> directSubClasses = hierarchy.get(queue.removeFirst());
+      if (directSubClasses == null) {
+        continue;
+      }
+      for (ClassElement subClass : directSubClasses) {
+        if (subClass.getContext() == context && subClasses.add(subClass)) {
+          queue.add(subClass);
+        }
       }
     }
     // we don't need "seed" itself
@@ -14,6 +14,9 @@
 
 package com.google.dart.engine.services.util;
 
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.dart.engine.context.AnalysisContext;
 import com.google.dart.engine.element.ClassElement;
 import com.google.dart.engine.element.ClassMemberElement;
 import com.google.dart.engine.element.CompilationUnitElement;
@@ -21,16 +24,26 @@ import com.google.dart.engine.element.ConstructorElement;
 import com.google.dart.engine.element.Element;
 import com.google.dart.engine.element.FieldElement;
 import com.google.dart.engine.element.MethodElement;
+import com.google.dart.engine.search.SearchEngine;
 import com.google.dart.engine.services.internal.correction.CorrectionUtils;
 import com.google.dart.engine.services.internal.refactoring.RefactoringImplTest;
 
 import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 public class HierarchyUtilsTest extends RefactoringImplTest {
+  private static ClassElement mockClass(AnalysisContext context) {
+    ClassElement element = mock(ClassElement.class);
+    when(element.getContext()).thenReturn(context);
+    return element;
+  }
+
   private static void removeObjectMembers(List<Element> members) {
     for (Iterator<Element> iter = members.iterator(); iter.hasNext();) {
       Element element = iter.next();
@@ -43,6 +56,7 @@ public class HierarchyUtilsTest extends RefactoringImplTest {
     }
   }
 
+
   public void test_getDirectMembers() throws Exception {
     indexTestUnit(
         "// filler filler filler filler filler filler filler filler filler filler",
@@ -283,6 +297,26 @@ public class HierarchyUtilsTest extends RefactoringImplTest {
     }
   }
 
+  public void test_getSubClasses_otherContext() throws Exception {
+    AnalysisContext contextA = mock(AnalysisContext.class);
+    AnalysisContext contextB = mock(AnalysisContext.class);
+    // A <- B (other context) <- C, and A <- D <- E
+    ClassElement classA = mockClass(contextA);
+    ClassElement classB = mockClass(contextB);
+    ClassElement classC = mockClass(contextA);
+    ClassElement classD = mockClass(contextA);
+    ClassElement classE = mockClass(contextA);
+    Map<ClassElement, List<ClassElement>> hierarchy = Maps.newHashMap();
+    hierarchy.put(classA, Lists.newArrayList(classB, classD));
+    hierarchy.put(classB, Lists.newArrayList(classC));
+    hierarchy.put(classD, Lists.newArrayList(classE));
+    SearchEngine engine = mock(SearchEngine.class);
+    when(engine.searchSubtypeHierarchy(classA, null)).thenReturn(hierarchy);
+    // C is a subclass of A only through B, which is not in the context of A
+    Set<ClassElement> subs = HierarchyUtils.getSubClasses(engine, classA);
+    assertThat(subs).containsOnly(classD, classE);
+  }
+
   public void test_getSuperClasses() throws Exception {
     parseTestUnit(
         "// filler filler filler filler filler filler filler filler filler filler",
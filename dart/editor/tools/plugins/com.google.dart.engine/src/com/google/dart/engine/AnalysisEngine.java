@@ -21,6 +21,11 @@ import com.google.dart.engine.utilities.instrumentation.Instrumentation;
 import com.google.dart.engine.utilities.io.FileUtilities;
 import com.google.dart.engine.utilities.logging.Logger;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * The unique instance of the class {@code AnalysisEngine} serves as the entry point for the
  * functionality provided by the analysis engine.
@@ -94,6 +99,12 @@ public final class AnalysisEngine {
    */
   private PartitionManager partitionManager = new PartitionManager();
 
+  /**
+   * The executor used to perform analysis tasks on background threads, or {@code null} if it has not
+   * yet been created.
+   */
+  private ExecutorService taskExecutor;
+
   /**
    * Prevent the creation of instances of this class.
    */
@@ -134,6 +145,30 @@ public final class AnalysisEngine {
     return partitionManager;
   }
 
+  /**
+   * Return the executor used by analysis contexts to perform analysis tasks on background threads.
+   * The threads are daemon threads that are created when needed and reused by later tasks, so the
+   * executor does not limit the number of tasks that run at the same time. Clients must limit the
+   * number of tasks they submit at the same time themselves.
+   * 
+   * @return the executor used to perform analysis tasks on background threads
+   */
+  public synchronized ExecutorService getTaskExecutor() {
+    if (taskExecutor == null) {
+      taskExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+          Thread thread = new Thread(runnable, "Analysis task " + threadCount.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    }
+    return taskExecutor;
+  }
+
   /**
    * Set the logger that should receive information about errors within the analysis engine to the
    * given logger.
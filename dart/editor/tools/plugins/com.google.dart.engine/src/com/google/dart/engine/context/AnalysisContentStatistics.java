@@ -45,6 +45,13 @@ public interface AnalysisContentStatistics {
    */
   public CacheRow[] getCacheRows();
 
+  /**
+   * Return the estimated number of bytes used by the AST structures in the cache.
+   * 
+   * @return the estimated number of bytes used by the AST structures in the cache
+   */
+  public long getEstimatedAstBytes();
+
   /**
    * Return the exceptions that caused some entries to have a state of {@link CacheState#ERROR}.
    * 
@@ -68,6 +68,15 @@ import java.util.List;
  * proposed future state, such as the state after a refactoring.
  */
 public interface AnalysisContext {
+  /**
+   * Add the given listener to the list of objects that are to be notified when the analysis
+   * results of this context change. The listener will be passed the same notices that are returned
+   * by {@link #performAnalysisTask()}, as soon as the task that produced them has completed.
+   * 
+   * @param listener the listener to be added
+   */
+  public void addListener(ChangeNoticeListener listener);
+
   /**
    * Apply the changes specified by the given change set to this context. Any analysis results that
    * have been invalidated by these changes will be removed.
@@ -541,6 +550,14 @@ public interface AnalysisContext {
    */
   public AnalysisResult performAnalysisTask();
 
+  /**
+   * Remove the given listener from the list of objects that are to be notified when the analysis
+   * results of this context change. Nothing will happen if the listener is not in the list.
+   * 
+   * @param listener the listener to be removed
+   */
+  public void removeListener(ChangeNoticeListener listener);
+
   /**
    * Parse and resolve a single source within the given context to produce a fully resolved AST.
    * <p>
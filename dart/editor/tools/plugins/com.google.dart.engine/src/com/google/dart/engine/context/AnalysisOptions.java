@@ -13,6 +13,8 @@
  */
 package com.google.dart.engine.context;
 
+import com.google.dart.engine.source.SourceContainer;
+
 /**
  * The interface {@code AnalysisOptions} defines the behavior of objects that provide access to a
  * set of analysis options used to control the behavior of an analysis context.
@@ -39,6 +41,15 @@ public interface AnalysisOptions {
    */
   public boolean getAnalyzePolymer();
 
+  /**
+   * Return the maximum estimated number of bytes that can be used by the AST structures kept in the
+   * cache, or {@code 0} if the AST structures are only limited by the {@link #getCacheSize() cache
+   * size}.
+   * 
+   * @return the maximum estimated number of bytes that can be used by AST structures in the cache
+   */
+  public long getCacheBudget();
+
   /**
    * Return the maximum number of sources for which AST structures should be kept in the cache.
    * 
@@ -53,6 +64,17 @@ public interface AnalysisOptions {
    */
   public boolean getDart2jsHint();
 
+  /**
+   * Return {@code true} if errors, warnings and hints should be generated during analysis for
+   * sources in the packages being depended on, that is, sources that are neither in the SDK nor
+   * owned by the user (see {@link #getUserSources()}). If {@code false}, such sources are only
+   * resolved, unless they are priority sources, and their errors are only generated when they are
+   * explicitly requested. The default value is {@code true}.
+   * 
+   * @return {@code true} if errors, warnings and hints should be generated for dependencies
+   */
+  public boolean getGeneratePackageErrors();
+
   /**
    * Return {@code true} if errors, warnings and hints should be generated for sources in the SDK.
    * The default value is {@code false}.
@@ -76,10 +98,38 @@ public interface AnalysisOptions {
    */
   public boolean getIncremental();
 
+  /**
+   * Return the maximum number of threads that can be used to scan and parse sources ahead of
+   * resolution. A value of {@code 1} causes sources to be scanned and parsed one at a time on the
+   * thread performing analysis.
+   * 
+   * @return the maximum number of threads that can be used to scan and parse sources
+   */
+  public int getParseThreadCount();
+
   /**
    * Return {@code true} if analysis is to parse comments.
    * 
    * @return {@code true} if analysis is to parse comments
    */
   public boolean getPreserveComments();
+
+  /**
+   * Return the maximum number of threads that can be used to resolve independent cycles of
+   * libraries at the same time. A value of {@code 1} causes libraries to be resolved one cycle at a
+   * time on the thread performing analysis.
+   * 
+   * @return the maximum number of threads that can be used to resolve libraries
+   */
+  public int getResolutionThreadCount();
+
+  /**
+   * Return the container of the sources that are owned by the user, or {@code null} if the sources
+   * owned by the user are taken to be those that are neither in the SDK nor referenced using a
+   * 'package:' URI. The sources that are not owned by the user are the dependencies whose errors
+   * are governed by {@link #getGeneratePackageErrors()}.
+   * 
+   * @return the container of the sources that are owned by the user
+   */
+  public SourceContainer getUserSources();
 }
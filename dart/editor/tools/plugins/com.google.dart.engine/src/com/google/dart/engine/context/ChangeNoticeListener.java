@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.context;
+
+/**
+ * The interface {@code ChangeNoticeListener} defines the behavior of objects that are notified of
+ * changes to the analysis results of an {@link AnalysisContext analysis context} as they are
+ * produced, rather than having to poll the context for errors and resolved units.
+ * 
+ * @coverage dart.engine
+ */
+public interface ChangeNoticeListener {
+  /**
+   * This method is invoked after a unit of analysis work has been performed, with the changes to
+   * the analysis results that were produced by that work. Each source appears in at most one of the
+   * notices, which describes all of the changes to the errors, hints and resolved units of that
+   * source since the previous invocation.
+   * <p>
+   * The method is invoked on the thread performing the analysis and without holding any of the
+   * locks of the context, so implementations are free to access the context, but should return
+   * quickly.
+   * 
+   * @param context the context whose analysis results changed
+   * @param notices the notices describing the changes to the analysis results (not empty)
+   */
+  public void resultsChanged(AnalysisContext context, ChangeNotice[] notices);
+}
@@ -101,6 +101,23 @@ public class AnalysisError {
    */
   private boolean isStaticOnly = false;
 
+  /**
+   * Initialize a newly created analysis error to be the same as the given error except that it is
+   * located the given number of characters further into the source.
+   * 
+   * @param error the error being copied
+   * @param delta the number of characters by which the location of the error is to be moved
+   */
+  protected AnalysisError(AnalysisError error, int delta) {
+    this.source = error.source;
+    this.offset = error.offset + delta;
+    this.length = error.length;
+    this.errorCode = error.errorCode;
+    this.message = error.message;
+    this.correction = error.correction;
+    this.isStaticOnly = error.isStaticOnly;
+  }
+
   /**
    * Initialize a newly created analysis error for the specified source. The error has no location
    * information.
@@ -137,6 +154,18 @@ public class AnalysisError {
     }
   }
 
+  /**
+   * Return a newly created error that is the same as this error except that it is located the given
+   * number of characters further into the source. This is used when text has been inserted into or
+   * removed from the source before this error without otherwise invalidating it.
+   * 
+   * @param delta the number of characters by which the location of the error is to be moved
+   * @return the error that was created
+   */
+  public AnalysisError createMovedCopy(int delta) {
+    return new AnalysisError(this, delta);
+  }
+
   @Override
   public boolean equals(Object obj) {
     if (obj == this) {
@@ -52,6 +52,23 @@ public class AnalysisErrorWithProperties extends AnalysisError {
     super(source, offset, length, errorCode, arguments);
   }
 
+  /**
+   * Initialize a newly created analysis error to be the same as the given error, including its
+   * properties, except that it is located the given number of characters further into the source.
+   * 
+   * @param error the error being copied
+   * @param delta the number of characters by which the location of the error is to be moved
+   */
+  private AnalysisErrorWithProperties(AnalysisErrorWithProperties error, int delta) {
+    super(error, delta);
+    propertyMap.putAll(error.propertyMap);
+  }
+
+  @Override
+  public AnalysisError createMovedCopy(int delta) {
+    return new AnalysisErrorWithProperties(this, delta);
+  }
+
   @Override
   public Object getProperty(ErrorProperty property) {
     return propertyMap.get(property);
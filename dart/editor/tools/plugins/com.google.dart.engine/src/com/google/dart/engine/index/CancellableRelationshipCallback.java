@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.index;
+
+/**
+ * The interface <code>CancellableRelationshipCallback</code> defines the behavior of relationship
+ * callbacks whose results might no longer be needed by the time the query is performed. A query
+ * whose callback has been cancelled is discarded without accessing the index store and without
+ * invoking the callback.
+ * 
+ * @coverage dart.engine.index
+ */
+public interface CancellableRelationshipCallback extends RelationshipCallback {
+  /**
+   * Return {@code true} if the results of the query are no longer needed.
+   * 
+   * @return {@code true} if the results of the query are no longer needed
+   */
+  public boolean isCancelled();
+}
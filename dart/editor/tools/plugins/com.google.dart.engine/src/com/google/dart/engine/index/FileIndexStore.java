@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.index;
+
+import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.utilities.translation.DartOmit;
+
+/**
+ * {@link IndexStore} which keeps relationships in files, so that only a small amount of information
+ * about them is kept in memory and the index does not need to be rebuilt when the store is
+ * re-created.
+ * 
+ * @coverage dart.engine.index
+ */
+@DartOmit
+public interface FileIndexStore extends IndexStore {
+  /**
+   * Associate the given name with the given {@link AnalysisContext}. The relationships recorded for
+   * a named context are kept after the store is discarded, and are restored by the first store that
+   * is given the same name for a context. Relationships in sources that have been modified or
+   * removed since they were recorded are not restored. The relationships recorded for contexts that
+   * were not given a name are removed when the store is re-created.
+   * <p>
+   * The name should be given before any of the sources in the context are indexed, and after the
+   * {@link com.google.dart.engine.source.SourceFactory SourceFactory} of the context has been set.
+   * 
+   * @param context the {@link AnalysisContext} being named
+   * @param name the name that identifies the context across sessions
+   */
+  void setContextName(AnalysisContext context, String name);
+}
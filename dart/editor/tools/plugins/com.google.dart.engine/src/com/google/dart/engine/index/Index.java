@@ -15,6 +15,7 @@ package com.google.dart.engine.index;
 
 import com.google.dart.engine.ast.CompilationUnit;
 import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.element.ClassElement;
 import com.google.dart.engine.element.Element;
 import com.google.dart.engine.html.ast.HtmlUnit;
 import com.google.dart.engine.source.Source;
@@ -47,11 +48,41 @@ public interface Index {
    */
   void getRelationships(Element element, Relationship relationship, RelationshipCallback callback);
 
+  /**
+   * Asynchronously invoke the given callback with an array containing the locations of the elements
+   * that have the given relationship with the given element and whose names match the given
+   * pattern. This is used to find declarations by name without looking at every declaration.
+   * 
+   * @param element the element that has the relationship with the locations to be returned
+   * @param relationship the relationship between the given element and the locations to be returned
+   * @param pattern the pattern that the names of the elements of the returned locations must match
+   * @param camelCase {@code true} if the pattern is a camel-case pattern, or {@code false} if it is
+   *          a prefix that the names must start with, ignoring case
+   * @param callback the callback that will be invoked when the locations are found
+   */
+  void getRelationships(Element element, Relationship relationship, String pattern,
+      boolean camelCase, RelationshipCallback callback);
+
   /**
    * Answer index statistics.
    */
   String getStatistics();
 
+  /**
+   * Asynchronously invoke the given callback with the locations at which the subtypes of the given
+   * type extend, mix in or implement a supertype. The callback is invoked once for each of the
+   * is-extended-by, is-mixed-in-by and is-implemented-by relationships. If the query is not
+   * transitive, only the direct subtypes of the given type are found. Otherwise the subtypes of the
+   * found subtypes are also found, so that the whole hierarchy below the given type is returned in
+   * a single query.
+   * 
+   * @param type the type whose subtypes are to be found
+   * @param transitive {@code true} if the indirect subtypes should be found along with the direct
+   *          subtypes
+   * @param callback the callback that will be invoked when the locations are found
+   */
+  void getSubtypes(ClassElement type, boolean transitive, RelationshipCallback callback);
+
   /**
    * Asynchronously process the given {@link HtmlUnit} in order to record the relationships.
    * 
@@ -13,12 +13,16 @@
  */
 package com.google.dart.engine.index;
 
+import com.google.dart.engine.internal.index.FileIndexStoreImpl;
 import com.google.dart.engine.internal.index.IndexImpl;
 import com.google.dart.engine.internal.index.MemoryIndexStoreImpl;
+import com.google.dart.engine.internal.index.operation.ConcurrentOperationProcessor;
 import com.google.dart.engine.internal.index.operation.OperationProcessor;
 import com.google.dart.engine.internal.index.operation.OperationQueue;
 import com.google.dart.engine.utilities.translation.DartOmit;
 
+import java.io.File;
+
 /**
  * Factory for {@link Index} and {@link IndexStore}.
  * 
@@ -26,6 +30,14 @@ import com.google.dart.engine.utilities.translation.DartOmit;
  */
 @DartOmit
 public class IndexFactory {
+  /**
+   * @return the new instance of {@link FileIndexStore} which keeps relationships in the given
+   *         directory.
+   */
+  public static FileIndexStore newFileIndexStore(File directory) {
+    return new FileIndexStoreImpl(directory);
+  }
+
   /**
    * @return the new instance of {@link Index} which uses given {@link IndexStore}.
    */
@@ -35,6 +47,18 @@ public class IndexFactory {
     return new IndexImpl(store, queue, processor);
   }
 
+  /**
+   * @return the new instance of {@link Index} which uses given {@link IndexStore} and indexes up to
+   *         the given number of units concurrently.
+   */
+  public static Index newIndex(IndexStore store, int threadCount) {
+    OperationQueue queue = new OperationQueue();
+    OperationProcessor processor = threadCount > 1 ? new ConcurrentOperationProcessor(
+        queue,
+        threadCount) : new OperationProcessor(queue);
+    return new IndexImpl(store, queue, processor);
+  }
+
   /**
    * @return the new instance of {@link MemoryIndexStore}.
    */
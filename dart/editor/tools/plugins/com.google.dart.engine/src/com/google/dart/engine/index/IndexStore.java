@@ -51,6 +51,13 @@ public interface IndexStore {
    */
   boolean aboutToIndexHtml(AnalysisContext context, HtmlElement htmlElement);
 
+  /**
+   * Notifies the index store that all of the relationships for the unit or {@link HtmlElement}
+   * passed to the most recent invocation of {@link #aboutToIndexDart} or {@link #aboutToIndexHtml}
+   * have been recorded.
+   */
+  void doneIndex();
+
   /**
    * Return the locations of the elements that have the given relationship with the given element.
    * For example, if the element represents a method and the relationship is the is-referenced-by
@@ -64,6 +71,23 @@ public interface IndexStore {
    */
   Location[] getRelationships(Element element, Relationship relationship);
 
+  /**
+   * Return the locations of the elements that have the given relationship with the given element
+   * and whose names match the given pattern. This is used to find declarations by name, and stores
+   * are expected to answer such queries without looking at every location with the relationship.
+   * 
+   * @param element the the element that has the relationship with the locations to be returned
+   * @param relationship the {@link Relationship} between the given element and the locations to be
+   *          returned
+   * @param pattern the pattern that the names of the elements of the returned locations must match
+   * @param camelCase {@code true} if the pattern is a camel-case pattern, or {@code false} if it is
+   *          a prefix that the names must start with, ignoring case
+   * @return the locations that have the given relationship with the given element and whose names
+   *         match the given pattern
+   */
+  Location[] getRelationships(Element element, Relationship relationship, String pattern,
+      boolean camelCase);
+
   /**
    * Answer index statistics.
    */
@@ -49,6 +49,7 @@ import com.google.dart.engine.ast.VariableDeclaration;
 import com.google.dart.engine.ast.VariableDeclarationList;
 import com.google.dart.engine.ast.visitor.RecursiveAstVisitor;
 import com.google.dart.engine.ast.visitor.UnifyingAstVisitor;
+import com.google.dart.engine.element.ClassElement;
 import com.google.dart.engine.element.ConstructorElement;
 import com.google.dart.engine.element.FieldElement;
 import com.google.dart.engine.element.ParameterElement;
@@ -135,6 +136,33 @@ public class ElementBuilder extends RecursiveAstVisitor<Void> {
     currentHolder = initialHolder;
   }
 
+  /**
+   * Build the elements defined within the given function body, adding them to the holder with which
+   * this builder was created. This is used when the body of an executable has been modified and the
+   * elements defined by the enclosing declarations do not need to be rebuilt.
+   * 
+   * @param body the function body whose elements are to be built
+   * @param enclosingClass the class containing the function body, or {@code null} if the body is
+   *          not contained in a class
+   */
+  public void buildElementsInBody(FunctionBody body, ClassElement enclosingClass) {
+    boolean wasInFunction = inFunction;
+    inFunction = true;
+    functionTypesToFix = enclosingClass == null ? null : new ArrayList<FunctionTypeImpl>();
+    try {
+      body.accept(this);
+      if (enclosingClass != null) {
+        Type[] typeArguments = enclosingClass.getType().getTypeArguments();
+        for (FunctionTypeImpl functionType : functionTypesToFix) {
+          functionType.setTypeArguments(typeArguments);
+        }
+      }
+    } finally {
+      functionTypesToFix = null;
+      inFunction = wasInFunction;
+    }
+  }
+
   @Override
   public Void visitBlock(Block node) {
     boolean wasInField = inFieldContext;
@@ -17,11 +17,18 @@ import com.google.dart.engine.source.Source;
 import com.google.dart.engine.utilities.collection.MapIterator;
 import com.google.dart.engine.utilities.collection.MultipleMapIterator;
 
+import java.util.ArrayList;
 import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Instances of the class {@code AnalysisCache} implement an LRU cache of information related to
  * analysis.
+ * <p>
+ * The cache does not synchronize access to its partitions beyond the locking performed by each
+ * individual partition. Clients that perform compound operations on entries in a
+ * {@link CachePartition#isShared() shared} partition, or that iterate over the cache, must first
+ * acquire the locks returned by {@link #getSharedLocks()} or {@link #getSharedLocks(Source)}.
  */
 public class AnalysisCache {
   /**
@@ -29,6 +36,23 @@ public class AnalysisCache {
    */
   private CachePartition[] partitions;
 
+  /**
+   * An array containing the locks of the partitions that are shared with other caches, in the order
+   * in which they must be acquired.
+   */
+  private ReentrantLock[] sharedLocks;
+
+  /**
+   * An array parallel to {@link #partitions} containing, for each partition, the locks that must be
+   * acquired in order to perform a compound operation on the entries in that partition.
+   */
+  private ReentrantLock[][] partitionLocks;
+
+  /**
+   * An empty array of locks.
+   */
+  private static final ReentrantLock[] NO_LOCKS = new ReentrantLock[0];
+
   /**
    * Initialize a newly created cache to have the given partitions. The partitions will be searched
    * in the order in which they appear in the array, so the most specific partition (usually an
@@ -39,6 +63,19 @@ public class AnalysisCache {
    */
   public AnalysisCache(CachePartition[] partitions) {
     this.partitions = partitions;
+    int count = partitions.length;
+    ArrayList<ReentrantLock> locks = new ArrayList<ReentrantLock>(count);
+    partitionLocks = new ReentrantLock[count][];
+    for (int i = 0; i < count; i++) {
+      CachePartition partition = partitions[i];
+      if (partition.isShared()) {
+        locks.add(partition.getLock());
+        partitionLocks[i] = new ReentrantLock[] {partition.getLock()};
+      } else {
+        partitionLocks[i] = NO_LOCKS;
+      }
+    }
+    sharedLocks = locks.toArray(new ReentrantLock[locks.size()]);
   }
 
   /**
@@ -72,6 +109,20 @@ public class AnalysisCache {
     return null;
   }
 
+  /**
+   * Return the estimated number of bytes used by the AST structures kept in all of the partitions
+   * of this cache.
+   * 
+   * @return the estimated number of bytes used by the AST structures kept in this cache
+   */
+  public long getAstBytes() {
+    long astBytes = 0L;
+    for (CachePartition partition : partitions) {
+      astBytes += partition.getAstBytes();
+    }
+    return astBytes;
+  }
+
   /**
    * Return the number of entries in this cache that have an AST associated with them.
    * 
@@ -82,7 +133,37 @@ public class AnalysisCache {
   }
 
   /**
-   * Return an iterator returning all of the map entries mapping sources to cache entries.
+   * Return the locks of all of the partitions in this cache that are shared with other caches. The
+   * locks must be held while iterating over this cache or while performing compound operations on
+   * entries in more than one partition.
+   * 
+   * @return the locks of all of the shared partitions in this cache
+   */
+  public ReentrantLock[] getSharedLocks() {
+    return sharedLocks;
+  }
+
+  /**
+   * Return the locks that must be held while performing compound operations on the entry
+   * associated with the given source. The array will be empty if the source is not in a partition
+   * that is shared with other caches.
+   * 
+   * @param source the source whose entry is to be accessed
+   * @return the locks that must be held while accessing the entry for the source
+   */
+  public ReentrantLock[] getSharedLocks(Source source) {
+    int count = partitions.length;
+    for (int i = 0; i < count; i++) {
+      if (partitions[i].contains(source)) {
+        return partitionLocks[i];
+      }
+    }
+    return NO_LOCKS;
+  }
+
+  /**
+   * Return an iterator returning all of the map entries mapping sources to cache entries. The
+   * iterator can only be used while holding the locks returned by {@link #getSharedLocks()}.
    * 
    * @return an iterator returning all of the map entries mapping sources to cache entries
    */
@@ -157,6 +238,24 @@ public class AnalysisCache {
     return size;
   }
 
+  /**
+   * Return an iterator returning all of the map entries mapping sources to cache entries at the
+   * time this method was invoked. Each partition is copied while holding only its own lock, so the
+   * iterator can be used without holding the locks returned by {@link #getSharedLocks()}, but will
+   * not reflect changes made to the cache after it was created.
+   * 
+   * @return an iterator returning a snapshot of the map entries mapping sources to cache entries
+   */
+  @SuppressWarnings("unchecked")
+  public MapIterator<Source, SourceEntry> snapshotIterator() {
+    int count = partitions.length;
+    Map<Source, SourceEntry>[] maps = new Map[count];
+    for (int i = 0; i < count; i++) {
+      maps[i] = partitions[i].getMapSnapshot();
+    }
+    return new MultipleMapIterator<Source, SourceEntry>(maps);
+  }
+
   /**
    * Record that the AST associated with the given source was just stored to the cache.
    * 
@@ -14,19 +14,126 @@
 package com.google.dart.engine.internal.cache;
 
 import com.google.dart.engine.AnalysisEngine;
+import com.google.dart.engine.ast.CompilationUnit;
+import com.google.dart.engine.html.ast.HtmlUnit;
 import com.google.dart.engine.source.Source;
 import com.google.dart.engine.utilities.collection.MapIterator;
 import com.google.dart.engine.utilities.collection.SingleMapIterator;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Instances of the class {@code CachePartition} implement a single partition in an LRU cache of
  * information related to analysis.
+ * <p>
+ * Each operation on a partition is performed while holding the partition's {@link #getLock() lock},
+ * which makes it safe for a partition to be shared by multiple analysis contexts. Clients that need
+ * to perform several operations atomically (such as reading an entry and then replacing it with a
+ * modified copy) must hold the lock for the duration of those operations.
  */
 public abstract class CachePartition {
+  /**
+   * Instances of the class {@code AstEstimate} record the estimated number of bytes used by a
+   * single AST structure.
+   */
+  private static class AstEstimate {
+    /**
+     * The AST structure whose size was estimated.
+     */
+    private final Object ast;
+
+    /**
+     * The estimated number of bytes used by the AST structure.
+     */
+    private final long bytes;
+
+    /**
+     * Initialize a newly created estimate.
+     * 
+     * @param ast the AST structure whose size was estimated
+     * @param bytes the estimated number of bytes used by the AST structure
+     */
+    public AstEstimate(Object ast, long bytes) {
+      this.ast = ast;
+      this.bytes = bytes;
+    }
+  }
+
+  /**
+   * Instances of the class {@code AstUse} record when the AST structure of a source was last used,
+   * and the retention priority the AST structure was last known to have.
+   */
+  private static class AstUse {
+    /**
+     * The value of {@link CachePartition#useCount} when the AST structure was last used.
+     */
+    private long stamp;
+
+    /**
+     * The retention priority the AST structure was last known to have.
+     */
+    private RetentionPriority priority = RetentionPriority.LOW;
+
+    /**
+     * Initialize a newly created use with the given stamp.
+     * 
+     * @param stamp the value of the use count when the AST structure was used
+     */
+    public AstUse(long stamp) {
+      this.stamp = stamp;
+    }
+  }
+
+  /**
+   * The estimated number of bytes retained for each character of source in an AST structure. This
+   * is an average that is intended to account for the tokens scanned from the source, the AST nodes
+   * built from those tokens and the elements and types associated with those nodes by resolution,
+   * none of which are counted individually.
+   */
+  public static final long ESTIMATED_BYTES_PER_CHARACTER = 32L;
+
+  /**
+   * Return the estimated number of bytes used by the given AST structure, or {@code 0} if the AST
+   * structure is {@code null}. The estimate is a character-length approximation: the number of
+   * characters spanned by the structure multiplied by {@link #ESTIMATED_BYTES_PER_CHARACTER}. The
+   * tokens and nodes of the structure are not counted, because that would require walking the
+   * whole structure while holding the lock for the partition.
+   * 
+   * @param unit the AST structure whose size is to be estimated
+   * @return the estimated number of bytes used by the given AST structure
+   */
+  public static long estimateAstBytes(CompilationUnit unit) {
+    if (unit == null) {
+      return 0L;
+    }
+    return Math.max(unit.getLength(), 0) * ESTIMATED_BYTES_PER_CHARACTER;
+  }
+
+  /**
+   * Return the estimated number of bytes used by the given AST structure, or {@code 0} if the AST
+   * structure is {@code null}. The estimate is a character-length approximation: the number of
+   * characters spanned by the structure multiplied by {@link #ESTIMATED_BYTES_PER_CHARACTER}. The
+   * tokens and nodes of the structure are not counted, because that would require walking the
+   * whole structure while holding the lock for the partition.
+   * 
+   * @param unit the AST structure whose size is to be estimated
+   * @return the estimated number of bytes used by the given AST structure
+   */
+  public static long estimateAstBytes(HtmlUnit unit) {
+    if (unit == null) {
+      return 0L;
+    }
+    return Math.max(unit.getLength(), 0) * ESTIMATED_BYTES_PER_CHARACTER;
+  }
+
   /**
    * A table mapping the sources known to the context to the information known about the source.
    */
@@ -37,17 +144,57 @@ public abstract class CachePartition {
    */
   private int maxCacheSize;
 
+  /**
+   * The maximum estimated number of bytes that can be used by the AST structures kept in the cache,
+   * or {@code 0} if the AST structures are only limited by {@link #maxCacheSize}.
+   */
+  private long maxAstBytes = 0L;
+
+  /**
+   * A table mapping the sources in {@link #recentlyUsed} to the estimated size of their AST
+   * structures.
+   */
+  private final HashMap<Source, AstEstimate> astEstimates = new HashMap<Source, AstEstimate>();
+
+  /**
+   * The sum of the estimated sizes in {@link #astEstimates}.
+   */
+  private long astBytes = 0L;
+
   /**
    * The policy used to determine which pieces of data to remove from the cache.
    */
   private CacheRetentionPolicy retentionPolicy;
 
   /**
-   * A list containing the most recently accessed sources with the most recently used at the end of
-   * the list. When more sources are added than the maximum allowed then the least recently used
-   * source will be removed and will have it's cached AST structure flushed.
+   * A table mapping the most recently accessed sources to a record of when they were last used.
+   * When more sources are added than the maximum allowed then the least recently used source whose
+   * AST structure has the lowest retention priority will be removed and will have it's cached AST
+   * structure flushed.
+   */
+  private HashMap<Source, AstUse> recentlyUsed;
+
+  /**
+   * A table mapping each retention priority to the sources in {@link #recentlyUsed} that were last
+   * known to have that priority, in the order in which they were last used, so that the least
+   * recently used source of each priority can be found, and a source can be moved to the end when
+   * it is used, in constant time. Because priorities can increase without the partition being
+   * notified, the priority of a source is checked again before its AST structure is flushed. A
+   * decrease in priority is only noticed when {@link #updateRetainedPriorities()} is invoked.
+   */
+  private final EnumMap<RetentionPriority, LinkedHashMap<Source, AstUse>> priorityQueues = new EnumMap<RetentionPriority, LinkedHashMap<Source, AstUse>>(
+      RetentionPriority.class);
+
+  /**
+   * The number of times an AST structure has been used, used to stamp the entries in
+   * {@link #recentlyUsed}.
+   */
+  private long useCount = 0L;
+
+  /**
+   * The lock used to synchronize access to the state of this partition.
    */
-  private ArrayList<Source> recentlyUsed;
+  private final ReentrantLock lock = new ReentrantLock();
 
   /**
    * Initialize a newly created cache to maintain at most the given number of AST structures in the
@@ -61,7 +208,10 @@ public abstract class CachePartition {
   public CachePartition(int maxCacheSize, CacheRetentionPolicy retentionPolicy) {
     this.maxCacheSize = maxCacheSize;
     this.retentionPolicy = retentionPolicy;
-    recentlyUsed = new ArrayList<Source>(maxCacheSize);
+    recentlyUsed = new HashMap<Source, AstUse>();
+    for (RetentionPriority priority : RetentionPriority.values()) {
+      priorityQueues.put(priority, new LinkedHashMap<Source, AstUse>());
+    }
   }
 
   /**
@@ -70,16 +220,29 @@ public abstract class CachePartition {
    * @param source the source whose AST was accessed
    */
   public void accessedAst(Source source) {
-    if (recentlyUsed.remove(source)) {
-      recentlyUsed.add(source);
-      return;
-    }
-    while (recentlyUsed.size() >= maxCacheSize) {
-      if (!flushAstFromCache()) {
-        break;
+    lock.lock();
+    try {
+      AstUse use = recentlyUsed.get(source);
+      if (use != null) {
+        LinkedHashMap<Source, AstUse> queue = priorityQueues.get(use.priority);
+        queue.remove(source);
+        use.stamp = useCount++;
+        queue.put(source, use);
+        return;
+      }
+      while (recentlyUsed.size() >= maxCacheSize) {
+        if (!flushAstFromCache()) {
+          break;
+        }
+      }
+      addRecentlyUsed(source);
+      SourceEntry sourceEntry = sourceMap.get(source);
+      if (sourceEntry != null && updateAstEstimate(source, sourceEntry)) {
+        flushAstsOverBudget(source);
       }
+    } finally {
+      lock.unlock();
     }
-    recentlyUsed.add(source);
   }
 
   /**
@@ -97,7 +260,26 @@ public abstract class CachePartition {
    * @return the entry associated with the given source
    */
   public SourceEntry get(Source source) {
-    return sourceMap.get(source);
+    lock.lock();
+    try {
+      return sourceMap.get(source);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Return the estimated number of bytes used by the AST structures kept in this partition.
+   * 
+   * @return the estimated number of bytes used by the AST structures kept in this partition
+   */
+  public long getAstBytes() {
+    lock.lock();
+    try {
+      return astBytes;
+    } finally {
+      lock.unlock();
+    }
   }
 
   /**
@@ -106,22 +288,49 @@ public abstract class CachePartition {
    * @return the number of entries in this partition that have an AST associated with them
    */
   public int getAstSize() {
-    int astSize = 0;
-    int count = recentlyUsed.size();
-    for (int i = 0; i < count; i++) {
-      Source source = recentlyUsed.get(i);
-      SourceEntry sourceEntry = sourceMap.get(source);
-      if (sourceEntry instanceof DartEntry) {
-        if (((DartEntry) sourceEntry).getAnyParsedCompilationUnit() != null) {
-          astSize++;
-        }
-      } else if (sourceEntry instanceof HtmlEntry) {
-        if (((HtmlEntry) sourceEntry).getAnyParsedUnit() != null) {
-          astSize++;
+    lock.lock();
+    try {
+      int astSize = 0;
+      for (Source source : recentlyUsed.keySet()) {
+        SourceEntry sourceEntry = sourceMap.get(source);
+        if (sourceEntry instanceof DartEntry) {
+          if (((DartEntry) sourceEntry).getAnyParsedCompilationUnit() != null) {
+            astSize++;
+          }
+        } else if (sourceEntry instanceof HtmlEntry) {
+          if (((HtmlEntry) sourceEntry).getAnyParsedUnit() != null) {
+            astSize++;
+          }
         }
       }
+      return astSize;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Return the maximum estimated number of bytes that can be used by the AST structures kept in
+   * this partition, or {@code 0} if AST structures are only limited by the maximum cache size.
+   * 
+   * @return the maximum estimated number of bytes that can be used by AST structures
+   */
+  public long getMaxAstBytes() {
+    lock.lock();
+    try {
+      return maxAstBytes;
+    } finally {
+      lock.unlock();
     }
-    return astSize;
+  }
+
+  /**
+   * Return the lock used to synchronize access to the state of this partition.
+   * 
+   * @return the lock used to synchronize access to the state of this partition
+   */
+  public ReentrantLock getLock() {
+    return lock;
   }
 
   /**
@@ -129,7 +338,8 @@ public abstract class CachePartition {
    * source.
    * <p>
    * <b>Note:</b> This method is only visible for use by {@link AnalysisCache} and should not be
-   * used for any other purpose.
+   * used for any other purpose. The returned table can only be accessed while holding the
+   * {@link #getLock() lock} for this partition.
    * 
    * @return a table mapping the sources known to the context to the information known about the
    *         source
@@ -139,7 +349,36 @@ public abstract class CachePartition {
   }
 
   /**
-   * Return an iterator returning all of the map entries mapping sources to cache entries.
+   * Return a copy of the table mapping the sources known to the context to the information known
+   * about the source. The lock for this partition is only held while the table is being copied, so
+   * the copy can be accessed without holding it.
+   * 
+   * @return a copy of the table mapping the sources known to the context to the information known
+   *         about the source
+   */
+  public Map<Source, SourceEntry> getMapSnapshot() {
+    lock.lock();
+    try {
+      return new HashMap<Source, SourceEntry>(sourceMap);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Return {@code true} if this partition can be shared by multiple analysis contexts, in which
+   * case the contexts must hold the {@link #getLock() lock} for this partition while performing
+   * compound operations on its entries.
+   * 
+   * @return {@code true} if this partition can be shared by multiple analysis contexts
+   */
+  public boolean isShared() {
+    return false;
+  }
+
+  /**
+   * Return an iterator returning all of the map entries mapping sources to cache entries. The
+   * iterator can only be used while holding the {@link #getLock() lock} for this partition.
    * 
    * @return an iterator returning all of the map entries mapping sources to cache entries
    */
@@ -154,8 +393,16 @@ public abstract class CachePartition {
    * @param entry the entry to be associated with the source
    */
   public void put(Source source, SourceEntry entry) {
-    ((SourceEntryImpl) entry).fixExceptionState();
-    sourceMap.put(source, entry);
+    lock.lock();
+    try {
+      ((SourceEntryImpl) entry).fixExceptionState();
+      sourceMap.put(source, entry);
+      if (recentlyUsed.containsKey(source) && updateAstEstimate(source, entry)) {
+        flushAstsOverBudget(source);
+      }
+    } finally {
+      lock.unlock();
+    }
   }
 
   /**
@@ -164,8 +411,14 @@ public abstract class CachePartition {
    * @param source the source to be removed
    */
   public void remove(Source source) {
-    recentlyUsed.remove(source);
-    sourceMap.remove(source);
+    lock.lock();
+    try {
+      removeRecentlyUsed(source);
+      removeAstEstimate(source);
+      sourceMap.remove(source);
+    } finally {
+      lock.unlock();
+    }
   }
 
   /**
@@ -174,7 +427,31 @@ public abstract class CachePartition {
    * @param source the source whose AST was removed
    */
   public void removedAst(Source source) {
-    recentlyUsed.remove(source);
+    lock.lock();
+    try {
+      removeRecentlyUsed(source);
+      removeAstEstimate(source);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Set the maximum estimated number of bytes that can be used by the AST structures kept in the
+   * cache to the given number. AST structures for sources that are a priority for analysis are
+   * never flushed in order to stay within the budget, nor is the most recently used AST structure.
+   * 
+   * @param bytes the maximum estimated number of bytes that can be used by AST structures, or
+   *          {@code 0} if AST structures should only be limited by the maximum cache size
+   */
+  public void setMaxAstBytes(long bytes) {
+    lock.lock();
+    try {
+      maxAstBytes = bytes;
+      flushAstsOverBudget(null);
+    } finally {
+      lock.unlock();
+    }
   }
 
   /**
@@ -183,11 +460,16 @@ public abstract class CachePartition {
    * @param size the maximum number of sources for which AST structures should be kept in the cache
    */
   public void setMaxCacheSize(int size) {
-    maxCacheSize = size;
-    while (recentlyUsed.size() > maxCacheSize) {
-      if (!flushAstFromCache()) {
-        break;
+    lock.lock();
+    try {
+      maxCacheSize = size;
+      while (recentlyUsed.size() > maxCacheSize) {
+        if (!flushAstFromCache()) {
+          break;
+        }
       }
+    } finally {
+      lock.unlock();
     }
   }
 
@@ -197,7 +479,12 @@ public abstract class CachePartition {
    * @return the number of sources that are mapped to cache entries
    */
   public int size() {
-    return sourceMap.size();
+    lock.lock();
+    try {
+      return sourceMap.size();
+    } finally {
+      lock.unlock();
+    }
   }
 
   /**
@@ -206,27 +493,135 @@ public abstract class CachePartition {
    * @param source the source whose AST was stored
    */
   public void storedAst(Source source) {
-    if (recentlyUsed.contains(source)) {
-      return;
+    lock.lock();
+    try {
+      if (recentlyUsed.containsKey(source)) {
+        return;
+      }
+      while (recentlyUsed.size() >= maxCacheSize) {
+        if (!flushAstFromCache()) {
+          break;
+        }
+      }
+      addRecentlyUsed(source);
+      SourceEntry sourceEntry = sourceMap.get(source);
+      if (sourceEntry != null && updateAstEstimate(source, sourceEntry)) {
+        flushAstsOverBudget(source);
+      }
+    } finally {
+      lock.unlock();
     }
-    while (recentlyUsed.size() >= maxCacheSize) {
-      if (!flushAstFromCache()) {
-        break;
+  }
+
+  /**
+   * Check the priority of the sources that were last known to have a high priority, so that those
+   * whose priority has decreased are again considered for flushing in the order in which they were
+   * used. This must be invoked whenever the retention policy might have lowered the priority of
+   * some sources, such as when the priority sources of a context change, because priorities are
+   * not otherwise checked again until a source is about to be flushed.
+   * 
+   * @return {@code true} if the priority of any source has decreased
+   */
+  public boolean updateRetainedPriorities() {
+    lock.lock();
+    try {
+      LinkedHashMap<Source, AstUse> queue = priorityQueues.get(RetentionPriority.HIGH);
+      if (queue.isEmpty() || retentionPolicy == null) {
+        return false;
+      }
+      EnumMap<RetentionPriority, ArrayList<Map.Entry<Source, AstUse>>> demoted = new EnumMap<RetentionPriority, ArrayList<Map.Entry<Source, AstUse>>>(
+          RetentionPriority.class);
+      Iterator<Map.Entry<Source, AstUse>> iterator = queue.entrySet().iterator();
+      while (iterator.hasNext()) {
+        Map.Entry<Source, AstUse> entry = iterator.next();
+        RetentionPriority currentPriority = retentionPolicy.getAstPriority(
+            entry.getKey(),
+            sourceMap.get(entry.getKey()));
+        if (currentPriority != RetentionPriority.HIGH) {
+          iterator.remove();
+          entry.getValue().priority = currentPriority;
+          ArrayList<Map.Entry<Source, AstUse>> entries = demoted.get(currentPriority);
+          if (entries == null) {
+            entries = new ArrayList<Map.Entry<Source, AstUse>>();
+            demoted.put(currentPriority, entries);
+          }
+          entries.add(entry);
+        }
+      }
+      for (RetentionPriority priority : demoted.keySet()) {
+        insertInUseOrder(priority, demoted.get(priority));
       }
+      return !demoted.isEmpty();
+    } finally {
+      lock.unlock();
     }
-    recentlyUsed.add(source);
   }
 
   /**
-   * Attempt to flush one AST structure from the cache.
+   * Add the given source, which is not already recently used, as the most recently used source.
    * 
-   * @return {@code true} if a structure was flushed
+   * @param source the source to be added
    */
-  private boolean flushAstFromCache() {
-    Source removedSource = removeAstToFlush();
-    if (removedSource == null) {
-      return false;
+  private void addRecentlyUsed(Source source) {
+    AstUse use = new AstUse(useCount++);
+    recentlyUsed.put(source, use);
+    priorityQueues.get(use.priority).put(source, use);
+  }
+
+  /**
+   * Return the least recently used source, other than the given source, whose AST structure can be
+   * flushed from the cache and that was last known to have the given priority, or {@code null} if
+   * there is no such source. Only the sources that are older than the returned source are checked.
+   * Those whose priority has increased since it was last checked are moved to the end of the queue
+   * for their current priority, so each source is checked again only after it has been used or its
+   * priority has changed.
+   * 
+   * @param priority the priority of the sources to be considered
+   * @param retainedSource the source whose AST structure should not be flushed, or {@code null} if
+   *          any structure can be flushed
+   * @return the least recently used source that can be flushed
+   */
+  private Source findAstToFlush(RetentionPriority priority, Source retainedSource) {
+    LinkedHashMap<Source, AstUse> queue = priorityQueues.get(priority);
+    ArrayList<Map.Entry<Source, AstUse>> promoted = null;
+    Source sourceToFlush = null;
+    Iterator<Map.Entry<Source, AstUse>> iterator = queue.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<Source, AstUse> entry = iterator.next();
+      Source source = entry.getKey();
+      if (source == retainedSource) {
+        continue;
+      }
+      RetentionPriority currentPriority = retentionPolicy.getAstPriority(
+          source,
+          sourceMap.get(source));
+      if (currentPriority.compareTo(priority) <= 0) {
+        sourceToFlush = source;
+        break;
+      }
+      iterator.remove();
+      entry.getValue().priority = currentPriority;
+      if (promoted == null) {
+        promoted = new ArrayList<Map.Entry<Source, AstUse>>();
+      }
+      promoted.add(entry);
+    }
+    if (promoted != null) {
+      for (Map.Entry<Source, AstUse> entry : promoted) {
+        priorityQueues.get(entry.getValue().priority).put(entry.getKey(), entry.getValue());
+      }
     }
+    return sourceToFlush;
+  }
+
+  /**
+   * Flush the AST structure associated with the given source, which has already been removed from
+   * the list of recently used sources.
+   * 
+   * @param removedSource the source whose AST structure is to be flushed
+   */
+  private void flushAst(Source removedSource) {
+    removeAstEstimate(removedSource);
     SourceEntry sourceEntry = sourceMap.get(removedSource);
     if (sourceEntry instanceof HtmlEntry) {
       HtmlEntryImpl htmlCopy = ((HtmlEntry) sourceEntry).getWritableCopy();
@@ -237,33 +632,148 @@ public abstract class CachePartition {
       dartCopy.flushAstStructures();
       sourceMap.put(removedSource, dartCopy);
     }
+  }
+
+  /**
+   * Attempt to flush one AST structure from the cache.
+   * 
+   * @return {@code true} if a structure was flushed
+   */
+  private boolean flushAstFromCache() {
+    Source removedSource = removeAstToFlush(null);
+    if (removedSource == null) {
+      AnalysisEngine.getInstance().getLogger().logError(
+          "Internal error: Could not flush data from the cache",
+          new Exception());
+      return false;
+    }
+    flushAst(removedSource);
     return true;
   }
 
+  /**
+   * Flush AST structures from the cache until the estimated number of bytes used by the remaining
+   * structures is within the budget, or until there are no more structures that can be flushed.
+   * 
+   * @param retainedSource the source whose AST structure should not be flushed, or {@code null} if
+   *          any structure can be flushed
+   */
+  private void flushAstsOverBudget(Source retainedSource) {
+    if (maxAstBytes <= 0L) {
+      return;
+    }
+    while (astBytes > maxAstBytes) {
+      Source removedSource = removeAstToFlush(retainedSource);
+      if (removedSource == null) {
+        break;
+      }
+      flushAst(removedSource);
+    }
+  }
+
+  /**
+   * Add the given entries, whose priority has decreased to the given priority, to the queue for
+   * that priority, so that the queue is still ordered by when the sources were last used. This
+   * rebuilds the queue, so it is only done when priorities are updated, not when sources are used
+   * or flushed.
+   * 
+   * @param priority the priority of the sources being added
+   * @param entries the entries mapping the sources being added to their uses
+   */
+  private void insertInUseOrder(RetentionPriority priority,
+      ArrayList<Map.Entry<Source, AstUse>> entries) {
+    LinkedHashMap<Source, AstUse> queue = priorityQueues.get(priority);
+    entries.addAll(queue.entrySet());
+    Collections.sort(entries, new Comparator<Map.Entry<Source, AstUse>>() {
+      @Override
+      public int compare(Map.Entry<Source, AstUse> first, Map.Entry<Source, AstUse> second) {
+        long firstStamp = first.getValue().stamp;
+        long secondStamp = second.getValue().stamp;
+        return firstStamp < secondStamp ? -1 : (firstStamp == secondStamp ? 0 : 1);
+      }
+    });
+    LinkedHashMap<Source, AstUse> newQueue = new LinkedHashMap<Source, AstUse>();
+    for (Map.Entry<Source, AstUse> entry : entries) {
+      newQueue.put(entry.getKey(), entry.getValue());
+    }
+    priorityQueues.put(priority, newQueue);
+  }
+
+  /**
+   * Remove the estimated size of the AST structure associated with the given source.
+   * 
+   * @param source the source whose AST structure is no longer in the cache
+   */
+  private void removeAstEstimate(Source source) {
+    AstEstimate estimate = astEstimates.remove(source);
+    if (estimate != null) {
+      astBytes -= estimate.bytes;
+    }
+  }
+
   /**
    * Remove and return one source from the list of recently used sources whose AST structure can be
    * flushed from the cache. The source that will be returned will be the source that has been
    * unreferenced for the longest period of time but that is not a priority for analysis.
    * 
+   * @param retainedSource the source whose AST structure should not be flushed, or {@code null} if
+   *          any structure can be flushed
    * @return the source that was removed
    */
-  private Source removeAstToFlush() {
-    int sourceToRemove = -1;
-    for (int i = 0; i < recentlyUsed.size(); i++) {
-      Source source = recentlyUsed.get(i);
-      RetentionPriority priority = retentionPolicy.getAstPriority(source, sourceMap.get(source));
-      if (priority == RetentionPriority.LOW) {
-        return recentlyUsed.remove(i);
-      } else if (priority == RetentionPriority.MEDIUM && sourceToRemove < 0) {
-        sourceToRemove = i;
-      }
+  private Source removeAstToFlush(Source retainedSource) {
+    Source sourceToRemove = findAstToFlush(RetentionPriority.LOW, retainedSource);
+    if (sourceToRemove == null) {
+      sourceToRemove = findAstToFlush(RetentionPriority.MEDIUM, retainedSource);
     }
-    if (sourceToRemove < 0) {
-      AnalysisEngine.getInstance().getLogger().logError(
-          "Internal error: Could not flush data from the cache",
-          new Exception());
-      return null;
+    if (sourceToRemove != null) {
+      removeRecentlyUsed(sourceToRemove);
+    }
+    return sourceToRemove;
+  }
+
+  /**
+   * Remove the given source from the recently used sources.
+   * 
+   * @param source the source to be removed
+   */
+  private void removeRecentlyUsed(Source source) {
+    AstUse use = recentlyUsed.remove(source);
+    if (use != null) {
+      priorityQueues.get(use.priority).remove(source);
+    }
+  }
+
+  /**
+   * Update the estimated size of the AST structure associated with the given source to reflect the
+   * AST structure in the given entry.
+   * 
+   * @param source the source whose entry was updated
+   * @param entry the entry associated with the source
+   * @return {@code true} if the estimated size increased
+   */
+  private boolean updateAstEstimate(Source source, SourceEntry entry) {
+    Object ast = null;
+    if (entry instanceof DartEntry) {
+      ast = ((DartEntry) entry).getAnyParsedCompilationUnit();
+    } else if (entry instanceof HtmlEntry) {
+      ast = ((HtmlEntry) entry).getAnyParsedUnit();
+    }
+    AstEstimate oldEstimate = astEstimates.get(source);
+    if (oldEstimate != null && oldEstimate.ast == ast) {
+      return false;
+    }
+    long oldBytes = oldEstimate == null ? 0L : oldEstimate.bytes;
+    long newBytes;
+    if (ast instanceof CompilationUnit) {
+      newBytes = estimateAstBytes((CompilationUnit) ast);
+    } else if (ast instanceof HtmlUnit) {
+      newBytes = estimateAstBytes((HtmlUnit) ast);
+    } else {
+      newBytes = 0L;
     }
-    return recentlyUsed.remove(sourceToRemove);
+    astEstimates.put(source, new AstEstimate(ast, newBytes));
+    astBytes += newBytes - oldBytes;
+    return newBytes > oldBytes;
   }
+
 }
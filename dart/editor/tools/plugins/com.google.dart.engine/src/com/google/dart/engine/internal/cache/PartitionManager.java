@@ -14,14 +14,33 @@
 package com.google.dart.engine.internal.cache;
 
 import com.google.dart.engine.sdk.DartSdk;
+import com.google.dart.engine.utilities.translation.DartOmit;
 
 import java.util.HashMap;
 
 /**
  * Instances of the class {@code PartitionManager} manage the partitions that can be shared between
- * analysis contexts.
+ * analysis contexts. Because the partitions are shared, the settings that apply to them, such as
+ * the budget for the AST structures of the SDK, are set on the manager rather than on the contexts.
  */
 public class PartitionManager {
+  /**
+   * The fraction of the maximum heap size that is used by default as the budget for the AST
+   * structures of the SDK, which are shared by all of the contexts using the same SDK.
+   */
+  private static final int DEFAULT_SDK_CACHE_BUDGET_DIVISOR = 16;
+
+  /**
+   * Return the budget to be used by default for the estimated size of the AST structures kept in
+   * the cache for the SDK, which is a sixteenth of the maximum heap size.
+   * 
+   * @return the default maximum estimated number of bytes used by the SDK AST structures
+   */
+  @DartOmit
+  public static long getDefaultSdkCacheBudget() {
+    return Runtime.getRuntime().maxMemory() / DEFAULT_SDK_CACHE_BUDGET_DIVISOR;
+  }
+
   /**
    * A table mapping SDK's to the partitions used for those SDK's.
    */
@@ -32,6 +51,13 @@ public class PartitionManager {
    */
   private static final int DEFAULT_SDK_CACHE_SIZE = 256;
 
+  /**
+   * The maximum estimated number of bytes that can be used by the AST structures kept in each of
+   * the SDK partitions, or {@code 0} if those AST structures are only limited by the number of
+   * sources.
+   */
+  private long sdkCacheBudget = 0L;
+
   /**
    * Initialize a newly created partition manager.
    */
@@ -45,12 +71,41 @@ public class PartitionManager {
    * @param sdk the SDK for which a partition is being requested
    * @return the partition being used for the given SDK
    */
-  public SdkCachePartition forSdk(DartSdk sdk) {
+  public synchronized SdkCachePartition forSdk(DartSdk sdk) {
     SdkCachePartition partition = sdkPartitions.get(sdk);
     if (partition == null) {
       partition = new SdkCachePartition(DEFAULT_SDK_CACHE_SIZE);
+      if (sdkCacheBudget > 0L) {
+        partition.setMaxAstBytes(sdkCacheBudget);
+      }
       sdkPartitions.put(sdk, partition);
     }
     return partition;
   }
+
+  /**
+   * Return the maximum estimated number of bytes that can be used by the AST structures kept in each
+   * of the SDK partitions, or {@code 0} if those AST structures are only limited by the number of
+   * sources.
+   * 
+   * @return the maximum estimated number of bytes that can be used by SDK AST structures
+   */
+  public synchronized long getSdkCacheBudget() {
+    return sdkCacheBudget;
+  }
+
+  /**
+   * Set the maximum estimated number of bytes that can be used by the AST structures kept in each of
+   * the SDK partitions, including the partitions that have already been created, to the given
+   * number.
+   * 
+   * @param bytes the maximum estimated number of bytes that can be used by SDK AST structures, or
+   *          {@code 0} if they should only be limited by the number of sources
+   */
+  public synchronized void setSdkCacheBudget(long bytes) {
+    sdkCacheBudget = bytes;
+    for (SdkCachePartition partition : sdkPartitions.values()) {
+      partition.setMaxAstBytes(bytes);
+    }
+  }
 }
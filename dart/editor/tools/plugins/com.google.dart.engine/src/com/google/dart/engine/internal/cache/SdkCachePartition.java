@@ -13,6 +13,7 @@
  */
 package com.google.dart.engine.internal.cache;
 
+import com.google.dart.engine.internal.resolver.MemberMapCache;
 import com.google.dart.engine.source.Source;
 
 /**
@@ -20,6 +21,12 @@ import com.google.dart.engine.source.Source;
  * the sources in the SDK.
  */
 public class SdkCachePartition extends CachePartition {
+  /**
+   * The member maps of the classes in the SDK that are shared by the inheritance managers of all of
+   * the contexts using this partition.
+   */
+  private final MemberMapCache memberMapCache = new MemberMapCache();
+
   /**
    * Initialize a newly created partition.
    * 
@@ -34,4 +41,19 @@ public class SdkCachePartition extends CachePartition {
   public boolean contains(Source source) {
     return source.isInSystemLibrary();
   }
+
+  /**
+   * Return the member maps of the classes in the SDK that are shared by the inheritance managers of
+   * all of the contexts using this partition.
+   * 
+   * @return the member maps of the classes in the SDK
+   */
+  public MemberMapCache getMemberMapCache() {
+    return memberMapCache;
+  }
+
+  @Override
+  public boolean isShared() {
+    return true;
+  }
 }
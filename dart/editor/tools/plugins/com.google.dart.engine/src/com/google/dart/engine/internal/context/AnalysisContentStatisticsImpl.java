@@ -109,6 +109,8 @@ public class AnalysisContentStatisticsImpl implements AnalysisContentStatistics
 
   private HashSet<AnalysisException> exceptions = new HashSet<AnalysisException>();
 
+  private long estimatedAstBytes = 0L;
+
   public void addSource(Source source) {
     sources.add(source);
   }
@@ -119,6 +121,11 @@ public class AnalysisContentStatisticsImpl implements AnalysisContentStatistics
     return items.toArray(new CacheRow[items.size()]);
   }
 
+  @Override
+  public long getEstimatedAstBytes() {
+    return estimatedAstBytes;
+  }
+
   @Override
   public AnalysisException[] getExceptions() {
     return exceptions.toArray(new AnalysisException[exceptions.size()]);
@@ -129,6 +136,10 @@ public class AnalysisContentStatisticsImpl implements AnalysisContentStatistics
     return sources.toArray(new Source[sources.size()]);
   }
 
+  public void setEstimatedAstBytes(long estimatedAstBytes) {
+    this.estimatedAstBytes = estimatedAstBytes;
+  }
+
   public void putCacheItem(SourceEntry dartEntry, DataDescriptor<?> descriptor) {
     internalPutCacheItem(dartEntry, descriptor, dartEntry.getState(descriptor));
   }
@@ -31,6 +31,7 @@ import com.google.dart.engine.context.AnalysisException;
 import com.google.dart.engine.context.AnalysisOptions;
 import com.google.dart.engine.context.AnalysisResult;
 import com.google.dart.engine.context.ChangeNotice;
+import com.google.dart.engine.context.ChangeNoticeListener;
 import com.google.dart.engine.context.ChangeSet;
 import com.google.dart.engine.context.ObsoleteSourceAnalysisException;
 import com.google.dart.engine.element.CompilationUnitElement;
@@ -63,9 +64,11 @@ import com.google.dart.engine.internal.element.angular.AngularApplication;
 import com.google.dart.engine.internal.resolver.Library;
 import com.google.dart.engine.internal.resolver.LibraryResolver;
 import com.google.dart.engine.internal.resolver.LibraryResolver2;
+import com.google.dart.engine.internal.resolver.MemberMapCache;
 import com.google.dart.engine.internal.resolver.ResolvableLibrary;
 import com.google.dart.engine.internal.resolver.TypeProvider;
 import com.google.dart.engine.internal.resolver.TypeProviderImpl;
+import com.google.dart.engine.internal.scope.CompletionCandidateCache;
 import com.google.dart.engine.internal.scope.Namespace;
 import com.google.dart.engine.internal.scope.NamespaceBuilder;
 import com.google.dart.engine.internal.task.AnalysisTask;
@@ -75,6 +78,7 @@ import com.google.dart.engine.internal.task.GenerateDartErrorsTask;
 import com.google.dart.engine.internal.task.GenerateDartHintsTask;
 import com.google.dart.engine.internal.task.GetContentTask;
 import com.google.dart.engine.internal.task.IncrementalAnalysisTask;
+import com.google.dart.engine.internal.task.ParseDartSourcesTask;
 import com.google.dart.engine.internal.task.ParseDartTask;
 import com.google.dart.engine.internal.task.ParseHtmlTask;
 import com.google.dart.engine.internal.task.PolymerBuildHtmlTask;
@@ -82,11 +86,13 @@ import com.google.dart.engine.internal.task.PolymerResolveHtmlTask;
 import com.google.dart.engine.internal.task.ResolveAngularComponentTemplateTask;
 import com.google.dart.engine.internal.task.ResolveAngularEntryHtmlTask;
 import com.google.dart.engine.internal.task.ResolveDartLibraryCycleTask;
+import com.google.dart.engine.internal.task.ResolveDartLibraryCyclesTask;
 import com.google.dart.engine.internal.task.ResolveDartLibraryTask;
 import com.google.dart.engine.internal.task.ResolveDartUnitTask;
 import com.google.dart.engine.internal.task.ResolveHtmlTask;
 import com.google.dart.engine.internal.task.ScanDartTask;
 import com.google.dart.engine.internal.task.WaitForAsyncTask;
+import com.google.dart.engine.scanner.SymbolTable;
 import com.google.dart.engine.scanner.Token;
 import com.google.dart.engine.sdk.DartSdk;
 import com.google.dart.engine.source.ContentCache;
@@ -95,6 +101,7 @@ import com.google.dart.engine.source.Source.ContentReceiver;
 import com.google.dart.engine.source.SourceContainer;
 import com.google.dart.engine.source.SourceFactory;
 import com.google.dart.engine.source.SourceKind;
+import com.google.dart.engine.source.UriKind;
 import com.google.dart.engine.utilities.collection.DirectedGraph;
 import com.google.dart.engine.utilities.collection.ListUtilities;
 import com.google.dart.engine.utilities.collection.MapIterator;
@@ -111,6 +118,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Instances of the class {@code AnalysisContextImpl} implement an {@link AnalysisContext analysis
@@ -153,6 +161,12 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
       return recordIncrementalAnalysisTaskResults(task);
     }
 
+    @Override
+    public DartEntry visitParseDartSourcesTask(ParseDartSourcesTask task)
+        throws AnalysisException {
+      return recordParseDartSourcesTaskResults(task);
+    }
+
     @Override
     public DartEntry visitParseDartTask(ParseDartTask task) throws AnalysisException {
       return recordParseDartTaskResults(task);
@@ -192,6 +206,12 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
       return recordResolveDartLibraryCycleTaskResults(task);
     }
 
+    @Override
+    public DartEntry visitResolveDartLibraryCyclesTask(ResolveDartLibraryCyclesTask task)
+        throws AnalysisException {
+      return recordResolveDartLibraryCyclesTaskResults(task);
+    }
+
     @Override
     public DartEntry visitResolveDartLibraryTask(ResolveDartLibraryTask task)
         throws AnalysisException {
@@ -328,6 +348,20 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
      */
     private TaskData taskData;
 
+    /**
+     * A table mapping the sources of the libraries that will be resolved by other tasks in the same
+     * {@link ResolutionBatch} to the objects representing them, or {@code null} if the cycle is not
+     * being built as part of a batch. When building a cycle as part of a batch, no tasks are created
+     * to compute missing information; the cycle is simply marked as not being ready.
+     */
+    private HashMap<Source, ResolvableLibrary> batchedLibraries;
+
+    /**
+     * The source of a library that needs to be resolved before the cycle can be resolved as part of
+     * a batch, or {@code null} if there is no such library.
+     */
+    private Source unresolvedDependency;
+
     /**
      * Initialize a newly created cycle builder.
      */
@@ -335,6 +369,18 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
       super();
     }
 
+    /**
+     * Initialize a newly created cycle builder to build a cycle that will be resolved as part of a
+     * batch in which the given libraries will also be resolved.
+     * 
+     * @param batchedLibraries a table mapping the sources of the libraries that will be resolved by
+     *          other tasks in the batch to the objects representing them
+     */
+    public CycleBuilder(HashMap<Source, ResolvableLibrary> batchedLibraries) {
+      this.batchedLibraries = batchedLibraries;
+      libraryMap.putAll(batchedLibraries);
+    }
+
     /**
      * Compute a list of the libraries that need to be resolved together in order to resolve the
      * given library.
@@ -378,6 +424,7 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
       // All of the AST's necessary to perform a resolution of the library cycle have been
       // gathered, so it is no longer necessary to retain them in the cache.
       neededForResolution = null;
+      privatePartition.updateRetainedPriorities();
     }
 
     /**
@@ -401,6 +448,17 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
       return taskData;
     }
 
+    /**
+     * Return the source of a library that needs to be resolved before the cycle can be resolved as
+     * part of a batch, or {@code null} if the cycle is ready to be resolved or is blocked for some
+     * other reason.
+     * 
+     * @return the source of a library that needs to be resolved before the cycle
+     */
+    public Source getUnresolvedDependency() {
+      return unresolvedDependency;
+    }
+
     /**
      * Recursively traverse the libraries reachable from the given library, creating instances of
      * the class {@link Library} to represent them, and record the references in the library
@@ -629,10 +687,14 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
       int dependencyCount = dependencies.length;
       for (int i = 0; i < dependencyCount; i++) {
         ResolvableLibrary dependency = dependencies[i];
-        if (!librariesInCycle.contains(dependency)
+        if (!librariesInCycle.contains(dependency) && !isBatched(dependency)
             && visitedLibraries.add(dependency.getLibrarySource())) {
           if (dependency.getLibraryElement() == null) {
             Source dependencySource = dependency.getLibrarySource();
+            if (batchedLibraries != null) {
+              resolveBeforeBatching(dependencySource);
+              return;
+            }
             workManager.addFirst(dependencySource, SourcePriority.LIBRARY);
             if (taskData == null) {
               taskData = createResolveDartLibraryTask(
@@ -663,8 +725,13 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
       int dependencyCount = dependencies.length;
       for (int i = 0; i < dependencyCount; i++) {
         ResolvableLibrary dependency = dependencies[i];
-        if (!librariesInCycle.contains(dependency) && dependency.getLibraryElement() == null) {
+        if (!librariesInCycle.contains(dependency) && dependency.getLibraryElement() == null
+            && !isBatched(dependency)) {
           Source dependencySource = dependency.getLibrarySource();
+          if (batchedLibraries != null) {
+            resolveBeforeBatching(dependencySource);
+            return;
+          }
           workManager.addFirst(dependencySource, SourcePriority.LIBRARY);
           if (taskData == null) {
             taskData = createResolveDartLibraryTask(
@@ -731,9 +798,7 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     private void ensureResolvableCompilationUnit(Source source, DartEntry dartEntry) {
       // The entry will be null if the source represents a non-Dart file.
       if (dartEntry != null && !dartEntry.hasResolvableCompilationUnit()) {
-        if (taskData == null) {
-          taskData = createParseDartTask(source, dartEntry);
-        }
+        parseBeforeResolving(source, dartEntry);
       }
     }
 
@@ -767,13 +832,197 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
       if (exportState == CacheState.ERROR) {
         return Source.EMPTY_ARRAY;
       } else if (exportState != CacheState.VALID) {
-        if (taskData == null) {
-          taskData = createParseDartTask(source, dartEntry);
-        }
+        parseBeforeResolving(source, dartEntry);
         return Source.EMPTY_ARRAY;
       }
       return dartEntry.getValue(descriptor);
     }
+
+    /**
+     * Return {@code true} if the given library will be resolved by another task in the same batch.
+     * 
+     * @param library the library being tested
+     * @return {@code true} if the library will be resolved by another task in the batch
+     */
+    private boolean isBatched(ResolvableLibrary library) {
+      return batchedLibraries != null
+          && batchedLibraries.get(library.getLibrarySource()) == library;
+    }
+
+    /**
+     * Record the fact that the given source needs to be parsed before the cycle can be resolved.
+     * 
+     * @param source the source that needs to be parsed
+     * @param dartEntry the entry associated with the source
+     */
+    private void parseBeforeResolving(Source source, DartEntry dartEntry) {
+      if (taskData == null) {
+        if (batchedLibraries == null) {
+          taskData = createParseDartTask(source, dartEntry);
+        } else {
+          taskData = new TaskData(null, true);
+        }
+      }
+    }
+
+    /**
+     * Record the fact that the library with the given source needs to be resolved before the cycle
+     * can be resolved as part of a batch.
+     * 
+     * @param dependencySource the source of the library that needs to be resolved
+     */
+    private void resolveBeforeBatching(Source dependencySource) {
+      if (taskData == null) {
+        unresolvedDependency = dependencySource;
+        taskData = new TaskData(null, true);
+      }
+    }
+  }
+
+  /**
+   * Instances of the class {@code ResolutionBatch} are used to collect cycles of libraries that can
+   * be resolved concurrently by a {@link ResolveDartLibraryCyclesTask}. A cycle can be added to the
+   * batch if every library it depends on has either already been resolved or will be resolved by
+   * another cycle in the batch. Libraries that are shared between cycles in the batch are
+   * represented by the same {@link ResolvableLibrary}, so the element model built for a library by
+   * one cycle is visible to the cycles that depend on it.
+   * <p>
+   * <b>Note:</b> Instances of this class must only be used while we are holding {@link #cacheLock}.
+   */
+  private class ResolutionBatch {
+    /**
+     * The maximum number of cycles that can be added to this batch.
+     */
+    private int maxCycleCount;
+
+    /**
+     * The tasks used to resolve the cycles in this batch, in the order in which they were added.
+     */
+    private ArrayList<ResolveDartLibraryCycleTask> cycleTasks = new ArrayList<ResolveDartLibraryCycleTask>();
+
+    /**
+     * A table mapping the sources of the libraries in this batch to the objects representing them.
+     */
+    private HashMap<Source, ResolvableLibrary> batchedLibraries = new HashMap<Source, ResolvableLibrary>();
+
+    /**
+     * A table mapping the libraries in this batch to the task that will resolve them.
+     */
+    private HashMap<ResolvableLibrary, ResolveDartLibraryCycleTask> libraryTasks = new HashMap<ResolvableLibrary, ResolveDartLibraryCycleTask>();
+
+    /**
+     * The sources of the libraries for which an attempt has been made to add the containing cycle.
+     */
+    private HashSet<Source> attemptedLibraries = new HashSet<Source>();
+
+    /**
+     * Initialize a newly created batch to contain the cycle resolved by the given task.
+     * 
+     * @param firstTask the task resolving the first cycle in the batch
+     * @param maxCycleCount the maximum number of cycles that can be added to the batch
+     */
+    public ResolutionBatch(ResolveDartLibraryCycleTask firstTask, int maxCycleCount) {
+      this.maxCycleCount = maxCycleCount;
+      addCycleTask(firstTask);
+    }
+
+    /**
+     * Add the cycle containing the given library to this batch, along with any cycles that need to
+     * be resolved before it. Return {@code true} if the library will be resolved by this batch.
+     * 
+     * @param librarySource the source of the library to be added
+     * @return {@code true} if the library will be resolved by this batch
+     */
+    public boolean addCycleContaining(Source librarySource) {
+      if (batchedLibraries.containsKey(librarySource)) {
+        return true;
+      } else if (cycleTasks.size() >= maxCycleCount || !attemptedLibraries.add(librarySource)) {
+        return false;
+      }
+      while (true) {
+        CycleBuilder builder = new CycleBuilder(batchedLibraries);
+        try {
+          builder.computeCycleContaining(librarySource);
+        } catch (AnalysisException exception) {
+          return false;
+        }
+        if (builder.getTaskData() == null) {
+          addCycleTask(new ResolveDartLibraryCycleTask(
+              AnalysisContextImpl.this,
+              librarySource,
+              librarySource,
+              builder.getLibrariesInCycle()));
+          return true;
+        }
+        //
+        // If the cycle is only waiting for another library to be resolved, then try to resolve that
+        // library in this batch as well. Each time we get here a new cycle has been added, so the
+        // loop will terminate.
+        //
+        Source dependency = builder.getUnresolvedDependency();
+        if (dependency == null || !addCycleContaining(dependency)) {
+          return false;
+        }
+      }
+    }
+
+    /**
+     * Return the number of cycles in this batch.
+     * 
+     * @return the number of cycles in this batch
+     */
+    public int getCycleCount() {
+      return cycleTasks.size();
+    }
+
+    /**
+     * Return {@code true} if no more cycles can be added to this batch.
+     * 
+     * @return {@code true} if no more cycles can be added to this batch
+     */
+    public boolean isFull() {
+      return cycleTasks.size() >= maxCycleCount;
+    }
+
+    /**
+     * Return a task that will resolve all of the cycles in this batch, using at most the given
+     * number of threads.
+     * 
+     * @param threadCount the maximum number of threads used to resolve the cycles
+     * @return a task that will resolve all of the cycles in this batch
+     */
+    public ResolveDartLibraryCyclesTask createTask(int threadCount) {
+      DirectedGraph<ResolveDartLibraryCycleTask> dependencyGraph = new DirectedGraph<ResolveDartLibraryCycleTask>();
+      for (ResolveDartLibraryCycleTask task : cycleTasks) {
+        dependencyGraph.addNode(task);
+        for (ResolvableLibrary library : task.getLibrariesInCycle()) {
+          for (ResolvableLibrary dependency : library.getImportsAndExports()) {
+            ResolveDartLibraryCycleTask dependencyTask = libraryTasks.get(dependency);
+            if (dependencyTask != null && dependencyTask != task) {
+              dependencyGraph.addEdge(task, dependencyTask);
+            }
+          }
+        }
+      }
+      return new ResolveDartLibraryCyclesTask(
+          AnalysisContextImpl.this,
+          cycleTasks,
+          dependencyGraph,
+          threadCount);
+    }
+
+    /**
+     * Add the given task to the tasks in this batch.
+     * 
+     * @param task the task to be added
+     */
+    private void addCycleTask(ResolveDartLibraryCycleTask task) {
+      cycleTasks.add(task);
+      for (ResolvableLibrary library : task.getLibrariesInCycle()) {
+        batchedLibraries.put(library.getLibrarySource(), library);
+        libraryTasks.put(library, task);
+      }
+    }
   }
 
   /**
@@ -843,6 +1092,20 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     }
   }
 
+  /**
+   * The maximum number of library cycles per resolution thread that will be resolved by a single
+   * {@link ResolveDartLibraryCyclesTask}. Larger batches keep the threads busy for longer, but
+   * require the AST structures for all of the libraries in the batch to be held at the same time.
+   */
+  private static final int CYCLES_PER_RESOLUTION_THREAD = 8;
+
+  /**
+   * The maximum number of sources per parsing thread that will be parsed by a single
+   * {@link ParseDartSourcesTask}. The batches are kept small because the token streams and AST
+   * structures for all of the sources in the batch count against the size of the cache.
+   */
+  private static final int SOURCES_PER_PARSE_THREAD = 4;
+
   /**
    * The difference between the maximum cache size and the maximum priority order size. The priority
    * list must be capped so that it is less than the cache size. Failure to do so can result in an
@@ -868,6 +1131,18 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
    */
   boolean generateSdkErrors = true;
 
+  /**
+   * A flag indicating whether errors related to sources in the packages being depended on should
+   * be generated and reported without being explicitly requested.
+   */
+  private boolean generatePackageErrors = true;
+
+  /**
+   * The container of the sources that are owned by the user, or {@code null} if they are the
+   * sources that are neither in the SDK nor referenced using a 'package:' URI.
+   */
+  private SourceContainer userSources;
+
   /**
    * A flag indicating whether this context is disposed.
    */
@@ -915,6 +1190,12 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
    */
   private HashMap<Source, ChangeNoticeImpl> pendingNotices = new HashMap<Source, ChangeNoticeImpl>();
 
+  /**
+   * A list containing the listeners that are to be notified when the analysis results of this
+   * context change.
+   */
+  private ArrayList<ChangeNoticeListener> listeners = new ArrayList<ChangeNoticeListener>();
+
   /**
    * A set containing information about the tasks that have been performed since the last change
    * notification. Used to detect infinite loops in {@link #performAnalysisTask()}.
@@ -922,16 +1203,22 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
   private HashSet<String> recentTasks = new HashSet<String>();
 
   /**
-   * The object used to synchronize access to all of the caches. The rules related to the use of
-   * this lock object are
+   * The lock used to synchronize access to the state of this context, including the partition of
+   * the cache that is private to this context. The rules related to the use of this lock are
    * <ul>
-   * <li>no analysis work is done while holding the lock, and</li>
+   * <li>no analysis work is done while holding the lock,</li>
    * <li>no analysis results can be recorded unless we have obtained the lock and validated that the
    * results are for the same version (modification time) of the source as our current cache
-   * content.</li>
+   * content, and</li>
+   * <li>the lock of a partition that is shared with other contexts (such as an
+   * {@link com.google.dart.engine.internal.cache.SdkCachePartition SdkCachePartition}) is only ever
+   * acquired while holding this lock, so that locks are always acquired in the same order.</li>
    * </ul>
+   * Because the lock is owned by this context, contexts only contend with each other when they
+   * access the entries in a shared partition. Use {@link #lockCache()} or
+   * {@link #lockCache(Source)} to acquire it together with the required partition locks.
    */
-  private static Object cacheLock = new Object();
+  private final ReentrantLock cacheLock = new ReentrantLock();
 
   /**
    * The object used to record the results of performing an analysis task.
@@ -939,7 +1226,7 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
   private AnalysisTaskResultRecorder resultRecorder;
 
   /**
-   * Cached information used in incremental analysis or {@code null} if none. Synchronize against
+   * Cached information used in incremental analysis or {@code null} if none. Hold
    * {@link #cacheLock} before accessing this field.
    */
   private IncrementalAnalysisCache incrementalAnalysisCache;
@@ -954,6 +1241,16 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
    */
   private final Set<AngularApplication> angularApplications = Sets.newHashSet();
 
+  /**
+   * The symbol table used to canonicalize the identifiers scanned in this context.
+   */
+  private final SymbolTable symbolTable = new SymbolTable();
+
+  /**
+   * The completion candidates of the most recently used libraries in this context.
+   */
+  private final CompletionCandidateCache completionCandidateCache = new CompletionCandidateCache();
+
   /**
    * Initialize a newly created analysis context.
    */
@@ -966,6 +1263,15 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     cache = createCacheFromSourceFactory(null);
   }
 
+  @Override
+  public void addListener(ChangeNoticeListener listener) {
+    synchronized (listeners) {
+      if (!listeners.contains(listener)) {
+        listeners.add(listener);
+      }
+    }
+  }
+
   @Override
   public void addSourceInfo(Source source, SourceEntry info) {
     // This implementation assumes that the access to the cache does not need to be synchronized
@@ -978,7 +1284,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     if (changeSet.isEmpty()) {
       return;
     }
-    synchronized (cacheLock) {
+    ReentrantLock[] sharedLocks = lockCache();
+    try {
       recentTasks.clear();
       //
       // First, compute the list of sources that have been removed.
@@ -1061,6 +1368,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
           }
         }
       }
+    } finally {
+      unlockCache(sharedLocks);
     }
   }
 
@@ -1225,7 +1534,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
   @Override
   public ResolvableCompilationUnit computeResolvableCompilationUnit(Source source)
       throws AnalysisException {
-    synchronized (cacheLock) {
+    ReentrantLock[] sharedLocks = lockCache(source);
+    try {
       DartEntry dartEntry = getReadableDartEntry(source);
       if (dartEntry == null) {
         throw new AnalysisException("computeResolvableCompilationUnit for non-Dart: "
@@ -1242,6 +1552,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
       }
       cache.put(source, dartCopy);
       return new ResolvableCompilationUnit(dartCopy.getModificationTime(), unit);
+    } finally {
+      unlockCache(sharedLocks);
     }
   }
 
@@ -1255,10 +1567,13 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     if (source == null) {
       return false;
     }
-    synchronized (cacheLock) {
+    cacheLock.lock();
+    try {
       if (contentCache.getContents(source) != null) {
         return true;
       }
+    } finally {
+      cacheLock.unlock();
     }
     return source.exists();
   }
@@ -1274,7 +1589,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
   public InternalAnalysisContext extractContextInto(SourceContainer container,
       InternalAnalysisContext newContext) {
     ArrayList<Source> sourcesToRemove = new ArrayList<Source>();
-    synchronized (cacheLock) {
+    ReentrantLock[] sharedLocks = lockCache();
+    try {
       // Move sources in the specified directory to the new context
       MapIterator<Source, SourceEntry> iterator = cache.iterator();
       while (iterator.moveNext()) {
@@ -1298,6 +1614,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
 //        publicNamespaceCache.remove(source);
 //        libraryElementCache.remove(source);
 //      }
+    } finally {
+      unlockCache(sharedLocks);
     }
 
     return newContext;
@@ -1327,6 +1645,11 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     return cache.getAstSize();
   }
 
+  @Override
+  public CompletionCandidateCache getCompletionCandidateCache() {
+    return completionCandidateCache;
+  }
+
   @Override
   public CompilationUnitElement getCompilationUnitElement(Source unitSource, Source librarySource) {
     LibraryElement libraryElement = getLibraryElement(librarySource);
@@ -1348,13 +1671,16 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
 
   @Override
   public TimestampedData<CharSequence> getContents(Source source) throws Exception {
-    synchronized (cacheLock) {
+    cacheLock.lock();
+    try {
       String contents = contentCache.getContents(source);
       if (contents != null) {
         return new TimestampedData<CharSequence>(
             contentCache.getModificationStamp(source),
             contents);
       }
+    } finally {
+      cacheLock.unlock();
     }
     return source.getContents();
   }
@@ -1363,12 +1689,15 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
   @SuppressWarnings("deprecation")
   @DartOmit
   public void getContentsToReceiver(Source source, ContentReceiver receiver) throws Exception {
-    synchronized (cacheLock) {
+    cacheLock.lock();
+    try {
       String contents = contentCache.getContents(source);
       if (contents != null) {
         receiver.accept(contents, contentCache.getModificationStamp(source));
         return;
       }
+    } finally {
+      cacheLock.unlock();
     }
     source.getContentsToReceiver(receiver);
   }
@@ -1424,7 +1753,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     if (sourceKind == null) {
       return Source.EMPTY_ARRAY;
     }
-    synchronized (cacheLock) {
+    ReentrantLock[] sharedLocks = lockCache();
+    try {
       ArrayList<Source> htmlSources = new ArrayList<Source>();
       switch (sourceKind) {
         case LIBRARY:
@@ -1458,6 +1788,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
         return Source.EMPTY_ARRAY;
       }
       return htmlSources.toArray(new Source[htmlSources.size()]);
+    } finally {
+      unlockCache(sharedLocks);
     }
   }
 
@@ -1480,7 +1812,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     // TODO(brianwilkerson) This needs to filter out libraries that do not reference dart:html,
     // either directly or indirectly.
     ArrayList<Source> sources = new ArrayList<Source>();
-    synchronized (cacheLock) {
+    ReentrantLock[] sharedLocks = lockCache();
+    try {
       MapIterator<Source, SourceEntry> iterator = cache.iterator();
       while (iterator.moveNext()) {
         Source source = iterator.getKey();
@@ -1492,6 +1825,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
 //          }
         }
       }
+    } finally {
+      unlockCache(sharedLocks);
     }
     return sources.toArray(new Source[sources.size()]);
   }
@@ -1501,7 +1836,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     // TODO(brianwilkerson) This needs to filter out libraries that reference dart:html, either
     // directly or indirectly.
     ArrayList<Source> sources = new ArrayList<Source>();
-    synchronized (cacheLock) {
+    ReentrantLock[] sharedLocks = lockCache();
+    try {
       MapIterator<Source, SourceEntry> iterator = cache.iterator();
       while (iterator.moveNext()) {
         Source source = iterator.getKey();
@@ -1513,6 +1849,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
 //          }
         }
       }
+    } finally {
+      unlockCache(sharedLocks);
     }
     return sources.toArray(new Source[sources.size()]);
   }
@@ -1528,7 +1866,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
 
   @Override
   public Source[] getLibrariesDependingOn(Source librarySource) {
-    synchronized (cacheLock) {
+    ReentrantLock[] sharedLocks = lockCache();
+    try {
       ArrayList<Source> dependentLibraries = new ArrayList<Source>();
       MapIterator<Source, SourceEntry> iterator = cache.iterator();
       while (iterator.moveNext()) {
@@ -1550,6 +1889,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
         return Source.EMPTY_ARRAY;
       }
       return dependentLibraries.toArray(new Source[dependentLibraries.size()]);
+    } finally {
+      unlockCache(sharedLocks);
     }
   }
 
@@ -1586,13 +1927,25 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     return null;
   }
 
+  @Override
+  public MemberMapCache getMemberMapCache() {
+    DartSdk sdk = sourceFactory == null ? null : sourceFactory.getDartSdk();
+    if (sdk == null) {
+      return null;
+    }
+    return AnalysisEngine.getInstance().getPartitionManager().forSdk(sdk).getMemberMapCache();
+  }
+
   @Override
   public long getModificationStamp(Source source) {
-    synchronized (cacheLock) {
+    cacheLock.lock();
+    try {
       Long stamp = contentCache.getModificationStamp(source);
       if (stamp != null) {
         return stamp.longValue();
       }
+    } finally {
+      cacheLock.unlock();
     }
     return source.getModificationStamp();
   }
@@ -1613,7 +1966,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     if (namespace == null) {
       NamespaceBuilder builder = new NamespaceBuilder();
       namespace = builder.createPublicNamespaceForLibrary(library);
-      synchronized (cacheLock) {
+      ReentrantLock[] sharedLocks = lockCache(source);
+      try {
         dartEntry = getReadableDartEntry(source);
         if (dartEntry == null) {
           AnalysisEngine.getInstance().getLogger().logError(
@@ -1626,6 +1980,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
           dartCopy.setValue(DartEntry.PUBLIC_NAMESPACE, namespace);
           cache.put(source, dartCopy);
         }
+      } finally {
+        unlockCache(sharedLocks);
       }
     }
     return namespace;
@@ -1634,7 +1990,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
   @Override
   public Source[] getRefactoringUnsafeSources() {
     ArrayList<Source> sources = new ArrayList<Source>();
-    synchronized (cacheLock) {
+    ReentrantLock[] sharedLocks = lockCache();
+    try {
       MapIterator<Source, SourceEntry> iterator = cache.iterator();
       while (iterator.moveNext()) {
         SourceEntry sourceEntry = iterator.getValue();
@@ -1644,6 +2001,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
           }
         }
       }
+    } finally {
+      unlockCache(sharedLocks);
     }
     return sources.toArray(new Source[sources.size()]);
   }
@@ -1690,7 +2049,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
   @VisibleForTesting
   public List<Source> getSourcesNeedingProcessing() {
     HashSet<Source> sources = new HashSet<Source>();
-    synchronized (cacheLock) {
+    ReentrantLock[] sharedLocks = lockCache();
+    try {
       boolean hintsEnabled = options.getHint();
       //
       // Look for priority sources that need to be analyzed.
@@ -1710,6 +2070,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
             hintsEnabled,
             sources);
       }
+    } finally {
+      unlockCache(sharedLocks);
     }
     return new ArrayList<Source>(sources);
   }
@@ -1718,60 +2080,68 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
   public AnalysisContentStatistics getStatistics() {
     boolean hintsEnabled = options.getHint();
     AnalysisContentStatisticsImpl statistics = new AnalysisContentStatisticsImpl();
-    synchronized (cacheLock) {
-      MapIterator<Source, SourceEntry> iterator = cache.iterator();
-      while (iterator.moveNext()) {
-        SourceEntry sourceEntry = iterator.getValue();
-        if (sourceEntry instanceof DartEntry) {
-          Source source = iterator.getKey();
-          DartEntry dartEntry = (DartEntry) sourceEntry;
-          SourceKind kind = dartEntry.getValue(DartEntry.SOURCE_KIND);
-          // get library independent values
-          statistics.putCacheItem(dartEntry, SourceEntry.LINE_INFO);
-          statistics.putCacheItem(dartEntry, DartEntry.PARSE_ERRORS);
-          statistics.putCacheItem(dartEntry, DartEntry.PARSED_UNIT);
-          statistics.putCacheItem(dartEntry, DartEntry.SOURCE_KIND);
-          if (kind == SourceKind.LIBRARY) {
-            statistics.putCacheItem(dartEntry, DartEntry.ELEMENT);
-            statistics.putCacheItem(dartEntry, DartEntry.EXPORTED_LIBRARIES);
-            statistics.putCacheItem(dartEntry, DartEntry.IMPORTED_LIBRARIES);
-            statistics.putCacheItem(dartEntry, DartEntry.INCLUDED_PARTS);
-            statistics.putCacheItem(dartEntry, DartEntry.IS_CLIENT);
-            statistics.putCacheItem(dartEntry, DartEntry.IS_LAUNCHABLE);
-            // The public namespace isn't computed by performAnalysisTask() and therefore isn't
-            // interesting.
-            //statistics.putCacheItem(dartEntry, DartEntry.PUBLIC_NAMESPACE);
-          }
-          // get library-specific values
-          Source[] librarySources = getLibrariesContaining(source);
-          for (Source librarySource : librarySources) {
-            statistics.putCacheItemInLibrary(dartEntry, librarySource, DartEntry.RESOLUTION_ERRORS);
-            statistics.putCacheItemInLibrary(dartEntry, librarySource, DartEntry.RESOLVED_UNIT);
-            if (generateSdkErrors || !source.isInSystemLibrary()) {
-              statistics.putCacheItemInLibrary(
-                  dartEntry,
-                  librarySource,
-                  DartEntry.VERIFICATION_ERRORS);
-              if (hintsEnabled) {
-                statistics.putCacheItemInLibrary(dartEntry, librarySource, DartEntry.HINTS);
-              }
+    //
+    // Iterate over a snapshot of the cache so that the locks of the partitions that are shared with
+    // other contexts are not held while the statistics are being computed.
+    //
+    MapIterator<Source, SourceEntry> iterator = cache.snapshotIterator();
+    while (iterator.moveNext()) {
+      SourceEntry sourceEntry = iterator.getValue();
+      if (sourceEntry instanceof DartEntry) {
+        Source source = iterator.getKey();
+        DartEntry dartEntry = (DartEntry) sourceEntry;
+        SourceKind kind = dartEntry.getValue(DartEntry.SOURCE_KIND);
+        // get library independent values
+        statistics.putCacheItem(dartEntry, SourceEntry.LINE_INFO);
+        statistics.putCacheItem(dartEntry, DartEntry.PARSE_ERRORS);
+        statistics.putCacheItem(dartEntry, DartEntry.PARSED_UNIT);
+        statistics.putCacheItem(dartEntry, DartEntry.SOURCE_KIND);
+        if (kind == SourceKind.LIBRARY) {
+          statistics.putCacheItem(dartEntry, DartEntry.ELEMENT);
+          statistics.putCacheItem(dartEntry, DartEntry.EXPORTED_LIBRARIES);
+          statistics.putCacheItem(dartEntry, DartEntry.IMPORTED_LIBRARIES);
+          statistics.putCacheItem(dartEntry, DartEntry.INCLUDED_PARTS);
+          statistics.putCacheItem(dartEntry, DartEntry.IS_CLIENT);
+          statistics.putCacheItem(dartEntry, DartEntry.IS_LAUNCHABLE);
+          // The public namespace isn't computed by performAnalysisTask() and therefore isn't
+          // interesting.
+          //statistics.putCacheItem(dartEntry, DartEntry.PUBLIC_NAMESPACE);
+        }
+        // get library-specific values
+        Source[] librarySources = dartEntry.getValue(DartEntry.CONTAINING_LIBRARIES);
+        for (Source librarySource : librarySources) {
+          statistics.putCacheItemInLibrary(dartEntry, librarySource, DartEntry.RESOLUTION_ERRORS);
+          statistics.putCacheItemInLibrary(dartEntry, librarySource, DartEntry.RESOLVED_UNIT);
+          if (shouldGenerateErrors(source)) {
+            statistics.putCacheItemInLibrary(
+                dartEntry,
+                librarySource,
+                DartEntry.VERIFICATION_ERRORS);
+            if (hintsEnabled) {
+              statistics.putCacheItemInLibrary(dartEntry, librarySource, DartEntry.HINTS);
             }
           }
-        } else if (sourceEntry instanceof HtmlEntry) {
-          HtmlEntry htmlEntry = (HtmlEntry) sourceEntry;
-          statistics.putCacheItem(htmlEntry, SourceEntry.LINE_INFO);
-          statistics.putCacheItem(htmlEntry, HtmlEntry.PARSE_ERRORS);
-          statistics.putCacheItem(htmlEntry, HtmlEntry.PARSED_UNIT);
-          statistics.putCacheItem(htmlEntry, HtmlEntry.RESOLUTION_ERRORS);
-          statistics.putCacheItem(htmlEntry, HtmlEntry.RESOLVED_UNIT);
-          // We are not currently recording any hints related to HTML.
-          // statistics.putCacheItem(htmlEntry, HtmlEntry.HINTS);
         }
-      }
-    }
+      } else if (sourceEntry instanceof HtmlEntry) {
+        HtmlEntry htmlEntry = (HtmlEntry) sourceEntry;
+        statistics.putCacheItem(htmlEntry, SourceEntry.LINE_INFO);
+        statistics.putCacheItem(htmlEntry, HtmlEntry.PARSE_ERRORS);
+        statistics.putCacheItem(htmlEntry, HtmlEntry.PARSED_UNIT);
+        statistics.putCacheItem(htmlEntry, HtmlEntry.RESOLUTION_ERRORS);
+        statistics.putCacheItem(htmlEntry, HtmlEntry.RESOLVED_UNIT);
+        // We are not currently recording any hints related to HTML.
+        // statistics.putCacheItem(htmlEntry, HtmlEntry.HINTS);
+      }
+    }
+    statistics.setEstimatedAstBytes(cache.getAstBytes());
     return statistics;
   }
 
+  @Override
+  public SymbolTable getSymbolTable() {
+    return symbolTable;
+  }
+
   @Override
   public TypeProvider getTypeProvider() throws AnalysisException {
     Source coreSource = getSourceFactory().forUri(DartSdk.DART_CORE);
@@ -1819,7 +2189,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     if (!(context instanceof AnalysisContextImpl)) {
       return;
     }
-    synchronized (cacheLock) {
+    ReentrantLock[] sharedLocks = lockCache();
+    try {
       // TODO(brianwilkerson) This does not lock against the other context's cacheLock.
       MapIterator<Source, SourceEntry> iterator = cache.iterator();
       while (iterator.moveNext()) {
@@ -1832,6 +2203,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
           // TODO(brianwilkerson) Decide whether/how to merge the entries.
         }
       }
+    } finally {
+      unlockCache(sharedLocks);
     }
   }
 
@@ -1857,7 +2230,24 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
       task = getNextAnalysisTask();
     }
     if (task == null) {
-      return new AnalysisResult(getChangeNotices(true), getEnd - getStart, null, -1L);
+      return new AnalysisResult(
+          notifyListeners(getChangeNotices(true)),
+          getEnd - getStart,
+          null,
+          -1L);
+    }
+    int resolutionThreadCount = options.getResolutionThreadCount();
+    int parseThreadCount = options.getParseThreadCount();
+    if (task instanceof ResolveDartLibraryCycleTask && resolutionThreadCount > 1) {
+      task = createResolveDartLibraryCyclesTask(
+          (ResolveDartLibraryCycleTask) task,
+          resolutionThreadCount);
+      getEnd = System.currentTimeMillis();
+    } else if ((task instanceof GetContentTask || task instanceof ScanDartTask
+        || task instanceof ParseDartTask)
+        && parseThreadCount > 1) {
+      task = createParseDartSourcesTask(task, parseThreadCount);
+      getEnd = System.currentTimeMillis();
     }
     String taskDescriptor = task.toString();
 //    if (recentTasks.add(taskDescriptor)) {
@@ -1887,7 +2277,7 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     }
     long performEnd = System.currentTimeMillis();
     return new AnalysisResult(
-        getChangeNotices(false),
+        notifyListeners(getChangeNotices(false)),
         getEnd - getStart,
         task.getClass().getName(),
         performEnd - performStart);
@@ -1895,7 +2285,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
 
   @Override
   public void recordLibraryElements(Map<Source, LibraryElement> elementMap) {
-    synchronized (cacheLock) {
+    ReentrantLock[] sharedLocks = lockCache();
+    try {
       Source htmlSource = sourceFactory.forUri(DartSdk.DART_HTML);
       for (Map.Entry<Source, LibraryElement> entry : elementMap.entrySet()) {
         Source librarySource = entry.getKey();
@@ -1928,6 +2319,15 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
           cache.put(librarySource, dartCopy);
         }
       }
+    } finally {
+      unlockCache(sharedLocks);
+    }
+  }
+
+  @Override
+  public void removeListener(ChangeNoticeListener listener) {
+    synchronized (listeners) {
+      listeners.remove(listener);
     }
   }
 
@@ -1954,7 +2354,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
 
   @Override
   public void setAnalysisOptions(AnalysisOptions options) {
-    synchronized (cacheLock) {
+    ReentrantLock[] sharedLocks = lockCache();
+    try {
       boolean needsRecompute = this.options.getAnalyzeFunctionBodies() != options.getAnalyzeFunctionBodies()
           || this.options.getGenerateSdkErrors() != options.getGenerateSdkErrors()
           || this.options.getDart2jsHint() != options.getDart2jsHint()
@@ -1978,24 +2379,38 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
           priorityOrder = newPriorityOrder;
         }
       }
+      long cacheBudget = options.getCacheBudget();
+      if (this.options.getCacheBudget() != cacheBudget) {
+        this.options.setCacheBudget(cacheBudget);
+        privatePartition.setMaxAstBytes(cacheBudget);
+      }
       this.options.setAnalyzeFunctionBodies(options.getAnalyzeFunctionBodies());
       this.options.setGenerateSdkErrors(options.getGenerateSdkErrors());
+      this.options.setGeneratePackageErrors(options.getGeneratePackageErrors());
       this.options.setDart2jsHint(options.getDart2jsHint());
       this.options.setHint(options.getHint());
       this.options.setIncremental(options.getIncremental());
+      this.options.setParseThreadCount(options.getParseThreadCount());
       this.options.setPreserveComments(options.getPreserveComments());
+      this.options.setResolutionThreadCount(options.getResolutionThreadCount());
+      this.options.setUserSources(options.getUserSources());
 
       generateSdkErrors = options.getGenerateSdkErrors();
+      generatePackageErrors = options.getGeneratePackageErrors();
+      userSources = options.getUserSources();
 
       if (needsRecompute) {
         invalidateAllLocalResolutionInformation();
       }
+    } finally {
+      unlockCache(sharedLocks);
     }
   }
 
   @Override
   public void setAnalysisPriorityOrder(List<Source> sources) {
-    synchronized (cacheLock) {
+    ReentrantLock[] sharedLocks = lockCache();
+    try {
       if (sources == null || sources.isEmpty()) {
         priorityOrder = Source.EMPTY_ARRAY;
       } else {
@@ -2016,18 +2431,25 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
           priorityOrder[i] = sources.get(i);
         }
       }
+      privatePartition.updateRetainedPriorities();
+    } finally {
+      unlockCache(sharedLocks);
     }
   }
 
   @Override
   public void setChangedContents(Source source, String contents, int offset, int oldLength,
       int newLength) {
-    synchronized (cacheLock) {
+    ReentrantLock[] sharedLocks = lockCache(source);
+    try {
       recentTasks.clear();
+      long previousStamp = getModificationStamp(source);
       String originalContents = contentCache.setContents(source, contents);
       if (contents != null) {
         if (!contents.equals(originalContents)) {
+          boolean deferred = false;
           if (options.getIncremental()) {
+            IncrementalAnalysisCache pendingCache = incrementalAnalysisCache;
             incrementalAnalysisCache = IncrementalAnalysisCache.update(
                 incrementalAnalysisCache,
                 source,
@@ -2037,12 +2459,23 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
                 oldLength,
                 newLength,
                 getReadableSourceEntry(source));
+            boolean changePending = pendingCache != null && pendingCache.isBodyChange();
+            if (changePending && pendingCache != incrementalAnalysisCache) {
+              // The pending change can no longer be analyzed incrementally.
+              sourceChanged(pendingCache.getSource());
+              changePending = false;
+            }
+            deferred = deferBodyChange(source, previousStamp, changePending);
+          }
+          if (!deferred) {
+            sourceChanged(source);
           }
-          sourceChanged(source);
           SourceEntry sourceEntry = cache.get(source);
           if (sourceEntry != null) {
             SourceEntryImpl sourceCopy = sourceEntry.getWritableCopy();
-            sourceCopy.setModificationTime(contentCache.getModificationStamp(source));
+            if (!deferred) {
+              sourceCopy.setModificationTime(contentCache.getModificationStamp(source));
+            }
             sourceCopy.setValue(SourceEntry.CONTENT, contents);
             cache.put(source, sourceCopy);
           }
@@ -2051,12 +2484,15 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
         incrementalAnalysisCache = IncrementalAnalysisCache.clear(incrementalAnalysisCache, source);
         sourceChanged(source);
       }
+    } finally {
+      unlockCache(sharedLocks);
     }
   }
 
   @Override
   public void setContents(Source source, String contents) {
-    synchronized (cacheLock) {
+    ReentrantLock[] sharedLocks = lockCache(source);
+    try {
       recentTasks.clear();
       String originalContents = contentCache.setContents(source, contents);
       if (contents != null) {
@@ -2077,12 +2513,15 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
         incrementalAnalysisCache = IncrementalAnalysisCache.clear(incrementalAnalysisCache, source);
         sourceChanged(source);
       }
+    } finally {
+      unlockCache(sharedLocks);
     }
   }
 
   @Override
   public void setSourceFactory(SourceFactory factory) {
-    synchronized (cacheLock) {
+    ReentrantLock[] sharedLocks = lockCache();
+    try {
       if (sourceFactory == factory) {
         return;
       } else if (factory.getContext() != null) {
@@ -2098,6 +2537,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
       cache = createCacheFromSourceFactory(factory);
 
       invalidateAllLocalResolutionInformation();
+    } finally {
+      unlockCache(sharedLocks);
     }
   }
 
@@ -2154,7 +2595,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
         }
         return dartCopy;
       }
-      synchronized (cacheLock) {
+      ReentrantLock[] sharedLocks = lockCache();
+      try {
         if (allModificationTimesMatch(resolvedLibraries)) {
           Source htmlSource = getSourceFactory().forUri(DartSdk.DART_HTML);
           RecordingErrorListener errorListener = resolver.getErrorListener();
@@ -2236,6 +2678,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
           }
           logInformation(writer.toString());
         }
+      } finally {
+        unlockCache(sharedLocks);
       }
     }
     if (thrownException != null) {
@@ -2290,7 +2734,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
         }
         return dartCopy;
       }
-      synchronized (cacheLock) {
+      ReentrantLock[] sharedLocks = lockCache();
+      try {
         if (allModificationTimesMatch(resolvedLibraries)) {
           Source htmlSource = getSourceFactory().forUri(DartSdk.DART_HTML);
           RecordingErrorListener errorListener = resolver.getErrorListener();
@@ -2384,6 +2829,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
           }
           logInformation(writer.toString());
         }
+      } finally {
+        unlockCache(sharedLocks);
       }
     }
     if (thrownException != null) {
@@ -2406,15 +2853,18 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
    * @param source the source whose AST structure was accessed
    */
   private void accessedAst(Source source) {
-    synchronized (cacheLock) {
+    ReentrantLock[] sharedLocks = lockCache(source);
+    try {
       cache.accessedAst(source);
+    } finally {
+      unlockCache(sharedLocks);
     }
   }
 
   /**
    * Add all of the sources contained in the given source container to the given list of sources.
    * <p>
-   * Note: This method must only be invoked while we are synchronized on {@link #cacheLock}.
+   * Note: This method must only be invoked while we are holding {@link #cacheLock}.
    * 
    * @param sources the list to which sources are to be added
    * @param container the source container containing the sources to be added to the list
@@ -2811,6 +3261,24 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     return htmlEntry;
   }
 
+  /**
+   * If the given library is defined in the SDK, remove the member maps that are shared through the
+   * SDK partition. The maps are keyed by the identity of the class elements, so they are never
+   * returned for a newer element model, but they need to be removed so that the element model they
+   * were computed for can be released. This is done whenever an SDK library is invalidated or its
+   * element model is replaced, whichever context that is done in.
+   * 
+   * @param librarySource the source of the library being invalidated or replaced
+   */
+  private void clearSharedMemberMaps(Source librarySource) {
+    if (librarySource.isInSystemLibrary()) {
+      MemberMapCache memberMapCache = getMemberMapCache();
+      if (memberMapCache != null) {
+        memberMapCache.clear();
+      }
+    }
+  }
+
   /**
    * Compute the transitive closure of all libraries that depend on the given library by adding such
    * libraries to the given collection.
@@ -2833,8 +3301,11 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
    * @return the source represented by the encoding
    */
   private Source computeSourceFromEncoding(String encoding) {
-    synchronized (cacheLock) {
+    cacheLock.lock();
+    try {
       return sourceFactory.fromEncoding(encoding);
+    } finally {
+      cacheLock.unlock();
     }
   }
 
@@ -3017,6 +3488,56 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     return new TaskData(new GetContentTask(this, source), false);
   }
 
+  /**
+   * Return a task that will parse the source of the given task together with as many other sources
+   * as are waiting to be parsed, or the given task if no other sources are waiting to be parsed.
+   * The other sources are found by looking for Dart sources in the work queue that have not yet
+   * been parsed, which are typically the sources of unknown kind and the libraries.
+   * 
+   * @param firstTask the task that gets the contents of, scans or parses the first source
+   * @param threadCount the maximum number of threads used to parse the sources
+   * @return a task that will parse the sources
+   */
+  private AnalysisTask createParseDartSourcesTask(AnalysisTask firstTask, int threadCount) {
+    Source firstSource;
+    if (firstTask instanceof GetContentTask) {
+      firstSource = ((GetContentTask) firstTask).getSource();
+    } else if (firstTask instanceof ScanDartTask) {
+      firstSource = ((ScanDartTask) firstTask).getSource();
+    } else {
+      firstSource = ((ParseDartTask) firstTask).getSource();
+    }
+    ReentrantLock[] sharedLocks = lockCache();
+    try {
+      if (!(cache.get(firstSource) instanceof DartEntry)) {
+        return firstTask;
+      }
+      ArrayList<AnalysisTask> sourceTasks = new ArrayList<AnalysisTask>();
+      sourceTasks.add(firstTask);
+      int maxSourceCount = threadCount * SOURCES_PER_PARSE_THREAD;
+      WorkManager.WorkIterator sources = workManager.iterator();
+      while (sources.hasNext() && sourceTasks.size() < maxSourceCount) {
+        Source source = sources.next();
+        SourceEntry sourceEntry = cache.get(source);
+        if (sourceEntry instanceof DartEntry && !source.equals(firstSource)
+            && sourceEntry.getState(DartEntry.PARSE_ERRORS) == CacheState.INVALID
+            && sourceEntry.getState(DartEntry.SCAN_ERRORS) != CacheState.IN_PROCESS
+            && sourceEntry.getState(SourceEntry.CONTENT) != CacheState.IN_PROCESS) {
+          AnalysisTask task = createParseDartTask(source, (DartEntry) sourceEntry).getTask();
+          if (task != null) {
+            sourceTasks.add(task);
+          }
+        }
+      }
+      if (sourceTasks.size() == 1) {
+        return firstTask;
+      }
+      return new ParseDartSourcesTask(this, sourceTasks, threadCount);
+    } finally {
+      unlockCache(sharedLocks);
+    }
+  }
+
   /**
    * Create a {@link ParseDartTask} for the given source, marking the parse errors as being
    * in-process.
@@ -3159,6 +3680,41 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
         htmlCopy.getValue(HtmlEntry.RESOLVED_UNIT)), false);
   }
 
+  /**
+   * Return a task that will resolve the cycle of libraries resolved by the given task together with
+   * as many other cycles of libraries as are ready to be resolved, or the given task if no other
+   * cycles are ready to be resolved. The other cycles are found by looking for libraries in the
+   * work queue that have not yet been resolved.
+   * 
+   * @param firstTask the task resolving the first cycle of libraries
+   * @param threadCount the maximum number of threads used to resolve the cycles
+   * @return a task that will resolve the cycles of libraries
+   */
+  private AnalysisTask createResolveDartLibraryCyclesTask(ResolveDartLibraryCycleTask firstTask,
+      int threadCount) {
+    ReentrantLock[] sharedLocks = lockCache();
+    try {
+      ResolutionBatch batch = new ResolutionBatch(firstTask, threadCount
+          * CYCLES_PER_RESOLUTION_THREAD);
+      WorkManager.WorkIterator sources = workManager.iterator();
+      while (sources.hasNext() && !batch.isFull()) {
+        Source source = sources.next();
+        SourceEntry sourceEntry = cache.get(source);
+        if (sourceEntry instanceof DartEntry
+            && sourceEntry.getValue(DartEntry.SOURCE_KIND) == SourceKind.LIBRARY
+            && sourceEntry.getState(DartEntry.ELEMENT) == CacheState.INVALID) {
+          batch.addCycleContaining(source);
+        }
+      }
+      if (batch.getCycleCount() == 1) {
+        return firstTask;
+      }
+      return batch.createTask(threadCount);
+    } finally {
+      unlockCache(sharedLocks);
+    }
+  }
+
   /**
    * Create a {@link ResolveDartLibraryTask} for the given source, marking ? as being in-process.
    * 
@@ -3167,6 +3723,9 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
    * @return task data representing the created task
    */
   private TaskData createResolveDartLibraryTask(Source source, DartEntry dartEntry) {
+    // The cycle containing the library can depend on libraries in the partitions that are shared
+    // with other contexts, and tasks can be created for them.
+    ReentrantLock[] sharedLocks = lockCache();
     try {
       CycleBuilder builder = new CycleBuilder();
       builder.computeCycleContaining(source);
@@ -3187,6 +3746,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
       AnalysisEngine.getInstance().getLogger().logError(
           "Internal error trying to compute the next analysis task",
           exception);
+    } finally {
+      unlockCache(sharedLocks);
     }
     return new TaskData(null, false);
   }
@@ -3271,6 +3832,45 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     return "'" + source.getFullName() + "' [" + getModificationStamp(source) + "]";
   }
 
+  /**
+   * Return {@code true} if the change to the given source that is described by the incremental
+   * analysis cache is contained within the body of a single method or top-level function. If it
+   * is, then the cached information for the source is left in place, including its modification
+   * time, until an {@link IncrementalAnalysisTask} has analyzed the body again; if that task
+   * cannot update the body, the source is then invalidated as usual.
+   * <p>
+   * <b>Note:</b> This method must only be invoked while we are holding {@link #cacheLock}.
+   * 
+   * @param source the source that has been changed
+   * @param previousStamp the modification stamp of the source before the change
+   * @param changePending {@code true} if the cache already describes an earlier change to a body
+   *          in the source that has not yet been analyzed
+   * @return {@code true} if invalidating the source should be deferred
+   */
+  private boolean deferBodyChange(Source source, long previousStamp, boolean changePending) {
+    IncrementalAnalysisCache incrementalCache = incrementalAnalysisCache;
+    if (incrementalCache == null || !incrementalCache.getSource().equals(source)) {
+      return false;
+    }
+    incrementalCache.setBodyChange(false);
+    SourceEntry sourceEntry = cache.get(source);
+    if (!(sourceEntry instanceof DartEntry)) {
+      return false;
+    } else if (!changePending && sourceEntry.getModificationTime() != previousStamp) {
+      // Either a body change is being analyzed or the cached information was already out of date.
+      return false;
+    }
+    CompilationUnit unit = ((DartEntry) sourceEntry).getValueInLibrary(
+        DartEntry.RESOLVED_UNIT,
+        incrementalCache.getLibrarySource());
+    if (unit == null || unit != incrementalCache.getResolvedUnit()
+        || incrementalCache.getEnclosingBody() == null) {
+      return false;
+    }
+    incrementalCache.setBodyChange(true);
+    return true;
+  }
+
   /**
    * Return an array containing all of the change notices that are waiting to be returned. If there
    * are no notices, then return either {@code null} or an empty array, depending on the value of
@@ -3280,7 +3880,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
    * @return the change notices that are waiting to be returned
    */
   private ChangeNotice[] getChangeNotices(boolean nullIfEmpty) {
-    synchronized (cacheLock) {
+    cacheLock.lock();
+    try {
       if (pendingNotices.isEmpty()) {
         if (nullIfEmpty) {
           return null;
@@ -3291,6 +3892,29 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
           new ChangeNotice[pendingNotices.size()]);
       pendingNotices.clear();
       return notices;
+    } finally {
+      cacheLock.unlock();
+    }
+  }
+
+  /**
+   * If the data represented by the given descriptor is valid for the given source, mark it as
+   * having been flushed because it has been consumed by a task.
+   * 
+   * @param source the source whose data has been consumed
+   * @param descriptor the descriptor representing the data that has been consumed
+   */
+  private void flushConsumedData(Source source, DataDescriptor<?> descriptor) {
+    ReentrantLock[] sharedLocks = lockCache(source);
+    try {
+      SourceEntry sourceEntry = cache.get(source);
+      if (sourceEntry != null && sourceEntry.getState(descriptor) == CacheState.VALID) {
+        SourceEntryImpl sourceCopy = sourceEntry.getWritableCopy();
+        sourceCopy.setState(descriptor, CacheState.FLUSHED);
+        cache.put(source, sourceCopy);
+      }
+    } finally {
+      unlockCache(sharedLocks);
     }
   }
 
@@ -3584,11 +4208,16 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
   /**
    * Look through the cache for a task that needs to be performed. Return the task that was found,
    * or {@code null} if there is no more work to be done.
+   * <p>
+   * Only {@link #cacheLock} is held for the whole of the scan. The lock of a partition that is
+   * shared with other contexts is only held while a source in that partition is being checked, so
+   * that contexts sharing the partition can look for work at the same time.
    * 
    * @return the next task that needs to be performed
    */
   private AnalysisTask getNextAnalysisTask() {
-    synchronized (cacheLock) {
+    cacheLock.lock();
+    try {
       boolean hintsEnabled = options.getHint();
       boolean hasBlockedTask = false;
       //
@@ -3605,11 +4234,7 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
       int priorityCount = priorityOrder.length;
       for (int i = 0; i < priorityCount; i++) {
         Source source = priorityOrder[i];
-        TaskData taskData = getNextAnalysisTaskForSource(
-            source,
-            cache.get(source),
-            true,
-            hintsEnabled);
+        TaskData taskData = getNextAnalysisTaskForSource(source, true, hintsEnabled);
         AnalysisTask task = taskData.getTask();
         if (task != null) {
           return task;
@@ -3620,22 +4245,27 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
       if (neededForResolution != null) {
         ArrayList<Source> sourcesToRemove = new ArrayList<Source>();
         for (Source source : neededForResolution) {
-          SourceEntry sourceEntry = cache.get(source);
-          if (sourceEntry instanceof DartEntry) {
-            DartEntry dartEntry = (DartEntry) sourceEntry;
-            if (!dartEntry.hasResolvableCompilationUnit()) {
-              if (dartEntry.getState(DartEntry.PARSED_UNIT) == CacheState.ERROR) {
-                sourcesToRemove.add(source);
-              } else {
-                TaskData taskData = createParseDartTask(source, dartEntry);
-                AnalysisTask task = taskData.getTask();
-                if (task != null) {
-                  return task;
-                } else if (taskData.isBlocked()) {
-                  hasBlockedTask = true;
+          ReentrantLock[] sharedLocks = lockCache(source);
+          try {
+            SourceEntry sourceEntry = cache.get(source);
+            if (sourceEntry instanceof DartEntry) {
+              DartEntry dartEntry = (DartEntry) sourceEntry;
+              if (!dartEntry.hasResolvableCompilationUnit()) {
+                if (dartEntry.getState(DartEntry.PARSED_UNIT) == CacheState.ERROR) {
+                  sourcesToRemove.add(source);
+                } else {
+                  TaskData taskData = createParseDartTask(source, dartEntry);
+                  AnalysisTask task = taskData.getTask();
+                  if (task != null) {
+                    return task;
+                  } else if (taskData.isBlocked()) {
+                    hasBlockedTask = true;
+                  }
                 }
               }
             }
+          } finally {
+            unlockCache(sharedLocks);
           }
         }
         int count = sourcesToRemove.size();
@@ -3650,11 +4280,7 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
       WorkManager.WorkIterator sources = workManager.iterator();
       while (sources.hasNext()) {
         Source source = sources.next();
-        TaskData taskData = getNextAnalysisTaskForSource(
-            source,
-            cache.get(source),
-            false,
-            hintsEnabled);
+        TaskData taskData = getNextAnalysisTaskForSource(source, false, hintsEnabled);
         AnalysisTask task = taskData.getTask();
         if (task != null) {
           int count = sourcesToRemove.size();
@@ -3689,6 +4315,31 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
         return WaitForAsyncTask.getInstance();
       }
       return null;
+    } finally {
+      cacheLock.unlock();
+    }
+  }
+
+  /**
+   * Look at the given source to see whether a task needs to be performed related to it. Return the
+   * task that should be performed, or {@code null} if there is no more work to be done for the
+   * source. The lock of the partition containing the source is held while the source is checked if
+   * that partition is shared with other contexts.
+   * <p>
+   * <b>Note:</b> This method must only be invoked while we are holding {@link #cacheLock}.
+   * 
+   * @param source the source to be checked
+   * @param isPriority {@code true} if the source is a priority source
+   * @param hintsEnabled {@code true} if hints are currently enabled
+   * @return the next task that needs to be performed for the given source
+   */
+  private TaskData getNextAnalysisTaskForSource(Source source, boolean isPriority,
+      boolean hintsEnabled) {
+    ReentrantLock[] sharedLocks = lockCache(source);
+    try {
+      return getNextAnalysisTaskForSource(source, cache.get(source), isPriority, hintsEnabled);
+    } finally {
+      unlockCache(sharedLocks);
     }
   }
 
@@ -3697,7 +4348,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
    * task that should be performed, or {@code null} if there is no more work to be done for the
    * source.
    * <p>
-   * <b>Note:</b> This method must only be invoked while we are synchronized on {@link #cacheLock}.
+   * <b>Note:</b> This method must only be invoked while we are holding {@link #cacheLock} and the
+   * lock of the partition containing the source if that partition is shared with other contexts.
    * 
    * @param source the source to be checked
    * @param sourceEntry the cache entry associated with the source
@@ -3790,7 +4442,7 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
             cache.put(source, dartCopy);
             return new TaskData(new ResolveDartLibraryTask(this, source, librarySource), false);
           }
-          if (generateSdkErrors || !source.isInSystemLibrary()) {
+          if (shouldGenerateErrors(source)) {
             CacheState verificationErrorsState = dartEntry.getStateInLibrary(
                 DartEntry.VERIFICATION_ERRORS,
                 librarySource);
@@ -3889,7 +4541,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
    * @return the source cache entry associated with the given source
    */
   private DartEntry getReadableDartEntry(Source source) {
-    synchronized (cacheLock) {
+    ReentrantLock[] sharedLocks = lockCache(source);
+    try {
       SourceEntry sourceEntry = cache.get(source);
       if (sourceEntry == null) {
         sourceEntry = createSourceEntry(source, false);
@@ -3898,6 +4551,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
         return (DartEntry) sourceEntry;
       }
       return null;
+    } finally {
+      unlockCache(sharedLocks);
     }
   }
 
@@ -3909,7 +4564,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
    * @return the source cache entry associated with the given source
    */
   private HtmlEntry getReadableHtmlEntry(Source source) {
-    synchronized (cacheLock) {
+    ReentrantLock[] sharedLocks = lockCache(source);
+    try {
       SourceEntry sourceEntry = cache.get(source);
       if (sourceEntry == null) {
         sourceEntry = createSourceEntry(source, false);
@@ -3918,6 +4574,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
         return (HtmlEntry) sourceEntry;
       }
       return null;
+    } finally {
+      unlockCache(sharedLocks);
     }
   }
 
@@ -3928,12 +4586,15 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
    * @return the source cache entry associated with the given source
    */
   private SourceEntry getReadableSourceEntry(Source source) {
-    synchronized (cacheLock) {
+    ReentrantLock[] sharedLocks = lockCache(source);
+    try {
       SourceEntry sourceEntry = cache.get(source);
       if (sourceEntry == null) {
         sourceEntry = createSourceEntry(source, false);
       }
       return sourceEntry;
+    } finally {
+      unlockCache(sharedLocks);
     }
   }
 
@@ -3945,8 +4606,11 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
    * @return the source cache entry associated with the given source
    */
   private SourceEntry getReadableSourceEntryOrNull(Source source) {
-    synchronized (cacheLock) {
+    ReentrantLock[] sharedLocks = lockCache(source);
+    try {
       return cache.get(source);
+    } finally {
+      unlockCache(sharedLocks);
     }
   }
 
@@ -3980,13 +4644,16 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
    */
   private Source[] getSources(SourceKind kind) {
     ArrayList<Source> sources = new ArrayList<Source>();
-    synchronized (cacheLock) {
+    ReentrantLock[] sharedLocks = lockCache();
+    try {
       MapIterator<Source, SourceEntry> iterator = cache.iterator();
       while (iterator.moveNext()) {
         if (iterator.getValue().getKind() == kind) {
           sources.add(iterator.getKey());
         }
       }
+    } finally {
+      unlockCache(sharedLocks);
     }
     return sources.toArray(new Source[sources.size()]);
   }
@@ -3998,7 +4665,7 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
    * {@link #getNextAnalysisTask(Source, SourceEntry, boolean, boolean)}. This method is intended to
    * be used for testing purposes only.
    * <p>
-   * <b>Note:</b> This method must only be invoked while we are synchronized on {@link #cacheLock}.
+   * <b>Note:</b> This method must only be invoked while we are holding {@link #cacheLock}.
    * 
    * @param source the source to be checked
    * @param sourceEntry the cache entry associated with the source
@@ -4048,27 +4715,29 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
               return;
             }
           }
-          CacheState verificationErrorsState = dartEntry.getStateInLibrary(
-              DartEntry.VERIFICATION_ERRORS,
-              librarySource);
-          if (verificationErrorsState == CacheState.INVALID
-              || (isPriority && verificationErrorsState == CacheState.FLUSHED)) {
-            LibraryElement libraryElement = libraryEntry.getValue(DartEntry.ELEMENT);
-            if (libraryElement != null) {
-              sources.add(source);
-              return;
-            }
-          }
-          if (hintsEnabled) {
-            CacheState hintsState = dartEntry.getStateInLibrary(DartEntry.HINTS, librarySource);
-            if (hintsState == CacheState.INVALID
-                || (isPriority && hintsState == CacheState.FLUSHED)) {
+          if (shouldGenerateErrors(source)) {
+            CacheState verificationErrorsState = dartEntry.getStateInLibrary(
+                DartEntry.VERIFICATION_ERRORS,
+                librarySource);
+            if (verificationErrorsState == CacheState.INVALID
+                || (isPriority && verificationErrorsState == CacheState.FLUSHED)) {
               LibraryElement libraryElement = libraryEntry.getValue(DartEntry.ELEMENT);
               if (libraryElement != null) {
                 sources.add(source);
                 return;
               }
             }
+            if (hintsEnabled) {
+              CacheState hintsState = dartEntry.getStateInLibrary(DartEntry.HINTS, librarySource);
+              if (hintsState == CacheState.INVALID
+                  || (isPriority && hintsState == CacheState.FLUSHED)) {
+                LibraryElement libraryElement = libraryEntry.getValue(DartEntry.ELEMENT);
+                if (libraryElement != null) {
+                  sources.add(source);
+                  return;
+                }
+              }
+            }
           }
         }
       }
@@ -4127,7 +4796,7 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
   /**
    * Invalidate all of the resolution results computed by this context.
    * <p>
-   * <b>Note:</b> This method must only be invoked while we are synchronized on {@link #cacheLock}.
+   * <b>Note:</b> This method must only be invoked while we are holding {@link #cacheLock}.
    */
   private void invalidateAllLocalResolutionInformation() {
     HashMap<Source, Source[]> oldPartMap = new HashMap<Source, Source[]>();
@@ -4155,7 +4824,7 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
    * In response to a change to Angular entry point {@link HtmlElement}, invalidate any results that
    * depend on it.
    * <p>
-   * <b>Note:</b> This method must only be invoked while we are synchronized on {@link #cacheLock}.
+   * <b>Note:</b> This method must only be invoked while we are holding {@link #cacheLock}.
    * <p>
    * <b>Note:</b> Any cache entries that were accessed before this method was invoked must be
    * re-accessed after this method returns.
@@ -4204,7 +4873,7 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
    * In response to a change to at least one of the compilation units in the given library,
    * invalidate any results that are dependent on the result of resolving that library.
    * <p>
-   * <b>Note:</b> This method must only be invoked while we are synchronized on {@link #cacheLock}.
+   * <b>Note:</b> This method must only be invoked while we are holding {@link #cacheLock}.
    * <p>
    * <b>Note:</b> Any cache entries that were accessed before this method was invoked must be
    * re-accessed after this method returns.
@@ -4215,6 +4884,7 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     // TODO(brianwilkerson) This could be optimized. There's no need to flush all of these entries
     // if the public namespace hasn't changed, which will be a fairly common case. The question is
     // whether we can afford the time to compute the namespace to look for differences.
+    clearSharedMemberMaps(librarySource);
     DartEntry libraryEntry = getReadableDartEntry(librarySource);
     if (libraryEntry != null) {
       Source[] includedParts = libraryEntry.getValue(DartEntry.INCLUDED_PARTS);
@@ -4245,6 +4915,39 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     }
   }
 
+  /**
+   * Reset the state of the source of the given task, which was created for a
+   * {@link ParseDartSourcesTask} but never performed, so that the work will be done again. The data
+   * that the task would have produced is marked as invalid rather than as in-process.
+   * 
+   * @param task the task with which the work for the source was to start
+   */
+  private void invalidateUnprocessedSource(AnalysisTask task) {
+    Source source;
+    DataDescriptor<?> descriptor;
+    if (task instanceof GetContentTask) {
+      source = ((GetContentTask) task).getSource();
+      descriptor = SourceEntry.CONTENT;
+    } else if (task instanceof ScanDartTask) {
+      source = ((ScanDartTask) task).getSource();
+      descriptor = DartEntry.SCAN_ERRORS;
+    } else {
+      source = ((ParseDartTask) task).getSource();
+      descriptor = DartEntry.PARSE_ERRORS;
+    }
+    ReentrantLock[] sharedLocks = lockCache(source);
+    try {
+      SourceEntry sourceEntry = cache.get(source);
+      if (sourceEntry != null && sourceEntry.getState(descriptor) == CacheState.IN_PROCESS) {
+        SourceEntryImpl sourceCopy = sourceEntry.getWritableCopy();
+        sourceCopy.setState(descriptor, CacheState.INVALID);
+        cache.put(source, sourceCopy);
+      }
+    } finally {
+      unlockCache(sharedLocks);
+    }
+  }
+
   /**
    * Return {@code true} if this library is, or depends on, dart:html.
    * 
@@ -4275,6 +4978,58 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     return false;
   }
 
+  /**
+   * Return {@code true} if the given source is owned by the user rather than being in the SDK or in
+   * one of the packages being depended on.
+   * 
+   * @param source the source being tested
+   * @return {@code true} if the given source is owned by the user
+   */
+  private boolean isUserSource(Source source) {
+    if (source.isInSystemLibrary()) {
+      return false;
+    } else if (userSources != null) {
+      return userSources.contains(source);
+    }
+    return source.getUriKind() != UriKind.PACKAGE_URI;
+  }
+
+  /**
+   * Acquire {@link #cacheLock} together with the locks of all of the partitions that are shared
+   * with other contexts. This must be used by any code that iterates over the cache or that might
+   * modify entries in more than one partition. The returned locks must be passed to
+   * {@link #unlockCache(ReentrantLock[])} when the work has been completed.
+   * 
+   * @return the shared partition locks that were acquired
+   */
+  private ReentrantLock[] lockCache() {
+    cacheLock.lock();
+    ReentrantLock[] sharedLocks = cache.getSharedLocks();
+    for (ReentrantLock lock : sharedLocks) {
+      lock.lock();
+    }
+    return sharedLocks;
+  }
+
+  /**
+   * Acquire {@link #cacheLock} together with the lock of the partition containing the given source
+   * if that partition is shared with other contexts. Code that holds only these locks can modify
+   * the entry for the given source (and the entries for sources in the same partition), but must
+   * not iterate over the cache. The returned locks must be passed to
+   * {@link #unlockCache(ReentrantLock[])} when the work has been completed.
+   * 
+   * @param source the source whose entry is going to be accessed
+   * @return the shared partition locks that were acquired
+   */
+  private ReentrantLock[] lockCache(Source source) {
+    cacheLock.lock();
+    ReentrantLock[] sharedLocks = cache.getSharedLocks(source);
+    for (ReentrantLock lock : sharedLocks) {
+      lock.lock();
+    }
+    return sharedLocks;
+  }
+
   /**
    * Log the given debugging information.
    * 
@@ -4298,6 +5053,36 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     }
   }
 
+  /**
+   * Notify the listeners of this context that the analysis results described by the given notices
+   * have changed. The notices are delivered as a single batch, after the cache has been unlocked.
+   * 
+   * @param notices the notices describing the changes, or {@code null} if there are no changes
+   * @return the notices that were given
+   */
+  private ChangeNotice[] notifyListeners(ChangeNotice[] notices) {
+    if (notices == null || notices.length == 0) {
+      return notices;
+    }
+    ChangeNoticeListener[] currentListeners;
+    synchronized (listeners) {
+      if (listeners.isEmpty()) {
+        return notices;
+      }
+      currentListeners = listeners.toArray(new ChangeNoticeListener[listeners.size()]);
+    }
+    for (ChangeNoticeListener listener : currentListeners) {
+      try {
+        listener.resultsChanged(this, notices);
+      } catch (Exception exception) {
+        AnalysisEngine.getInstance().getLogger().logError(
+            "Exception while notifying a listener of changed analysis results",
+            exception);
+      }
+    }
+    return notices;
+  }
+
   /**
    * Updates {@link HtmlEntry}s that correspond to the previously known and new Angular application
    * information.
@@ -4359,7 +5144,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     List<ResolvableLibrary> builtLibraries = task.getLibrariesInCycle();
     AnalysisException thrownException = task.getException();
     DartEntry targetEntry = null;
-    synchronized (cacheLock) {
+    ReentrantLock[] sharedLocks = lockCache();
+    try {
       if (allModificationTimesMatch(builtLibraries)) {
         Source htmlSource = getSourceFactory().forUri(DartSdk.DART_HTML);
         RecordingErrorListener errorListener = task.getErrorListener();
@@ -4375,6 +5161,9 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
               dartCopy.setValueInLibrary(DartEntry.BUILT_UNIT, librarySource, unit);
               if (source.equals(librarySource)) {
                 LibraryElementImpl libraryElement = library.getLibraryElement();
+                if (dartCopy.getValue(DartEntry.ELEMENT) != libraryElement) {
+                  clearSharedMemberMaps(librarySource);
+                }
                 dartCopy.setValue(DartEntry.ELEMENT, libraryElement);
                 dartCopy.setValue(DartEntry.IS_LAUNCHABLE, libraryElement.getEntryPoint() != null);
                 dartCopy.setValue(
@@ -4440,6 +5229,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
         }
         logInformation(writer.toString());
       }
+    } finally {
+      unlockCache(sharedLocks);
     }
     if (thrownException != null) {
       throw thrownException;
@@ -4465,6 +5256,9 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
    */
   private void recordElementData(DartEntryImpl dartCopy, LibraryElement library,
       Source librarySource, Source htmlSource) {
+    if (dartCopy.getValue(DartEntry.ELEMENT) != library) {
+      clearSharedMemberMaps(librarySource);
+    }
     dartCopy.setValue(DartEntry.ELEMENT, library);
     dartCopy.setValue(DartEntry.IS_LAUNCHABLE, library.getEntryPoint() != null);
     dartCopy.setValue(
@@ -4486,7 +5280,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     Source librarySource = task.getLibraryElement().getSource();
     AnalysisException thrownException = task.getException();
     DartEntry dartEntry = null;
-    synchronized (cacheLock) {
+    ReentrantLock[] sharedLocks = lockCache(source);
+    try {
       SourceEntry sourceEntry = cache.get(source);
       if (sourceEntry == null) {
         throw new ObsoleteSourceAnalysisException(source);
@@ -4549,6 +5344,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
         cache.put(source, dartCopy);
         dartEntry = dartCopy;
       }
+    } finally {
+      unlockCache(sharedLocks);
     }
     if (thrownException != null) {
       throw thrownException;
@@ -4571,7 +5368,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     DartEntry libraryEntry = null;
     HashMap<Source, TimestampedData<AnalysisError[]>> hintMap = task.getHintMap();
     if (hintMap == null) {
-      synchronized (cacheLock) {
+      ReentrantLock[] sharedLocks = lockCache(librarySource);
+      try {
         // We don't have any information about which sources to mark as invalid other than the library
         // source.
         SourceEntry sourceEntry = cache.get(librarySource);
@@ -4593,13 +5391,16 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
         dartCopy.setStateInLibrary(DartEntry.HINTS, librarySource, CacheState.ERROR);
         dartCopy.setException(thrownException);
         cache.put(librarySource, dartCopy);
+      } finally {
+        unlockCache(sharedLocks);
       }
       throw thrownException;
     }
     for (Map.Entry<Source, TimestampedData<AnalysisError[]>> entry : hintMap.entrySet()) {
       Source unitSource = entry.getKey();
       TimestampedData<AnalysisError[]> results = entry.getValue();
-      synchronized (cacheLock) {
+      ReentrantLock[] sharedLocks = lockCache(unitSource);
+      try {
         SourceEntry sourceEntry = cache.get(unitSource);
         if (!(sourceEntry instanceof DartEntry)) {
           // This shouldn't be possible because we should never have performed the task if the source
@@ -4665,6 +5466,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
             dartEntry = dartCopy;
           }
         }
+      } finally {
+        unlockCache(sharedLocks);
       }
     }
     if (thrownException != null) {
@@ -4687,7 +5490,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     Source source = task.getSource();
     AnalysisException thrownException = task.getException();
     SourceEntry sourceEntry = null;
-    synchronized (cacheLock) {
+    ReentrantLock[] sharedLocks = lockCache(source);
+    try {
       sourceEntry = cache.get(source);
       if (sourceEntry == null) {
         throw new ObsoleteSourceAnalysisException(source);
@@ -4703,6 +5507,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
       }
       cache.put(source, sourceCopy);
       sourceEntry = sourceCopy;
+    } finally {
+      unlockCache(sharedLocks);
     }
     if (thrownException != null) {
       throw thrownException;
@@ -4719,17 +5525,110 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
    */
   private DartEntry recordIncrementalAnalysisTaskResults(IncrementalAnalysisTask task)
       throws AnalysisException {
-    synchronized (cacheLock) {
+    cacheLock.lock();
+    try {
+      IncrementalAnalysisCache taskCache = task.getCache();
+      if (taskCache != null && taskCache.isBodyChange()) {
+        return recordIncrementalBodyResults(task);
+      }
       CompilationUnit unit = task.getCompilationUnit();
       if (unit != null) {
         ChangeNoticeImpl notice = getNotice(task.getSource());
         notice.setCompilationUnit(unit);
         incrementalAnalysisCache = IncrementalAnalysisCache.cacheResult(task.getCache(), unit);
       }
+    } finally {
+      cacheLock.unlock();
     }
     return null;
   }
 
+  /**
+   * Record the results produced by performing an {@link IncrementalAnalysisTask} for a change that
+   * was contained within a single function body. If the task could not update the body, or if the
+   * errors associated with the source cannot be updated, then the source is invalidated. The element
+   * model is only updated once the results have been accepted.
+   * <p>
+   * <b>Note:</b> This method must only be invoked while we are holding {@link #cacheLock}.
+   * 
+   * @param task the task that was performed
+   * @return an entry containing the computed results
+   */
+  private DartEntry recordIncrementalBodyResults(IncrementalAnalysisTask task) {
+    IncrementalAnalysisCache taskCache = task.getCache();
+    Source source = taskCache.getSource();
+    Source librarySource = taskCache.getLibrarySource();
+    SourceEntry sourceEntry = cache.get(source);
+    if (!(sourceEntry instanceof DartEntry)) {
+      return null;
+    }
+    DartEntry dartEntry = (DartEntry) sourceEntry;
+    CompilationUnit oldUnit = dartEntry.getValueInLibrary(DartEntry.RESOLVED_UNIT, librarySource);
+    if (oldUnit != taskCache.getResolvedUnit()) {
+      // The source was invalidated while the task was being performed.
+      return dartEntry;
+    }
+    CompilationUnit unit = task.getCompilationUnit();
+    if (unit == null || !task.isBodyUpdated()
+        || !taskCache.getNewContents().equals(contentCache.getContents(source))
+        || dartEntry.getState(DartEntry.SCAN_ERRORS) != CacheState.VALID
+        || dartEntry.getValue(DartEntry.SCAN_ERRORS).length != 0
+        || dartEntry.getState(DartEntry.PARSE_ERRORS) != CacheState.VALID) {
+      sourceChanged(source);
+      return (DartEntry) cache.get(source);
+    }
+    task.updateElements();
+    DartEntryImpl dartCopy = dartEntry.getWritableCopy();
+    dartCopy.setModificationTime(getModificationStamp(source));
+    dartCopy.setValue(DartEntry.PARSE_ERRORS, task.updateErrors(
+        DartEntry.PARSE_ERRORS,
+        dartEntry.getValue(DartEntry.PARSE_ERRORS)));
+    updateErrorsInLibrary(task, dartEntry, dartCopy, librarySource, DartEntry.BUILD_ELEMENT_ERRORS);
+    updateErrorsInLibrary(task, dartEntry, dartCopy, librarySource, DartEntry.RESOLUTION_ERRORS);
+    updateErrorsInLibrary(task, dartEntry, dartCopy, librarySource, DartEntry.VERIFICATION_ERRORS);
+    boolean invalidateLibraryHints = false;
+    if (task.isLibraryHintsUpdated()) {
+      updateErrorsInLibrary(task, dartEntry, dartCopy, librarySource, DartEntry.HINTS);
+    } else if (dartEntry.getStateInLibrary(DartEntry.HINTS, librarySource) == CacheState.VALID) {
+      // hints such as unused imports depend on every unit of the library, so they are generated
+      // again for the whole library
+      dartCopy.setStateInLibrary(DartEntry.HINTS, librarySource, CacheState.INVALID);
+      invalidateLibraryHints = !source.equals(librarySource);
+      workManager.add(source, SourcePriority.UNKNOWN);
+    }
+    dartCopy.setValueInLibrary(DartEntry.RESOLVED_UNIT, librarySource, unit);
+    if (dartEntry.getStateInLibrary(DartEntry.BUILT_UNIT, librarySource) == CacheState.VALID) {
+      dartCopy.setStateInLibrary(DartEntry.BUILT_UNIT, librarySource, CacheState.FLUSHED);
+    }
+    if (dartEntry.getState(DartEntry.PARSED_UNIT) == CacheState.VALID) {
+      dartCopy.setState(DartEntry.PARSED_UNIT, CacheState.FLUSHED);
+    }
+    if (dartEntry.getState(DartEntry.TOKEN_STREAM) == CacheState.VALID) {
+      dartCopy.setState(DartEntry.TOKEN_STREAM, CacheState.FLUSHED);
+    }
+    dartCopy.setValue(SourceEntry.LINE_INFO, task.getLineInfo());
+    cache.put(source, dartCopy);
+    if (invalidateLibraryHints) {
+      SourceEntry libraryEntry = cache.get(librarySource);
+      if (libraryEntry instanceof DartEntry) {
+        DartEntry dartLibraryEntry = (DartEntry) libraryEntry;
+        CacheState hintsState = dartLibraryEntry.getStateInLibrary(DartEntry.HINTS, librarySource);
+        if (hintsState == CacheState.VALID) {
+          DartEntryImpl libraryCopy = dartLibraryEntry.getWritableCopy();
+          libraryCopy.setStateInLibrary(DartEntry.HINTS, librarySource, CacheState.INVALID);
+          cache.put(librarySource, libraryCopy);
+        }
+      }
+    }
+    ChangeNoticeImpl notice = getNotice(source);
+    notice.setCompilationUnit(unit);
+    notice.setErrors(dartCopy.getAllErrors(), task.getLineInfo());
+    if (incrementalAnalysisCache == null) {
+      incrementalAnalysisCache = IncrementalAnalysisCache.cacheResult(taskCache, unit);
+    }
+    return dartCopy;
+  }
+
   /**
    * Record the results produced by performing a {@link ParseDartTask}. If the results were computed
    * from data that is now out-of-date, then the results will not be recorded.
@@ -4742,7 +5641,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     Source source = task.getSource();
     AnalysisException thrownException = task.getException();
     DartEntry dartEntry = null;
-    synchronized (cacheLock) {
+    ReentrantLock[] sharedLocks = lockCache(source);
+    try {
       SourceEntry sourceEntry = cache.get(source);
       if (sourceEntry == null) {
         throw new ObsoleteSourceAnalysisException(source);
@@ -4857,6 +5757,60 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
         cache.put(source, dartCopy);
         dartEntry = dartCopy;
       }
+    } finally {
+      unlockCache(sharedLocks);
+    }
+    if (thrownException != null) {
+      throw thrownException;
+    }
+    return dartEntry;
+  }
+
+  /**
+   * Record the results produced by performing a {@link ParseDartSourcesTask}. The results of the
+   * tasks performed for each source are recorded in the order in which the tasks were performed.
+   * Because those tasks were not created by this context, the data consumed by each of them is
+   * marked as flushed before its results are recorded, just as it would have been when the task
+   * was created. The sources that were not processed are returned to the invalid state, even if
+   * recording the other results fails.
+   * 
+   * @param task the task that was performed
+   * @return an entry containing the computed results for the first source that was parsed
+   * @throws AnalysisException if the results could not be recorded
+   */
+  private DartEntry recordParseDartSourcesTaskResults(ParseDartSourcesTask task)
+      throws AnalysisException {
+    AnalysisException thrownException = task.getException();
+    DartEntry dartEntry = null;
+    try {
+      for (AnalysisTask sourceTask : task.getPerformedTasks()) {
+        try {
+          SourceEntry sourceEntry;
+          if (sourceTask instanceof GetContentTask) {
+            sourceEntry = recordGetContentsTask((GetContentTask) sourceTask);
+          } else if (sourceTask instanceof ScanDartTask) {
+            Source source = ((ScanDartTask) sourceTask).getSource();
+            flushConsumedData(source, SourceEntry.CONTENT);
+            sourceEntry = recordScanDartTaskResults((ScanDartTask) sourceTask);
+          } else {
+            Source source = ((ParseDartTask) sourceTask).getSource();
+            flushConsumedData(source, DartEntry.TOKEN_STREAM);
+            sourceEntry = recordParseDartTaskResults((ParseDartTask) sourceTask);
+          }
+          if (dartEntry == null && sourceEntry instanceof DartEntry) {
+            dartEntry = (DartEntry) sourceEntry;
+          }
+        } catch (AnalysisException exception) {
+          // Continue recording the results of the other sources.
+          if (thrownException == null) {
+            thrownException = exception;
+          }
+        }
+      }
+    } finally {
+      for (AnalysisTask sourceTask : task.getUnprocessedTasks()) {
+        invalidateUnprocessedSource(sourceTask);
+      }
     }
     if (thrownException != null) {
       throw thrownException;
@@ -4876,7 +5830,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     Source source = task.getSource();
     AnalysisException thrownException = task.getException();
     HtmlEntry htmlEntry = null;
-    synchronized (cacheLock) {
+    ReentrantLock[] sharedLocks = lockCache(source);
+    try {
       SourceEntry sourceEntry = cache.get(source);
       if (sourceEntry == null) {
         throw new ObsoleteSourceAnalysisException(source);
@@ -4958,6 +5913,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
         cache.put(source, htmlCopy);
         htmlEntry = htmlCopy;
       }
+    } finally {
+      unlockCache(sharedLocks);
     }
     if (thrownException != null) {
       throw thrownException;
@@ -4977,7 +5934,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     Source source = task.getSource();
     AnalysisException thrownException = task.getException();
     HtmlEntry htmlEntry = null;
-    synchronized (cacheLock) {
+    ReentrantLock[] sharedLocks = lockCache();
+    try {
       SourceEntry sourceEntry = cache.get(source);
       if (sourceEntry == null) {
         throw new ObsoleteSourceAnalysisException(source);
@@ -5035,6 +5993,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
         cache.put(source, htmlCopy);
         htmlEntry = htmlCopy;
       }
+    } finally {
+      unlockCache(sharedLocks);
     }
     if (thrownException != null) {
       throw thrownException;
@@ -5054,7 +6014,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     Source source = task.getSource();
     AnalysisException thrownException = task.getException();
     HtmlEntry htmlEntry = null;
-    synchronized (cacheLock) {
+    ReentrantLock[] sharedLocks = lockCache();
+    try {
       SourceEntry sourceEntry = cache.get(source);
       if (sourceEntry == null) {
         throw new ObsoleteSourceAnalysisException(source);
@@ -5112,6 +6073,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
         cache.put(source, htmlCopy);
         htmlEntry = htmlCopy;
       }
+    } finally {
+      unlockCache(sharedLocks);
     }
     if (thrownException != null) {
       throw thrownException;
@@ -5131,7 +6094,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     Source source = task.getSource();
     AnalysisException thrownException = task.getException();
     HtmlEntry htmlEntry = null;
-    synchronized (cacheLock) {
+    ReentrantLock[] sharedLocks = lockCache();
+    try {
       SourceEntry sourceEntry = cache.get(source);
       if (sourceEntry == null) {
         throw new ObsoleteSourceAnalysisException(source);
@@ -5199,6 +6163,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
         cache.put(source, htmlCopy);
         htmlEntry = htmlCopy;
       }
+    } finally {
+      unlockCache(sharedLocks);
     }
     if (thrownException != null) {
       throw thrownException;
@@ -5218,7 +6184,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     Source source = task.getSource();
     AnalysisException thrownException = task.getException();
     HtmlEntry htmlEntry = null;
-    synchronized (cacheLock) {
+    ReentrantLock[] sharedLocks = lockCache();
+    try {
       SourceEntry sourceEntry = cache.get(source);
       if (sourceEntry == null) {
         throw new ObsoleteSourceAnalysisException(source);
@@ -5288,6 +6255,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
         cache.put(source, htmlCopy);
         htmlEntry = htmlCopy;
       }
+    } finally {
+      unlockCache(sharedLocks);
     }
     if (thrownException != null) {
       throw thrownException;
@@ -5295,6 +6264,39 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     return htmlEntry;
   }
 
+  /**
+   * Record the results produced by performing a {@link ResolveDartLibraryCyclesTask}. The results
+   * of each of the cycles that were resolved are recorded in the order in which the cycles were
+   * resolved, so the results for a library are always recorded before the results for the
+   * libraries that depend on it.
+   * 
+   * @param task the task that was performed
+   * @return an entry containing the computed results for the first cycle that was resolved
+   * @throws AnalysisException if the results could not be recorded
+   */
+  private DartEntry recordResolveDartLibraryCyclesTaskResults(ResolveDartLibraryCyclesTask task)
+      throws AnalysisException {
+    AnalysisException thrownException = task.getException();
+    DartEntry dartEntry = null;
+    for (ResolveDartLibraryCycleTask cycleTask : task.getPerformedTasks()) {
+      try {
+        DartEntry cycleEntry = recordResolveDartLibraryCycleTaskResults(cycleTask);
+        if (dartEntry == null) {
+          dartEntry = cycleEntry;
+        }
+      } catch (AnalysisException exception) {
+        // Continue recording the results of the other cycles.
+        if (thrownException == null) {
+          thrownException = exception;
+        }
+      }
+    }
+    if (thrownException != null) {
+      throw thrownException;
+    }
+    return dartEntry;
+  }
+
   /**
    * Record the results produced by performing a {@link ResolveDartUnitTask}. If the results were
    * computed from data that is now out-of-date, then the results will not be recorded.
@@ -5309,7 +6311,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     Source librarySource = task.getLibrarySource();
     AnalysisException thrownException = task.getException();
     DartEntry dartEntry = null;
-    synchronized (cacheLock) {
+    ReentrantLock[] sharedLocks = lockCache(unitSource);
+    try {
       SourceEntry sourceEntry = cache.get(unitSource);
       if (sourceEntry == null) {
         throw new ObsoleteSourceAnalysisException(unitSource);
@@ -5375,6 +6378,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
         cache.put(unitSource, dartCopy);
         dartEntry = dartCopy;
       }
+    } finally {
+      unlockCache(sharedLocks);
     }
     if (thrownException != null) {
       throw thrownException;
@@ -5394,7 +6399,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     Source source = task.getSource();
     AnalysisException thrownException = task.getException();
     HtmlEntry htmlEntry = null;
-    synchronized (cacheLock) {
+    ReentrantLock[] sharedLocks = lockCache(source);
+    try {
       SourceEntry sourceEntry = cache.get(source);
       if (sourceEntry == null) {
         throw new ObsoleteSourceAnalysisException(source);
@@ -5467,6 +6473,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
         cache.put(source, htmlCopy);
         htmlEntry = htmlCopy;
       }
+    } finally {
+      unlockCache(sharedLocks);
     }
     if (thrownException != null) {
       throw thrownException;
@@ -5486,7 +6494,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     Source source = task.getSource();
     AnalysisException thrownException = task.getException();
     DartEntry dartEntry = null;
-    synchronized (cacheLock) {
+    ReentrantLock[] sharedLocks = lockCache(source);
+    try {
       SourceEntry sourceEntry = cache.get(source);
       if (sourceEntry == null) {
         throw new ObsoleteSourceAnalysisException(source);
@@ -5559,6 +6568,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
         cache.put(source, dartCopy);
         dartEntry = dartCopy;
       }
+    } finally {
+      unlockCache(sharedLocks);
     }
     if (thrownException != null) {
       throw thrownException;
@@ -5570,7 +6581,7 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
    * Remove the given library from the list of containing libraries for all of the parts referenced
    * by the given entry.
    * <p>
-   * <b>Note:</b> This method must only be invoked while we are synchronized on {@link #cacheLock}.
+   * <b>Note:</b> This method must only be invoked while we are holding {@link #cacheLock}.
    * 
    * @param librarySource the library to be removed
    * @param dartEntry the entry containing the list of included parts
@@ -5596,7 +6607,7 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
    * Remove the given libraries that are keys in the given map from the list of containing libraries
    * for each of the parts in the corresponding value.
    * <p>
-   * <b>Note:</b> This method must only be invoked while we are synchronized on {@link #cacheLock}.
+   * <b>Note:</b> This method must only be invoked while we are holding {@link #cacheLock}.
    * 
    * @param oldPartMap the table containing the parts associated with each library
    */
@@ -5640,11 +6651,32 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     }
   }
 
+  /**
+   * Return {@code true} if errors, warnings and hints should be generated for the given source when
+   * performing analysis tasks, rather than only when they are explicitly requested. Sources in the
+   * SDK are governed by {@link #generateSdkErrors}. Sources in the packages being depended on, that
+   * is, sources not owned by the user, are governed by {@link #generatePackageErrors}, unless they
+   * are priority sources.
+   * <p>
+   * <b>Note:</b> This method must only be invoked while we are holding {@link #cacheLock}.
+   * 
+   * @param source the source whose errors might be generated
+   * @return {@code true} if errors should be generated for the source during analysis
+   */
+  private boolean shouldGenerateErrors(Source source) {
+    if (source.isInSystemLibrary()) {
+      return generateSdkErrors;
+    } else if (generatePackageErrors || isUserSource(source)) {
+      return true;
+    }
+    return contains(priorityOrder, source);
+  }
+
   /**
    * Create an entry for the newly added source. Return {@code true} if the new source is a Dart
    * file.
    * <p>
-   * <b>Note:</b> This method must only be invoked while we are synchronized on {@link #cacheLock}.
+   * <b>Note:</b> This method must only be invoked while we are holding {@link #cacheLock}.
    * 
    * @param source the source that has been added
    * @return {@code true} if the new source is a Dart file
@@ -5670,7 +6702,7 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
   }
 
   /**
-   * <b>Note:</b> This method must only be invoked while we are synchronized on {@link #cacheLock}.
+   * <b>Note:</b> This method must only be invoked while we are holding {@link #cacheLock}.
    * 
    * @param source the source that has been changed
    */
@@ -5712,7 +6744,7 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
   }
 
   /**
-   * <b>Note:</b> This method must only be invoked while we are synchronized on {@link #cacheLock}.
+   * <b>Note:</b> This method must only be invoked while we are holding {@link #cacheLock}.
    * 
    * @param source the source that has been deleted
    */
@@ -5743,7 +6775,7 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
   }
 
   /**
-   * <b>Note:</b> This method must only be invoked while we are synchronized on {@link #cacheLock}.
+   * <b>Note:</b> This method must only be invoked while we are holding {@link #cacheLock}.
    * 
    * @param source the source that has been removed
    */
@@ -5769,12 +6801,46 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     removeFromPriorityOrder(source);
   }
 
+  /**
+   * Release the given shared partition locks, in the reverse of the order in which they were
+   * acquired, followed by {@link #cacheLock}.
+   * 
+   * @param sharedLocks the shared partition locks returned by {@link #lockCache()} or
+   *          {@link #lockCache(Source)}
+   */
+  private void unlockCache(ReentrantLock[] sharedLocks) {
+    for (int i = sharedLocks.length - 1; i >= 0; i--) {
+      sharedLocks[i].unlock();
+    }
+    cacheLock.unlock();
+  }
+
+  /**
+   * Update the errors described by the given descriptor in the given copy of the entry for a
+   * source whose function body was analyzed by the given task. Errors that are not valid are left
+   * unchanged.
+   * 
+   * @param task the task that analyzed the function body
+   * @param dartEntry the entry containing the errors before the body was changed
+   * @param dartCopy the copy of the entry whose errors are to be updated
+   * @param librarySource the source of the library in which the source was analyzed
+   * @param descriptor the descriptor of the errors to be updated
+   */
+  private void updateErrorsInLibrary(IncrementalAnalysisTask task, DartEntry dartEntry,
+      DartEntryImpl dartCopy, Source librarySource, DataDescriptor<AnalysisError[]> descriptor) {
+    if (dartEntry.getStateInLibrary(descriptor, librarySource) == CacheState.VALID) {
+      dartCopy.setValueInLibrary(descriptor, librarySource, task.updateErrors(
+          descriptor,
+          dartEntry.getValueInLibrary(descriptor, librarySource)));
+    }
+  }
+
   /**
    * Check the cache for any invalid entries (entries whose modification time does not match the
    * modification time of the source associated with the entry). Invalid entries will be marked as
    * invalid so that the source will be re-analyzed.
    * <p>
-   * <b>Note:</b> This method must only be invoked while we are synchronized on {@link #cacheLock}.
+   * <b>Note:</b> This method must only be invoked while we are holding {@link #cacheLock}.
    * 
    * @return {@code true} if at least one entry was invalid
    */
@@ -5782,7 +6848,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
     long consistencyCheckStart = System.nanoTime();
     ArrayList<Source> changedSources = new ArrayList<Source>();
     ArrayList<Source> missingSources = new ArrayList<Source>();
-    synchronized (cacheLock) {
+    ReentrantLock[] sharedLocks = lockCache();
+    try {
       MapIterator<Source, SourceEntry> iterator = cache.iterator();
       while (iterator.moveNext()) {
         Source source = iterator.getKey();
@@ -5801,6 +6868,8 @@ public class AnalysisContextImpl implements InternalAnalysisContext {
       for (int i = 0; i < count; i++) {
         sourceChanged(changedSources.get(i));
       }
+    } finally {
+      unlockCache(sharedLocks);
     }
     long consistencyCheckEnd = System.nanoTime();
     if (changedSources.size() > 0 || missingSources.size() > 0) {
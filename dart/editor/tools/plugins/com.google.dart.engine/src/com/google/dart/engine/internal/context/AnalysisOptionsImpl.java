@@ -14,6 +14,8 @@
 package com.google.dart.engine.internal.context;
 
 import com.google.dart.engine.context.AnalysisOptions;
+import com.google.dart.engine.source.SourceContainer;
+import com.google.dart.engine.utilities.translation.DartOmit;
 
 /**
  * Instances of the class {@code AnalysisOptions} represent a set of analysis options used to
@@ -26,11 +28,34 @@ public class AnalysisOptionsImpl implements AnalysisOptions {
    */
   public static final int DEFAULT_CACHE_SIZE = 64;
 
+  /**
+   * The fraction of the maximum heap size that is used by default as the budget for the AST
+   * structures kept in the cache of a single context.
+   */
+  private static final int DEFAULT_CACHE_BUDGET_DIVISOR = 8;
+
+  /**
+   * Return the budget to be used by default for the estimated size of the AST structures kept in
+   * the cache of a single context, which is an eighth of the maximum heap size.
+   * 
+   * @return the default maximum estimated number of bytes used by the AST structures in the cache
+   */
+  @DartOmit
+  public static long getDefaultCacheBudget() {
+    return Runtime.getRuntime().maxMemory() / DEFAULT_CACHE_BUDGET_DIVISOR;
+  }
+
   /**
    * The maximum number of sources for which AST structures should be kept in the cache.
    */
   private int cacheSize = DEFAULT_CACHE_SIZE;
 
+  /**
+   * The maximum estimated number of bytes that can be used by the AST structures kept in the cache,
+   * or {@code 0} if the AST structures are only limited by the cache size.
+   */
+  private long cacheBudget = 0L;
+
   /**
    * A flag indicating whether analysis is to parse and analyze function bodies.
    */
@@ -47,6 +72,12 @@ public class AnalysisOptionsImpl implements AnalysisOptions {
    */
   private boolean generateSdkErrors = false;
 
+  /**
+   * A flag indicating whether errors, warnings and hints should be generated for sources in the
+   * packages being depended on.
+   */
+  private boolean generatePackageErrors = true;
+
   /**
    * A flag indicating whether analysis is to generate hint results (e.g. type inference based
    * information and pub best practices).
@@ -73,6 +104,23 @@ public class AnalysisOptionsImpl implements AnalysisOptions {
    */
   private boolean analyzePolymer = true;
 
+  /**
+   * The maximum number of threads that can be used to scan and parse sources ahead of resolution.
+   */
+  private int parseThreadCount = 1;
+
+  /**
+   * The maximum number of threads that can be used to resolve independent cycles of libraries at
+   * the same time.
+   */
+  private int resolutionThreadCount = 1;
+
+  /**
+   * The container of the sources that are owned by the user, or {@code null} if they are the
+   * sources that are neither in the SDK nor referenced using a 'package:' URI.
+   */
+  private SourceContainer userSources = null;
+
   /**
    * Initialize a newly created set of analysis options to have their default values.
    */
@@ -87,9 +135,14 @@ public class AnalysisOptionsImpl implements AnalysisOptions {
    */
   public AnalysisOptionsImpl(AnalysisOptions options) {
     cacheSize = options.getCacheSize();
+    cacheBudget = options.getCacheBudget();
     dart2jsHint = options.getDart2jsHint();
+    generatePackageErrors = options.getGeneratePackageErrors();
     hint = options.getHint();
     incremental = options.getIncremental();
+    parseThreadCount = options.getParseThreadCount();
+    resolutionThreadCount = options.getResolutionThreadCount();
+    userSources = options.getUserSources();
   }
 
   @Override
@@ -107,6 +160,11 @@ public class AnalysisOptionsImpl implements AnalysisOptions {
     return analyzePolymer;
   }
 
+  @Override
+  public long getCacheBudget() {
+    return cacheBudget;
+  }
+
   @Override
   public int getCacheSize() {
     return cacheSize;
@@ -117,6 +175,11 @@ public class AnalysisOptionsImpl implements AnalysisOptions {
     return dart2jsHint;
   }
 
+  @Override
+  public boolean getGeneratePackageErrors() {
+    return generatePackageErrors;
+  }
+
   @Override
   public boolean getGenerateSdkErrors() {
     return generateSdkErrors;
@@ -132,11 +195,26 @@ public class AnalysisOptionsImpl implements AnalysisOptions {
     return incremental;
   }
 
+  @Override
+  public int getParseThreadCount() {
+    return parseThreadCount;
+  }
+
   @Override
   public boolean getPreserveComments() {
     return preserveComments;
   }
 
+  @Override
+  public int getResolutionThreadCount() {
+    return resolutionThreadCount;
+  }
+
+  @Override
+  public SourceContainer getUserSources() {
+    return userSources;
+  }
+
   /**
    * Set whether analysis is to analyze Angular.
    * 
@@ -164,6 +242,17 @@ public class AnalysisOptionsImpl implements AnalysisOptions {
     this.analyzePolymer = analyzePolymer;
   }
 
+  /**
+   * Set the maximum estimated number of bytes that can be used by the AST structures kept in the
+   * cache to the given number.
+   * 
+   * @param cacheBudget the maximum estimated number of bytes that can be used by AST structures in
+   *          the cache, or {@code 0} if AST structures should only be limited by the cache size
+   */
+  public void setCacheBudget(long cacheBudget) {
+    this.cacheBudget = cacheBudget;
+  }
+
   /**
    * Set the maximum number of sources for which AST structures should be kept in the cache to the
    * given size.
@@ -184,6 +273,17 @@ public class AnalysisOptionsImpl implements AnalysisOptions {
     this.dart2jsHint = dart2jsHints;
   }
 
+  /**
+   * Set whether errors, warnings and hints should be generated during analysis for sources in the
+   * packages being depended on to match the given value.
+   * 
+   * @param generate {@code true} if errors, warnings and hints should be generated for sources in
+   *          the packages being depended on
+   */
+  public void setGeneratePackageErrors(boolean generate) {
+    generatePackageErrors = generate;
+  }
+
   /**
    * Set whether errors, warnings and hints should be generated for sources in the SDK to match the
    * given value.
@@ -214,6 +314,18 @@ public class AnalysisOptionsImpl implements AnalysisOptions {
     this.incremental = incremental;
   }
 
+  /**
+   * Set the maximum number of threads that can be used to scan and parse sources ahead of
+   * resolution to the given number.
+   * 
+   * @param parseThreadCount the maximum number of threads that can be used to scan and parse
+   *          sources, or {@code 1} if sources should be scanned and parsed on the thread performing
+   *          analysis
+   */
+  public void setParseThreadCount(int parseThreadCount) {
+    this.parseThreadCount = Math.max(1, parseThreadCount);
+  }
+
   /**
    * Set whether analysis is to parse comments.
    * 
@@ -222,4 +334,26 @@ public class AnalysisOptionsImpl implements AnalysisOptions {
   public void setPreserveComments(boolean preserveComments) {
     this.preserveComments = preserveComments;
   }
+
+  /**
+   * Set the maximum number of threads that can be used to resolve independent cycles of libraries
+   * at the same time to the given number.
+   * 
+   * @param resolutionThreadCount the maximum number of threads that can be used to resolve
+   *          libraries, or {@code 1} if libraries should be resolved on the thread performing
+   *          analysis
+   */
+  public void setResolutionThreadCount(int resolutionThreadCount) {
+    this.resolutionThreadCount = Math.max(1, resolutionThreadCount);
+  }
+
+  /**
+   * Set the container of the sources that are owned by the user to the given container.
+   * 
+   * @param userSources the container of the sources that are owned by the user, or {@code null} if
+   *          they are the sources that are neither in the SDK nor referenced using a 'package:' URI
+   */
+  public void setUserSources(SourceContainer userSources) {
+    this.userSources = userSources;
+  }
 }
@@ -13,7 +13,13 @@
  */
 package com.google.dart.engine.internal.context;
 
+import com.google.dart.engine.ast.AstNode;
+import com.google.dart.engine.ast.Block;
+import com.google.dart.engine.ast.BlockFunctionBody;
 import com.google.dart.engine.ast.CompilationUnit;
+import com.google.dart.engine.ast.FunctionDeclaration;
+import com.google.dart.engine.ast.MethodDeclaration;
+import com.google.dart.engine.ast.visitor.NodeLocator;
 import com.google.dart.engine.internal.cache.DartEntry;
 import com.google.dart.engine.internal.cache.DartEntryImpl;
 import com.google.dart.engine.internal.cache.SourceEntry;
@@ -101,7 +107,8 @@ public class IncrementalAnalysisCache {
 
     // Create a new cache if there is not an existing cache or the source is different
     // or a new resolved compilation unit is available
-    if (cache == null || !cache.getSource().equals(source) || unit != null) {
+    if (cache == null || !cache.getSource().equals(source)
+        || (unit != null && unit != cache.resolvedUnit)) {
       if (unit == null) {
         return null;
       }
@@ -167,6 +174,13 @@ public class IncrementalAnalysisCache {
   private int oldLength;
   private int newLength;
 
+  /**
+   * A flag indicating whether the changes described by this cache are confined to a single function
+   * body and have not otherwise been recorded in the context, so that the source must be analyzed
+   * in full if the incremental analysis fails.
+   */
+  private boolean bodyChange = false;
+
   public IncrementalAnalysisCache(Source librarySource, Source source,
       CompilationUnit resolvedUnit, String oldContents, String newContents, int offset,
       int oldLength, int newLength) {
@@ -180,6 +194,33 @@ public class IncrementalAnalysisCache {
     this.newLength = newLength;
   }
 
+  /**
+   * Return the body of the method or top-level function in the resolved compilation unit whose
+   * braces enclose all of the characters that were replaced, or {@code null} if the change is not
+   * confined to the body of a single method or top-level function.
+   * 
+   * @return the function body enclosing the change
+   */
+  public BlockFunctionBody getEnclosingBody() {
+    if (resolvedUnit == null) {
+      return null;
+    }
+    int end = offset + oldLength;
+    AstNode node = new NodeLocator(offset, end).searchWithin(resolvedUnit);
+    BlockFunctionBody body = node == null ? null : node.getAncestor(BlockFunctionBody.class);
+    while (body != null && !isMethodOrFunctionBody(body)) {
+      body = body.getParent().getAncestor(BlockFunctionBody.class);
+    }
+    if (body == null) {
+      return null;
+    }
+    Block block = body.getBlock();
+    if (block.getLeftBracket().getEnd() <= offset && end <= block.getRightBracket().getOffset()) {
+      return body;
+    }
+    return null;
+  }
+
   /**
    * Answer the library source for the incremental analysis to be performed
    * 
@@ -260,4 +301,41 @@ public class IncrementalAnalysisCache {
   public boolean hasWork() {
     return oldLength > 0 || newLength > 0;
   }
+
+  /**
+   * Return {@code true} if the changes described by this cache are confined to a single function
+   * body and have not otherwise been recorded in the context.
+   * 
+   * @return {@code true} if the changes are a deferred change to a function body
+   */
+  public boolean isBodyChange() {
+    return bodyChange;
+  }
+
+  /**
+   * Set whether the changes described by this cache are confined to a single function body and
+   * have not otherwise been recorded in the context.
+   * 
+   * @param bodyChange {@code true} if the changes are a deferred change to a function body
+   */
+  public void setBodyChange(boolean bodyChange) {
+    this.bodyChange = bodyChange;
+  }
+
+  /**
+   * Return {@code true} if the given function body is the body of a method or of a top-level
+   * function.
+   * 
+   * @param body the function body being tested
+   * @return {@code true} if the body is the body of a method or top-level function
+   */
+  private boolean isMethodOrFunctionBody(BlockFunctionBody body) {
+    AstNode parent = body.getParent();
+    if (parent instanceof MethodDeclaration) {
+      return true;
+    }
+    AstNode declaration = parent.getParent();
+    return declaration instanceof FunctionDeclaration
+        && declaration.getParent() instanceof CompilationUnit;
+  }
 }
@@ -9,6 +9,8 @@ import com.google.dart.engine.context.AnalysisException;
 import com.google.dart.engine.context.AnalysisOptions;
 import com.google.dart.engine.context.AnalysisResult;
 import com.google.dart.engine.context.AnalysisDelta;
+import com.google.dart.engine.context.ChangeNotice;
+import com.google.dart.engine.context.ChangeNoticeListener;
 import com.google.dart.engine.context.ChangeSet;
 import com.google.dart.engine.element.CompilationUnitElement;
 import com.google.dart.engine.element.Element;
@@ -19,8 +21,11 @@ import com.google.dart.engine.error.AnalysisError;
 import com.google.dart.engine.html.ast.HtmlUnit;
 import com.google.dart.engine.internal.cache.SourceEntry;
 import com.google.dart.engine.internal.element.angular.AngularApplication;
+import com.google.dart.engine.internal.resolver.MemberMapCache;
 import com.google.dart.engine.internal.resolver.TypeProvider;
+import com.google.dart.engine.internal.scope.CompletionCandidateCache;
 import com.google.dart.engine.internal.scope.Namespace;
+import com.google.dart.engine.scanner.SymbolTable;
 import com.google.dart.engine.source.Source;
 import com.google.dart.engine.source.Source.ContentReceiver;
 import com.google.dart.engine.source.SourceContainer;
@@ -32,6 +37,7 @@ import com.google.dart.engine.utilities.source.LineInfo;
 import com.google.dart.engine.utilities.translation.DartBlockBody;
 import com.google.dart.engine.utilities.translation.DartOmit;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -98,6 +104,12 @@ public class InstrumentedAnalysisContextImpl implements InternalAnalysisContext
    */
   private final InternalAnalysisContext basis;
 
+  /**
+   * A table mapping the listeners registered on this context to the listeners registered on the
+   * basis context on their behalf.
+   */
+  private final HashMap<ChangeNoticeListener, ChangeNoticeListener> listeners = new HashMap<ChangeNoticeListener, ChangeNoticeListener>();
+
   /**
    * Create a new {@link InstrumentedAnalysisContextImpl} which wraps a new
    * {@link AnalysisContextImpl} as the basis context.
@@ -116,6 +128,24 @@ public class InstrumentedAnalysisContextImpl implements InternalAnalysisContext
     basis = context;
   }
 
+  @Override
+  public void addListener(final ChangeNoticeListener listener) {
+    ChangeNoticeListener basisListener;
+    synchronized (listeners) {
+      if (listeners.containsKey(listener)) {
+        return;
+      }
+      basisListener = new ChangeNoticeListener() {
+        @Override
+        public void resultsChanged(AnalysisContext context, ChangeNotice[] notices) {
+          listener.resultsChanged(InstrumentedAnalysisContextImpl.this, notices);
+        }
+      };
+      listeners.put(listener, basisListener);
+    }
+    basis.addListener(basisListener);
+  }
+
   @Override
   public void addSourceInfo(Source source, SourceEntry info) {
     basis.addSourceInfo(source, info);
@@ -314,6 +344,11 @@ public class InstrumentedAnalysisContextImpl implements InternalAnalysisContext
     return basis.getCacheSize();
   }
 
+  @Override
+  public CompletionCandidateCache getCompletionCandidateCache() {
+    return basis.getCompletionCandidateCache();
+  }
+
   @Override
   public CompilationUnitElement getCompilationUnitElement(Source unitSource, Source librarySource) {
     InstrumentationBuilder instrumentation = Instrumentation.builder("Analysis-getCompilationUnitElement");
@@ -538,6 +573,11 @@ public class InstrumentedAnalysisContextImpl implements InternalAnalysisContext
     }
   }
 
+  @Override
+  public MemberMapCache getMemberMapCache() {
+    return basis.getMemberMapCache();
+  }
+
   @Override
   public long getModificationStamp(Source source) {
     InstrumentationBuilder instrumentation = Instrumentation.builder("Analysis-getModificationStamp");
@@ -619,6 +659,11 @@ public class InstrumentedAnalysisContextImpl implements InternalAnalysisContext
     return basis.getStatistics();
   }
 
+  @Override
+  public SymbolTable getSymbolTable() {
+    return basis.getSymbolTable();
+  }
+
   @Override
   public TypeProvider getTypeProvider() throws AnalysisException {
     return basis.getTypeProvider();
@@ -726,6 +771,17 @@ public class InstrumentedAnalysisContextImpl implements InternalAnalysisContext
     basis.recordLibraryElements(elementMap);
   }
 
+  @Override
+  public void removeListener(ChangeNoticeListener listener) {
+    ChangeNoticeListener basisListener;
+    synchronized (listeners) {
+      basisListener = listeners.remove(listener);
+    }
+    if (basisListener != null) {
+      basis.removeListener(basisListener);
+    }
+  }
+
   @Override
   public CompilationUnit resolveCompilationUnit(Source unitSource, LibraryElement library)
       throws AnalysisException {
@@ -18,8 +18,11 @@ import com.google.dart.engine.context.AnalysisContext;
 import com.google.dart.engine.context.AnalysisException;
 import com.google.dart.engine.element.LibraryElement;
 import com.google.dart.engine.internal.cache.SourceEntry;
+import com.google.dart.engine.internal.resolver.MemberMapCache;
 import com.google.dart.engine.internal.resolver.TypeProvider;
+import com.google.dart.engine.internal.scope.CompletionCandidateCache;
 import com.google.dart.engine.internal.scope.Namespace;
+import com.google.dart.engine.scanner.SymbolTable;
 import com.google.dart.engine.source.Source;
 import com.google.dart.engine.source.SourceContainer;
 
@@ -93,6 +96,22 @@ public interface InternalAnalysisContext extends AnalysisContext {
    */
   public int getCacheSize();
 
+  /**
+   * Return the cache of the completion candidates computed for the libraries in this context.
+   * 
+   * @return the cache of completion candidates of the libraries in this context
+   */
+  public CompletionCandidateCache getCompletionCandidateCache();
+
+  /**
+   * Return the cache of the member maps of SDK classes that is shared by the inheritance managers of
+   * this context, or {@code null} if this context does not have an SDK. The cache belongs to the
+   * partition holding the SDK, so it is shared with every other context using the same SDK.
+   * 
+   * @return the cache of member maps shared by the inheritance managers of this context
+   */
+  public MemberMapCache getMemberMapCache();
+
   /**
    * Return a namespace containing mappings for all of the public names defined by the given
    * library.
@@ -107,6 +126,13 @@ public interface InternalAnalysisContext extends AnalysisContext {
    */
   public AnalysisContentStatistics getStatistics();
 
+  /**
+   * Return the symbol table used to canonicalize the identifiers scanned in this context.
+   * 
+   * @return the symbol table shared by the scanners of this context
+   */
+  public SymbolTable getSymbolTable();
+
   /**
    * Returns a type provider for this context or throws an exception if dart:core cannot be
    * resolved.
@@ -36,6 +36,13 @@ public class PerformanceStatistics {
    */
   public static TimeCounter parse = new TimeCounter();
 
+  /**
+   * The {@link TimeCounter} for the elapsed time spent scanning and parsing several sources on
+   * multiple threads. The time spent on each of the threads is also added to {@link #scan} and
+   * {@link #parse}, so the amount by which their sum exceeds this time is the time that was saved.
+   */
+  public static TimeCounter parallelScanParse = new TimeCounter();
+
   /**
    * The {@link TimeCounter} for time spent in resolving.
    */
@@ -68,6 +75,7 @@ public class PerformanceStatistics {
     io = new TimeCounter();
     scan = new TimeCounter();
     parse = new TimeCounter();
+    parallelScanParse = new TimeCounter();
     resolve = new TimeCounter();
     angular = new TimeCounter();
     polymer = new TimeCounter();
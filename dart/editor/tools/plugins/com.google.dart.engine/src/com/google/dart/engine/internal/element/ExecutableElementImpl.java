@@ -91,6 +91,28 @@ public abstract class ExecutableElementImpl extends ElementImpl implements Execu
     super(name, nameOffset);
   }
 
+  /**
+   * Make this element the enclosing element of the given functions, labels and local variables
+   * without making them the children of this element. This allows a new body of this element to be
+   * resolved before its elements replace the elements of the current body.
+   * 
+   * @param functions the functions defined within the new body
+   * @param labels the labels defined within the new body
+   * @param localVariables the local variables defined within the new body
+   */
+  public void encloseBodyElements(FunctionElement[] functions, LabelElement[] labels,
+      LocalVariableElement[] localVariables) {
+    for (FunctionElement function : functions) {
+      ((FunctionElementImpl) function).setEnclosingElement(this);
+    }
+    for (LabelElement label : labels) {
+      ((LabelElementImpl) label).setEnclosingElement(this);
+    }
+    for (LocalVariableElement variable : localVariables) {
+      ((LocalVariableElementImpl) variable).setEnclosingElement(this);
+    }
+  }
+
   @Override
   public ElementImpl getChild(String identifier) {
     for (ExecutableElement function : functions) {
@@ -29,6 +29,7 @@ import com.google.dart.engine.element.LibraryElement;
 import com.google.dart.engine.element.PrefixElement;
 import com.google.dart.engine.internal.type.DynamicTypeImpl;
 import com.google.dart.engine.internal.type.FunctionTypeImpl;
+import com.google.dart.engine.internal.type.TypeRelationCache;
 import com.google.dart.engine.internal.type.VoidTypeImpl;
 import com.google.dart.engine.sdk.DartSdk;
 import com.google.dart.engine.source.Source;
@@ -137,6 +138,11 @@ public class LibraryElementImpl extends ElementImpl implements LibraryElement {
    */
   private FunctionElement loadLibraryFunction;
 
+  /**
+   * The cache of the relationships between the types defined in this library and other types.
+   */
+  private final TypeRelationCache typeRelationCache = new TypeRelationCache();
+
   /**
    * Initialize a newly created library element to have the given name.
    * 
@@ -307,6 +313,16 @@ public class LibraryElementImpl extends ElementImpl implements LibraryElement {
     return null;
   }
 
+  /**
+   * Return the cache of the relationships between the types defined in this library and other
+   * types. The cache is discarded along with this element when the library is resolved again.
+   * 
+   * @return the cache of the relationships between the types defined in this library
+   */
+  public TypeRelationCache getTypeRelationCache() {
+    return typeRelationCache;
+  }
+
   @Override
   public CompilationUnitElement[] getUnits() {
     CompilationUnitElement[] units = new CompilationUnitElement[1 + parts.length];
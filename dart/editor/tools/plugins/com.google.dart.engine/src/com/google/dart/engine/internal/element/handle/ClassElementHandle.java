@@ -14,10 +14,12 @@
 package com.google.dart.engine.internal.element.handle;
 
 import com.google.dart.engine.ast.ClassDeclaration;
+import com.google.dart.engine.context.AnalysisContext;
 import com.google.dart.engine.context.AnalysisException;
 import com.google.dart.engine.element.ClassElement;
 import com.google.dart.engine.element.ConstructorElement;
 import com.google.dart.engine.element.ElementKind;
+import com.google.dart.engine.element.ElementLocation;
 import com.google.dart.engine.element.FieldElement;
 import com.google.dart.engine.element.LibraryElement;
 import com.google.dart.engine.element.MethodElement;
@@ -41,6 +43,17 @@ public class ClassElementHandle extends ElementHandle implements ClassElement {
     super(element);
   }
 
+  /**
+   * Initialize a newly created element handle to represent the element with the given location in
+   * the given context. The element is not looked up until it is first needed.
+   * 
+   * @param context the context containing the element
+   * @param location the location of the element being represented
+   */
+  public ClassElementHandle(AnalysisContext context, ElementLocation location) {
+    super(context, location);
+  }
+
   @Override
   public PropertyAccessorElement[] getAccessors() {
     return getActualElement().getAccessors();
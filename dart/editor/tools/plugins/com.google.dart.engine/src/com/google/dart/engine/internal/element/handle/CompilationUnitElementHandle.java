@@ -14,10 +14,12 @@
 package com.google.dart.engine.internal.element.handle;
 
 import com.google.dart.engine.ast.CompilationUnit;
+import com.google.dart.engine.context.AnalysisContext;
 import com.google.dart.engine.context.AnalysisException;
 import com.google.dart.engine.element.ClassElement;
 import com.google.dart.engine.element.CompilationUnitElement;
 import com.google.dart.engine.element.ElementKind;
+import com.google.dart.engine.element.ElementLocation;
 import com.google.dart.engine.element.FunctionElement;
 import com.google.dart.engine.element.FunctionTypeAliasElement;
 import com.google.dart.engine.element.LibraryElement;
@@ -42,6 +44,17 @@ public class CompilationUnitElementHandle extends ElementHandle implements Compi
     super(element);
   }
 
+  /**
+   * Initialize a newly created element handle to represent the element with the given location in
+   * the given context. The element is not looked up until it is first needed.
+   * 
+   * @param context the context containing the element
+   * @param location the location of the element being represented
+   */
+  public CompilationUnitElementHandle(AnalysisContext context, ElementLocation location) {
+    super(context, location);
+  }
+
   @Override
   public PropertyAccessorElement[] getAccessors() {
     return getActualElement().getAccessors();
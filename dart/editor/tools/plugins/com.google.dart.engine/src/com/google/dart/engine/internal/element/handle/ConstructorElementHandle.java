@@ -14,10 +14,12 @@
 package com.google.dart.engine.internal.element.handle;
 
 import com.google.dart.engine.ast.ConstructorDeclaration;
+import com.google.dart.engine.context.AnalysisContext;
 import com.google.dart.engine.context.AnalysisException;
 import com.google.dart.engine.element.ClassElement;
 import com.google.dart.engine.element.ConstructorElement;
 import com.google.dart.engine.element.ElementKind;
+import com.google.dart.engine.element.ElementLocation;
 
 /**
  * Instances of the class {@code ConstructorElementHandle} implement a handle to a
@@ -35,6 +37,17 @@ public class ConstructorElementHandle extends ExecutableElementHandle implements
     super(element);
   }
 
+  /**
+   * Initialize a newly created element handle to represent the element with the given location in
+   * the given context. The element is not looked up until it is first needed.
+   * 
+   * @param context the context containing the element
+   * @param location the location of the element being represented
+   */
+  public ConstructorElementHandle(AnalysisContext context, ElementLocation location) {
+    super(context, location);
+  }
+
   @Override
   public ClassElement getEnclosingElement() {
     return getActualElement().getEnclosingElement();
@@ -22,6 +22,7 @@ import com.google.dart.engine.element.CompilationUnitElement;
 import com.google.dart.engine.element.ConstructorElement;
 import com.google.dart.engine.element.Element;
 import com.google.dart.engine.element.ElementAnnotation;
+import com.google.dart.engine.element.ElementKind;
 import com.google.dart.engine.element.ElementLocation;
 import com.google.dart.engine.element.ElementVisitor;
 import com.google.dart.engine.element.ExportElement;
@@ -121,6 +122,60 @@ public abstract class ElementHandle implements Element {
     return handles;
   }
 
+  /**
+   * Return a handle on the element of the given kind with the given location in the given context,
+   * or {@code null} if there are no handles for elements of the given kind. The element is not
+   * looked up, so its library does not need to have been resolved, until the handle is used.
+   * 
+   * @param context the context containing the element
+   * @param kind the kind of the element
+   * @param location the location of the element
+   * @return a handle on the element with the given location
+   */
+  public static Element forLocation(AnalysisContext context, ElementKind kind,
+      ElementLocation location) {
+    switch (kind) {
+      case CLASS:
+        return new ClassElementHandle(context, location);
+      case COMPILATION_UNIT:
+        return new CompilationUnitElementHandle(context, location);
+      case CONSTRUCTOR:
+        return new ConstructorElementHandle(context, location);
+      case EXPORT:
+        return new ExportElementHandle(context, location);
+      case FIELD:
+        return new FieldElementHandle(context, location);
+      case FUNCTION:
+        return new FunctionElementHandle(context, location);
+      case GETTER:
+        return new PropertyAccessorElementHandle(context, location);
+      case IMPORT:
+        return new ImportElementHandle(context, location);
+      case LABEL:
+        return new LabelElementHandle(context, location);
+      case LIBRARY:
+        return new LibraryElementHandle(context, location);
+      case LOCAL_VARIABLE:
+        return new LocalVariableElementHandle(context, location);
+      case METHOD:
+        return new MethodElementHandle(context, location);
+      case PARAMETER:
+        return new ParameterElementHandle(context, location);
+      case PREFIX:
+        return new PrefixElementHandle(context, location);
+      case SETTER:
+        return new PropertyAccessorElementHandle(context, location);
+      case TOP_LEVEL_VARIABLE:
+        return new TopLevelVariableElementHandle(context, location);
+      case FUNCTION_TYPE_ALIAS:
+        return new FunctionTypeAliasElementHandle(context, location);
+      case TYPE_PARAMETER:
+        return new TypeParameterElementHandle(context, location);
+      default:
+        return null;
+    }
+  }
+
   /**
    * The context in which the element is defined.
    */
@@ -149,6 +204,19 @@ public abstract class ElementHandle implements Element {
     elementReference = new WeakReference<Element>(element);
   }
 
+  /**
+   * Initialize a newly created element handle to represent the element with the given location in
+   * the given context. The element is not looked up until it is first needed.
+   * 
+   * @param context the context containing the element
+   * @param location the location of the element being represented
+   */
+  public ElementHandle(AnalysisContext context, ElementLocation location) {
+    this.context = context;
+    this.location = location;
+    elementReference = new WeakReference<Element>(null);
+  }
+
   @Override
   public <R> R accept(ElementVisitor<R> visitor) {
     return getActualElement().accept(visitor);
@@ -13,6 +13,8 @@
  */
 package com.google.dart.engine.internal.element.handle;
 
+import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.element.ElementLocation;
 import com.google.dart.engine.element.ExecutableElement;
 import com.google.dart.engine.element.FunctionElement;
 import com.google.dart.engine.element.LabelElement;
@@ -37,6 +39,17 @@ public abstract class ExecutableElementHandle extends ElementHandle implements E
     super(element);
   }
 
+  /**
+   * Initialize a newly created element handle to represent the element with the given location in
+   * the given context. The element is not looked up until it is first needed.
+   * 
+   * @param context the context containing the element
+   * @param location the location of the element being represented
+   */
+  public ExecutableElementHandle(AnalysisContext context, ElementLocation location) {
+    super(context, location);
+  }
+
   @Override
   public FunctionElement[] getFunctions() {
     return getActualElement().getFunctions();
@@ -13,8 +13,10 @@
  */
 package com.google.dart.engine.internal.element.handle;
 
+import com.google.dart.engine.context.AnalysisContext;
 import com.google.dart.engine.element.ClassElement;
 import com.google.dart.engine.element.ElementKind;
+import com.google.dart.engine.element.ElementLocation;
 import com.google.dart.engine.element.FieldElement;
 
 /**
@@ -32,6 +34,17 @@ public class FieldElementHandle extends PropertyInducingElementHandle implements
     super(element);
   }
 
+  /**
+   * Initialize a newly created element handle to represent the element with the given location in
+   * the given context. The element is not looked up until it is first needed.
+   * 
+   * @param context the context containing the element
+   * @param location the location of the element being represented
+   */
+  public FieldElementHandle(AnalysisContext context, ElementLocation location) {
+    super(context, location);
+  }
+
   @Override
   public ClassElement getEnclosingElement() {
     return getActualElement().getEnclosingElement();
@@ -14,8 +14,10 @@
 package com.google.dart.engine.internal.element.handle;
 
 import com.google.dart.engine.ast.FunctionDeclaration;
+import com.google.dart.engine.context.AnalysisContext;
 import com.google.dart.engine.context.AnalysisException;
 import com.google.dart.engine.element.ElementKind;
+import com.google.dart.engine.element.ElementLocation;
 import com.google.dart.engine.element.FunctionElement;
 import com.google.dart.engine.utilities.source.SourceRange;
 
@@ -35,6 +37,17 @@ public class FunctionElementHandle extends ExecutableElementHandle implements Fu
     super(element);
   }
 
+  /**
+   * Initialize a newly created element handle to represent the element with the given location in
+   * the given context. The element is not looked up until it is first needed.
+   * 
+   * @param context the context containing the element
+   * @param location the location of the element being represented
+   */
+  public FunctionElementHandle(AnalysisContext context, ElementLocation location) {
+    super(context, location);
+  }
+
   @Override
   public ElementKind getKind() {
     return ElementKind.FUNCTION;
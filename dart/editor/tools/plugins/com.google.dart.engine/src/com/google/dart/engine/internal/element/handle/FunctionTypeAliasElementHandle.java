@@ -14,9 +14,11 @@
 package com.google.dart.engine.internal.element.handle;
 
 import com.google.dart.engine.ast.FunctionTypeAlias;
+import com.google.dart.engine.context.AnalysisContext;
 import com.google.dart.engine.context.AnalysisException;
 import com.google.dart.engine.element.CompilationUnitElement;
 import com.google.dart.engine.element.ElementKind;
+import com.google.dart.engine.element.ElementLocation;
 import com.google.dart.engine.element.FunctionTypeAliasElement;
 import com.google.dart.engine.element.ParameterElement;
 import com.google.dart.engine.element.TypeParameterElement;
@@ -40,6 +42,17 @@ public class FunctionTypeAliasElementHandle extends ElementHandle implements
     super(element);
   }
 
+  /**
+   * Initialize a newly created element handle to represent the element with the given location in
+   * the given context. The element is not looked up until it is first needed.
+   * 
+   * @param context the context containing the element
+   * @param location the location of the element being represented
+   */
+  public FunctionTypeAliasElementHandle(AnalysisContext context, ElementLocation location) {
+    super(context, location);
+  }
+
   @Override
   public CompilationUnitElement getEnclosingElement() {
     return (CompilationUnitElement) super.getEnclosingElement();
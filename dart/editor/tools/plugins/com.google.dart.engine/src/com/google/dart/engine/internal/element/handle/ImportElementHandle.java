@@ -13,7 +13,9 @@
  */
 package com.google.dart.engine.internal.element.handle;
 
+import com.google.dart.engine.context.AnalysisContext;
 import com.google.dart.engine.element.ElementKind;
+import com.google.dart.engine.element.ElementLocation;
 import com.google.dart.engine.element.ImportElement;
 import com.google.dart.engine.element.LibraryElement;
 import com.google.dart.engine.element.NamespaceCombinator;
@@ -35,6 +37,17 @@ public class ImportElementHandle extends ElementHandle implements ImportElement
     super(element);
   }
 
+  /**
+   * Initialize a newly created element handle to represent the element with the given location in
+   * the given context. The element is not looked up until it is first needed.
+   * 
+   * @param context the context containing the element
+   * @param location the location of the element being represented
+   */
+  public ImportElementHandle(AnalysisContext context, ElementLocation location) {
+    super(context, location);
+  }
+
   @Override
   public NamespaceCombinator[] getCombinators() {
     return getActualElement().getCombinators();
@@ -14,9 +14,11 @@
 package com.google.dart.engine.internal.element.handle;
 
 import com.google.dart.engine.ast.MethodDeclaration;
+import com.google.dart.engine.context.AnalysisContext;
 import com.google.dart.engine.context.AnalysisException;
 import com.google.dart.engine.element.ClassElement;
 import com.google.dart.engine.element.ElementKind;
+import com.google.dart.engine.element.ElementLocation;
 import com.google.dart.engine.element.MethodElement;
 
 /**
@@ -34,6 +36,17 @@ public class MethodElementHandle extends ExecutableElementHandle implements Meth
     super(element);
   }
 
+  /**
+   * Initialize a newly created element handle to represent the element with the given location in
+   * the given context. The element is not looked up until it is first needed.
+   * 
+   * @param context the context containing the element
+   * @param location the location of the element being represented
+   */
+  public MethodElementHandle(AnalysisContext context, ElementLocation location) {
+    super(context, location);
+  }
+
   @Override
   public ClassElement getEnclosingElement() {
     return (ClassElement) super.getEnclosingElement();
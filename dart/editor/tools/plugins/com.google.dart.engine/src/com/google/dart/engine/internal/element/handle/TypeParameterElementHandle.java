@@ -13,7 +13,9 @@
  */
 package com.google.dart.engine.internal.element.handle;
 
+import com.google.dart.engine.context.AnalysisContext;
 import com.google.dart.engine.element.ElementKind;
+import com.google.dart.engine.element.ElementLocation;
 import com.google.dart.engine.element.TypeParameterElement;
 import com.google.dart.engine.type.Type;
 import com.google.dart.engine.type.TypeParameterType;
@@ -34,6 +36,17 @@ public class TypeParameterElementHandle extends ElementHandle implements TypePar
     super(element);
   }
 
+  /**
+   * Initialize a newly created element handle to represent the element with the given location in
+   * the given context. The element is not looked up until it is first needed.
+   * 
+   * @param context the context containing the element
+   * @param location the location of the element being represented
+   */
+  public TypeParameterElementHandle(AnalysisContext context, ElementLocation location) {
+    super(context, location);
+  }
+
   @Override
   public Type getBound() {
     return getActualElement().getBound();
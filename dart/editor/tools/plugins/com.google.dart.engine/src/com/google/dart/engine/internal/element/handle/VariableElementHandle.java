@@ -14,7 +14,9 @@
 package com.google.dart.engine.internal.element.handle;
 
 import com.google.dart.engine.ast.VariableDeclaration;
+import com.google.dart.engine.context.AnalysisContext;
 import com.google.dart.engine.context.AnalysisException;
+import com.google.dart.engine.element.ElementLocation;
 import com.google.dart.engine.element.FunctionElement;
 import com.google.dart.engine.element.VariableElement;
 import com.google.dart.engine.type.Type;
@@ -35,6 +37,17 @@ public abstract class VariableElementHandle extends ElementHandle implements Var
     super(element);
   }
 
+  /**
+   * Initialize a newly created element handle to represent the element with the given location in
+   * the given context. The element is not looked up until it is first needed.
+   * 
+   * @param context the context containing the element
+   * @param location the location of the element being represented
+   */
+  public VariableElementHandle(AnalysisContext context, ElementLocation location) {
+    super(context, location);
+  }
+
   @Override
   public FunctionElement getInitializer() {
     return getActualElement().getInitializer();
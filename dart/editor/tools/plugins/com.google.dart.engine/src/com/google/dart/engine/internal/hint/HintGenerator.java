@@ -14,6 +14,7 @@
 package com.google.dart.engine.internal.hint;
 
 import com.google.dart.engine.ast.CompilationUnit;
+import com.google.dart.engine.ast.Declaration;
 import com.google.dart.engine.context.AnalysisContext;
 import com.google.dart.engine.context.AnalysisException;
 import com.google.dart.engine.element.CompilationUnitElement;
@@ -61,6 +62,31 @@ public class HintGenerator {
     manager = new InheritanceManager(compilationUnits[0].getElement().getLibrary());
   }
 
+  /**
+   * Generate the hints for the given declaration in the given source, which is either a top-level
+   * declaration or a member of a class. This is used when a single declaration is being analyzed
+   * again after its body was modified, so hints that depend on the rest of the library, such as
+   * unused imports, are not generated.
+   * 
+   * @param declaration the declaration for which hints are to be generated
+   * @param source the source containing the declaration
+   */
+  public void generateForDeclaration(Declaration declaration, Source source) {
+    TimeCounterHandle timeCounter = PerformanceStatistics.hints.start();
+    try {
+      ErrorReporter errorReporter = new ErrorReporter(errorListener, source);
+      declaration.accept(new DeadCodeVerifier(errorReporter));
+      if (enableDart2JSHints) {
+        declaration.accept(new Dart2JSVerifier(errorReporter));
+      }
+      declaration.accept(new BestPracticesVerifier(errorReporter));
+      declaration.accept(new OverrideVerifier(manager, errorReporter));
+      new ToDoFinder(errorReporter).findIn(declaration);
+    } finally {
+      timeCounter.stop();
+    }
+  }
+
   public void generateForLibrary() throws AnalysisException {
     TimeCounterHandle timeCounter = PerformanceStatistics.hints.start();
     try {
@@ -86,6 +112,30 @@ public class HintGenerator {
     }
   }
 
+  /**
+   * Generate the hints that depend on the uses of the imports in every compilation unit of the
+   * library, such as unused and duplicate imports. This is used when a single declaration is being
+   * analyzed again after its body was modified, in which case the compilation units given to this
+   * generator must be all of the compilation units of the library.
+   */
+  public void generateImportHints() {
+    TimeCounterHandle timeCounter = PerformanceStatistics.hints.start();
+    try {
+      for (int i = 0; i < compilationUnits.length; i++) {
+        importsVerifier.setInDefiningCompilationUnit(i == 0);
+        compilationUnits[i].accept(importsVerifier);
+      }
+      importsVerifier.setInDefiningCompilationUnit(false);
+      ErrorReporter definingCompilationUnitErrorReporter = new ErrorReporter(
+          errorListener,
+          compilationUnits[0].getElement().getSource());
+      importsVerifier.generateDuplicateImportHints(definingCompilationUnitErrorReporter);
+      importsVerifier.generateUnusedImportHints(definingCompilationUnitErrorReporter);
+    } finally {
+      timeCounter.stop();
+    }
+  }
+
   private void generateForCompilationUnit(CompilationUnit unit, Source source) {
     ErrorReporter errorReporter = new ErrorReporter(errorListener, source);
 
@@ -13,6 +13,7 @@
  */
 package com.google.dart.engine.internal.hint;
 
+import com.google.dart.engine.ast.AstNode;
 import com.google.dart.engine.ast.CompilationUnit;
 import com.google.dart.engine.error.TodoCode;
 import com.google.dart.engine.internal.error.ErrorReporter;
@@ -49,6 +50,28 @@ public class ToDoFinder {
     gatherTodoComments(unit.getBeginToken());
   }
 
+  /**
+   * Search the comments within the given node, including any comments that precede the first
+   * token of the node, for to-do comments and report an error for each.
+   * 
+   * @param node the node whose comments are to be searched
+   */
+  public void findIn(AstNode node) {
+    int offset = node.getOffset();
+    Token lastToken = node.getEndToken();
+    Token token = lastToken;
+    Token previous = token.getPrevious();
+    while (previous != null && previous != token && previous.getOffset() >= offset) {
+      token = previous;
+      previous = token.getPrevious();
+    }
+    scrapeTodoComments(token.getPrecedingComments());
+    while (token != lastToken && token.getType() != TokenType.EOF) {
+      token = token.getNext();
+      scrapeTodoComments(token.getPrecedingComments());
+    }
+  }
+
   /**
    * Search the comment tokens reachable from the given token and create errors for each to-do
    * comment.
@@ -57,14 +80,7 @@ public class ToDoFinder {
    */
   private void gatherTodoComments(Token token) {
     while (token != null && token.getType() != TokenType.EOF) {
-      Token commentToken = token.getPrecedingComments();
-      while (commentToken != null) {
-        if (commentToken.getType() == TokenType.SINGLE_LINE_COMMENT
-            || commentToken.getType() == TokenType.MULTI_LINE_COMMENT) {
-          scrapeTodoComment(commentToken);
-        }
-        commentToken = commentToken.getNext();
-      }
+      scrapeTodoComments(token.getPrecedingComments());
       token = token.getNext();
     }
   }
@@ -82,4 +98,19 @@ public class ToDoFinder {
       errorReporter.reportErrorForOffset(TodoCode.TODO, offset, length, matcher.group(2));
     }
   }
+
+  /**
+   * Look for user defined tasks in the given list of comments.
+   * 
+   * @param commentToken the first comment in the list of comments to analyze
+   */
+  private void scrapeTodoComments(Token commentToken) {
+    while (commentToken != null) {
+      if (commentToken.getType() == TokenType.SINGLE_LINE_COMMENT
+          || commentToken.getType() == TokenType.MULTI_LINE_COMMENT) {
+        scrapeTodoComment(commentToken);
+      }
+      commentToken = commentToken.getNext();
+    }
+  }
 }
@@ -0,0 +1,1122 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.index;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.MapMaker;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.dart.engine.AnalysisEngine;
+import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.element.CompilationUnitElement;
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.element.ElementKind;
+import com.google.dart.engine.element.ElementLocation;
+import com.google.dart.engine.element.HtmlElement;
+import com.google.dart.engine.element.LibraryElement;
+import com.google.dart.engine.index.FileIndexStore;
+import com.google.dart.engine.index.IndexStore;
+import com.google.dart.engine.index.Location;
+import com.google.dart.engine.index.Relationship;
+import com.google.dart.engine.internal.element.ElementLocationImpl;
+import com.google.dart.engine.internal.element.handle.ElementHandle;
+import com.google.dart.engine.internal.element.member.Member;
+import com.google.dart.engine.internal.index.MemoryIndexStoreImpl.Source2;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.SourceContainer;
+import com.google.dart.engine.utilities.translation.DartOmit;
+
+import java.io.File;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@link IndexStore} which keeps relationships in files.
+ * <p>
+ * The relationships whose locations are in a single compilation unit (or HTML file) in a single
+ * library are written to a single segment file (see {@link IndexSegment}) when the unit has been
+ * indexed. Elements, relationships and sources are represented by the encodings of their
+ * locations, so the store does not keep references to elements. In memory the store keeps only a
+ * table mapping each element key to the segments in which it has relationships; the locations are
+ * read from the segment files when they are requested, and the contents of only the
+ * {@link #MAX_OPEN_SEGMENTS} most recently read segment files are kept in memory. The elements of
+ * the locations are looked up in the libraries that have already been resolved in the context, or
+ * are represented by handles that look them up when they are first used.
+ * <p>
+ * The exception is the relationships of the {@link UniverseElementImpl universe}, which are the
+ * declarations of the top-level elements. Every segment has such relationships, so reading them
+ * from the files would mean reading every segment for each query. They are read once when a segment
+ * is added and kept in memory, with their elements represented by handles so that they do not keep
+ * the element models of their libraries. They are also indexed by the names of their elements,
+ * which are taken from the locations of the elements, so that declarations can be found by name
+ * without looking up the elements.
+ * <p>
+ * The segments of a context that has been given a name are kept in a directory derived from the
+ * name, and are restored when a context is given the same name after the store has been
+ * re-created. A restored segment answers queries until its unit is indexed again. Each segment
+ * records the modification stamp of its unit and a stamp of the libraries its library depends on,
+ * and a unit whose segment is still current is not indexed again (see
+ * {@link #aboutToIndexDart(AnalysisContext, CompilationUnitElement)}), so that a restart does not
+ * require the whole context to be indexed again. Keys that are removed from a segment are removed
+ * from its file as well, so that they do not come back after a restart.
+ * <p>
+ * Instances of this class are thread-safe. The methods that change the store synchronize on the
+ * store, but the locations of a query are read from the segments without holding the lock of the
+ * store, so that queries do not wait for units being indexed and do not prevent other queries from
+ * reading the segments.
+ * 
+ * @coverage dart.engine.index
+ */
+@DartOmit
+public class FileIndexStoreImpl implements FileIndexStore {
+  /**
+   * Information about the segments of a single context.
+   */
+  private static class ContextSegments {
+    /**
+     * The directory containing the segment files.
+     */
+    final File directory;
+
+    /**
+     * A table mapping library/unit pairs to the identifiers of their segments.
+     */
+    final Map<Source2, Integer> segmentIds = Maps.newHashMap();
+
+    /**
+     * The mapping of library {@link Source} to the {@link Source}s of part units.
+     */
+    final Map<Source, Set<Source>> libraryToUnits = Maps.newHashMap();
+
+    /**
+     * The mapping of unit {@link Source} to the {@link Source}s of libraries it is used in.
+     */
+    final Map<Source, Set<Source>> unitToLibraries = Maps.newHashMap();
+
+    ContextSegments(File directory) {
+      this.directory = directory;
+    }
+  }
+
+  /**
+   * The maximum number of segments whose contents are kept in memory at the same time.
+   */
+  private static final int MAX_OPEN_SEGMENTS = 64;
+
+  /**
+   * The encoding of the location of the universe, which is the key of the relationships that are
+   * kept in memory.
+   */
+  private static final String UNIVERSE_KEY = UniverseElementImpl.INSTANCE.getLocation()
+      .getEncoding();
+
+  /**
+   * The prefix of the names of the directories containing the segments of named contexts.
+   */
+  private static final String NAMED_PREFIX = "context-";
+
+  /**
+   * The prefix of the names of the directories containing the segments of contexts that were not
+   * given a name.
+   */
+  private static final String TRANSIENT_PREFIX = "transient-";
+
+  /**
+   * The suffix of the names of segment files.
+   */
+  private static final String SEGMENT_SUFFIX = ".idx";
+
+  /**
+   * The name of the character set used to encode strings.
+   */
+  private static final String UTF_8 = "UTF-8";
+
+  /**
+   * Delete the given directory and the files in it.
+   * 
+   * @param directory the directory to be deleted
+   */
+  private static void deleteDirectory(File directory) {
+    File[] files = directory.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+    directory.delete();
+  }
+
+  /**
+   * Return the name of the given element, which is the element of a declaration of the universe.
+   * The name of an element represented by a handle is taken from the location of the element, so
+   * that the element is not looked up.
+   * 
+   * @param element the element whose name is to be returned
+   * @return the name of the element
+   */
+  private static String getDeclaredName(Element element) {
+    if (!(element instanceof ElementHandle)) {
+      String name = element.getDisplayName();
+      return name != null ? name : "";
+    }
+    String[] components = ((ElementLocationImpl) element.getLocation()).getComponents();
+    String name = components[components.length - 1];
+    if (element.getKind() == ElementKind.FUNCTION) {
+      // the identifier of a function includes the offset of its name
+      int index = name.lastIndexOf('@');
+      if (index >= 0) {
+        name = name.substring(0, index);
+      }
+    }
+    return name;
+  }
+
+  /**
+   * Return the encoding of the source defining the element with the given key.
+   * 
+   * @param key the encoding of the location of an element
+   * @return the encoding of the source defining the element
+   */
+  private static String getDefiningSource(String key) {
+    String[] components = new ElementLocationImpl(key).getComponents();
+    return components.length > 1 ? components[1] : components[0];
+  }
+
+  /**
+   * Return a hexadecimal representation of the MD5 digest of the given string.
+   * 
+   * @param string the string to be digested
+   * @return a hexadecimal representation of the digest
+   */
+  private static String toDigestString(String string) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("MD5");
+      byte[] bytes = digest.digest(string.getBytes(UTF_8));
+      StringBuilder builder = new StringBuilder(bytes.length * 2);
+      for (byte b : bytes) {
+        builder.append(Character.forDigit((b >> 4) & 0xF, 16));
+        builder.append(Character.forDigit(b & 0xF, 16));
+      }
+      return builder.toString();
+    } catch (NoSuchAlgorithmException exception) {
+      throw new IllegalStateException(exception);
+    } catch (IOException exception) {
+      throw new IllegalStateException(exception);
+    }
+  }
+
+  /**
+   * The directory containing the directories of the contexts.
+   */
+  private final File directory;
+
+  /**
+   * The codec used to encode the keys of elements.
+   */
+  private final StringCodec keyCodec = new StringCodec();
+
+  /**
+   * The codec used to encode the identifiers of relationships.
+   */
+  private final StringCodec relationshipCodec = new StringCodec();
+
+  /**
+   * The segments, indexed by their identifiers. Elements for identifiers that are not in use are
+   * {@code null}.
+   */
+  private final ArrayList<IndexSegment> segments = Lists.newArrayList();
+
+  /**
+   * The segments whose contents are kept in memory, in the order in which they were last read.
+   */
+  private final Map<IndexSegment, Boolean> openSegments = new LinkedHashMap<IndexSegment, Boolean>(
+      16,
+      0.75f,
+      true);
+
+  /**
+   * The contexts in which the locations in the segments were recorded, indexed by the identifiers
+   * of the segments.
+   */
+  private final ArrayList<AnalysisContext> segmentContexts = Lists.newArrayList();
+
+  /**
+   * The identifiers of segments that are not in use.
+   */
+  private final IntSet freeSegmentIds = new IntSet();
+
+  /**
+   * The identifiers of the segments in which each key has relationships, indexed by the
+   * identifiers of the keys.
+   */
+  private final ArrayList<IntSet> keyToSegments = Lists.newArrayList();
+
+  /**
+   * The locations at which the universe has relationships, indexed by the identifiers of the
+   * segments containing them and then by the identifiers of the relationships.
+   */
+  private final HashMap<Integer, HashMap<Integer, Location[]>> universeLocations = Maps
+      .newHashMap();
+
+  /**
+   * The indexes of the names of the elements of the locations in {@link #universeLocations},
+   * indexed by the identifiers of the relationships.
+   */
+  private final HashMap<Integer, NameIndex> universeNameIndexes = Maps.newHashMap();
+
+  /**
+   * The mapping of the encodings of {@link Source}s to the identifiers of the keys of the elements
+   * defined in them. It is used in {@link #removeSource(AnalysisContext, Source)} to identify keys
+   * to remove.
+   */
+  private final HashMap<String, IntSet> sourceToKeys = Maps.newHashMap();
+
+  /**
+   * The information about the segments of each context.
+   */
+  private final Map<AnalysisContext, ContextSegments> contextToSegments = Maps.newHashMap();
+
+  /**
+   * The builders of the segments for which relationships are being recorded.
+   */
+  private final Map<AnalysisContext, Map<Source2, IndexSegment.Builder>> contextToBuilders = Maps
+      .newHashMap();
+
+  /**
+   * A table mapping libraries to a stamp combining the modification stamps of their compilation
+   * units. The libraries are weakly referenced and compared by identity, so a library that is
+   * resolved again gets a new stamp.
+   */
+  private final Map<LibraryElement, Long> libraryStamps = new MapMaker().weakKeys().makeMap();
+
+  /**
+   * The number of directories created for contexts that were not given a name.
+   */
+  private int transientCount;
+
+  private int segmentCount;
+  private int locationCount;
+
+  /**
+   * Initialize a newly created store to keep relationships in the given directory.
+   * 
+   * @param directory the directory in which relationships are kept
+   */
+  public FileIndexStoreImpl(File directory) {
+    this.directory = directory;
+    File[] files = directory.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        if (file.getName().startsWith(TRANSIENT_PREFIX)) {
+          deleteDirectory(file);
+        }
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Return {@code false} without removing the relationships of the unit if its segment is current,
+   * which is the case if neither the unit nor any of the libraries that its library imports or
+   * exports, directly or indirectly, has been modified since the unit was indexed.
+   */
+  @Override
+  public synchronized boolean aboutToIndexDart(AnalysisContext context, CompilationUnitElement unitElement) {
+    doneIndex();
+    context = MemoryIndexStoreImpl.unwrapContext(context);
+    // may be already disposed in other thread
+    if (context.isDisposed()) {
+      return false;
+    }
+    // validate unit
+    if (unitElement == null) {
+      return false;
+    }
+    LibraryElement libraryElement = unitElement.getLibrary();
+    if (libraryElement == null) {
+      return false;
+    }
+    CompilationUnitElement definingUnitElement = libraryElement.getDefiningCompilationUnit();
+    if (definingUnitElement == null) {
+      return false;
+    }
+    // prepare sources
+    Source library = definingUnitElement.getSource();
+    Source unit = unitElement.getSource();
+    ContextSegments contextSegments = getContextSegments(context);
+    // special handling for the defining library unit
+    if (unit.equals(library)) {
+      // prepare new parts
+      Set<Source> newParts = Sets.newHashSet();
+      for (CompilationUnitElement part : libraryElement.getParts()) {
+        newParts.add(part.getSource());
+      }
+      // check if some parts are not in the library now
+      Set<Source> oldParts = contextSegments.libraryToUnits.get(library);
+      if (oldParts != null) {
+        Set<Source> noParts = Sets.difference(oldParts, newParts);
+        for (Source noPart : noParts) {
+          removeSegment(contextSegments, new Source2(library, noPart));
+        }
+      }
+      // remember new parts
+      contextSegments.libraryToUnits.put(library, newParts);
+    }
+    // remember libraries in which unit is used
+    recordUnitInLibrary(contextSegments, library, unit);
+    // don't index again if the segment is current
+    Source2 source2 = new Source2(library, unit);
+    long modificationStamp = context.getModificationStamp(unit);
+    long dependencyStamp = getDependencyStamp(context, libraryElement);
+    Integer segmentId = contextSegments.segmentIds.get(source2);
+    if (segmentId != null) {
+      IndexSegment segment = segments.get(segmentId.intValue());
+      if (segment.getModificationStamp() == modificationStamp
+          && segment.getDependencyStamp() == dependencyStamp) {
+        return false;
+      }
+    }
+    // remove locations
+    removeSegment(contextSegments, source2);
+    // write the segment even if it is empty, so that it is known to be current
+    createBuilder(context, source2, modificationStamp, dependencyStamp);
+    // OK, we can index
+    return true;
+  }
+
+  @Override
+  public synchronized boolean aboutToIndexHtml(AnalysisContext context, HtmlElement htmlElement) {
+    doneIndex();
+    context = MemoryIndexStoreImpl.unwrapContext(context);
+    // may be already disposed in other thread
+    if (context.isDisposed()) {
+      return false;
+    }
+    // remove locations
+    Source source = htmlElement.getSource();
+    ContextSegments contextSegments = getContextSegments(context);
+    Source2 source2 = new Source2(null, source);
+    removeSegment(contextSegments, source2);
+    createBuilder(context, source2, context.getModificationStamp(source), 0L);
+    // remember libraries in which unit is used
+    recordUnitInLibrary(contextSegments, null, source);
+    // OK, we can index
+    return true;
+  }
+
+  @Override
+  public synchronized void doneIndex() {
+    if (contextToBuilders.isEmpty()) {
+      return;
+    }
+    for (AnalysisContext context : contextToBuilders.keySet()) {
+      ContextSegments contextSegments = contextToSegments.get(context);
+      if (contextSegments == null || context.isDisposed()) {
+        continue;
+      }
+      for (IndexSegment.Builder builder : contextToBuilders.get(context).values()) {
+        Source library = builder.getLibrarySource();
+        Source unit = builder.getUnitSource();
+        File file = getSegmentFile(contextSegments, library, unit);
+        try {
+          IndexSegment segment = builder.write(file, keyCodec, relationshipCodec);
+          addSegment(context, contextSegments, segment);
+        } catch (IOException exception) {
+          logFailure("Could not write index segment " + file, exception);
+        }
+      }
+    }
+    contextToBuilders.clear();
+  }
+
+  @Override
+  public Location[] getRelationships(Element element, Relationship relationship) {
+    if (element instanceof Member) {
+      element = ((Member) element).getBaseElement();
+    }
+    if (element instanceof UniverseElementImpl) {
+      return getUniverseLocations(relationship);
+    }
+    ElementLocation elementLocation = element.getLocation();
+    if (elementLocation == null) {
+      return Location.EMPTY_ARRAY;
+    }
+    // find the segments to read
+    int keyId;
+    int relationshipId;
+    List<IndexSegment> segmentsToRead = Lists.newArrayList();
+    List<AnalysisContext> contextsToRead = Lists.newArrayList();
+    synchronized (this) {
+      doneIndex();
+      keyId = keyCodec.getIdentifier(elementLocation.getEncoding());
+      relationshipId = relationshipCodec.getIdentifier(relationship.getIdentifier());
+      if (keyId < 0 || relationshipId < 0 || keyId >= keyToSegments.size()) {
+        return Location.EMPTY_ARRAY;
+      }
+      IntSet segmentIds = keyToSegments.get(keyId);
+      if (segmentIds == null) {
+        return Location.EMPTY_ARRAY;
+      }
+      for (int segmentId : segmentIds.toArray()) {
+        AnalysisContext context = segmentContexts.get(segmentId);
+        if (!context.isDisposed()) {
+          segmentsToRead.add(segments.get(segmentId));
+          contextsToRead.add(context);
+        }
+      }
+    }
+    // read the locations without holding the lock; a segment that is removed in the meantime is
+    // discarded and yields no locations
+    List<Location> locations = Lists.newArrayList();
+    int segmentCount = segmentsToRead.size();
+    for (int i = 0; i < segmentCount; i++) {
+      IndexSegment segment = segmentsToRead.get(i);
+      try {
+        segment.readLocations(contextsToRead.get(i), keyId, relationshipId, false, locations);
+      } catch (IOException exception) {
+        logFailure("Could not read index segment " + segment.getFile(), exception);
+      }
+    }
+    synchronized (this) {
+      for (IndexSegment segment : segmentsToRead) {
+        segmentRead(segment);
+      }
+    }
+    return locations.toArray(new Location[locations.size()]);
+  }
+
+  @Override
+  public Location[] getRelationships(Element element, Relationship relationship, String pattern,
+      boolean camelCase) {
+    if (element instanceof UniverseElementImpl) {
+      return getUniverseLocations(relationship, pattern, camelCase);
+    }
+    return NameIndex.select(getRelationships(element, relationship), pattern, camelCase);
+  }
+
+  @Override
+  public synchronized String getStatistics() {
+    return locationCount + " relationships in " + keyCodec.size() + " keys in " + segmentCount
+        + " sources";
+  }
+
+  @Override
+  public synchronized void recordRelationship(Element element, Relationship relationship, Location location) {
+    if (element == null || location == null) {
+      return;
+    }
+    // at the index level we don't care about Member(s)
+    if (element instanceof Member) {
+      element = ((Member) element).getBaseElement();
+    }
+    // prepare information
+    Element locationElement = location.getElement();
+    AnalysisContext elementContext = element.getContext();
+    AnalysisContext locationContext = locationElement.getContext();
+    Source elementSource = element.getSource();
+    Source locationSource = locationElement.getSource();
+    // sanity check
+    if (locationContext == null) {
+      return;
+    }
+    if (locationSource == null) {
+      return;
+    }
+    if (elementContext == null && !(element instanceof NameElementImpl)
+        && !(element instanceof UniverseElementImpl)) {
+      return;
+    }
+    if (elementSource == null && !(element instanceof NameElementImpl)
+        && !(element instanceof UniverseElementImpl)) {
+      return;
+    }
+    // may be already disposed in other thread
+    if (elementContext != null && elementContext.isDisposed()) {
+      return;
+    }
+    if (locationContext.isDisposed()) {
+      return;
+    }
+    // elements that cannot be found by their location cannot be recorded
+    ElementLocation elementLocation = element.getLocation();
+    ElementLocation locationElementLocation = locationElement.getLocation();
+    if (elementLocation == null || locationElementLocation == null) {
+      return;
+    }
+    // record: location source -> key
+    Source2 locationSource2 = new Source2(
+        MemoryIndexStoreImpl.getLibrarySourceOrNull(locationElement),
+        locationSource);
+    IndexSegment.Builder builder = getBuilder(locationContext, locationSource2);
+    builder.add(
+        elementLocation.getEncoding(),
+        relationship.getIdentifier(),
+        locationElementLocation.getEncoding(),
+        locationElement.getKind().name(),
+        location.getOffset(),
+        location.getLength(),
+        IndexSegment.encodeData(location));
+  }
+
+  @Override
+  public synchronized void removeContext(AnalysisContext context) {
+    context = MemoryIndexStoreImpl.unwrapContext(context);
+    if (context == null) {
+      return;
+    }
+    // remove sources
+    removeSources(context, null);
+    // remove context
+    contextToBuilders.remove(context);
+    ContextSegments contextSegments = contextToSegments.remove(context);
+    if (contextSegments != null) {
+      deleteDirectory(contextSegments.directory);
+    }
+  }
+
+  @Override
+  public synchronized void removeSource(AnalysisContext context, Source unit) {
+    doneIndex();
+    context = MemoryIndexStoreImpl.unwrapContext(context);
+    if (context == null) {
+      return;
+    }
+    ContextSegments contextSegments = contextToSegments.get(context);
+    if (contextSegments == null) {
+      return;
+    }
+    Set<Source> libraries = contextSegments.unitToLibraries.remove(unit);
+    if (libraries != null) {
+      // remove locations defined in source
+      for (Source library : libraries) {
+        removeSegment(contextSegments, new Source2(library, unit));
+      }
+      // remove keys for elements defined in source
+      IntSet keyIds = sourceToKeys.remove(unit.getEncoding());
+      if (keyIds != null) {
+        IntSet changedSegmentIds = new IntSet();
+        for (int keyId : keyIds.toArray()) {
+          for (int segmentId : keyToSegments.get(keyId).toArray()) {
+            IndexSegment segment = segments.get(segmentId);
+            locationCount -= segment.removeKey(keyId);
+            changedSegmentIds.add(segmentId);
+          }
+          keyToSegments.set(keyId, null);
+          keyCodec.remove(keyId);
+        }
+        // persist the removal of the keys
+        for (int segmentId : changedSegmentIds.toArray()) {
+          rewriteSegment(segmentId);
+        }
+      }
+    }
+  }
+
+  @Override
+  public synchronized void removeSources(AnalysisContext context, SourceContainer container) {
+    doneIndex();
+    context = MemoryIndexStoreImpl.unwrapContext(context);
+    if (context == null) {
+      return;
+    }
+    ContextSegments contextSegments = contextToSegments.get(context);
+    if (contextSegments == null) {
+      return;
+    }
+    List<Source> units = Lists.newArrayList(contextSegments.unitToLibraries.keySet());
+    for (Source unit : units) {
+      if (container == null || container.contains(unit)) {
+        removeSource(context, unit);
+      }
+    }
+  }
+
+  @Override
+  public synchronized void setContextName(AnalysisContext context, String name) {
+    context = MemoryIndexStoreImpl.unwrapContext(context);
+    File contextDirectory = new File(directory, NAMED_PREFIX + toDigestString(name));
+    ContextSegments contextSegments = contextToSegments.get(context);
+    if (contextSegments != null) {
+      if (contextSegments.directory.equals(contextDirectory)) {
+        return;
+      }
+      removeContext(context);
+    }
+    contextSegments = new ContextSegments(contextDirectory);
+    contextToSegments.put(context, contextSegments);
+    // restore the segments that are still valid
+    File[] files = contextDirectory.listFiles();
+    if (files == null) {
+      return;
+    }
+    for (File file : files) {
+      IndexSegment segment = null;
+      if (file.getName().endsWith(SEGMENT_SUFFIX)) {
+        try {
+          segment = IndexSegment.read(context, file, keyCodec, relationshipCodec);
+        } catch (IOException exception) {
+          logFailure("Could not read index segment " + file, exception);
+        }
+      }
+      if (segment == null) {
+        file.delete();
+      } else {
+        addSegment(context, contextSegments, segment);
+      }
+    }
+  }
+
+  /**
+   * Add the given segment, which contains locations recorded in the given context.
+   * 
+   * @param context the context in which the locations in the segment were recorded
+   * @param contextSegments the information about the segments of the context
+   * @param segment the segment being added
+   */
+  private void addSegment(AnalysisContext context, ContextSegments contextSegments,
+      IndexSegment segment) {
+    Source library = segment.getLibrarySource();
+    Source unit = segment.getUnitSource();
+    Source2 source2 = new Source2(library, unit);
+    removeSegment(contextSegments, source2);
+    // assign identifier
+    int segmentId;
+    if (freeSegmentIds.isEmpty()) {
+      segmentId = segments.size();
+      segments.add(segment);
+      segmentContexts.add(context);
+    } else {
+      segmentId = freeSegmentIds.toArray()[0];
+      freeSegmentIds.remove(segmentId);
+      segments.set(segmentId, segment);
+      segmentContexts.set(segmentId, context);
+    }
+    contextSegments.segmentIds.put(source2, segmentId);
+    segmentCount++;
+    locationCount += segment.getLocationCount();
+    // record: key -> segments
+    for (int keyId : segment.getKeyIds()) {
+      if (keyId < 0) {
+        continue;
+      }
+      while (keyToSegments.size() <= keyId) {
+        keyToSegments.add(null);
+      }
+      IntSet segmentIds = keyToSegments.get(keyId);
+      if (segmentIds == null) {
+        segmentIds = new IntSet();
+        keyToSegments.set(keyId, segmentIds);
+        // record: element source -> keys
+        String definingSource = getDefiningSource(keyCodec.decode(keyId));
+        IntSet keyIds = sourceToKeys.get(definingSource);
+        if (keyIds == null) {
+          keyIds = new IntSet();
+          sourceToKeys.put(definingSource, keyIds);
+        }
+        keyIds.add(keyId);
+      }
+      segmentIds.add(segmentId);
+    }
+    readUniverseLocations(context, segmentId, segment);
+    // remember libraries in which unit is used
+    recordUnitInLibrary(contextSegments, library, unit);
+    if (library != null && !library.equals(unit)) {
+      Set<Source> parts = contextSegments.libraryToUnits.get(library);
+      if (parts == null) {
+        parts = Sets.newHashSet();
+        contextSegments.libraryToUnits.put(library, parts);
+      }
+      parts.add(unit);
+    }
+  }
+
+  /**
+   * Create and remember the builder for the segment containing the locations in the given
+   * library/unit pair in the given context, replacing any builder for the same pair.
+   * 
+   * @param context the context in which the locations are recorded
+   * @param source2 the library/unit pair containing the locations
+   * @param modificationStamp the modification stamp of the unit
+   * @param dependencyStamp the stamp of the libraries that the library depends on, or {@code 0} if
+   *          it is not known
+   * @return the builder that was created
+   */
+  private IndexSegment.Builder createBuilder(AnalysisContext context, Source2 source2,
+      long modificationStamp, long dependencyStamp) {
+    Map<Source2, IndexSegment.Builder> builders = contextToBuilders.get(context);
+    if (builders == null) {
+      builders = Maps.newHashMap();
+      contextToBuilders.put(context, builders);
+    }
+    IndexSegment.Builder builder = new IndexSegment.Builder(
+        source2.librarySource,
+        source2.unitSource,
+        modificationStamp,
+        dependencyStamp);
+    builders.put(source2, builder);
+    return builder;
+  }
+
+  /**
+   * Return the builder for the segment containing the locations in the given library/unit pair in
+   * the given context. If there is already a segment for the pair, then its relationships are
+   * added to the builder and the segment is removed.
+   * 
+   * @param context the context in which the locations are recorded
+   * @param source2 the library/unit pair containing the locations
+   * @return the builder for the segment
+   */
+  private IndexSegment.Builder getBuilder(AnalysisContext context, Source2 source2) {
+    Map<Source2, IndexSegment.Builder> builders = contextToBuilders.get(context);
+    IndexSegment.Builder builder = builders == null ? null : builders.get(source2);
+    if (builder == null) {
+      ContextSegments contextSegments = getContextSegments(context);
+      Integer segmentId = contextSegments.segmentIds.get(source2);
+      if (segmentId != null) {
+        IndexSegment segment = segments.get(segmentId.intValue());
+        builder = createBuilder(
+            context,
+            source2,
+            segment.getModificationStamp(),
+            segment.getDependencyStamp());
+        try {
+          segment.readInto(builder);
+        } catch (IOException exception) {
+          logFailure("Could not read index segment " + segment.getFile(), exception);
+        }
+        removeSegment(contextSegments, source2);
+      } else {
+        long modificationStamp = context.getModificationStamp(source2.unitSource);
+        builder = createBuilder(context, source2, modificationStamp, 0L);
+      }
+    }
+    return builder;
+  }
+
+  /**
+   * Return the information about the segments of the given context, creating it if the context
+   * has not been seen before.
+   * 
+   * @param context the context whose information is to be returned
+   * @return the information about the segments of the context
+   */
+  private ContextSegments getContextSegments(AnalysisContext context) {
+    ContextSegments contextSegments = contextToSegments.get(context);
+    if (contextSegments == null) {
+      File contextDirectory = new File(directory, TRANSIENT_PREFIX + transientCount++);
+      contextSegments = new ContextSegments(contextDirectory);
+      contextToSegments.put(context, contextSegments);
+    }
+    return contextSegments;
+  }
+
+  /**
+   * Return a stamp combining the modification stamps of the compilation units of the given library
+   * and of all of the libraries that it imports or exports, directly or indirectly.
+   * 
+   * @param context the context in which the library was resolved
+   * @param library the library whose stamp is to be returned
+   * @return a stamp of the library and the libraries it depends on
+   */
+  private long getDependencyStamp(AnalysisContext context, LibraryElement library) {
+    long stamp = 0L;
+    Set<LibraryElement> visited = Sets.newHashSet();
+    List<LibraryElement> pending = Lists.newArrayList(library);
+    while (!pending.isEmpty()) {
+      LibraryElement pendingLibrary = pending.remove(pending.size() - 1);
+      if (pendingLibrary == null || !visited.add(pendingLibrary)) {
+        continue;
+      }
+      stamp = stamp * 31 + getLibraryStamp(context, pendingLibrary);
+      Collections.addAll(pending, pendingLibrary.getImportedLibraries());
+      Collections.addAll(pending, pendingLibrary.getExportedLibraries());
+    }
+    return stamp;
+  }
+
+  /**
+   * Return a stamp combining the encodings and modification stamps of the compilation units of the
+   * given library.
+   * 
+   * @param context the context in which the library was resolved
+   * @param library the library whose stamp is to be returned
+   * @return a stamp of the compilation units of the library
+   */
+  private long getLibraryStamp(AnalysisContext context, LibraryElement library) {
+    Long stamp = libraryStamps.get(library);
+    if (stamp == null) {
+      long value = 0L;
+      for (CompilationUnitElement unit : library.getUnits()) {
+        Source source = unit.getSource();
+        value = value * 31 + source.getEncoding().hashCode();
+        value = value * 31 + context.getModificationStamp(source);
+      }
+      stamp = Long.valueOf(value);
+      libraryStamps.put(library, stamp);
+    }
+    return stamp.longValue();
+  }
+
+  /**
+   * Return the file containing the segment for the given library/unit pair.
+   * 
+   * @param contextSegments the information about the segments of the context
+   * @param library the source of the library, or {@code null} for an HTML file
+   * @param unit the source of the compilation unit or HTML file
+   * @return the file containing the segment
+   */
+  private File getSegmentFile(ContextSegments contextSegments, Source library, Source unit) {
+    String libraryEncoding = library == null ? "" : library.getEncoding();
+    String name = toDigestString(libraryEncoding + "\n" + unit.getEncoding()) + SEGMENT_SUFFIX;
+    return new File(contextSegments.directory, name);
+  }
+
+  /**
+   * Return the locations at which the universe has the given relationship in the contexts that
+   * have not been disposed.
+   * 
+   * @param relationship the relationship of the universe
+   * @return the locations at which the universe has the relationship
+   */
+  private synchronized Location[] getUniverseLocations(Relationship relationship) {
+    doneIndex();
+    int relationshipId = relationshipCodec.getIdentifier(relationship.getIdentifier());
+    if (relationshipId < 0) {
+      return Location.EMPTY_ARRAY;
+    }
+    List<Location> locations = Lists.newArrayList();
+    for (Map.Entry<Integer, HashMap<Integer, Location[]>> entry : universeLocations.entrySet()) {
+      Location[] segmentLocations = entry.getValue().get(relationshipId);
+      if (segmentLocations != null && !segmentContexts.get(entry.getKey()).isDisposed()) {
+        Collections.addAll(locations, segmentLocations);
+      }
+    }
+    return locations.toArray(new Location[locations.size()]);
+  }
+
+  /**
+   * Return the locations at which the universe has the given relationship in the contexts that
+   * have not been disposed, and whose elements have names matching the given pattern.
+   * 
+   * @param relationship the relationship of the universe
+   * @param pattern the pattern that the names of the elements must match
+   * @param camelCase {@code true} if the pattern is a camel-case pattern, or {@code false} if it is
+   *          a prefix that is matched ignoring case
+   * @return the locations at which the universe has the relationship
+   */
+  private synchronized Location[] getUniverseLocations(Relationship relationship, String pattern,
+      boolean camelCase) {
+    doneIndex();
+    int relationshipId = relationshipCodec.getIdentifier(relationship.getIdentifier());
+    NameIndex nameIndex = universeNameIndexes.get(relationshipId);
+    if (nameIndex == null) {
+      return Location.EMPTY_ARRAY;
+    }
+    List<Location> locations = Lists.newArrayList();
+    for (Location location : nameIndex.getLocations(pattern, camelCase)) {
+      if (!location.getElement().getContext().isDisposed()) {
+        locations.add(location);
+      }
+    }
+    return locations.toArray(new Location[locations.size()]);
+  }
+
+  /**
+   * Log the given failure to read or write a segment.
+   * 
+   * @param message the message describing the failure
+   * @param exception the exception that caused the failure
+   */
+  private void logFailure(String message, Exception exception) {
+    AnalysisEngine.getInstance().getLogger().logInformation(message, exception);
+  }
+
+  /**
+   * Read the locations at which the universe has relationships in the given segment, which has
+   * just been added with the given identifier, and keep them in memory.
+   * 
+   * @param context the context in which the locations in the segment were recorded
+   * @param segmentId the identifier of the segment
+   * @param segment the segment whose universe locations are to be read
+   */
+  private void readUniverseLocations(AnalysisContext context, int segmentId, IndexSegment segment) {
+    int universeKeyId = keyCodec.getIdentifier(UNIVERSE_KEY);
+    if (universeKeyId < 0) {
+      return;
+    }
+    int[] keyIds = segment.getKeyIds();
+    int[] relationshipIds = segment.getRelationshipIds();
+    HashMap<Integer, Location[]> segmentLocations = null;
+    for (int i = 0; i < keyIds.length; i++) {
+      if (keyIds[i] != universeKeyId) {
+        continue;
+      }
+      List<Location> locations = Lists.newArrayList();
+      try {
+        segment.readLocations(context, universeKeyId, relationshipIds[i], true, locations);
+      } catch (IOException exception) {
+        logFailure("Could not read index segment " + segment.getFile(), exception);
+      }
+      if (segmentLocations == null) {
+        segmentLocations = Maps.newHashMap();
+        universeLocations.put(segmentId, segmentLocations);
+      }
+      segmentLocations.put(relationshipIds[i], locations.toArray(new Location[locations.size()]));
+      // record: name -> locations
+      NameIndex nameIndex = universeNameIndexes.get(relationshipIds[i]);
+      if (nameIndex == null) {
+        nameIndex = new NameIndex();
+        universeNameIndexes.put(relationshipIds[i], nameIndex);
+      }
+      for (Location location : locations) {
+        nameIndex.add(location, getDeclaredName(location.getElement()));
+      }
+    }
+    if (segmentLocations != null) {
+      segmentRead(segment);
+    }
+  }
+
+  private void recordUnitInLibrary(ContextSegments contextSegments, Source library, Source unit) {
+    Set<Source> libraries = contextSegments.unitToLibraries.get(unit);
+    if (libraries == null) {
+      libraries = Sets.newHashSet();
+      contextSegments.unitToLibraries.put(unit, libraries);
+    }
+    libraries.add(library);
+  }
+
+  /**
+   * Remove the segment for the given library/unit pair, deleting its file.
+   * 
+   * @param contextSegments the information about the segments of the context
+   * @param source2 the library/unit pair whose segment is to be removed
+   */
+  private void removeSegment(ContextSegments contextSegments, Source2 source2) {
+    Integer segmentIdObject = contextSegments.segmentIds.remove(source2);
+    if (segmentIdObject == null) {
+      return;
+    }
+    int segmentId = segmentIdObject.intValue();
+    IndexSegment segment = segments.get(segmentId);
+    // remove: key -> segments
+    for (int keyId : segment.getKeyIds()) {
+      if (keyId < 0) {
+        continue;
+      }
+      IntSet segmentIds = keyToSegments.get(keyId);
+      if (segmentIds != null && segmentIds.remove(segmentId) && segmentIds.isEmpty()) {
+        // no locations with this key
+        keyToSegments.set(keyId, null);
+        IntSet keyIds = sourceToKeys.get(getDefiningSource(keyCodec.decode(keyId)));
+        if (keyIds != null) {
+          keyIds.remove(keyId);
+          if (keyIds.isEmpty()) {
+            sourceToKeys.remove(getDefiningSource(keyCodec.decode(keyId)));
+          }
+        }
+        keyCodec.remove(keyId);
+      }
+    }
+    removeUniverseLocations(segmentId);
+    segmentCount--;
+    locationCount -= segment.getLocationCount();
+    segment.discard();
+    openSegments.remove(segment);
+    segment.getFile().delete();
+    segments.set(segmentId, null);
+    segmentContexts.set(segmentId, null);
+    freeSegmentIds.add(segmentId);
+  }
+
+  /**
+   * Remove the locations at which the universe has relationships in the segment with the given
+   * identifier from the locations kept in memory.
+   * 
+   * @param segmentId the identifier of the segment being removed
+   */
+  private void removeUniverseLocations(int segmentId) {
+    HashMap<Integer, Location[]> segmentLocations = universeLocations.remove(segmentId);
+    if (segmentLocations == null) {
+      return;
+    }
+    for (Map.Entry<Integer, Location[]> entry : segmentLocations.entrySet()) {
+      NameIndex nameIndex = universeNameIndexes.get(entry.getKey());
+      if (nameIndex != null) {
+        for (Location location : entry.getValue()) {
+          nameIndex.remove(location);
+        }
+        if (nameIndex.isEmpty()) {
+          universeNameIndexes.remove(entry.getKey());
+        }
+      }
+    }
+  }
+
+  /**
+   * Replace the file of the segment with the given identifier by one that contains only the entries
+   * that have not been removed from the segment. If the file cannot be replaced, then the segment
+   * is removed, so that the removed entries are not restored after a restart.
+   * 
+   * @param segmentId the identifier of the segment to be written again
+   */
+  private void rewriteSegment(int segmentId) {
+    IndexSegment segment = segments.get(segmentId);
+    if (segment == null) {
+      return;
+    }
+    openSegments.remove(segment);
+    try {
+      segments.set(segmentId, segment.rewrite(keyCodec, relationshipCodec));
+    } catch (IOException exception) {
+      logFailure("Could not write index segment " + segment.getFile(), exception);
+      ContextSegments contextSegments = contextToSegments.get(segmentContexts.get(segmentId));
+      if (contextSegments != null) {
+        removeSegment(
+            contextSegments,
+            new Source2(segment.getLibrarySource(), segment.getUnitSource()));
+      }
+    }
+  }
+
+  /**
+   * Record that the given segment has been read, releasing the contents of the least recently read
+   * segment if there are more than {@link #MAX_OPEN_SEGMENTS} segments whose contents are kept in
+   * memory.
+   * 
+   * @param segment the segment that was read
+   */
+  private void segmentRead(IndexSegment segment) {
+    if (!segment.isOpen()) {
+      openSegments.remove(segment);
+      return;
+    }
+    openSegments.put(segment, Boolean.TRUE);
+    if (openSegments.size() > MAX_OPEN_SEGMENTS) {
+      Iterator<IndexSegment> iterator = openSegments.keySet().iterator();
+      iterator.next().close();
+      iterator.remove();
+    }
+  }
+}
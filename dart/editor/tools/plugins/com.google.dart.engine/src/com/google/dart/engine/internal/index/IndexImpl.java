@@ -15,6 +15,7 @@ package com.google.dart.engine.internal.index;
 
 import com.google.dart.engine.ast.CompilationUnit;
 import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.element.ClassElement;
 import com.google.dart.engine.element.Element;
 import com.google.dart.engine.html.ast.HtmlUnit;
 import com.google.dart.engine.index.Index;
@@ -22,6 +23,7 @@ import com.google.dart.engine.index.IndexStore;
 import com.google.dart.engine.index.Relationship;
 import com.google.dart.engine.index.RelationshipCallback;
 import com.google.dart.engine.internal.index.operation.GetRelationshipsOperation;
+import com.google.dart.engine.internal.index.operation.GetSubtypesOperation;
 import com.google.dart.engine.internal.index.operation.IndexHtmlUnitOperation;
 import com.google.dart.engine.internal.index.operation.IndexUnitOperation;
 import com.google.dart.engine.internal.index.operation.OperationProcessor;
@@ -56,11 +58,28 @@ public class IndexImpl implements Index {
     queue.enqueue(new GetRelationshipsOperation(store, element, relationship, callback));
   }
 
+  @Override
+  public void getRelationships(Element element, Relationship relationship, String pattern,
+      boolean camelCase, RelationshipCallback callback) {
+    queue.enqueue(new GetRelationshipsOperation(
+        store,
+        element,
+        relationship,
+        pattern,
+        camelCase,
+        callback));
+  }
+
   @Override
   public String getStatistics() {
     return store.getStatistics();
   }
 
+  @Override
+  public void getSubtypes(ClassElement type, boolean transitive, RelationshipCallback callback) {
+    queue.enqueue(new GetSubtypesOperation(store, type, transitive, callback));
+  }
+
   @Override
   public void indexHtmlUnit(AnalysisContext context, HtmlUnit unit) {
     if (unit == null) {
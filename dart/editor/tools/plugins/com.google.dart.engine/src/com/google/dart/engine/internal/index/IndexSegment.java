@@ -0,0 +1,931 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.index;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.element.ClassElement;
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.element.ElementKind;
+import com.google.dart.engine.element.ElementLocation;
+import com.google.dart.engine.element.ExecutableElement;
+import com.google.dart.engine.element.FunctionTypeAliasElement;
+import com.google.dart.engine.element.HtmlElement;
+import com.google.dart.engine.element.TypeParameterElement;
+import com.google.dart.engine.index.Location;
+import com.google.dart.engine.index.LocationWithData;
+import com.google.dart.engine.internal.element.ElementImpl;
+import com.google.dart.engine.internal.element.ElementLocationImpl;
+import com.google.dart.engine.internal.element.handle.ElementHandle;
+import com.google.dart.engine.internal.type.BottomTypeImpl;
+import com.google.dart.engine.internal.type.DynamicTypeImpl;
+import com.google.dart.engine.internal.type.VoidTypeImpl;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.type.Type;
+import com.google.dart.engine.utilities.os.OSUtilities;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Instances of the class {@code IndexSegment} represent the relationships whose locations are in a
+ * single compilation unit (or HTML file) in a single library. The relationships are kept in a
+ * file, which is memory-mapped when the segment is first read and released when the segment is
+ * closed. On Windows, where a mapped file cannot be deleted or replaced, the contents of the file
+ * are read into the heap instead. The file is not kept open, and a new file replaces an old one by
+ * being renamed over it, so a file can be deleted or replaced at any time. While a segment is
+ * closed only the identifiers of the keys in the file and the positions of their locations are
+ * kept in memory.
+ * <p>
+ * Each segment records the modification stamp of its unit and a stamp of the libraries its library
+ * depends on, so that a unit whose segment is still current does not need to be indexed again. A
+ * segment is never modified in place: removing keys from it replaces its file with a new one.
+ * <p>
+ * The file starts with a header, followed by a table of the strings used in the file (the
+ * encodings of the sources and elements, the names of the kinds of the elements, the identifiers
+ * of the relationships and the encodings of the data of the locations) and a list of entries, one
+ * for each element and relationship, each containing the locations at which the element has the
+ * relationship.
+ * <p>
+ * The element containing a location is looked up in the library in which it is defined when that
+ * library has been resolved. Otherwise it is represented by an {@link ElementHandle}, so that
+ * segments restored from an earlier session can answer queries before the libraries are resolved.
+ * <p>
+ * The data of a {@link LocationWithData} is preserved only if it is a {@link Type}, in which case
+ * the location of the element of the type is written. The type arguments of the type are not
+ * preserved.
+ * <p>
+ * The locations of a segment can be read while other threads use the segment, but all other
+ * operations must be serialized by the owner of the segment.
+ * 
+ * @coverage dart.engine.index
+ */
+class IndexSegment {
+  /**
+   * Instances of the class {@code Builder} accumulate the relationships for a segment until they
+   * are written to a file.
+   */
+  static class Builder {
+    /**
+     * The locations at which a single element has a single relationship.
+     */
+    private static class Entry {
+      final int keyIndex;
+      final int relationshipIndex;
+      int[] locations = new int[LOCATION_SIZE * 4];
+      int size = 0;
+
+      Entry(int keyIndex, int relationshipIndex) {
+        this.keyIndex = keyIndex;
+        this.relationshipIndex = relationshipIndex;
+      }
+
+      void add(int elementIndex, int kindIndex, int offset, int length, int dataIndex) {
+        if (size + LOCATION_SIZE > locations.length) {
+          int[] newLocations = new int[locations.length * 2];
+          System.arraycopy(locations, 0, newLocations, 0, size);
+          locations = newLocations;
+        }
+        locations[size++] = elementIndex;
+        locations[size++] = kindIndex;
+        locations[size++] = offset;
+        locations[size++] = length;
+        locations[size++] = dataIndex;
+      }
+    }
+
+    private final Source librarySource;
+    private final Source unitSource;
+    private final long modificationStamp;
+    private final long dependencyStamp;
+    private final ArrayList<String> strings = Lists.newArrayList();
+    private final HashMap<String, Integer> stringIndices = Maps.newHashMap();
+    private final LinkedHashMap<Long, Entry> entries = Maps.newLinkedHashMap();
+
+    /**
+     * Initialize a newly created builder for the segment containing the locations in the given
+     * unit in the given library.
+     * 
+     * @param librarySource the source of the library, or {@code null} for an HTML file
+     * @param unitSource the source of the compilation unit or HTML file
+     * @param modificationStamp the modification stamp of the unit that is being indexed
+     * @param dependencyStamp the stamp of the libraries that the library depends on, or {@code 0}
+     *          if it is not known
+     */
+    Builder(Source librarySource, Source unitSource, long modificationStamp, long dependencyStamp) {
+      this.librarySource = librarySource;
+      this.unitSource = unitSource;
+      this.modificationStamp = modificationStamp;
+      this.dependencyStamp = dependencyStamp;
+    }
+
+    /**
+     * Record that the element with the given encoding has the given relationship with the given
+     * location.
+     * 
+     * @param key the encoding of the location of the element
+     * @param relationship the identifier of the relationship
+     * @param locationElement the encoding of the location of the element containing the location
+     * @param locationKind the name of the kind of the element containing the location
+     * @param offset the offset of the location
+     * @param length the length of the location
+     * @param data the encoding of the data of the location, or {@code null} if there is no data
+     */
+    void add(String key, String relationship, String locationElement, String locationKind,
+        int offset, int length, String data) {
+      int keyIndex = getStringIndex(key);
+      int relationshipIndex = getStringIndex(relationship);
+      Long entryKey = Long.valueOf(((long) keyIndex << 32) | relationshipIndex);
+      Entry entry = entries.get(entryKey);
+      if (entry == null) {
+        entry = new Entry(keyIndex, relationshipIndex);
+        entries.put(entryKey, entry);
+      }
+      int dataIndex = data == null ? -1 : getStringIndex(data);
+      int elementIndex = getStringIndex(locationElement);
+      entry.add(elementIndex, getStringIndex(locationKind), offset, length, dataIndex);
+    }
+
+    /**
+     * Return the source of the library containing the unit, or {@code null} for an HTML file.
+     * 
+     * @return the source of the library containing the unit
+     */
+    Source getLibrarySource() {
+      return librarySource;
+    }
+
+    /**
+     * Return the source of the compilation unit or HTML file.
+     * 
+     * @return the source of the compilation unit or HTML file
+     */
+    Source getUnitSource() {
+      return unitSource;
+    }
+
+    /**
+     * Write the relationships in this builder to the given file and return the segment
+     * representing them.
+     * 
+     * @param file the file to which the relationships are to be written
+     * @param keyCodec the codec used to encode the keys
+     * @param relationshipCodec the codec used to encode the relationships
+     * @return the segment representing the relationships that were written
+     * @throws IOException if the file could not be written
+     */
+    IndexSegment write(File file, StringCodec keyCodec, StringCodec relationshipCodec)
+        throws IOException {
+      int libraryIndex = librarySource == null ? -1 : getStringIndex(librarySource.getEncoding());
+      int unitIndex = getStringIndex(unitSource.getEncoding());
+      int stringCount = strings.size();
+      byte[][] encodedStrings = new byte[stringCount][];
+      for (int i = 0; i < stringCount; i++) {
+        encodedStrings[i] = strings.get(i).getBytes(UTF_8);
+      }
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream output = new DataOutputStream(bytes);
+      output.writeInt(MAGIC);
+      output.writeInt(FORMAT_VERSION);
+      output.writeLong(modificationStamp);
+      output.writeLong(dependencyStamp);
+      output.writeInt(libraryIndex);
+      output.writeInt(unitIndex);
+      output.writeInt(stringCount);
+      int position = STRING_POSITIONS_OFFSET + 4 * stringCount;
+      for (int i = 0; i < stringCount; i++) {
+        output.writeInt(position);
+        position += 4 + encodedStrings[i].length;
+      }
+      for (int i = 0; i < stringCount; i++) {
+        output.writeInt(encodedStrings[i].length);
+        output.write(encodedStrings[i]);
+      }
+      int entryCount = entries.size();
+      output.writeInt(entryCount);
+      int[] positions = new int[entryCount];
+      int locationCount = 0;
+      int entryIndex = 0;
+      for (Entry entry : entries.values()) {
+        positions[entryIndex] = output.size();
+        output.writeInt(entry.keyIndex);
+        output.writeInt(entry.relationshipIndex);
+        output.writeInt(entry.size / LOCATION_SIZE);
+        for (int i = 0; i < entry.size; i++) {
+          output.writeInt(entry.locations[i]);
+        }
+        locationCount += entry.size / LOCATION_SIZE;
+        entryIndex++;
+      }
+      output.close();
+      //
+      // Write to a temporary file first so that a reader never sees a partially written file.
+      //
+      File parent = file.getParentFile();
+      if (!parent.isDirectory() && !parent.mkdirs()) {
+        throw new IOException("Could not create " + parent);
+      }
+      File tempFile = File.createTempFile(file.getName(), ".tmp", parent);
+      FileOutputStream stream = new FileOutputStream(tempFile);
+      try {
+        bytes.writeTo(stream);
+      } finally {
+        stream.close();
+      }
+      if (!tempFile.renameTo(file)) {
+        file.delete();
+        if (!tempFile.renameTo(file)) {
+          tempFile.delete();
+          throw new IOException("Could not write " + file);
+        }
+      }
+      int[] keyIds = new int[entryCount];
+      int[] relationshipIds = new int[entryCount];
+      entryIndex = 0;
+      for (Entry entry : entries.values()) {
+        keyIds[entryIndex] = keyCodec.encode(strings.get(entry.keyIndex));
+        String relationship = strings.get(entry.relationshipIndex);
+        relationshipIds[entryIndex] = relationshipCodec.encode(relationship);
+        entryIndex++;
+      }
+      return new IndexSegment(
+          librarySource,
+          unitSource,
+          file,
+          modificationStamp,
+          dependencyStamp,
+          keyIds,
+          relationshipIds,
+          positions,
+          locationCount);
+    }
+
+    /**
+     * Return the index of the given string in the string table, adding it if necessary.
+     * 
+     * @param string the string whose index is to be returned
+     * @return the index of the string
+     */
+    private int getStringIndex(String string) {
+      Integer index = stringIndices.get(string);
+      if (index == null) {
+        index = Integer.valueOf(strings.size());
+        strings.add(string);
+        stringIndices.put(string, index);
+      }
+      return index.intValue();
+    }
+  }
+
+  /**
+   * The number that appears at the beginning of every segment file.
+   */
+  private static final int MAGIC = 0x44494458;
+
+  /**
+   * The version of the format of segment files. The version must be incremented whenever the
+   * format is changed.
+   */
+  private static final int FORMAT_VERSION = 4;
+
+  /**
+   * The number of integers written for each location: the index of the encoding of the element
+   * containing the location, the index of the name of the kind of that element, the offset, the
+   * length and the index of the encoding of the data, or {@code -1} if there is no data.
+   */
+  private static final int LOCATION_SIZE = 5;
+
+  /**
+   * The encoding of the type {@code dynamic}, which does not have an element with a location.
+   */
+  private static final String DYNAMIC_TYPE = "dynamic";
+
+  /**
+   * The encoding of the type {@code void}, which does not have an element.
+   */
+  private static final String VOID_TYPE = "void";
+
+  /**
+   * The encoding of the bottom type, which does not have an element.
+   */
+  private static final String BOTTOM_TYPE = "bottom";
+
+  /**
+   * The position in a segment file of the table containing the positions of the strings.
+   */
+  private static final int STRING_POSITIONS_OFFSET = 36;
+
+  /**
+   * The name of the character set used to encode strings.
+   */
+  private static final String UTF_8 = "UTF-8";
+
+  /**
+   * Return the encoding of the data of the given location, or {@code null} if the location does
+   * not have data that can be preserved.
+   * 
+   * @param location the location whose data is to be encoded
+   * @return the encoding of the data of the location
+   */
+  static String encodeData(Location location) {
+    if (!(location instanceof LocationWithData<?>)) {
+      return null;
+    }
+    Object data = ((LocationWithData<?>) location).getData();
+    if (!(data instanceof Type)) {
+      return null;
+    }
+    Type type = (Type) data;
+    if (type.isDynamic()) {
+      return DYNAMIC_TYPE;
+    } else if (type.isVoid()) {
+      return VOID_TYPE;
+    } else if (type.isBottom()) {
+      return BOTTOM_TYPE;
+    }
+    Element element = type.getElement();
+    if (element == null) {
+      return null;
+    }
+    ElementLocation elementLocation = element.getLocation();
+    return elementLocation == null ? null : elementLocation.getEncoding();
+  }
+
+  /**
+   * Read the segment in the given file, which must contain the relationships recorded for the given
+   * context. Return the segment that was read, or {@code null} if either the library or the unit no
+   * longer exists or if the unit has been modified since the segment was written.
+   * 
+   * @param context the context in which the relationships were recorded
+   * @param file the file containing the segment
+   * @param keyCodec the codec used to encode the keys
+   * @param relationshipCodec the codec used to encode the relationships
+   * @return the segment that was read
+   * @throws IOException if the file could not be read or is not a valid segment file
+   */
+  static IndexSegment read(AnalysisContext context, File file, StringCodec keyCodec,
+      StringCodec relationshipCodec) throws IOException {
+    ByteBuffer buffer = readContents(file);
+    try {
+      if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+        throw new IOException("Invalid index segment: " + file);
+      }
+      long modificationStamp = buffer.getLong();
+      long dependencyStamp = buffer.getLong();
+      int libraryIndex = buffer.getInt();
+      int unitIndex = buffer.getInt();
+      Source librarySource = null;
+      if (libraryIndex >= 0) {
+        librarySource = context.getSourceFactory().fromEncoding(readString(buffer, libraryIndex));
+        if (librarySource == null || !librarySource.exists()) {
+          return null;
+        }
+      }
+      Source unitSource = context.getSourceFactory().fromEncoding(readString(buffer, unitIndex));
+      if (unitSource == null || context.getModificationStamp(unitSource) != modificationStamp) {
+        return null;
+      }
+      int stringCount = buffer.getInt(STRING_POSITIONS_OFFSET - 4);
+      int lastStringPosition = buffer.getInt(STRING_POSITIONS_OFFSET + 4 * (stringCount - 1));
+      buffer.position(lastStringPosition);
+      buffer.position(lastStringPosition + 4 + buffer.getInt());
+      int entryCount = buffer.getInt();
+      int[] keyIds = new int[entryCount];
+      int[] relationshipIds = new int[entryCount];
+      int[] positions = new int[entryCount];
+      int locationCount = 0;
+      for (int i = 0; i < entryCount; i++) {
+        positions[i] = buffer.position();
+        keyIds[i] = keyCodec.encode(readString(buffer, buffer.getInt()));
+        relationshipIds[i] = relationshipCodec.encode(readString(buffer, buffer.getInt()));
+        int count = buffer.getInt();
+        buffer.position(buffer.position() + 4 * LOCATION_SIZE * count);
+        locationCount += count;
+      }
+      return new IndexSegment(
+          librarySource,
+          unitSource,
+          file,
+          modificationStamp,
+          dependencyStamp,
+          keyIds,
+          relationshipIds,
+          positions,
+          locationCount);
+    } catch (BufferUnderflowException exception) {
+      throw new IOException("Invalid index segment: " + file, exception);
+    } catch (IndexOutOfBoundsException exception) {
+      throw new IOException("Invalid index segment: " + file, exception);
+    } catch (IllegalArgumentException exception) {
+      throw new IOException("Invalid index segment: " + file, exception);
+    }
+  }
+
+  /**
+   * Return the kind with the given name, or {@code null} if there is no such kind.
+   * 
+   * @param name the name of the kind
+   * @return the kind with the given name
+   */
+  private static ElementKind decodeKind(String name) {
+    try {
+      return ElementKind.valueOf(name);
+    } catch (IllegalArgumentException exception) {
+      return null;
+    }
+  }
+
+  /**
+   * Return the type with the given encoding in the given context, or {@code null} if the element
+   * of the type cannot be found or if the library defining it has not been resolved.
+   * 
+   * @param context the context in which the type is to be found
+   * @param encoding the encoding of the type
+   * @return the type with the given encoding
+   */
+  private static Type decodeType(AnalysisContext context, String encoding) {
+    if (encoding.equals(DYNAMIC_TYPE)) {
+      return DynamicTypeImpl.getInstance();
+    } else if (encoding.equals(VOID_TYPE)) {
+      return VoidTypeImpl.getInstance();
+    } else if (encoding.equals(BOTTOM_TYPE)) {
+      return BottomTypeImpl.getInstance();
+    }
+    Element element = findElement(context, encoding, null);
+    if (element instanceof ClassElement) {
+      return ((ClassElement) element).getType();
+    } else if (element instanceof FunctionTypeAliasElement) {
+      return ((FunctionTypeAliasElement) element).getType();
+    } else if (element instanceof TypeParameterElement) {
+      return ((TypeParameterElement) element).getType();
+    } else if (element instanceof ExecutableElement) {
+      return ((ExecutableElement) element).getType();
+    }
+    return null;
+  }
+
+  /**
+   * Return the element with the given location in the given context, or {@code null} if there is
+   * no such element. If the library containing the element has not been resolved, then a handle on
+   * the element is returned if the kind of the element is given and has handles, and {@code null}
+   * otherwise. Unlike {@link AnalysisContext#getElement(ElementLocation)}, this method never causes
+   * a library to be resolved; a handle causes it to be resolved when the handle is first used.
+   * 
+   * @param context the context in which the element is to be found
+   * @param encoding the encoding of the location of the element
+   * @param kind the kind of the element, or {@code null} if a handle is not to be returned
+   * @return the element with the given location
+   */
+  private static Element findElement(AnalysisContext context, String encoding, ElementKind kind) {
+    ElementLocationImpl location = new ElementLocationImpl(encoding);
+    String[] components = location.getComponents();
+    Source source = context.getSourceFactory().fromEncoding(components[0]);
+    if (source == null) {
+      return null;
+    }
+    ElementImpl element = (ElementImpl) context.getLibraryElement(source);
+    if (element == null) {
+      if (components.length == 1) {
+        // The location of an HTML element is the encoding of its source.
+        HtmlElement htmlElement = context.getHtmlElement(source);
+        if (htmlElement != null) {
+          return htmlElement;
+        }
+      }
+      return kind == null ? null : ElementHandle.forLocation(context, kind, location);
+    }
+    for (int i = 1; i < components.length; i++) {
+      element = element.getChild(components[i]);
+      if (element == null) {
+        return null;
+      }
+    }
+    return element;
+  }
+
+  /**
+   * Return a buffer containing the contents of the given file. The file is memory-mapped, except on
+   * Windows, where it is read into a heap buffer so that the file can still be deleted or replaced.
+   * The file is closed before this method returns.
+   * 
+   * @param file the file to be read
+   * @return a buffer containing the contents of the file
+   * @throws IOException if the file could not be read
+   */
+  private static ByteBuffer readContents(File file) throws IOException {
+    RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+    try {
+      long length = randomAccessFile.length();
+      if (length > Integer.MAX_VALUE) {
+        throw new IOException("Invalid index segment: " + file);
+      }
+      if (!OSUtilities.isWindows()) {
+        return randomAccessFile.getChannel().map(MapMode.READ_ONLY, 0L, length);
+      }
+      byte[] bytes = new byte[(int) length];
+      randomAccessFile.readFully(bytes);
+      return ByteBuffer.wrap(bytes);
+    } finally {
+      randomAccessFile.close();
+    }
+  }
+
+  /**
+   * Return the string with the given index in the string table of the segment file in the given
+   * buffer. The position of the buffer is not changed.
+   * 
+   * @param buffer the buffer containing the segment file
+   * @param index the index of the string to be returned
+   * @return the string with the given index
+   */
+  private static String readString(ByteBuffer buffer, int index) throws IOException {
+    int position = buffer.getInt(STRING_POSITIONS_OFFSET + 4 * index);
+    int length = buffer.getInt(position);
+    byte[] bytes = new byte[length];
+    for (int i = 0; i < length; i++) {
+      bytes[i] = buffer.get(position + 4 + i);
+    }
+    return new String(bytes, UTF_8);
+  }
+
+  /**
+   * The source of the library containing the unit, or {@code null} for an HTML file.
+   */
+  private final Source librarySource;
+
+  /**
+   * The source of the compilation unit or HTML file containing the locations.
+   */
+  private final Source unitSource;
+
+  /**
+   * The file containing the relationships.
+   */
+  private final File file;
+
+  /**
+   * The modification stamp of the unit at the time it was indexed.
+   */
+  private final long modificationStamp;
+
+  /**
+   * The stamp of the libraries that the library depended on at the time the unit was indexed, or
+   * {@code 0} if it is not known.
+   */
+  private final long dependencyStamp;
+
+  /**
+   * The buffer containing the contents of the file, or {@code null} if the file has not been read
+   * or the segment has been closed. Readers use duplicates of the buffer, so that they do not share
+   * its position.
+   */
+  private ByteBuffer contents;
+
+  /**
+   * A flag indicating whether this segment has been discarded, in which case its file might have
+   * been deleted or replaced and must not be read.
+   */
+  private boolean discarded = false;
+
+  /**
+   * The identifiers of the keys of the entries in the file, or {@code -1} for entries that have
+   * been removed.
+   */
+  private final int[] keyIds;
+
+  /**
+   * The identifiers of the relationships of the entries in the file.
+   */
+  private final int[] relationshipIds;
+
+  /**
+   * The positions of the entries in the file.
+   */
+  private final int[] positions;
+
+  /**
+   * The number of locations in the entries that have not been removed.
+   */
+  private int locationCount;
+
+  /**
+   * Initialize a newly created segment.
+   * 
+   * @param librarySource the source of the library containing the unit
+   * @param unitSource the source of the compilation unit or HTML file
+   * @param file the file containing the relationships
+   * @param modificationStamp the modification stamp of the unit at the time it was indexed
+   * @param dependencyStamp the stamp of the libraries that the library depended on
+   * @param keyIds the identifiers of the keys of the entries in the file
+   * @param relationshipIds the identifiers of the relationships of the entries in the file
+   * @param positions the positions of the entries in the file
+   * @param locationCount the number of locations in the file
+   */
+  private IndexSegment(Source librarySource, Source unitSource, File file, long modificationStamp,
+      long dependencyStamp, int[] keyIds, int[] relationshipIds, int[] positions,
+      int locationCount) {
+    this.librarySource = librarySource;
+    this.unitSource = unitSource;
+    this.file = file;
+    this.modificationStamp = modificationStamp;
+    this.dependencyStamp = dependencyStamp;
+    this.keyIds = keyIds;
+    this.relationshipIds = relationshipIds;
+    this.positions = positions;
+    this.locationCount = locationCount;
+  }
+
+  /**
+   * Release the contents of the file. The contents are read again if the segment is read after it
+   * has been closed.
+   */
+  synchronized void close() {
+    contents = null;
+  }
+
+  /**
+   * Release the contents of the file and prevent the file from being read again, because it is
+   * about to be deleted or replaced.
+   */
+  synchronized void discard() {
+    contents = null;
+    discarded = true;
+  }
+
+  /**
+   * Return the stamp of the libraries that the library depended on at the time the unit was
+   * indexed, or {@code 0} if it is not known.
+   * 
+   * @return the stamp of the libraries that the library depended on
+   */
+  long getDependencyStamp() {
+    return dependencyStamp;
+  }
+
+  /**
+   * Return the file containing the relationships.
+   * 
+   * @return the file containing the relationships
+   */
+  File getFile() {
+    return file;
+  }
+
+  /**
+   * Return the identifiers of the keys that have relationships in this segment. An identifier can
+   * appear more than once.
+   * 
+   * @return the identifiers of the keys in this segment
+   */
+  int[] getKeyIds() {
+    return keyIds;
+  }
+
+  /**
+   * Return the source of the library containing the unit, or {@code null} for an HTML file.
+   * 
+   * @return the source of the library containing the unit
+   */
+  Source getLibrarySource() {
+    return librarySource;
+  }
+
+  /**
+   * Return the modification stamp of the unit at the time it was indexed.
+   * 
+   * @return the modification stamp of the unit at the time it was indexed
+   */
+  long getModificationStamp() {
+    return modificationStamp;
+  }
+
+  /**
+   * Return the number of locations in this segment.
+   * 
+   * @return the number of locations in this segment
+   */
+  int getLocationCount() {
+    return locationCount;
+  }
+
+  /**
+   * Return the identifiers of the relationships of the entries in this segment, in the same order
+   * as the identifiers of their keys (see {@link #getKeyIds()}).
+   * 
+   * @return the identifiers of the relationships in this segment
+   */
+  int[] getRelationshipIds() {
+    return relationshipIds;
+  }
+
+  /**
+   * Return the source of the compilation unit or HTML file containing the locations.
+   * 
+   * @return the source of the compilation unit or HTML file
+   */
+  Source getUnitSource() {
+    return unitSource;
+  }
+
+  /**
+   * Return {@code true} if the contents of the file are being kept in memory.
+   * 
+   * @return {@code true} if the contents of the file are being kept in memory
+   */
+  synchronized boolean isOpen() {
+    return contents != null;
+  }
+
+  /**
+   * Add to the given builder all of the relationships in this segment that have not been removed.
+   * 
+   * @param builder the builder to which the relationships are to be added
+   * @throws IOException if the file could not be read
+   */
+  void readInto(Builder builder) throws IOException {
+    try {
+      ByteBuffer buffer = getBuffer();
+      if (buffer == null) {
+        return;
+      }
+      for (int i = 0; i < keyIds.length; i++) {
+        if (keyIds[i] < 0) {
+          continue;
+        }
+        buffer.position(positions[i]);
+        String key = readString(buffer, buffer.getInt());
+        String relationship = readString(buffer, buffer.getInt());
+        int count = buffer.getInt();
+        for (int j = 0; j < count; j++) {
+          String locationElement = readString(buffer, buffer.getInt());
+          String locationKind = readString(buffer, buffer.getInt());
+          int offset = buffer.getInt();
+          int length = buffer.getInt();
+          int dataIndex = buffer.getInt();
+          String data = dataIndex < 0 ? null : readString(buffer, dataIndex);
+          builder.add(key, relationship, locationElement, locationKind, offset, length, data);
+        }
+      }
+    } catch (BufferUnderflowException exception) {
+      throw new IOException("Invalid index segment: " + file, exception);
+    } catch (IndexOutOfBoundsException exception) {
+      throw new IOException("Invalid index segment: " + file, exception);
+    }
+  }
+
+  /**
+   * Add to the given list the locations at which the element with the given key has the given
+   * relationship. Locations whose elements no longer exist in the given context are ignored. The
+   * elements of locations in libraries that have not been resolved are represented by handles, and
+   * the data of those locations is not preserved. Nothing is added if the segment has been
+   * discarded.
+   * 
+   * @param context the context used to find the elements containing the locations
+   * @param keyId the identifier of the key of the element
+   * @param relationshipId the identifier of the relationship
+   * @param useHandles {@code true} if the elements of the locations are to be represented by
+   *          handles whenever their kind has handles, so that the locations can be kept without
+   *          keeping the element models of their libraries
+   * @param locations the list to which the locations are to be added
+   * @throws IOException if the file could not be read
+   */
+  void readLocations(AnalysisContext context, int keyId, int relationshipId, boolean useHandles,
+      List<Location> locations) throws IOException {
+    ByteBuffer buffer = null;
+    try {
+      for (int i = 0; i < keyIds.length; i++) {
+        if (keyIds[i] != keyId || relationshipIds[i] != relationshipId) {
+          continue;
+        }
+        if (buffer == null) {
+          buffer = getBuffer();
+          if (buffer == null) {
+            return;
+          }
+        }
+        buffer.position(positions[i] + 8);
+        int count = buffer.getInt();
+        for (int j = 0; j < count; j++) {
+          String locationElement = readString(buffer, buffer.getInt());
+          ElementKind locationKind = decodeKind(readString(buffer, buffer.getInt()));
+          int offset = buffer.getInt();
+          int length = buffer.getInt();
+          int dataIndex = buffer.getInt();
+          Element element = null;
+          if (useHandles && locationKind != null) {
+            element = ElementHandle.forLocation(
+                context,
+                locationKind,
+                new ElementLocationImpl(locationElement));
+          }
+          if (element == null) {
+            element = findElement(context, locationElement, locationKind);
+            if (element == null) {
+              continue;
+            }
+          }
+          Location location = new Location(element, offset, length);
+          if (dataIndex >= 0) {
+            Type type = decodeType(context, readString(buffer, dataIndex));
+            if (type != null) {
+              location = new LocationWithData<Type>(location, type);
+            }
+          }
+          locations.add(location);
+        }
+      }
+    } catch (BufferUnderflowException exception) {
+      throw new IOException("Invalid index segment: " + file, exception);
+    } catch (IndexOutOfBoundsException exception) {
+      throw new IOException("Invalid index segment: " + file, exception);
+    }
+  }
+
+  /**
+   * Remove from this segment the entries for the key with the given identifier. The file is not
+   * modified, so the segment must be {@link #rewrite(StringCodec, StringCodec) rewritten} for the
+   * removal to be persisted.
+   * 
+   * @param keyId the identifier of the key whose entries are to be removed
+   * @return the number of locations that were removed
+   */
+  synchronized int removeKey(int keyId) {
+    int removedCount = 0;
+    ByteBuffer buffer = null;
+    for (int i = 0; i < keyIds.length; i++) {
+      if (keyIds[i] != keyId) {
+        continue;
+      }
+      keyIds[i] = -1;
+      try {
+        if (buffer == null) {
+          buffer = getBuffer();
+        }
+        if (buffer != null) {
+          removedCount += buffer.getInt(positions[i] + 8);
+        }
+      } catch (IOException exception) {
+        // The number of locations is only used for statistics.
+      }
+    }
+    locationCount -= removedCount;
+    return removedCount;
+  }
+
+  /**
+   * Write the entries of this segment that have not been removed to a new file replacing the file
+   * of this segment, and return the segment representing the new file. This segment is discarded.
+   * 
+   * @param keyCodec the codec used to encode the keys
+   * @param relationshipCodec the codec used to encode the relationships
+   * @return the segment representing the new file
+   * @throws IOException if the file could not be read or written
+   */
+  IndexSegment rewrite(StringCodec keyCodec, StringCodec relationshipCodec) throws IOException {
+    Builder builder = new Builder(librarySource, unitSource, modificationStamp, dependencyStamp);
+    readInto(builder);
+    discard();
+    return builder.write(file, keyCodec, relationshipCodec);
+  }
+
+  /**
+   * Return a buffer containing the contents of the file, reading the file if it has not yet been
+   * read, or {@code null} if this segment has been discarded. The position of the buffer is
+   * independent of the positions of the buffers returned by other invocations.
+   * 
+   * @return a buffer containing the contents of the file
+   * @throws IOException if the file could not be read
+   */
+  private synchronized ByteBuffer getBuffer() throws IOException {
+    if (discarded) {
+      return null;
+    }
+    if (contents == null) {
+      contents = readContents(file);
+    }
+    return contents.duplicate();
+  }
+}
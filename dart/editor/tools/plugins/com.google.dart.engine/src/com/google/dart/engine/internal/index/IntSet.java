@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.index;
+
+import java.util.Arrays;
+
+/**
+ * Instances of the class {@code IntSet} represent a set of {@code int} values. The values are kept
+ * in a sorted array, which is compact for the small sets used by the index.
+ * 
+ * @coverage dart.engine.index
+ */
+class IntSet {
+  /**
+   * An empty array of values.
+   */
+  private static final int[] NO_VALUES = new int[0];
+
+  /**
+   * The values in this set, in ascending order, followed by unused elements.
+   */
+  private int[] values = NO_VALUES;
+
+  /**
+   * The number of values in this set.
+   */
+  private int size = 0;
+
+  /**
+   * Add the given value to this set.
+   * 
+   * @param value the value to be added
+   * @return {@code true} if the value was not already in this set
+   */
+  public boolean add(int value) {
+    int index = Arrays.binarySearch(values, 0, size, value);
+    if (index >= 0) {
+      return false;
+    }
+    index = -(index + 1);
+    if (size == values.length) {
+      int[] newValues = new int[Math.max(4, size * 2)];
+      System.arraycopy(values, 0, newValues, 0, size);
+      values = newValues;
+    }
+    System.arraycopy(values, index, values, index + 1, size - index);
+    values[index] = value;
+    size++;
+    return true;
+  }
+
+  /**
+   * Return {@code true} if the given value is in this set.
+   * 
+   * @param value the value being tested for
+   * @return {@code true} if the value is in this set
+   */
+  public boolean contains(int value) {
+    return Arrays.binarySearch(values, 0, size, value) >= 0;
+  }
+
+  /**
+   * Return {@code true} if this set does not contain any values.
+   * 
+   * @return {@code true} if this set is empty
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Remove the given value from this set.
+   * 
+   * @param value the value to be removed
+   * @return {@code true} if the value was in this set
+   */
+  public boolean remove(int value) {
+    int index = Arrays.binarySearch(values, 0, size, value);
+    if (index < 0) {
+      return false;
+    }
+    size--;
+    System.arraycopy(values, index + 1, values, index, size - index);
+    return true;
+  }
+
+  /**
+   * Return the number of values in this set.
+   * 
+   * @return the number of values in this set
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Return an array containing the values in this set, in ascending order.
+   * 
+   * @return the values in this set
+   */
+  public int[] toArray() {
+    int[] result = new int[size];
+    System.arraycopy(values, 0, result, 0, size);
+    return result;
+  }
+}
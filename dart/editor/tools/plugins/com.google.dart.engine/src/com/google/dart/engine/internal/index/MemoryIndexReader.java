@@ -14,6 +14,7 @@
 
 package com.google.dart.engine.internal.index;
 
+import com.google.common.io.ByteStreams;
 import com.google.dart.engine.context.AnalysisContext;
 import com.google.dart.engine.element.Element;
 import com.google.dart.engine.element.ElementLocation;
@@ -21,27 +22,36 @@ import com.google.dart.engine.index.Location;
 import com.google.dart.engine.index.Relationship;
 import com.google.dart.engine.internal.element.ElementLocationImpl;
 
+import java.io.ByteArrayInputStream;
 import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.text.MessageFormat;
 
 /**
- * Helper to read {@link MemoryIndexStoreImpl} from {@link InputStream}.
+ * Helper to read {@link MemoryIndexStoreImpl} from {@link InputStream}. Both the current format
+ * (see {@link MemoryIndexWriter}) and version 1 of the format are supported.
  * 
  * @coverage dart.engine.index
  */
 class MemoryIndexReader {
-  static int FILE_VERSION_NUMBER = 1;
+  static int FILE_VERSION_NUMBER = 2;
+
+  /**
+   * The version of the format which wrote the full encoding of every {@link ElementLocation} and
+   * every relationship identifier.
+   */
+  static int FILE_VERSION_NUMBER_1 = 1;
 
   private final MemoryIndexStoreImpl impl;
   private final AnalysisContext context;
-  private final DataInputStream dis;
+  private final InputStream input;
+  private DataInputStream dis;
 
   MemoryIndexReader(MemoryIndexStoreImpl impl, AnalysisContext context, InputStream input) {
     this.impl = impl;
     this.context = context;
-    this.dis = new DataInputStream(input);
+    this.input = input;
   }
 
   /**
@@ -51,28 +61,37 @@ class MemoryIndexReader {
    *           etc.
    */
   public void read() throws IOException {
+    // read the whole content at once
+    byte[] content = ByteStreams.toByteArray(input);
+    dis = new DataInputStream(new ByteArrayInputStream(content));
     // check version
-    {
-      int version = dis.readInt();
-      if (version != FILE_VERSION_NUMBER) {
-        throw new IOException(MessageFormat.format(
-            "Incompatible file version, expected: {0} found: {1}",
-            FILE_VERSION_NUMBER,
-            version));
-      }
+    int version = dis.readInt();
+    if (version == FILE_VERSION_NUMBER) {
+      readVersion2();
+    } else if (version == FILE_VERSION_NUMBER_1) {
+      readVersion1();
+    } else {
+      throw new IOException(MessageFormat.format(
+          "Incompatible file version, expected: {0} found: {1}",
+          FILE_VERSION_NUMBER,
+          version));
     }
-    // read Element(s)
-    int numElements = dis.readInt();
-    for (int i = 0; i < numElements; i++) {
-      Element element = readElement();
-      Relationship relationship = readRelationship();
-      // read Location(s)
-      int numLocations = dis.readInt();
-      for (int j = 0; j < numLocations; j++) {
-        Location location = readLocation();
-        impl.recordRelationship(element, relationship, location);
-      }
+  }
+
+  /**
+   * @return the {@link Element} with the {@link ElementLocation} encoded by the string with the
+   *         given index, may be {@code null}.
+   */
+  private Element getElement(String[] strings, Element[] elements, boolean[] elementsRequested,
+      int index) throws IOException {
+    if (index < 0 || index >= strings.length) {
+      throw new IOException("Invalid string index: " + index);
     }
+    if (!elementsRequested[index]) {
+      elementsRequested[index] = true;
+      elements[index] = context.getElement(new ElementLocationImpl(strings[index]));
+    }
+    return elements[index];
   }
 
   private Element readElement() throws IOException {
@@ -92,4 +111,77 @@ class MemoryIndexReader {
     String relationshipId = dis.readUTF();
     return Relationship.getRelationship(relationshipId);
   }
+
+  /**
+   * Reads a variable-length integer written by {@link MemoryIndexWriter#writeVarInt}.
+   */
+  private int readVarInt() throws IOException {
+    int bits = 0;
+    for (int shift = 0; shift < 35; shift += 7) {
+      int b = dis.readByte();
+      bits |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return (bits >>> 1) ^ -(bits & 1);
+      }
+    }
+    throw new IOException("Malformed variable-length integer");
+  }
+
+  private void readVersion1() throws IOException {
+    // read Element(s)
+    int numElements = dis.readInt();
+    for (int i = 0; i < numElements; i++) {
+      Element element = readElement();
+      Relationship relationship = readRelationship();
+      // read Location(s)
+      int numLocations = dis.readInt();
+      for (int j = 0; j < numLocations; j++) {
+        Location location = readLocation();
+        impl.recordRelationship(element, relationship, location);
+      }
+    }
+  }
+
+  private void readVersion2() throws IOException {
+    // read strings, Element(s) are requested lazily and only once
+    int numStrings = readVarInt();
+    String[] strings = new String[numStrings];
+    for (int i = 0; i < numStrings; i++) {
+      strings[i] = dis.readUTF();
+    }
+    Element[] elements = new Element[numStrings];
+    boolean[] elementsRequested = new boolean[numStrings];
+    // read Element(s)
+    int numElements = readVarInt();
+    for (int i = 0; i < numElements; i++) {
+      int elementId = readVarInt();
+      String relationshipId = strings[readVarInt()];
+      Element element = getElement(strings, elements, elementsRequested, elementId);
+      Relationship relationship = Relationship.getRelationship(relationshipId);
+      // read Location(s)
+      int numLocations = readVarInt();
+      int locationElementId = 0;
+      int offset = 0;
+      for (int j = 0; j < numLocations; j++) {
+        int elementIdDelta = readVarInt();
+        if (elementIdDelta != 0) {
+          locationElementId += elementIdDelta;
+          offset = 0;
+        }
+        offset += readVarInt();
+        int length = readVarInt();
+        Element locationElement = getElement(
+            strings,
+            elements,
+            elementsRequested,
+            locationElementId);
+        if (element != null && locationElement != null) {
+          impl.recordRelationship(element, relationship, new Location(
+              locationElement,
+              offset,
+              length));
+        }
+      }
+    }
+  }
 }
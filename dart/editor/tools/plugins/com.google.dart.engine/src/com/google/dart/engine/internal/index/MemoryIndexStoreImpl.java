@@ -135,7 +135,7 @@ public class MemoryIndexStoreImpl implements MemoryIndexStore {
   /**
    * @return the {@link Source} of the enclosing {@link LibraryElement}, may be {@code null}.
    */
-  private static Source getLibrarySourceOrNull(Element element) {
+  static Source getLibrarySourceOrNull(Element element) {
     LibraryElement library = element.getLibrary();
     if (library == null) {
       return null;
@@ -180,6 +180,12 @@ public class MemoryIndexStoreImpl implements MemoryIndexStore {
    */
   final Map<AnalysisContext, Map<Source, Set<Source>>> contextToUnitToLibraries = Maps.newHashMap();
 
+  /**
+   * The mapping of {@link Relationship}s to the {@link NameIndex} of the locations that have that
+   * relationship with {@link IndexConstants#UNIVERSE}, used to find declarations by name.
+   */
+  private final Map<Relationship, NameIndex> universeNameIndexes = Maps.newHashMap();
+
   private int sourceCount;
   private int keyCount;
   private int locationCount;
@@ -276,6 +282,10 @@ public class MemoryIndexStoreImpl implements MemoryIndexStore {
     return true;
   }
 
+  @Override
+  public void doneIndex() {
+  }
+
   @Override
   public Location[] getRelationships(Element element, Relationship relationship) {
     ElementRelationKey key = new ElementRelationKey(element, relationship);
@@ -286,6 +296,19 @@ public class MemoryIndexStoreImpl implements MemoryIndexStore {
     return Location.EMPTY_ARRAY;
   }
 
+  @Override
+  public Location[] getRelationships(Element element, Relationship relationship, String pattern,
+      boolean camelCase) {
+    if (element instanceof UniverseElementImpl) {
+      NameIndex nameIndex = universeNameIndexes.get(relationship);
+      if (nameIndex == null) {
+        return Location.EMPTY_ARRAY;
+      }
+      return nameIndex.getLocations(pattern, camelCase);
+    }
+    return NameIndex.select(getRelationships(element, relationship), pattern, camelCase);
+  }
+
   @Override
   public String getStatistics() {
     return locationCount + " relationships in " + keyCount + " keys in " + sourceCount + " sources";
@@ -392,6 +415,15 @@ public class MemoryIndexStoreImpl implements MemoryIndexStore {
       locations.add(location);
       locationCount++;
     }
+    // record: name -> location(s)
+    if (element instanceof UniverseElementImpl) {
+      NameIndex nameIndex = universeNameIndexes.get(relationship);
+      if (nameIndex == null) {
+        nameIndex = new NameIndex();
+        universeNameIndexes.put(relationship, nameIndex);
+      }
+      nameIndex.add(location);
+    }
     // record: location -> key
     location.internalKey = key;
     // prepare source pairs
@@ -553,6 +585,21 @@ public class MemoryIndexStoreImpl implements MemoryIndexStore {
     libraries.add(library);
   }
 
+  /**
+   * Removes the given location from the {@link NameIndex} of the given key, if it has one.
+   */
+  private void removeFromNameIndex(ElementRelationKey key, Location location) {
+    if (key.element instanceof UniverseElementImpl) {
+      NameIndex nameIndex = universeNameIndexes.get(key.relationship);
+      if (nameIndex != null) {
+        nameIndex.remove(location);
+        if (nameIndex.isEmpty()) {
+          universeNameIndexes.remove(key.relationship);
+        }
+      }
+    }
+  }
+
   /**
    * Removes locations recorded in the given library/unit pair.
    */
@@ -568,6 +615,7 @@ public class MemoryIndexStoreImpl implements MemoryIndexStore {
           if (relLocations != null) {
             relLocations.remove(location);
             locationCount--;
+            removeFromNameIndex(key, location);
             // no locations with this key
             if (relLocations.isEmpty()) {
               canonicalKeys.remove(key);
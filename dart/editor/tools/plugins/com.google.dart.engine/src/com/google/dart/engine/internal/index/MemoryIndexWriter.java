@@ -15,25 +15,78 @@
 package com.google.dart.engine.internal.index;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.google.dart.engine.context.AnalysisContext;
 import com.google.dart.engine.element.Element;
 import com.google.dart.engine.element.ElementLocation;
 import com.google.dart.engine.index.Location;
 import com.google.dart.engine.internal.index.MemoryIndexStoreImpl.ElementRelationKey;
 
+import java.io.BufferedOutputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
  * Helper to write {@link MemoryIndexStoreImpl} to {@link OutputStream}.
+ * <p>
+ * Version 2 of the format starts with a table of all strings used in the index - the encodings of
+ * the {@link ElementLocation}s and the identifiers of the relationships, in sorted order - so that
+ * every string is written once. Keys and locations refer to strings by their index in the table.
+ * Locations of each key are sorted by the index of their element and then by offset, and are
+ * written as deltas from the previous location, so that locations in the same unit are written
+ * with just a few bytes. All integers after the version number are written as variable-length
+ * integers.
  * 
  * @coverage dart.engine.index
  */
 class MemoryIndexWriter {
-  static int FILE_VERSION_NUMBER = 1;
+  /**
+   * The information about a single {@link Location} to write.
+   */
+  private static class LocationData implements Comparable<LocationData> {
+    final String element;
+    final int offset;
+    final int length;
+    int elementId;
+
+    LocationData(String element, int offset, int length) {
+      this.element = element;
+      this.offset = offset;
+      this.length = length;
+    }
+
+    @Override
+    public int compareTo(LocationData other) {
+      if (elementId != other.elementId) {
+        return elementId < other.elementId ? -1 : 1;
+      }
+      if (offset != other.offset) {
+        return offset < other.offset ? -1 : 1;
+      }
+      return 0;
+    }
+  }
+
+  static int FILE_VERSION_NUMBER = 2;
+
+  /**
+   * Writes the given value as a variable-length integer, 7 bits per byte, using the zig-zag
+   * encoding so that small negative values are also written using a single byte.
+   */
+  static void writeVarInt(DataOutputStream dos, int value) throws IOException {
+    int bits = (value << 1) ^ (value >> 31);
+    while ((bits & ~0x7F) != 0) {
+      dos.writeByte((bits & 0x7F) | 0x80);
+      bits >>>= 7;
+    }
+    dos.writeByte(bits);
+  }
 
   private final MemoryIndexStoreImpl impl;
   private final AnalysisContext context;
@@ -42,7 +95,7 @@ class MemoryIndexWriter {
   MemoryIndexWriter(MemoryIndexStoreImpl impl, AnalysisContext context, OutputStream output) {
     this.impl = impl;
     this.context = context;
-    this.dos = new DataOutputStream(output);
+    this.dos = new DataOutputStream(new BufferedOutputStream(output));
   }
 
   /**
@@ -59,14 +112,16 @@ class MemoryIndexWriter {
       }
       keysToWrite.add(key);
     }
-    // do write Element(s)
-    dos.writeInt(keysToWrite.size());
+    // prepare strings and Location(s) to write
+    Set<String> strings = Sets.newTreeSet();
+    List<String> keyElements = Lists.newArrayList();
+    List<List<LocationData>> keyLocations = Lists.newArrayList();
     for (ElementRelationKey key : keysToWrite) {
-      // write key
-      writeElementLocation(key.element);
-      dos.writeUTF(key.relationship.getIdentifier());
-      // prepare Location(s) to write
-      List<Location> locationsToWrite = Lists.newArrayList();
+      String keyElement = getElementLocation(key.element);
+      strings.add(keyElement);
+      strings.add(key.relationship.getIdentifier());
+      keyElements.add(keyElement);
+      List<LocationData> locationsToWrite = Lists.newArrayList();
       Set<Location> contributedLocations = impl.keyToLocations.get(key);
       for (Location location : contributedLocations) {
         // TODO(scheglov) restore when we will share Elements between contexts
@@ -74,30 +129,63 @@ class MemoryIndexWriter {
 //        if (!isElementOfContext(locationElement)) {
 //          continue;
 //        }
-        locationsToWrite.add(location);
+        String locationElement = getElementLocation(location.getElement());
+        strings.add(locationElement);
+        locationsToWrite.add(new LocationData(
+            locationElement,
+            location.getOffset(),
+            location.getLength()));
       }
+      keyLocations.add(locationsToWrite);
+    }
+    // write strings
+    Map<String, Integer> stringIds = Maps.newHashMap();
+    writeVarInt(dos, strings.size());
+    for (String string : strings) {
+      stringIds.put(string, stringIds.size());
+      dos.writeUTF(string);
+    }
+    // do write Element(s)
+    writeVarInt(dos, keysToWrite.size());
+    for (int i = 0; i < keysToWrite.size(); i++) {
+      // write key
+      writeVarInt(dos, stringIds.get(keyElements.get(i)));
+      writeVarInt(dos, stringIds.get(keysToWrite.get(i).relationship.getIdentifier()));
       // write Location(s)
-      dos.writeInt(locationsToWrite.size());
-      for (Location location : locationsToWrite) {
-        writeElementLocation(location.getElement());
-        dos.writeInt(location.getOffset());
-        dos.writeInt(location.getLength());
+      List<LocationData> locationsToWrite = keyLocations.get(i);
+      for (LocationData location : locationsToWrite) {
+        location.elementId = stringIds.get(location.element);
+      }
+      Collections.sort(locationsToWrite);
+      writeVarInt(dos, locationsToWrite.size());
+      int previousElementId = 0;
+      int previousOffset = 0;
+      for (LocationData location : locationsToWrite) {
+        writeVarInt(dos, location.elementId - previousElementId);
+        if (location.elementId != previousElementId) {
+          previousOffset = 0;
+        }
+        writeVarInt(dos, location.offset - previousOffset);
+        writeVarInt(dos, location.length);
+        previousElementId = location.elementId;
+        previousOffset = location.offset;
       }
     }
+    dos.flush();
   }
 
   /**
-   * @return {@code true} if given {@link Element} belongs to the {@link AnalysisContext} which we
-   *         are currently writing.
+   * @return the encoding of the {@link ElementLocation} of the given {@link Element}.
    */
-  private boolean isElementOfContext(Element element) {
-    return element.getContext() == context;
+  private String getElementLocation(Element element) {
+    return element.getLocation().getEncoding();
   }
 
   /**
-   * Writes {@link ElementLocation} of the given {@link Element}.
+   * @return {@code true} if given {@link Element} belongs to the {@link AnalysisContext} which we
+   *         are currently writing.
    */
-  private void writeElementLocation(Element element) throws IOException {
-    dos.writeUTF(element.getLocation().getEncoding());
+  private boolean isElementOfContext(Element element) {
+    return element.getContext() == context;
   }
 }
@@ -0,0 +1,255 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.index;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.dart.engine.index.Location;
+import com.google.dart.engine.utilities.general.CharOperation;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Instances of the class {@code NameIndex} index a set of {@link Location}s by the names of their
+ * elements, so that the locations whose names start with a given prefix or match a given camel-case
+ * pattern can be found without looking at every location in the set.
+ * <p>
+ * Two sorted tables are maintained. The first is keyed by the lower-case name, and is used to
+ * answer prefix queries. The second is keyed by the humps of the name (its upper-case and
+ * non-identifier characters), and is used to answer camel-case queries. A camel-case pattern can
+ * only match a name whose humps start with the humps of the pattern, and only if the name starts
+ * with the characters of the pattern that precede its second hump, so whichever of these two
+ * prefixes is the more selective is used to find the candidates, which are then checked against the
+ * full pattern.
+ * 
+ * @coverage dart.engine.index
+ */
+class NameIndex {
+  /**
+   * Return the humps of the given name or pattern, which are the upper-case and non-identifier
+   * characters that a camel-case pattern must match exactly.
+   * 
+   * @param name the name or pattern whose humps are to be returned
+   * @return the humps of the given name or pattern
+   */
+  static String getHumps(String name) {
+    StringBuilder builder = new StringBuilder();
+    int length = name.length();
+    for (int i = 0; i < length; i++) {
+      char c = name.charAt(i);
+      if (!Character.isJavaIdentifierPart(c) || Character.isUpperCase(c)) {
+        builder.append(c);
+      }
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Return the prefix of the given camel-case pattern that every name matching the pattern must
+   * start with, which is its first character followed by the lower-case characters that
+   * immediately follow it.
+   * 
+   * @param pattern the camel-case pattern whose prefix is to be returned
+   * @return the prefix that every matching name must start with
+   */
+  static String getLiteralPrefix(String pattern) {
+    int length = pattern.length();
+    int end = Math.min(1, length);
+    while (end < length) {
+      char c = pattern.charAt(end);
+      if (!Character.isJavaIdentifierPart(c) || Character.isUpperCase(c) || Character.isDigit(c)) {
+        break;
+      }
+      end++;
+    }
+    return pattern.substring(0, end);
+  }
+
+  /**
+   * Return {@code true} if the given name matches the given pattern.
+   * 
+   * @param name the name being tested
+   * @param pattern the pattern being matched
+   * @param camelCase {@code true} if the pattern is a camel-case pattern, or {@code false} if it is
+   *          a prefix that is matched ignoring case
+   * @return {@code true} if the given name matches the given pattern
+   */
+  static boolean matches(String name, String pattern, boolean camelCase) {
+    if (name == null) {
+      return false;
+    }
+    if (camelCase) {
+      return CharOperation.camelCaseMatch(pattern.toCharArray(), name.toCharArray(), false);
+    }
+    return name.regionMatches(true, 0, pattern, 0, pattern.length());
+  }
+
+  /**
+   * Return those of the given locations whose names match the given pattern.
+   * 
+   * @param locations the locations to be filtered
+   * @param pattern the pattern that the names of the returned locations must match
+   * @param camelCase {@code true} if the pattern is a camel-case pattern, or {@code false} if it is
+   *          a prefix that is matched ignoring case
+   * @return the locations whose names match the given pattern
+   */
+  static Location[] select(Location[] locations, String pattern, boolean camelCase) {
+    List<Location> result = Lists.newArrayList();
+    for (Location location : locations) {
+      if (matches(getName(location), pattern, camelCase)) {
+        result.add(location);
+      }
+    }
+    return result.toArray(new Location[result.size()]);
+  }
+
+  /**
+   * Add the given location to the locations in the given table with the given key.
+   */
+  private static void add(TreeMap<String, Set<Location>> table, String key, Location location) {
+    Set<Location> locations = table.get(key);
+    if (locations == null) {
+      locations = Sets.newSetFromMap(new IdentityHashMap<Location, Boolean>(4));
+      table.put(key, locations);
+    }
+    locations.add(location);
+  }
+
+  /**
+   * Return the name of the element of the given location.
+   */
+  private static String getName(Location location) {
+    String name = location.getElement().getDisplayName();
+    return name != null ? name : "";
+  }
+
+  /**
+   * Remove the given location from the locations in the given table with the given key.
+   */
+  private static void remove(TreeMap<String, Set<Location>> table, String key, Location location) {
+    Set<Location> locations = table.get(key);
+    if (locations != null) {
+      locations.remove(location);
+      if (locations.isEmpty()) {
+        table.remove(key);
+      }
+    }
+  }
+
+  /**
+   * A table mapping lower-case names to the locations with those names.
+   */
+  private final TreeMap<String, Set<Location>> nameToLocations = Maps.newTreeMap();
+
+  /**
+   * A table mapping the humps of names to the locations with those names.
+   */
+  private final TreeMap<String, Set<Location>> humpsToLocations = Maps.newTreeMap();
+
+  /**
+   * A table mapping the locations in this index to the names under which they were added.
+   */
+  private final IdentityHashMap<Location, String> locationNames = Maps.newIdentityHashMap();
+
+  /**
+   * Add the given location to this index under the name of its element.
+   * 
+   * @param location the location to be added
+   */
+  public void add(Location location) {
+    add(location, getName(location));
+  }
+
+  /**
+   * Add the given location to this index under the given name, which is the name of its element.
+   * This allows a location whose element is represented by a handle to be added without looking up
+   * the element.
+   * 
+   * @param location the location to be added
+   * @param name the name of the element of the location
+   */
+  public void add(Location location, String name) {
+    locationNames.put(location, name);
+    add(nameToLocations, name.toLowerCase(), location);
+    add(humpsToLocations, getHumps(name), location);
+  }
+
+  /**
+   * Return the locations in this index whose names match the given pattern.
+   * 
+   * @param pattern the pattern that the names of the returned locations must match
+   * @param camelCase {@code true} if the pattern is a camel-case pattern, or {@code false} if it is
+   *          a prefix that is matched ignoring case
+   * @return the locations whose names match the given pattern
+   */
+  public Location[] getLocations(String pattern, boolean camelCase) {
+    SortedMap<String, Set<Location>> candidates;
+    if (camelCase) {
+      String literalPrefix = getLiteralPrefix(pattern);
+      String humps = getHumps(pattern);
+      if (literalPrefix.length() > humps.length()) {
+        candidates = getPrefixMap(nameToLocations, literalPrefix.toLowerCase());
+      } else {
+        candidates = getPrefixMap(humpsToLocations, humps);
+      }
+    } else {
+      candidates = getPrefixMap(nameToLocations, pattern.toLowerCase());
+    }
+    List<Location> result = Lists.newArrayList();
+    for (Set<Location> locations : candidates.values()) {
+      for (Location location : locations) {
+        if (matches(locationNames.get(location), pattern, camelCase)) {
+          result.add(location);
+        }
+      }
+    }
+    return result.toArray(new Location[result.size()]);
+  }
+
+  /**
+   * Return {@code true} if this index does not contain any locations.
+   * 
+   * @return {@code true} if this index does not contain any locations
+   */
+  public boolean isEmpty() {
+    return nameToLocations.isEmpty();
+  }
+
+  /**
+   * Remove the given location from this index.
+   * 
+   * @param location the location to be removed
+   */
+  public void remove(Location location) {
+    String name = locationNames.remove(location);
+    if (name == null) {
+      return;
+    }
+    remove(nameToLocations, name.toLowerCase(), location);
+    remove(humpsToLocations, getHumps(name), location);
+  }
+
+  /**
+   * Return the part of the given table whose keys start with the given prefix.
+   */
+  private SortedMap<String, Set<Location>> getPrefixMap(TreeMap<String, Set<Location>> table,
+      String prefix) {
+    return table.subMap(prefix, prefix + Character.MAX_VALUE);
+  }
+}
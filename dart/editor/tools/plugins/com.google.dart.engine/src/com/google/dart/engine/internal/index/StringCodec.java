@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.index;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Instances of the class {@code StringCodec} assign a unique {@code int} identifier to each of the
+ * strings they encode. The identifiers of strings that have been removed are reused.
+ * 
+ * @coverage dart.engine.index
+ */
+class StringCodec {
+  /**
+   * The strings that have been encoded, indexed by their identifiers. Elements for identifiers that
+   * are not in use are {@code null}.
+   */
+  private final ArrayList<String> strings = Lists.newArrayList();
+
+  /**
+   * A table mapping the strings that have been encoded to their identifiers.
+   */
+  private final HashMap<String, Integer> identifiers = Maps.newHashMap();
+
+  /**
+   * The identifiers that are not in use and can be assigned to new strings.
+   */
+  private final IntSet freeIdentifiers = new IntSet();
+
+  /**
+   * Return the string with the given identifier, or {@code null} if the identifier is not in use.
+   * 
+   * @param identifier the identifier of the string to be returned
+   * @return the string with the given identifier
+   */
+  public String decode(int identifier) {
+    if (identifier < 0 || identifier >= strings.size()) {
+      return null;
+    }
+    return strings.get(identifier);
+  }
+
+  /**
+   * Return the identifier of the given string, assigning a new identifier if the string has not
+   * been encoded before.
+   * 
+   * @param string the string to be encoded
+   * @return the identifier of the string
+   */
+  public int encode(String string) {
+    Integer identifier = identifiers.get(string);
+    if (identifier != null) {
+      return identifier.intValue();
+    }
+    int newIdentifier;
+    if (freeIdentifiers.isEmpty()) {
+      newIdentifier = strings.size();
+      strings.add(string);
+    } else {
+      newIdentifier = freeIdentifiers.toArray()[0];
+      freeIdentifiers.remove(newIdentifier);
+      strings.set(newIdentifier, string);
+    }
+    identifiers.put(string, newIdentifier);
+    return newIdentifier;
+  }
+
+  /**
+   * Return the identifier of the given string, or {@code -1} if the string has not been encoded.
+   * 
+   * @param string the string whose identifier is to be returned
+   * @return the identifier of the string
+   */
+  public int getIdentifier(String string) {
+    Integer identifier = identifiers.get(string);
+    return identifier == null ? -1 : identifier.intValue();
+  }
+
+  /**
+   * Remove the string with the given identifier, so that the identifier can be reused.
+   * 
+   * @param identifier the identifier of the string to be removed
+   */
+  public void remove(int identifier) {
+    String string = decode(identifier);
+    if (string != null) {
+      identifiers.remove(string);
+      strings.set(identifier, null);
+      freeIdentifiers.add(identifier);
+    }
+  }
+
+  /**
+   * Return the number of strings that are currently encoded.
+   * 
+   * @return the number of strings that are currently encoded
+   */
+  public int size() {
+    return identifiers.size();
+  }
+}
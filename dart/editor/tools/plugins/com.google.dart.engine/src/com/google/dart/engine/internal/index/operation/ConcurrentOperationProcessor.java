@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.index.operation;
+
+import com.google.common.collect.Sets;
+import com.google.dart.engine.AnalysisEngine;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.utilities.translation.DartOmit;
+
+import java.util.Set;
+
+/**
+ * Instances of the {@link ConcurrentOperationProcessor} process the operations on a single
+ * {@link OperationQueue operation queue} using several threads.
+ * <p>
+ * Operations that index different units are performed concurrently, while operations that index
+ * the same unit are performed in the order in which they were queued. Operations that remove
+ * information from the index are performed only after all of the operations queued before them
+ * have completed, and before any of the operations queued after them are started. Queries are
+ * taken from the queue before any other operations, so they do not wait for the queue to drain.
+ * <p>
+ * The operations are performed on the {@link AnalysisEngine#getTaskExecutor() task executor} of
+ * the engine, so this processor does not own any threads that need to be shut down.
+ * 
+ * @coverage dart.engine.index
+ */
+@DartOmit
+public class ConcurrentOperationProcessor extends OperationProcessor {
+  /**
+   * The queue containing the operations to be processed.
+   */
+  private final OperationQueue queue;
+
+  /**
+   * The maximum number of operations that are performed at the same time.
+   */
+  private final int threadCount;
+
+  /**
+   * The sources that are being indexed by operations that are being performed.
+   */
+  private final Set<Source> activeSources = Sets.newHashSet();
+
+  /**
+   * The number of operations that are being performed.
+   */
+  private int activeCount = 0;
+
+  /**
+   * Initialize a newly created operation processor to process the operations on the given queue.
+   * 
+   * @param queue the queue containing the operations to be processed
+   * @param threadCount the maximum number of operations that are performed at the same time
+   */
+  public ConcurrentOperationProcessor(OperationQueue queue, int threadCount) {
+    super(queue);
+    this.queue = queue;
+    this.threadCount = threadCount;
+  }
+
+  @Override
+  protected IndexOperation dequeue(long timeout) throws InterruptedException {
+    return queue.dequeue(timeout, true);
+  }
+
+  @Override
+  protected void finishOperations() {
+    synchronized (activeSources) {
+      waitForAllOperationsToComplete();
+    }
+  }
+
+  @Override
+  protected void performOperation(final IndexOperation operation) {
+    final Source source = getIndexedSource(operation);
+    if (source == null && !operation.isQuery()) {
+      // remove operations are performed alone
+      synchronized (activeSources) {
+        waitForAllOperationsToComplete();
+      }
+      super.performOperation(operation);
+      return;
+    }
+    synchronized (activeSources) {
+      // wait for a free thread and for the previous operation on the same source
+      boolean interrupted = false;
+      while (activeCount >= threadCount || (source != null && activeSources.contains(source))) {
+        interrupted |= waitForOperationToComplete();
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+      activeCount++;
+      if (source != null) {
+        activeSources.add(source);
+      }
+    }
+    AnalysisEngine.getInstance().getTaskExecutor().execute(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          performOperationConcurrently(operation);
+        } finally {
+          synchronized (activeSources) {
+            activeCount--;
+            if (source != null) {
+              activeSources.remove(source);
+            }
+            activeSources.notifyAll();
+          }
+        }
+      }
+    });
+  }
+
+  /**
+   * Return the source indexed by the given operation, or {@code null} if the given operation does
+   * not index a source.
+   * 
+   * @param operation the operation whose source is to be returned
+   * @return the source indexed by the given operation
+   */
+  private Source getIndexedSource(IndexOperation operation) {
+    if (operation instanceof IndexUnitOperation) {
+      return ((IndexUnitOperation) operation).getSource();
+    } else if (operation instanceof IndexHtmlUnitOperation) {
+      return ((IndexHtmlUnitOperation) operation).getSource();
+    }
+    return null;
+  }
+
+  /**
+   * Perform the given operation on one of the threads of the executor. Units are visited without
+   * holding the lock on the index store, so that several units can be indexed at the same time.
+   * 
+   * @param operation the operation to be performed
+   */
+  private void performOperationConcurrently(IndexOperation operation) {
+    if (operation instanceof IndexUnitOperation) {
+      ((IndexUnitOperation) operation).performOperationConcurrently();
+    } else if (operation instanceof IndexHtmlUnitOperation) {
+      ((IndexHtmlUnitOperation) operation).performOperationConcurrently();
+    } else {
+      super.performOperation(operation);
+    }
+  }
+
+  /**
+   * Wait until none of the operations are being performed. The caller must hold the lock on
+   * {@link #activeSources}. If the thread is interrupted while waiting, then it continues to wait
+   * and the interrupt status of the thread is restored once none of the operations are being
+   * performed.
+   */
+  private void waitForAllOperationsToComplete() {
+    boolean interrupted = false;
+    while (activeCount > 0) {
+      interrupted |= waitForOperationToComplete();
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Wait until an operation that is being performed has completed. The caller must hold the lock
+   * on {@link #activeSources}. The interrupt status of the thread is not restored by this method,
+   * because waiting again with the status set would not release the lock; callers must restore it
+   * once they have finished waiting.
+   * 
+   * @return {@code true} if the thread was interrupted while waiting
+   */
+  private boolean waitForOperationToComplete() {
+    try {
+      activeSources.wait();
+      return false;
+    } catch (InterruptedException exception) {
+      return true;
+    }
+  }
+}
@@ -15,6 +15,7 @@ package com.google.dart.engine.internal.index.operation;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.dart.engine.element.Element;
+import com.google.dart.engine.index.CancellableRelationshipCallback;
 import com.google.dart.engine.index.IndexStore;
 import com.google.dart.engine.index.Location;
 import com.google.dart.engine.index.Relationship;
@@ -31,6 +32,8 @@ public class GetRelationshipsOperation implements IndexOperation {
   private final IndexStore indexStore;
   private final Element element;
   private final Relationship relationship;
+  private final String pattern;
+  private final boolean camelCase;
   private RelationshipCallback callback;
 
   /**
@@ -39,9 +42,25 @@ public class GetRelationshipsOperation implements IndexOperation {
    */
   public GetRelationshipsOperation(IndexStore indexStore, Element element,
       Relationship relationship, RelationshipCallback callback) {
+    this(indexStore, element, relationship, null, false, callback);
+  }
+
+  /**
+   * Initialize a newly created operation that will access the locations that have a specified
+   * relationship with a specified element and whose names match a specified pattern.
+   * 
+   * @param pattern the pattern that the names must match, or {@code null} if all of the locations
+   *          should be accessed
+   * @param camelCase {@code true} if the pattern is a camel-case pattern, or {@code false} if it is
+   *          a prefix that the names must start with, ignoring case
+   */
+  public GetRelationshipsOperation(IndexStore indexStore, Element element,
+      Relationship relationship, String pattern, boolean camelCase, RelationshipCallback callback) {
     this.indexStore = indexStore;
     this.element = element;
     this.relationship = relationship;
+    this.pattern = pattern;
+    this.camelCase = camelCase;
     this.callback = callback;
   }
 
@@ -55,6 +74,11 @@ public class GetRelationshipsOperation implements IndexOperation {
     return element;
   }
 
+  @VisibleForTesting
+  public String getPattern() {
+    return pattern;
+  }
+
   @VisibleForTesting
   public Relationship getRelationship() {
     return relationship;
@@ -67,9 +91,17 @@ public class GetRelationshipsOperation implements IndexOperation {
 
   @Override
   public void performOperation() {
+    if (callback instanceof CancellableRelationshipCallback
+        && ((CancellableRelationshipCallback) callback).isCancelled()) {
+      return;
+    }
     Location[] locations;
     synchronized (indexStore) {
-      locations = indexStore.getRelationships(element, relationship);
+      if (pattern != null) {
+        locations = indexStore.getRelationships(element, relationship, pattern, camelCase);
+      } else {
+        locations = indexStore.getRelationships(element, relationship);
+      }
     }
     callback.hasRelationships(element, relationship, locations);
   }
@@ -81,6 +113,9 @@ public class GetRelationshipsOperation implements IndexOperation {
 
   @Override
   public String toString() {
+    if (pattern != null) {
+      return "GetRelationships(" + element + ", " + relationship + ", " + pattern + ")";
+    }
     return "GetRelationships(" + element + ", " + relationship + ")";
   }
 }
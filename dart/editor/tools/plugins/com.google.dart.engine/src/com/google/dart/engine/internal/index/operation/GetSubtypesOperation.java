@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.index.operation;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.dart.engine.element.ClassElement;
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.index.CancellableRelationshipCallback;
+import com.google.dart.engine.index.IndexStore;
+import com.google.dart.engine.index.Location;
+import com.google.dart.engine.index.LocationWithData;
+import com.google.dart.engine.index.Relationship;
+import com.google.dart.engine.index.RelationshipCallback;
+import com.google.dart.engine.internal.index.IndexConstants;
+import com.google.dart.engine.source.Source;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Instances of the {@link GetSubtypesOperation} implement an operation used to access the
+ * locations at which the direct, or the direct and indirect, subtypes of a specified type extend,
+ * mix in or implement one of their supertypes.
+ * <p>
+ * The index records the is-extended-by, is-mixed-in-by and is-implemented-by relationships of each
+ * type with the clauses of its direct subtypes, and keeps them up to date as units are indexed and
+ * removed, so the transitive subtypes of a type are found by following these relationships
+ * without leaving the index. The callback is invoked once for each of the three relationships,
+ * with the locations found for that relationship. Each location is a {@link LocationWithData}
+ * whose data is the supertype named by the clause, so that the hierarchy can be rebuilt from the
+ * locations without consulting the element model.
+ * 
+ * @coverage dart.engine.index
+ */
+public class GetSubtypesOperation implements IndexOperation {
+  /**
+   * The relationships between a type and the clauses of its direct subtypes.
+   */
+  private static final Relationship[] RELATIONSHIPS = {
+      IndexConstants.IS_EXTENDED_BY, IndexConstants.IS_MIXED_IN_BY,
+      IndexConstants.IS_IMPLEMENTED_BY};
+
+  private final IndexStore indexStore;
+  private final ClassElement type;
+  private final boolean transitive;
+  private final RelationshipCallback callback;
+
+  /**
+   * Initialize a newly created operation that will access the locations of the clauses of the
+   * subtypes of a specified type.
+   * 
+   * @param type the type whose subtypes are to be accessed
+   * @param transitive {@code true} if the indirect subtypes should be accessed along with the
+   *          direct subtypes
+   */
+  public GetSubtypesOperation(IndexStore indexStore, ClassElement type, boolean transitive,
+      RelationshipCallback callback) {
+    this.indexStore = indexStore;
+    this.type = type;
+    this.transitive = transitive;
+    this.callback = callback;
+  }
+
+  @VisibleForTesting
+  public RelationshipCallback getCallback() {
+    return callback;
+  }
+
+  @VisibleForTesting
+  public ClassElement getType() {
+    return type;
+  }
+
+  @Override
+  public boolean isQuery() {
+    return true;
+  }
+
+  @VisibleForTesting
+  public boolean isTransitive() {
+    return transitive;
+  }
+
+  @Override
+  public void performOperation() {
+    if (callback instanceof CancellableRelationshipCallback
+        && ((CancellableRelationshipCallback) callback).isCancelled()) {
+      return;
+    }
+    List<List<Location>> locations = Lists.newArrayList();
+    for (int i = 0; i < RELATIONSHIPS.length; i++) {
+      locations.add(Lists.<Location> newArrayList());
+    }
+    synchronized (indexStore) {
+      Set<Element> visited = Sets.newHashSet();
+      LinkedList<Element> queue = Lists.newLinkedList();
+      visited.add(type);
+      queue.add(type);
+      while (!queue.isEmpty()) {
+        Element supertype = queue.removeFirst();
+        for (int i = 0; i < RELATIONSHIPS.length; i++) {
+          Location[] subtypeLocations = indexStore.getRelationships(supertype, RELATIONSHIPS[i]);
+          for (Location location : subtypeLocations) {
+            locations.get(i).add(new LocationWithData<Element>(location, supertype));
+            if (transitive) {
+              Element subtype = location.getElement();
+              if (subtype instanceof ClassElement && visited.add(subtype)) {
+                queue.add(subtype);
+              }
+            }
+          }
+        }
+      }
+    }
+    for (int i = 0; i < RELATIONSHIPS.length; i++) {
+      List<Location> relationshipLocations = locations.get(i);
+      callback.hasRelationships(
+          type,
+          RELATIONSHIPS[i],
+          relationshipLocations.toArray(new Location[relationshipLocations.size()]));
+    }
+  }
+
+  @Override
+  public boolean removeWhenSourceRemoved(Source source) {
+    return false;
+  }
+
+  @Override
+  public String toString() {
+    return "GetSubtypes(" + type + ", " + transitive + ")";
+  }
+}
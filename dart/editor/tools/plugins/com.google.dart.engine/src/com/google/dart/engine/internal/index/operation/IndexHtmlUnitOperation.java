@@ -98,8 +98,8 @@ public class IndexHtmlUnitOperation implements IndexOperation {
         if (!mayIndex) {
           return;
         }
-        AngularHtmlIndexContributor contributor = new AngularHtmlIndexContributor(indexStore);
-        unit.accept(contributor);
+        indexUnit(indexStore);
+        indexStore.doneIndex();
       } catch (Throwable exception) {
         AnalysisEngine.getInstance().getLogger().logError(
             "Could not index " + unit.getElement().getLocation(),
@@ -117,4 +117,34 @@ public class IndexHtmlUnitOperation implements IndexOperation {
   public String toString() {
     return "IndexHtmlUnitOperation(" + source.getFullName() + ")";
   }
+
+  /**
+   * Perform this operation without holding the lock on the index store while the unit is being
+   * visited, so that other units can be indexed at the same time. The relationships are recorded
+   * and then added to the index store when the visit is complete.
+   */
+  void performOperationConcurrently() {
+    try {
+      RecordingIndexStore recordingStore = new RecordingIndexStore(indexStore);
+      boolean mayIndex = recordingStore.aboutToIndexHtml(context, htmlElement);
+      if (!mayIndex) {
+        return;
+      }
+      indexUnit(recordingStore);
+      recordingStore.doneIndex();
+    } catch (Throwable exception) {
+      AnalysisEngine.getInstance().getLogger().logError(
+          "Could not index " + unit.getElement().getLocation(),
+          exception);
+    }
+  }
+
+  /**
+   * Visit the unit, recording the relationships in the given store.
+   * 
+   * @param store the store in which the relationships are to be recorded
+   */
+  private void indexUnit(IndexStore store) {
+    unit.accept(new AngularHtmlIndexContributor(store));
+  }
 }
@@ -99,8 +99,8 @@ public class IndexUnitOperation implements IndexOperation {
         if (!mayIndex) {
           return;
         }
-        unit.accept(new IndexContributor(indexStore));
-        unit.accept(new AngularDartIndexContributor(indexStore));
+        indexUnit(indexStore);
+        indexStore.doneIndex();
       } catch (Throwable exception) {
         AnalysisEngine.getInstance().getLogger().logError(
             "Could not index " + unit.getElement().getLocation(),
@@ -118,4 +118,35 @@ public class IndexUnitOperation implements IndexOperation {
   public String toString() {
     return "IndexUnitOperation(" + source.getFullName() + ")";
   }
+
+  /**
+   * Perform this operation without holding the lock on the index store while the unit is being
+   * visited, so that other units can be indexed at the same time. The relationships are recorded
+   * and then added to the index store when the visit is complete.
+   */
+  void performOperationConcurrently() {
+    try {
+      RecordingIndexStore recordingStore = new RecordingIndexStore(indexStore);
+      boolean mayIndex = recordingStore.aboutToIndexDart(context, unitElement);
+      if (!mayIndex) {
+        return;
+      }
+      indexUnit(recordingStore);
+      recordingStore.doneIndex();
+    } catch (Throwable exception) {
+      AnalysisEngine.getInstance().getLogger().logError(
+          "Could not index " + unit.getElement().getLocation(),
+          exception);
+    }
+  }
+
+  /**
+   * Visit the unit, recording the relationships in the given store.
+   * 
+   * @param store the store in which the relationships are to be recorded
+   */
+  private void indexUnit(IndexStore store) {
+    unit.accept(new IndexContributor(store));
+    unit.accept(new AngularDartIndexContributor(store));
+  }
 }
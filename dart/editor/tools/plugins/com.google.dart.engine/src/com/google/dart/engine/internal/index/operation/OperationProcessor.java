@@ -101,21 +101,17 @@ public class OperationProcessor {
         // wait for operation
         IndexOperation operation = null;
         try {
-          operation = queue.dequeue(WAIT_DURATION);
+          operation = dequeue(WAIT_DURATION);
         } catch (InterruptedException exception) {
           // ignore
         }
         // perform operation
         if (operation != null) {
-          try {
-            operation.performOperation();
-          } catch (Throwable exception) {
-            AnalysisEngine.getInstance().getLogger().logError(
-                "Exception in indexing operation: " + operation, exception); //$NON-NLS-1$
-          }
+          performOperation(operation);
         }
       }
     } finally {
+      finishOperations();
       synchronized (this) {
         state = ProcessorState.STOPPED;
       }
@@ -167,6 +163,39 @@ public class OperationProcessor {
     return state == ProcessorState.RUNNING;
   }
 
+  /**
+   * Remove the next operation from the queue and return it, waiting at most the given number of
+   * milliseconds for an operation to become available.
+   * 
+   * @param timeout the maximum number of milliseconds to wait for an operation
+   * @return the operation that was removed from the queue, or {@code null} if there is none
+   * @throws InterruptedException if the thread was interrupted while waiting for an operation
+   */
+  protected IndexOperation dequeue(long timeout) throws InterruptedException {
+    return queue.dequeue(timeout);
+  }
+
+  /**
+   * Wait until all of the operations that were passed to {@link #performOperation(IndexOperation)}
+   * have been performed. This method is invoked once the processor has been asked to stop.
+   */
+  protected void finishOperations() {
+  }
+
+  /**
+   * Perform the given operation, logging any exception it throws.
+   * 
+   * @param operation the operation to be performed
+   */
+  protected void performOperation(IndexOperation operation) {
+    try {
+      operation.performOperation();
+    } catch (Throwable exception) {
+      AnalysisEngine.getInstance().getLogger().logError(
+          "Exception in indexing operation: " + operation, exception); //$NON-NLS-1$
+    }
+  }
+
   /**
    * @return the {@link Source}s that are not indexed yet.
    */
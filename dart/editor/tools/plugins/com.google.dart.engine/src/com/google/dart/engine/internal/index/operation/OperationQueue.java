@@ -75,6 +75,23 @@ public class OperationQueue {
    *           while it was waiting for an operation to be added to the queue
    */
   public IndexOperation dequeue(long timeout) throws InterruptedException {
+    return dequeue(timeout, false);
+  }
+
+  /**
+   * Behaves the same as {@link #dequeue(long)}, except that if the argument {@code queriesFirst} is
+   * {@code true}, then query operations are returned before any non-query operations, so that
+   * queries do not need to wait until all of the non-query operations have been performed.
+   * 
+   * @param timeout the maximum number of milliseconds to wait for an operation to be available
+   *          before giving up and returning {@code null}
+   * @param queriesFirst {@code true} if query operations should be returned before non-query
+   *          operations
+   * @return the operation that was removed from the queue
+   * @throws InterruptedException if the thread on which this method is running was interrupted
+   *           while it was waiting for an operation to be added to the queue
+   */
+  public IndexOperation dequeue(long timeout, boolean queriesFirst) throws InterruptedException {
     synchronized (nonQueryOperations) {
       if (nonQueryOperations.isEmpty() && (!processQueries || queryOperations.isEmpty())) {
         if (timeout <= 0L) {
@@ -82,6 +99,9 @@ public class OperationQueue {
         }
         waitForOperationAvailable(timeout);
       }
+      if (queriesFirst && processQueries && !queryOperations.isEmpty()) {
+        return queryOperations.removeFirst();
+      }
       if (!nonQueryOperations.isEmpty()) {
         return nonQueryOperations.removeFirst();
       }
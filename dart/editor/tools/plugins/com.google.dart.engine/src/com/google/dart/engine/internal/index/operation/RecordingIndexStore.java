@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.index.operation;
+
+import com.google.common.collect.Lists;
+import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.element.CompilationUnitElement;
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.element.HtmlElement;
+import com.google.dart.engine.index.IndexStore;
+import com.google.dart.engine.index.Location;
+import com.google.dart.engine.index.Relationship;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.SourceContainer;
+
+import java.util.ArrayList;
+
+/**
+ * Instances of the class {@code RecordingIndexStore} record the relationships produced by a
+ * contributor so that they can be added to another {@link IndexStore} later. This allows the AST of
+ * a unit to be visited without holding the lock on the other store, so that several units can be
+ * visited at the same time. All of the other methods are delegated to the other store while holding
+ * its lock.
+ * 
+ * @coverage dart.engine.index
+ */
+class RecordingIndexStore implements IndexStore {
+  /**
+   * The store to which the methods are delegated and in which the relationships will be recorded.
+   */
+  private final IndexStore store;
+
+  /**
+   * The elements that have the recorded relationships.
+   */
+  private final ArrayList<Element> elements = Lists.newArrayList();
+
+  /**
+   * The recorded relationships.
+   */
+  private final ArrayList<Relationship> relationships = Lists.newArrayList();
+
+  /**
+   * The locations of the recorded relationships.
+   */
+  private final ArrayList<Location> locations = Lists.newArrayList();
+
+  /**
+   * Initialize a newly created store to record relationships that will later be recorded in the
+   * given store.
+   * 
+   * @param store the store to which the methods are delegated and in which the relationships will
+   *          be recorded
+   */
+  RecordingIndexStore(IndexStore store) {
+    this.store = store;
+  }
+
+  @Override
+  public boolean aboutToIndexDart(AnalysisContext context, CompilationUnitElement unitElement) {
+    synchronized (store) {
+      return store.aboutToIndexDart(context, unitElement);
+    }
+  }
+
+  @Override
+  public boolean aboutToIndexHtml(AnalysisContext context, HtmlElement htmlElement) {
+    synchronized (store) {
+      return store.aboutToIndexHtml(context, htmlElement);
+    }
+  }
+
+  @Override
+  public void doneIndex() {
+    synchronized (store) {
+      replay();
+      store.doneIndex();
+    }
+  }
+
+  @Override
+  public Location[] getRelationships(Element element, Relationship relationship) {
+    synchronized (store) {
+      return store.getRelationships(element, relationship);
+    }
+  }
+
+  @Override
+  public Location[] getRelationships(Element element, Relationship relationship, String pattern,
+      boolean camelCase) {
+    synchronized (store) {
+      return store.getRelationships(element, relationship, pattern, camelCase);
+    }
+  }
+
+  @Override
+  public String getStatistics() {
+    synchronized (store) {
+      return store.getStatistics();
+    }
+  }
+
+  @Override
+  public void recordRelationship(Element element, Relationship relationship, Location location) {
+    elements.add(element);
+    relationships.add(relationship);
+    locations.add(location);
+  }
+
+  @Override
+  public void removeContext(AnalysisContext context) {
+    synchronized (store) {
+      store.removeContext(context);
+    }
+  }
+
+  @Override
+  public void removeSource(AnalysisContext context, Source source) {
+    synchronized (store) {
+      store.removeSource(context, source);
+    }
+  }
+
+  @Override
+  public void removeSources(AnalysisContext context, SourceContainer container) {
+    synchronized (store) {
+      store.removeSources(context, container);
+    }
+  }
+
+  /**
+   * Record the relationships recorded so far in the other store. The caller must hold the lock on
+   * the other store.
+   */
+  private void replay() {
+    int count = relationships.size();
+    for (int i = 0; i < count; i++) {
+      store.recordRelationship(elements.get(i), relationships.get(i), locations.get(i));
+    }
+    elements.clear();
+    relationships.clear();
+    locations.clear();
+  }
+}
@@ -167,6 +167,7 @@ public class IncrementalResolver {
         typeProvider,
         scope,
         errorListener);
+    visitor.initForIncrementalResolution(node);
     node.accept(visitor);
   }
 
@@ -187,6 +188,7 @@ public class IncrementalResolver {
         typeProvider,
         scope,
         errorListener);
+    visitor.initForIncrementalResolution(node);
     node.accept(visitor);
   }
 }
@@ -14,6 +14,7 @@
 package com.google.dart.engine.internal.resolver;
 
 import com.google.dart.engine.ast.SimpleIdentifier;
+import com.google.dart.engine.context.AnalysisContext;
 import com.google.dart.engine.element.ClassElement;
 import com.google.dart.engine.element.ExecutableElement;
 import com.google.dart.engine.element.LibraryElement;
@@ -24,6 +25,7 @@ import com.google.dart.engine.error.AnalysisError;
 import com.google.dart.engine.error.ErrorCode;
 import com.google.dart.engine.error.StaticTypeWarningCode;
 import com.google.dart.engine.error.StaticWarningCode;
+import com.google.dart.engine.internal.context.InternalAnalysisContext;
 import com.google.dart.engine.internal.element.ExecutableElementImpl;
 import com.google.dart.engine.internal.element.MultiplyInheritedMethodElementImpl;
 import com.google.dart.engine.internal.element.MultiplyInheritedPropertyAccessorElementImpl;
@@ -35,6 +37,7 @@ import com.google.dart.engine.internal.type.FunctionTypeImpl;
 import com.google.dart.engine.internal.verifier.ErrorVerifier;
 import com.google.dart.engine.scanner.StringToken;
 import com.google.dart.engine.scanner.TokenType;
+import com.google.dart.engine.source.Source;
 import com.google.dart.engine.type.FunctionType;
 import com.google.dart.engine.type.InterfaceType;
 import com.google.dart.engine.type.Type;
@@ -218,6 +221,29 @@ public class InheritanceManager {
     return getNumOfParameters(executableElement, ParameterKind.REQUIRED);
   }
 
+  /**
+   * Return the cache of member maps that can be shared by the inheritance manager for the given
+   * library, or {@code null} if the maps computed for the library cannot be shared.
+   * 
+   * @param library the library whose inheritance manager will use the cache
+   * @return the cache of member maps that can be shared
+   * @see MemberMapCache
+   */
+  private static MemberMapCache getSharedCache(LibraryElement library) {
+    if (library == null) {
+      return null;
+    }
+    Source source = library.getSource();
+    if (source == null || source.isInSystemLibrary()) {
+      return null;
+    }
+    AnalysisContext context = library.getContext();
+    if (context instanceof InternalAnalysisContext) {
+      return ((InternalAnalysisContext) context).getMemberMapCache();
+    }
+    return null;
+  }
+
   /**
    * Given some {@link ExecutableElement} returns {@code true} if it is an abstract member of a
    * class.
@@ -257,6 +283,12 @@ public class InheritanceManager {
    */
   private HashMap<ClassElement, HashSet<AnalysisError>> errorsInClassElement = new HashMap<ClassElement, HashSet<AnalysisError>>();
 
+  /**
+   * The cache of the member maps of SDK classes that is shared with the other inheritance managers
+   * using the same SDK, or {@code null} if the maps computed by this manager are not shared.
+   */
+  private MemberMapCache sharedCache;
+
   /**
    * Initialize a newly created inheritance manager.
    * 
@@ -266,6 +298,7 @@ public class InheritanceManager {
     this.library = library;
     classLookup = new HashMap<ClassElement, MemberMap>();
     interfaceLookup = new HashMap<ClassElement, MemberMap>();
+    sharedCache = getSharedCache(library);
   }
 
   /**
@@ -374,6 +407,7 @@ public class InheritanceManager {
    */
   public void setLibraryElement(LibraryElement library) {
     this.library = library;
+    sharedCache = getSharedCache(library);
   }
 
   /**
@@ -428,9 +462,16 @@ public class InheritanceManager {
     MemberMap resultMap = classLookup.get(classElt);
     if (resultMap != null) {
       return resultMap;
-    } else {
-      resultMap = new MemberMap();
     }
+    boolean isShared = isShared(classElt);
+    if (isShared) {
+      resultMap = sharedCache.getClassMap(classElt);
+      if (resultMap != null) {
+        classLookup.put(classElt, resultMap);
+        return resultMap;
+      }
+    }
+    resultMap = new MemberMap();
     ClassElement superclassElt = null;
     InterfaceType supertype = classElt.getSupertype();
     if (supertype != null) {
@@ -438,6 +479,9 @@ public class InheritanceManager {
     } else {
       // classElt is Object
       classLookup.put(classElt, resultMap);
+      if (isShared) {
+        sharedCache.putClassMap(classElt, resultMap);
+      }
       return resultMap;
     }
     if (superclassElt != null) {
@@ -515,6 +559,9 @@ public class InheritanceManager {
     }
 
     classLookup.put(classElt, resultMap);
+    if (isShared) {
+      sharedCache.putClassMap(classElt, resultMap);
+    }
     return resultMap;
   }
 
@@ -602,9 +649,16 @@ public class InheritanceManager {
     MemberMap resultMap = interfaceLookup.get(classElt);
     if (resultMap != null) {
       return resultMap;
-    } else {
-      resultMap = new MemberMap();
     }
+    boolean isShared = isShared(classElt);
+    if (isShared) {
+      resultMap = sharedCache.getInterfaceMap(classElt);
+      if (resultMap != null) {
+        interfaceLookup.put(classElt, resultMap);
+        return resultMap;
+      }
+    }
+    resultMap = new MemberMap();
     InterfaceType supertype = classElt.getSupertype();
     ClassElement superclassElement = supertype != null ? supertype.getElement() : null;
     InterfaceType[] mixins = classElt.getMixins();
@@ -739,6 +793,9 @@ public class InheritanceManager {
     }
     if (lookupMaps.size() == 0) {
       interfaceLookup.put(classElt, resultMap);
+      if (isShared) {
+        sharedCache.putInterfaceMap(classElt, resultMap);
+      }
       return resultMap;
     }
 
@@ -938,9 +995,27 @@ public class InheritanceManager {
       }
     }
     interfaceLookup.put(classElt, resultMap);
+    if (isShared) {
+      sharedCache.putInterfaceMap(classElt, resultMap);
+    }
     return resultMap;
   }
 
+  /**
+   * Return {@code true} if the member maps of the given class are shared with the other inheritance
+   * managers using the same SDK.
+   * 
+   * @param classElt the class element being tested
+   * @return {@code true} if the member maps of the given class are shared
+   */
+  private boolean isShared(ClassElement classElt) {
+    if (sharedCache == null) {
+      return false;
+    }
+    Source source = classElt.getSource();
+    return source != null && source.isInSystemLibrary();
+  }
+
   /**
    * Given some {@link ClassElement}, this method finds and returns the {@link ExecutableElement} of
    * the passed name in the class element. Static members, members in super types and members not
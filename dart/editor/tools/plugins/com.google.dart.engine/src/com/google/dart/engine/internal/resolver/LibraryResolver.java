@@ -53,6 +53,7 @@ import com.google.dart.engine.internal.element.PrefixElementImpl;
 import com.google.dart.engine.internal.element.ShowElementCombinatorImpl;
 import com.google.dart.engine.internal.scope.Namespace;
 import com.google.dart.engine.internal.scope.NamespaceBuilder;
+import com.google.dart.engine.internal.type.TypeRelationCache;
 import com.google.dart.engine.sdk.DartSdk;
 import com.google.dart.engine.source.DartUriResolver;
 import com.google.dart.engine.source.Source;
@@ -251,6 +252,8 @@ public class LibraryResolver {
   public LibraryElement resolveLibrary(Source librarySource, boolean fullAnalysis)
       throws AnalysisException {
     InstrumentationBuilder instrumentation = Instrumentation.builder("dart.engine.LibraryResolver.resolveLibrary");
+    int typeRelationCacheHits = TypeRelationCache.getThreadHitCount();
+    int typeRelationCacheMisses = TypeRelationCache.getThreadMissCount();
     try {
       instrumentation.metric("fullAnalysis", fullAnalysis);
       instrumentation.data("fullName", librarySource.getFullName());
@@ -320,6 +323,13 @@ public class LibraryResolver {
             "librariesInCycles-CompilationUnitSources-Size",
             lib.getCompilationUnitSources().size());
       }
+      // report only the lookups performed by this resolution, in the caches of any library
+      instrumentation.metric(
+          "typeRelationCache-Hits",
+          TypeRelationCache.getThreadHitCount() - typeRelationCacheHits);
+      instrumentation.metric(
+          "typeRelationCache-Misses",
+          TypeRelationCache.getThreadMissCount() - typeRelationCacheMisses);
 
       return targetLibrary.getLibraryElement();
     } finally {
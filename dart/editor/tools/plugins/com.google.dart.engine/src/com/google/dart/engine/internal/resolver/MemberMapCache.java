@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.resolver;
+
+import com.google.dart.engine.element.ClassElement;
+
+import java.util.IdentityHashMap;
+
+/**
+ * Instances of the class {@code MemberMapCache} hold the member maps computed by
+ * {@link InheritanceManager}s so that they can be shared by all of the inheritance managers
+ * created for the libraries that use the same SDK, rather than being computed again for every
+ * library resolution, error verification and hint generation. Each
+ * {@link com.google.dart.engine.internal.cache.SdkCachePartition SdkCachePartition} owns one
+ * cache, so the cache lives exactly as long as the element model of the SDK it describes.
+ * <p>
+ * Only the maps of classes defined in the SDK are cached, and only for inheritance managers whose
+ * library is not itself defined in the SDK. The members of an SDK class that are visible from
+ * such a library are exactly the public members of the class and its supertypes, so the map does
+ * not depend on which of those libraries is asking. That is not true of classes in packages,
+ * whose supertypes can be declared in the library that is asking, so their maps are not cached.
+ * <p>
+ * The maps are keyed by the identity of the class element, so maps for elements that are no
+ * longer in use are never returned. The maps refer to the element model they were computed from,
+ * so the cache is cleared whenever any context invalidates an SDK library or records a new
+ * element model for one, in order to release the old model.
+ * <p>
+ * The maps in this cache are shared and therefore must not be modified. Instances of this class
+ * are thread-safe.
+ * 
+ * @coverage dart.engine.resolver
+ */
+public class MemberMapCache {
+  /**
+   * A table mapping classes to the members they inherit from their superclass and mixin chain.
+   */
+  private IdentityHashMap<ClassElement, MemberMap> classMaps = new IdentityHashMap<ClassElement, MemberMap>();
+
+  /**
+   * A table mapping classes to the members they inherit from their interfaces.
+   */
+  private IdentityHashMap<ClassElement, MemberMap> interfaceMaps = new IdentityHashMap<ClassElement, MemberMap>();
+
+  /**
+   * Initialize a newly created, empty cache.
+   */
+  public MemberMapCache() {
+    super();
+  }
+
+  /**
+   * Remove all of the maps from this cache.
+   */
+  public synchronized void clear() {
+    classMaps.clear();
+    interfaceMaps.clear();
+  }
+
+  /**
+   * Return the map of the members the given class inherits from its superclass and mixin chain,
+   * or {@code null} if the map has not been cached.
+   * 
+   * @param classElement the class whose map is to be returned
+   * @return the map of the members the class inherits from its superclass and mixin chain
+   */
+  public synchronized MemberMap getClassMap(ClassElement classElement) {
+    return classMaps.get(classElement);
+  }
+
+  /**
+   * Return the map of the members the given class inherits from its interfaces, or {@code null} if
+   * the map has not been cached.
+   * 
+   * @param classElement the class whose map is to be returned
+   * @return the map of the members the class inherits from its interfaces
+   */
+  public synchronized MemberMap getInterfaceMap(ClassElement classElement) {
+    return interfaceMaps.get(classElement);
+  }
+
+  /**
+   * Return the number of classes for which at least one map has been cached.
+   * 
+   * @return the number of classes for which at least one map has been cached
+   */
+  public synchronized int getSize() {
+    int size = classMaps.size();
+    for (ClassElement classElement : interfaceMaps.keySet()) {
+      if (!classMaps.containsKey(classElement)) {
+        size++;
+      }
+    }
+    return size;
+  }
+
+  /**
+   * Record the map of the members the given class inherits from its superclass and mixin chain.
+   * 
+   * @param classElement the class whose map is being recorded
+   * @param map the map of the members the class inherits from its superclass and mixin chain
+   */
+  public synchronized void putClassMap(ClassElement classElement, MemberMap map) {
+    classMaps.put(classElement, map);
+  }
+
+  /**
+   * Record the map of the members the given class inherits from its interfaces.
+   * 
+   * @param classElement the class whose map is being recorded
+   * @param map the map of the members the class inherits from its interfaces
+   */
+  public synchronized void putInterfaceMap(ClassElement classElement, MemberMap map) {
+    interfaceMaps.put(classElement, map);
+  }
+}
@@ -223,6 +223,34 @@ public class ResolverVisitor extends ScopedVisitor {
     return promoteManager;
   }
 
+  /**
+   * Prepare this visitor to resolve the given node without first visiting the nodes that enclose it
+   * by recording the class and the executable element that enclose the node.
+   * 
+   * @param node the node that is about to be resolved
+   */
+  public void initForIncrementalResolution(AstNode node) {
+    ClassDeclaration classDeclaration = node.getAncestor(ClassDeclaration.class);
+    if (classDeclaration != null) {
+      enclosingClass = classDeclaration.getElement();
+      typeAnalyzer.setThisType(enclosingClass == null ? null : enclosingClass.getType());
+    }
+    AstNode parent = node;
+    while (parent != null) {
+      if (parent instanceof FunctionExpression) {
+        enclosingFunction = ((FunctionExpression) parent).getElement();
+        return;
+      } else if (parent instanceof MethodDeclaration) {
+        enclosingFunction = ((MethodDeclaration) parent).getElement();
+        return;
+      } else if (parent instanceof ConstructorDeclaration) {
+        enclosingFunction = ((ConstructorDeclaration) parent).getElement();
+        return;
+      }
+      parent = parent.getParent();
+    }
+  }
+
   @Override
   public Void visitAsExpression(AsExpression node) {
     super.visitAsExpression(node);
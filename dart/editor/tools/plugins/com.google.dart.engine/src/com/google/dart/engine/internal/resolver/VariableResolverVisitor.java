@@ -14,6 +14,7 @@
 package com.google.dart.engine.internal.resolver;
 
 import com.google.dart.engine.ast.AstNode;
+import com.google.dart.engine.ast.ClassMember;
 import com.google.dart.engine.ast.ConstructorName;
 import com.google.dart.engine.ast.FunctionDeclaration;
 import com.google.dart.engine.ast.FunctionExpression;
@@ -84,6 +85,29 @@ public class VariableResolverVisitor extends ScopedVisitor {
     super(library, source, typeProvider);
   }
 
+  /**
+   * Prepare this visitor to resolve the given node without first visiting the nodes that enclose it
+   * by recording the function that encloses the node.
+   * 
+   * @param node the node that is about to be resolved
+   */
+  public void initForIncrementalResolution(AstNode node) {
+    AstNode parent = node;
+    while (parent != null) {
+      if (parent instanceof FunctionDeclaration) {
+        enclosingFunction = ((FunctionDeclaration) parent).getElement();
+        return;
+      } else if (parent instanceof FunctionExpression
+          && !(parent.getParent() instanceof FunctionDeclaration)) {
+        enclosingFunction = ((FunctionExpression) parent).getElement();
+        return;
+      } else if (parent instanceof ClassMember) {
+        return;
+      }
+      parent = parent.getParent();
+    }
+  }
+
   @Override
   public Void visitFunctionDeclaration(FunctionDeclaration node) {
     ExecutableElement outerFunction = enclosingFunction;
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.scope;
+
+import com.google.common.collect.Lists;
+import com.google.dart.engine.element.Element;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Instances of the class {@code CandidateTable} hold a list of elements that are candidates for
+ * completion, sorted by their lower-case names, so that the elements whose names start with a given
+ * prefix can be found using a binary search rather than by looking at every element.
+ * <p>
+ * The order of elements with the same lower-case name is the order in which they were given to the
+ * table. The same element can occur more than once in a table.
+ * 
+ * @coverage dart.engine.resolver
+ */
+public class CandidateTable {
+  /**
+   * Return the lower-case name of the given element.
+   */
+  private static String getLowerCaseName(Element element) {
+    String name = element.getDisplayName();
+    return name != null ? name.toLowerCase() : "";
+  }
+
+  /**
+   * The lower-case names of the elements, sorted.
+   */
+  private final String[] names;
+
+  /**
+   * The elements in the table, in the same order as their names.
+   */
+  private final Element[] elements;
+
+  /**
+   * Initialize a newly created table to hold the given elements.
+   * 
+   * @param elements the elements to be held by the table
+   */
+  public CandidateTable(Collection<Element> elements) {
+    int count = elements.size();
+    final String[] lowerCaseNames = new String[count];
+    Element[] unsortedElements = elements.toArray(new Element[count]);
+    Integer[] order = new Integer[count];
+    for (int i = 0; i < count; i++) {
+      lowerCaseNames[i] = getLowerCaseName(unsortedElements[i]);
+      order[i] = i;
+    }
+    // the object sort is stable, so elements with the same name keep their relative order
+    Arrays.sort(order, new Comparator<Integer>() {
+      @Override
+      public int compare(Integer first, Integer second) {
+        return lowerCaseNames[first].compareTo(lowerCaseNames[second]);
+      }
+    });
+    this.names = new String[count];
+    this.elements = new Element[count];
+    for (int i = 0; i < count; i++) {
+      names[i] = lowerCaseNames[order[i]];
+      this.elements[i] = unsortedElements[order[i]];
+    }
+  }
+
+  /**
+   * Return a new list containing the elements in this table whose lower-case names start with the
+   * given prefix, sorted by their names. The list can be modified by the caller.
+   * 
+   * @param prefix the lower-case prefix of the names of the elements to be returned
+   * @return the elements whose names start with the given prefix
+   */
+  public List<Element> getElements(String prefix) {
+    int start = getFirstIndex(prefix);
+    int end = start;
+    while (end < names.length && names[end].startsWith(prefix)) {
+      end++;
+    }
+    return Lists.newArrayList(Arrays.asList(elements).subList(start, end));
+  }
+
+  /**
+   * Return the number of elements in this table.
+   * 
+   * @return the number of elements in this table
+   */
+  public int getSize() {
+    return elements.length;
+  }
+
+  /**
+   * Return the index of the first name that is not less than the given prefix.
+   */
+  private int getFirstIndex(String prefix) {
+    int low = 0;
+    int high = names.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (names[middle].compareTo(prefix) < 0) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.scope;
+
+import com.google.common.collect.Lists;
+import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.element.CompilationUnitElement;
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.element.ExportElement;
+import com.google.dart.engine.element.ImportElement;
+import com.google.dart.engine.element.LibraryElement;
+import com.google.dart.engine.internal.context.InternalAnalysisContext;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Instances of the class {@code CompletionCandidateCache} hold, for the most recently used
+ * libraries, the {@link CandidateTable}s of the top-level elements that are visible in the library
+ * and that are exported from it, so that the import and export namespaces of a library do not need
+ * to be built again for every completion request.
+ * <p>
+ * A table is discarded when either the element of its library, or the element of any library that
+ * the library imports or exports, is no longer the element known to the analysis context. This is
+ * the case when the import set of the library or the public namespace of one of those libraries
+ * has changed, because either change causes the library to be resolved again.
+ * <p>
+ * There is one cache for each analysis context, held by the context (see
+ * {@link InternalAnalysisContext#getCompletionCandidateCache()}), so that the element models held
+ * by the cache are released together with the context.
+ * <p>
+ * Instances of this class are thread-safe.
+ * 
+ * @coverage dart.engine.resolver
+ */
+public class CompletionCandidateCache {
+  /**
+   * Instances of the class {@code Entry} hold the tables computed for a single library element.
+   */
+  private static class Entry {
+    /**
+     * The library whose tables are held by this entry.
+     */
+    private final LibraryElement library;
+
+    /**
+     * The libraries imported or exported by the library at the time this entry was created.
+     */
+    private final LibraryElement[] dependencies;
+
+    /**
+     * The table of the elements declared in or imported into the library, or {@code null} if it
+     * has not yet been computed.
+     */
+    private CandidateTable importTable;
+
+    /**
+     * The table of the elements exported from the library, or {@code null} if it has not yet been
+     * computed.
+     */
+    private CandidateTable exportTable;
+
+    /**
+     * Initialize a newly created entry to hold the tables of the given library.
+     */
+    public Entry(LibraryElement library) {
+      this.library = library;
+      this.dependencies = getDependencies(library);
+    }
+
+    /**
+     * Return {@code true} if the tables of this entry can be used for the given library.
+     */
+    public boolean isValidFor(LibraryElement library) {
+      if (this.library != library) {
+        return false;
+      }
+      for (LibraryElement dependency : dependencies) {
+        if (dependency == null) {
+          continue;
+        }
+        AnalysisContext context = dependency.getContext();
+        if (context != null && context.getLibraryElement(dependency.getSource()) != dependency) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  /**
+   * The maximum number of libraries whose tables are held by the cache.
+   */
+  private static final int MAX_ENTRIES = 64;
+
+  /**
+   * Add the top-level elements declared in the given compilation unit to the given list.
+   */
+  private static void addTopLevelElements(List<Element> elements, CompilationUnitElement unit) {
+    Collections.addAll(elements, unit.getFunctions());
+    Collections.addAll(elements, unit.getFunctionTypeAliases());
+    Collections.addAll(elements, unit.getTypes());
+    Collections.addAll(elements, unit.getTopLevelVariables());
+  }
+
+  /**
+   * Return the libraries imported or exported by the given library.
+   */
+  private static LibraryElement[] getDependencies(LibraryElement library) {
+    List<LibraryElement> dependencies = Lists.newArrayList();
+    for (ImportElement imp : library.getImports()) {
+      dependencies.add(imp.getImportedLibrary());
+    }
+    for (ExportElement exp : library.getExports()) {
+      dependencies.add(exp.getExportedLibrary());
+    }
+    return dependencies.toArray(new LibraryElement[dependencies.size()]);
+  }
+
+  /**
+   * A table mapping libraries to their entries, in least recently used order.
+   */
+  @SuppressWarnings("serial")
+  private final LinkedHashMap<LibraryElement, Entry> entries = new LinkedHashMap<LibraryElement, Entry>(
+      16,
+      0.75f,
+      true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<LibraryElement, Entry> eldest) {
+      return size() > MAX_ENTRIES;
+    }
+  };
+
+  /**
+   * Initialize a newly created, empty cache.
+   */
+  public CompletionCandidateCache() {
+    super();
+  }
+
+  /**
+   * Remove all of the tables from this cache.
+   */
+  public synchronized void clear() {
+    entries.clear();
+  }
+
+  /**
+   * Return the table of the elements exported from the given library.
+   * 
+   * @param library the library whose exported elements are to be returned
+   * @return the table of the elements exported from the library
+   */
+  public synchronized CandidateTable getExportTable(LibraryElement library) {
+    Entry entry = getEntry(library);
+    if (entry.exportTable == null) {
+      Namespace namespace = new NamespaceBuilder().createExportNamespaceForLibrary(library);
+      entry.exportTable = new CandidateTable(namespace.getDefinedNames().values());
+    }
+    return entry.exportTable;
+  }
+
+  /**
+   * Return the table of the elements declared in or imported into the given library.
+   * 
+   * @param library the library whose visible top-level elements are to be returned
+   * @return the table of the elements declared in or imported into the library
+   */
+  public synchronized CandidateTable getImportTable(LibraryElement library) {
+    Entry entry = getEntry(library);
+    if (entry.importTable == null) {
+      List<Element> elements = Lists.newArrayList();
+      addTopLevelElements(elements, library.getDefiningCompilationUnit());
+      for (CompilationUnitElement part : library.getParts()) {
+        addTopLevelElements(elements, part);
+      }
+      NamespaceBuilder builder = new NamespaceBuilder();
+      for (ImportElement imp : library.getImports()) {
+        elements.addAll(builder.createImportNamespaceForDirective(imp).getDefinedNames().values());
+      }
+      entry.importTable = new CandidateTable(elements);
+    }
+    return entry.importTable;
+  }
+
+  /**
+   * Return the number of libraries whose tables are held by this cache.
+   * 
+   * @return the number of libraries whose tables are held by this cache
+   */
+  public synchronized int getSize() {
+    return entries.size();
+  }
+
+  /**
+   * Return a valid entry for the given library, replacing any stale entry.
+   */
+  private Entry getEntry(LibraryElement library) {
+    Entry entry = entries.get(library);
+    if (entry == null || !entry.isValidFor(library)) {
+      // remove first so that the map does not keep a reference to a stale key
+      entries.remove(library);
+      entry = new Entry(library);
+      entries.put(library, entry);
+    }
+    return entry;
+  }
+}
@@ -14,8 +14,8 @@
 package com.google.dart.engine.internal.search;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
-import com.google.common.util.concurrent.Uninterruptibles;
 import com.google.dart.engine.element.ClassElement;
 import com.google.dart.engine.element.CompilationUnitElement;
 import com.google.dart.engine.element.ConstructorElement;
@@ -32,6 +32,7 @@ import com.google.dart.engine.element.PropertyInducingElement;
 import com.google.dart.engine.element.TypeParameterElement;
 import com.google.dart.engine.element.VariableElement;
 import com.google.dart.engine.element.angular.AngularElement;
+import com.google.dart.engine.index.CancellableRelationshipCallback;
 import com.google.dart.engine.index.Index;
 import com.google.dart.engine.index.Location;
 import com.google.dart.engine.index.LocationWithData;
@@ -42,13 +43,18 @@ import com.google.dart.engine.internal.index.IndexConstants;
 import com.google.dart.engine.internal.index.NameElementImpl;
 import com.google.dart.engine.internal.search.listener.CountingSearchListener;
 import com.google.dart.engine.internal.search.listener.FilteredSearchListener;
-import com.google.dart.engine.internal.search.listener.GatheringSearchListener;
 import com.google.dart.engine.internal.search.listener.NameMatchingSearchListener;
+import com.google.dart.engine.internal.search.listener.WrappedSearchListener;
+import com.google.dart.engine.internal.search.pattern.CamelCaseSearchPattern;
+import com.google.dart.engine.internal.search.pattern.ExactSearchPattern;
+import com.google.dart.engine.internal.search.pattern.PrefixSearchPattern;
+import com.google.dart.engine.internal.search.pattern.WildcardSearchPattern;
 import com.google.dart.engine.internal.search.scope.LibrarySearchScope;
 import com.google.dart.engine.search.MatchKind;
 import com.google.dart.engine.search.MatchQuality;
 import com.google.dart.engine.search.SearchEngine;
 import com.google.dart.engine.search.SearchFilter;
+import com.google.dart.engine.search.SearchFuture;
 import com.google.dart.engine.search.SearchListener;
 import com.google.dart.engine.search.SearchMatch;
 import com.google.dart.engine.search.SearchPattern;
@@ -58,8 +64,9 @@ import com.google.dart.engine.utilities.source.SourceRange;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
 
 /**
  * Implementation of {@link SearchEngine}.
@@ -70,9 +77,10 @@ public class SearchEngineImpl implements SearchEngine {
 
   /**
    * Instances of the class <code>RelationshipCallbackImpl</code> implement a callback that can be
-   * used to report results to a search listener.
+   * used to report results to a search listener. The callback is cancelled when the future to which
+   * the listener passes the results has been cancelled.
    */
-  private static class RelationshipCallbackImpl implements RelationshipCallback {
+  private static class RelationshipCallbackImpl implements CancellableRelationshipCallback {
     private final SearchScope scope;
     /**
      * The kind of matches that are represented by the results that will be provided to this
@@ -85,6 +93,12 @@ public class SearchEngineImpl implements SearchEngine {
      */
     private SearchListener listener;
 
+    /**
+     * The future to which the listener passes the results, or {@code null} if the results are not
+     * being passed to a future.
+     */
+    private Future<?> future;
+
     /**
      * Initialize a newly created callback to report matches of the given kind to the given listener
      * when results are found.
@@ -98,6 +112,7 @@ public class SearchEngineImpl implements SearchEngine {
       this.scope = scope;
       this.matchKind = matchKind;
       this.listener = listener;
+      this.future = getFuture(listener);
     }
 
     @Override
@@ -120,6 +135,11 @@ public class SearchEngineImpl implements SearchEngine {
       }
       listener.searchComplete();
     }
+
+    @Override
+    public boolean isCancelled() {
+      return future != null && future.isDone();
+    }
   }
 
   /**
@@ -175,11 +195,81 @@ public class SearchEngineImpl implements SearchEngine {
     return new Element[] {IndexConstants.UNIVERSE};
   }
 
-  private static RelationshipCallback newCallback(MatchKind matchKind, SearchScope scope,
+  /**
+   * Return the future to which the given listener, possibly after filtering, passes the results, or
+   * {@code null} if the results are not being passed to a future.
+   * 
+   * @param listener the listener to which the results are passed
+   * @return the future to which the listener passes the results
+   */
+  private static Future<?> getFuture(SearchListener listener) {
+    while (true) {
+      if (listener instanceof WrappedSearchListener) {
+        listener = ((WrappedSearchListener) listener).getBaseListener();
+      } else if (listener instanceof CountingSearchListener) {
+        listener = ((CountingSearchListener) listener).getWrappedListener();
+      } else if (listener instanceof Future<?>) {
+        return (Future<?>) listener;
+      } else {
+        return null;
+      }
+    }
+  }
+
+  /**
+   * Return the prefix that the names of all of the elements matching the given pattern start with,
+   * ignoring case, or {@code null} if the pattern does not have such a prefix.
+   * 
+   * @param pattern the pattern whose prefix is to be returned
+   * @return the prefix that the names of the matching elements start with
+   */
+  private static String getNamePrefix(SearchPattern pattern) {
+    String prefix = null;
+    if (pattern instanceof ExactSearchPattern) {
+      prefix = ((ExactSearchPattern) pattern).getIdentifier();
+    } else if (pattern instanceof PrefixSearchPattern) {
+      prefix = ((PrefixSearchPattern) pattern).getPrefix();
+    } else if (pattern instanceof WildcardSearchPattern) {
+      prefix = ((WildcardSearchPattern) pattern).getPrefix();
+    }
+    if (prefix == null || prefix.length() == 0) {
+      return null;
+    }
+    return prefix;
+  }
+
+  private static RelationshipCallbackImpl newCallback(MatchKind matchKind, SearchScope scope,
       SearchListener listener) {
     return new RelationshipCallbackImpl(scope, matchKind, listener);
   }
 
+  /**
+   * Wait until the search whose results are being passed to the given future has completed and
+   * return the results that were produced. The wait is not interrupted: if the current thread is
+   * interrupted while waiting, then its interrupt status is restored once the search has completed.
+   * Clients that need to abandon a search should use one of the asynchronous methods with a
+   * {@link SearchFuture} and cancel the future.
+   * 
+   * @param future the future to which the results of the search are being passed
+   * @return the results that were produced
+   */
+  private static List<SearchMatch> waitForResults(SearchFuture future) {
+    boolean interrupted = false;
+    try {
+      while (true) {
+        try {
+          return future.get();
+        } catch (InterruptedException exception) {
+          interrupted = true;
+        }
+      }
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
   /**
    * The index used to respond to the search requests.
    */
@@ -200,12 +290,20 @@ public class SearchEngineImpl implements SearchEngine {
     int numRequests = (setter != null ? 2 : 0) + 2;
     // find locations
     final List<Location> locations = Lists.newArrayList();
-    final CountDownLatch latch = new CountDownLatch(numRequests);
-    class Callback implements RelationshipCallback {
+    final SearchFuture future = new SearchFuture();
+    final SearchListener listener = new CountingSearchListener(numRequests, future);
+    class Callback implements CancellableRelationshipCallback {
       @Override
       public void hasRelationships(Element element, Relationship relationship, Location[] locs) {
-        Collections.addAll(locations, locs);
-        latch.countDown();
+        synchronized (locations) {
+          Collections.addAll(locations, locs);
+        }
+        listener.searchComplete();
+      }
+
+      @Override
+      public boolean isCancelled() {
+        return future.isDone();
       }
     }
     if (setter != null) {
@@ -214,7 +312,7 @@ public class SearchEngineImpl implements SearchEngine {
     }
     index.getRelationships(variable, IndexConstants.IS_REFERENCED_BY, new Callback());
     index.getRelationships(variable, IndexConstants.IS_DEFINED_BY, new Callback());
-    Uninterruptibles.awaitUninterruptibly(latch);
+    waitForResults(future);
     // get types from locations
     Set<Type> types = Sets.newHashSet();
     for (Location location : locations) {
@@ -283,9 +381,10 @@ public class SearchEngineImpl implements SearchEngine {
     listener = applyFilter(filter, listener);
     listener = new CountingSearchListener(elements.length, listener);
     for (Element element : elements) {
-      index.getRelationships(
+      getDeclarations(
           element,
           IndexConstants.DEFINES_FUNCTION,
+          pattern,
           newCallback(MatchKind.FUNCTION_DECLARATION, scope, listener));
     }
   }
@@ -394,6 +493,50 @@ public class SearchEngineImpl implements SearchEngine {
     }
   }
 
+  @Override
+  public Map<ClassElement, List<ClassElement>> searchSubtypeHierarchy(ClassElement type,
+      SearchScope scope) {
+    // find locations
+    final List<Location> locations = Lists.newArrayList();
+    final SearchFuture future = new SearchFuture();
+    final SearchListener listener = new CountingSearchListener(3, future);
+    index.getSubtypes(type, true, new CancellableRelationshipCallback() {
+      @Override
+      public void hasRelationships(Element element, Relationship relationship, Location[] locs) {
+        synchronized (locations) {
+          Collections.addAll(locations, locs);
+        }
+        listener.searchComplete();
+      }
+
+      @Override
+      public boolean isCancelled() {
+        return future.isDone();
+      }
+    });
+    waitForResults(future);
+    // group subtypes by the supertype named in their clauses, keeping equal elements from
+    // different contexts
+    Map<ClassElement, List<ClassElement>> hierarchy = Maps.newHashMap();
+    for (Location location : locations) {
+      Element subtype = location.getElement();
+      if (!(subtype instanceof ClassElement)) {
+        continue;
+      }
+      if (scope != null && !scope.encloses(subtype)) {
+        continue;
+      }
+      Object supertype = ((LocationWithData<?>) location).getData();
+      List<ClassElement> subtypes = hierarchy.get(supertype);
+      if (subtypes == null) {
+        subtypes = Lists.newArrayList();
+        hierarchy.put((ClassElement) supertype, subtypes);
+      }
+      subtypes.add((ClassElement) subtype);
+    }
+    return hierarchy;
+  }
+
   @Override
   public List<SearchMatch> searchSubtypes(final ClassElement type, final SearchScope scope,
       final SearchFilter filter) {
@@ -408,21 +551,53 @@ public class SearchEngineImpl implements SearchEngine {
   @Override
   public void searchSubtypes(ClassElement type, SearchScope scope, SearchFilter filter,
       SearchListener listener) {
+    searchSubtypes(type, false, scope, filter, listener);
+  }
+
+  @Override
+  public List<SearchMatch> searchSubtypes(final ClassElement type, final boolean transitive,
+      final SearchScope scope, final SearchFilter filter) {
+    return gatherResults(new SearchRunner() {
+      @Override
+      public void performSearch(SearchListener listener) {
+        searchSubtypes(type, transitive, scope, filter, listener);
+      }
+    });
+  }
+
+  @Override
+  public void searchSubtypes(ClassElement type, boolean transitive, SearchScope scope,
+      SearchFilter filter, SearchListener listener) {
     assert listener != null;
     listener = applyFilter(filter, listener);
     listener = new CountingSearchListener(3, listener);
-    index.getRelationships(
-        type,
-        IndexConstants.IS_EXTENDED_BY,
-        newCallback(MatchKind.EXTENDS_REFERENCE, scope, listener));
-    index.getRelationships(
-        type,
-        IndexConstants.IS_MIXED_IN_BY,
-        newCallback(MatchKind.WITH_REFERENCE, scope, listener));
-    index.getRelationships(
-        type,
-        IndexConstants.IS_IMPLEMENTED_BY,
-        newCallback(MatchKind.IMPLEMENTS_REFERENCE, scope, listener));
+    final RelationshipCallbackImpl extendsCallback = newCallback(
+        MatchKind.EXTENDS_REFERENCE,
+        scope,
+        listener);
+    final RelationshipCallback withCallback = newCallback(MatchKind.WITH_REFERENCE, scope, listener);
+    final RelationshipCallback implementsCallback = newCallback(
+        MatchKind.IMPLEMENTS_REFERENCE,
+        scope,
+        listener);
+    index.getSubtypes(type, transitive, new CancellableRelationshipCallback() {
+      @Override
+      public void hasRelationships(Element element, Relationship relationship,
+          Location[] locations) {
+        if (relationship == IndexConstants.IS_EXTENDED_BY) {
+          extendsCallback.hasRelationships(element, relationship, locations);
+        } else if (relationship == IndexConstants.IS_MIXED_IN_BY) {
+          withCallback.hasRelationships(element, relationship, locations);
+        } else {
+          implementsCallback.hasRelationships(element, relationship, locations);
+        }
+      }
+
+      @Override
+      public boolean isCancelled() {
+        return extendsCallback.isCancelled();
+      }
+    });
   }
 
   @Override
@@ -445,17 +620,20 @@ public class SearchEngineImpl implements SearchEngine {
     listener = applyFilter(filter, listener);
     listener = new CountingSearchListener(elements.length * 3, listener);
     for (Element element : elements) {
-      index.getRelationships(
+      getDeclarations(
           element,
           IndexConstants.DEFINES_CLASS,
+          pattern,
           newCallback(MatchKind.CLASS_DECLARATION, scope, listener));
-      index.getRelationships(
+      getDeclarations(
           element,
           IndexConstants.DEFINES_CLASS_ALIAS,
+          pattern,
           newCallback(MatchKind.CLASS_ALIAS_DECLARATION, scope, listener));
-      index.getRelationships(
+      getDeclarations(
           element,
           IndexConstants.DEFINES_FUNCTION_TYPE,
+          pattern,
           newCallback(MatchKind.FUNCTION_TYPE_DECLARATION, scope, listener));
     }
   }
@@ -480,9 +658,10 @@ public class SearchEngineImpl implements SearchEngine {
     listener = applyFilter(filter, listener);
     listener = new CountingSearchListener(elements.length, listener);
     for (Element element : elements) {
-      index.getRelationships(
+      getDeclarations(
           element,
           IndexConstants.DEFINES_VARIABLE,
+          pattern,
           newCallback(MatchKind.VARIABLE_DECLARATION, scope, listener));
     }
   }
@@ -492,16 +671,37 @@ public class SearchEngineImpl implements SearchEngine {
    * search has completed and return the results that were produced.
    * 
    * @param runner the runner used to perform an asynchronous search
-   * @return the results that were produced @ if the results of at least one of the searched could
-   *         not be computed
+   * @return the results that were produced
    */
   private List<SearchMatch> gatherResults(SearchRunner runner) {
-    GatheringSearchListener listener = new GatheringSearchListener();
-    runner.performSearch(listener);
-    while (!listener.isComplete()) {
-      Thread.yield();
+    SearchFuture future = new SearchFuture();
+    runner.performSearch(future);
+    return waitForResults(future);
+  }
+
+  /**
+   * Request the locations of the declarations that have the given relationship with the given
+   * element. If the given pattern is one whose matches can be found using the name index, then only
+   * the declarations that might match the pattern are requested, otherwise all of them are.
+   * 
+   * @param element the element that has the relationship with the declarations
+   * @param relationship the relationship between the element and the declarations
+   * @param pattern the pattern that the names of the declarations must match, may be {@code null}
+   * @param callback the callback that will be invoked when the locations are found
+   */
+  private void getDeclarations(Element element, Relationship relationship, SearchPattern pattern,
+      RelationshipCallback callback) {
+    if (pattern instanceof CamelCaseSearchPattern) {
+      String camelCasePattern = ((CamelCaseSearchPattern) pattern).getPattern();
+      index.getRelationships(element, relationship, camelCasePattern, true, callback);
+      return;
+    }
+    String prefix = getNamePrefix(pattern);
+    if (prefix != null) {
+      index.getRelationships(element, relationship, prefix, false, callback);
+      return;
     }
-    return listener.getMatches();
+    index.getRelationships(element, relationship, callback);
   }
 
   private void searchReferences(AngularElement element, SearchScope scope, SearchFilter filter,
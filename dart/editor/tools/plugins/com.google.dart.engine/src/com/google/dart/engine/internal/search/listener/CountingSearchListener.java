@@ -53,6 +53,15 @@ public class CountingSearchListener implements SearchListener {
     }
   }
 
+  /**
+   * Return the listener that will be notified as results are received.
+   * 
+   * @return the listener that will be notified as results are received
+   */
+  public SearchListener getWrappedListener() {
+    return wrappedListener;
+  }
+
   @Override
   public void matchFound(SearchMatch match) {
     wrappedListener.matchFound(match);
@@ -60,8 +69,13 @@ public class CountingSearchListener implements SearchListener {
 
   @Override
   public void searchComplete() {
-    completionCount--;
-    if (completionCount <= 0) {
+    boolean isComplete;
+    // the searches being counted can be completed on different threads
+    synchronized (this) {
+      completionCount--;
+      isComplete = completionCount == 0;
+    }
+    if (isComplete) {
       wrappedListener.searchComplete();
     }
   }
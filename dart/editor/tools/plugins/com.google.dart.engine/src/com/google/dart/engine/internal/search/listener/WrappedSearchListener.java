@@ -37,6 +37,15 @@ public abstract class WrappedSearchListener implements SearchListener {
     baseListener = listener;
   }
 
+  /**
+   * Return the listener being wrapped.
+   * 
+   * @return the listener being wrapped
+   */
+  public SearchListener getBaseListener() {
+    return baseListener;
+  }
+
   @Override
   public void searchComplete() {
     baseListener.searchComplete();
@@ -50,6 +50,15 @@ public class CamelCaseSearchPattern implements SearchPattern {
     this.samePartCount = samePartCount;
   }
 
+  /**
+   * Return the pattern that matching elements must match.
+   * 
+   * @return the pattern that matching elements must match
+   */
+  public String getPattern() {
+    return new String(pattern);
+  }
+
   @Override
   public MatchQuality matches(Element element) {
     String name = element.getDisplayName();
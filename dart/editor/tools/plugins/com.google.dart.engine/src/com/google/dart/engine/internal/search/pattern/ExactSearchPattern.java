@@ -46,6 +46,15 @@ public class ExactSearchPattern implements SearchPattern {
     this.caseSensitive = caseSensitive;
   }
 
+  /**
+   * Return the identifier that the names of matching elements must be equal to.
+   * 
+   * @return the identifier that the names of matching elements must be equal to
+   */
+  public String getIdentifier() {
+    return identifier;
+  }
+
   @Override
   public MatchQuality matches(Element element) {
     String name = element.getDisplayName();
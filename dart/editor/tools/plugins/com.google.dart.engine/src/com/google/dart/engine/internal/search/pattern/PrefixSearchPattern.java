@@ -49,6 +49,15 @@ public class PrefixSearchPattern implements SearchPattern {
     this.caseSensitive = caseSensitive;
   }
 
+  /**
+   * Return the prefix that the names of matching elements must start with.
+   * 
+   * @return the prefix that the names of matching elements must start with
+   */
+  public String getPrefix() {
+    return prefix;
+  }
+
   @Override
   public MatchQuality matches(Element element) {
     if (element == null) {
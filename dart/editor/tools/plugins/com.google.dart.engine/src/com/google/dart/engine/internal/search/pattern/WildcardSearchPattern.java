@@ -49,6 +49,20 @@ public class WildcardSearchPattern implements SearchPattern {
     this.caseSensitive = caseSensitive;
   }
 
+  /**
+   * Return the part of the pattern that precedes its first wild-card character, which the names of
+   * matching elements must start with.
+   * 
+   * @return the prefix that the names of matching elements must start with
+   */
+  public String getPrefix() {
+    int length = 0;
+    while (length < pattern.length && pattern[length] != '*' && pattern[length] != '?') {
+      length++;
+    }
+    return new String(pattern, 0, length);
+  }
+
   @Override
   public MatchQuality matches(Element element) {
     if (element == null) {
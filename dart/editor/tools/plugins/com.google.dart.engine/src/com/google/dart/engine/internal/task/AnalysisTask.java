@@ -69,14 +69,7 @@ public abstract class AnalysisTask {
    * @throws AnalysisException if the visitor throws the exception
    */
   public <E> E perform(AnalysisTaskVisitor<E> visitor) throws AnalysisException {
-    try {
-      safelyPerform();
-    } catch (AnalysisException exception) {
-      thrownException = exception;
-      AnalysisEngine.getInstance().getLogger().logInformation(
-          "Task failed: " + getTaskDescription(),
-          exception);
-    }
+    performWithoutVisiting();
     return accept(visitor);
   }
 
@@ -108,6 +101,22 @@ public abstract class AnalysisTask {
    */
   protected abstract void internalPerform() throws AnalysisException;
 
+  /**
+   * Perform this analysis task without visiting it, remembering any exception that was thrown so
+   * that it can be returned by {@link #getException()}. This is used by tasks that perform other
+   * tasks on their behalf.
+   */
+  void performWithoutVisiting() {
+    try {
+      safelyPerform();
+    } catch (AnalysisException exception) {
+      thrownException = exception;
+      AnalysisEngine.getInstance().getLogger().logInformation(
+          "Task failed: " + getTaskDescription(),
+          exception);
+    }
+  }
+
   /**
    * Perform this analysis task, ensuring that all exceptions are wrapped in an
    * {@link AnalysisException}.
@@ -67,6 +67,15 @@ public interface AnalysisTaskVisitor<E> {
   public E visitIncrementalAnalysisTask(IncrementalAnalysisTask incrementalAnalysisTask)
       throws AnalysisException;
 
+  /**
+   * Visit a {@link ParseDartSourcesTask}.
+   * 
+   * @param task the task to be visited
+   * @return the result of visiting the task
+   * @throws AnalysisException if the visitor throws an exception for some reason
+   */
+  public E visitParseDartSourcesTask(ParseDartSourcesTask task) throws AnalysisException;
+
   /**
    * Visit a {@link ParseDartTask}.
    * 
@@ -133,6 +142,16 @@ public interface AnalysisTaskVisitor<E> {
   public E visitResolveDartLibraryCycleTask(ResolveDartLibraryCycleTask task)
       throws AnalysisException;
 
+  /**
+   * Visit a {@link ResolveDartLibraryCyclesTask}.
+   * 
+   * @param task the task to be visited
+   * @return the result of visiting the task
+   * @throws AnalysisException if the visitor throws an exception for some reason
+   */
+  public E visitResolveDartLibraryCyclesTask(ResolveDartLibraryCyclesTask task)
+      throws AnalysisException;
+
   /**
    * Visit a {@link ResolveDartLibraryTask}.
    * 
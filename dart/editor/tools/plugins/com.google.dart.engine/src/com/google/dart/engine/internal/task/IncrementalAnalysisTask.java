@@ -13,26 +13,94 @@
  */
 package com.google.dart.engine.internal.task;
 
+import com.google.dart.engine.ast.AstNode;
+import com.google.dart.engine.ast.Block;
+import com.google.dart.engine.ast.BlockFunctionBody;
+import com.google.dart.engine.ast.ClassDeclaration;
 import com.google.dart.engine.ast.CompilationUnit;
+import com.google.dart.engine.ast.Declaration;
+import com.google.dart.engine.ast.FunctionDeclaration;
+import com.google.dart.engine.ast.MethodDeclaration;
 import com.google.dart.engine.context.AnalysisException;
+import com.google.dart.engine.element.ClassElement;
 import com.google.dart.engine.element.CompilationUnitElement;
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.element.ExecutableElement;
+import com.google.dart.engine.element.FunctionElement;
+import com.google.dart.engine.element.LabelElement;
 import com.google.dart.engine.element.LibraryElement;
+import com.google.dart.engine.element.LocalVariableElement;
+import com.google.dart.engine.element.visitor.GeneralizingElementVisitor;
+import com.google.dart.engine.error.AnalysisError;
 import com.google.dart.engine.error.AnalysisErrorListener;
 import com.google.dart.engine.error.BooleanErrorListener;
+import com.google.dart.engine.error.HintCode;
+import com.google.dart.engine.internal.builder.ElementBuilder;
+import com.google.dart.engine.internal.builder.ElementHolder;
+import com.google.dart.engine.internal.cache.DartEntry;
+import com.google.dart.engine.internal.cache.DataDescriptor;
 import com.google.dart.engine.internal.context.IncrementalAnalysisCache;
 import com.google.dart.engine.internal.context.InternalAnalysisContext;
+import com.google.dart.engine.internal.context.RecordingErrorListener;
+import com.google.dart.engine.internal.context.ResolutionEraser;
+import com.google.dart.engine.internal.element.ElementImpl;
+import com.google.dart.engine.internal.element.ExecutableElementImpl;
+import com.google.dart.engine.internal.element.FunctionElementImpl;
+import com.google.dart.engine.internal.element.LocalVariableElementImpl;
+import com.google.dart.engine.internal.element.ParameterElementImpl;
+import com.google.dart.engine.internal.error.ErrorReporter;
+import com.google.dart.engine.internal.hint.HintGenerator;
 import com.google.dart.engine.internal.resolver.IncrementalResolver;
+import com.google.dart.engine.internal.resolver.InheritanceManager;
 import com.google.dart.engine.internal.resolver.TypeProvider;
+import com.google.dart.engine.internal.verifier.ConstantVerifier;
+import com.google.dart.engine.internal.verifier.ErrorVerifier;
 import com.google.dart.engine.parser.IncrementalParser;
 import com.google.dart.engine.scanner.CharSequenceReader;
 import com.google.dart.engine.scanner.CharacterReader;
 import com.google.dart.engine.scanner.IncrementalScanner;
+import com.google.dart.engine.scanner.Keyword;
+import com.google.dart.engine.scanner.KeywordToken;
+import com.google.dart.engine.scanner.Token;
 import com.google.dart.engine.source.Source;
+import com.google.dart.engine.utilities.collection.IntList;
+import com.google.dart.engine.utilities.source.LineInfo;
+import com.google.dart.engine.utilities.source.SourceRange;
+
+import java.util.ArrayList;
 
 /**
  * Instances of the class {@code IncrementalAnalysisTask} incrementally update existing analysis.
+ * <p>
+ * When the cache records a change that is contained within the body of a single method or
+ * top-level function, only that body is scanned, parsed, resolved and verified again, and the
+ * errors associated with the rest of the compilation unit are moved rather than recomputed. See
+ * {@link #updateErrors(DataDescriptor, AnalysisError[])}. The element model is not changed until
+ * the results have been accepted, see {@link #updateElements()}.
  */
 public class IncrementalAnalysisTask extends AnalysisTask {
+  /**
+   * Return {@code true} if the given error is reported outside of a function body, but depends only
+   * on the contents of the body, in which case it is treated as if it were located in the body.
+   * 
+   * @param error the error being tested
+   * @return {@code true} if the error depends only on the contents of a function body
+   */
+  private static boolean isBodyDependent(AnalysisError error) {
+    return error.getErrorCode() == HintCode.MISSING_RETURN;
+  }
+
+  /**
+   * Return {@code true} if the given error depends on the uses of the imports in every compilation
+   * unit of the library, in which case it can change whenever any function body is modified.
+   * 
+   * @param error the error being tested
+   * @return {@code true} if the error depends on the contents of the whole library
+   */
+  private static boolean isLibraryDependent(AnalysisError error) {
+    return error.getErrorCode() == HintCode.DUPLICATE_IMPORT
+        || error.getErrorCode() == HintCode.UNUSED_IMPORT;
+  }
 
   /**
    * The information used to perform incremental analysis.
@@ -44,6 +112,76 @@ public class IncrementalAnalysisTask extends AnalysisTask {
    */
   private CompilationUnit updatedUnit;
 
+  /**
+   * The range of the function body that was analyzed again, in the coordinates of the updated
+   * contents, or {@code null} if a function body was not updated.
+   */
+  private SourceRange bodyRange;
+
+  /**
+   * The range of the declaration containing the function body that was analyzed again, in the
+   * coordinates of the updated contents, or {@code null} if a function body was not updated.
+   */
+  private SourceRange declarationRange;
+
+  /**
+   * The element whose body was analyzed again, or {@code null} if a function body was not updated
+   * or if the element model has already been updated.
+   */
+  private ExecutableElementImpl updatedElement;
+
+  /**
+   * The functions defined in the updated function body.
+   */
+  private FunctionElement[] functions;
+
+  /**
+   * The labels defined in the updated function body.
+   */
+  private LabelElement[] labels;
+
+  /**
+   * The local variables defined in the updated function body.
+   */
+  private LocalVariableElement[] localVariables;
+
+  /**
+   * The offset, in the original contents, of the end of the function body that was analyzed again.
+   */
+  private int oldBodyEnd;
+
+  /**
+   * The line information computed for the updated contents, or {@code null} if a function body was
+   * not updated.
+   */
+  private LineInfo lineInfo;
+
+  /**
+   * The syntactic errors that were found in the updated function body.
+   */
+  private AnalysisError[] parseErrors = AnalysisError.NO_ERRORS;
+
+  /**
+   * The resolution errors that were found in the updated function body.
+   */
+  private AnalysisError[] resolutionErrors = AnalysisError.NO_ERRORS;
+
+  /**
+   * The verification errors that were found in the updated function body.
+   */
+  private AnalysisError[] verificationErrors = AnalysisError.NO_ERRORS;
+
+  /**
+   * The hints that were generated for the updated function body.
+   */
+  private AnalysisError[] hints = AnalysisError.NO_ERRORS;
+
+  /**
+   * The hints that depend on the whole library, or {@code null} if they were not generated again
+   * because the library contains more than one compilation unit.
+   */
+  private AnalysisError[] libraryHints = null;
+
   /**
    * Initialize a newly created task to perform analysis within the given context.
    * 
@@ -80,6 +218,16 @@ public class IncrementalAnalysisTask extends AnalysisTask {
     return updatedUnit;
   }
 
+  /**
+   * Return the line information for the updated contents, or {@code null} if the task has not
+   * updated a function body.
+   * 
+   * @return the line information for the updated contents
+   */
+  public LineInfo getLineInfo() {
+    return lineInfo;
+  }
+
   /**
    * Return the source that is to be incrementally analyzed.
    * 
@@ -89,6 +237,107 @@ public class IncrementalAnalysisTask extends AnalysisTask {
     return cache != null ? cache.getSource() : null;
   }
 
+  /**
+   * Return {@code true} if the task updated the analysis of a single function body, in which case
+   * the errors associated with the source can be updated using
+   * {@link #updateErrors(DataDescriptor, AnalysisError[])} rather than being recomputed.
+   * 
+   * @return {@code true} if the task updated the analysis of a single function body
+   */
+  public boolean isBodyUpdated() {
+    return bodyRange != null;
+  }
+
+  /**
+   * Return {@code true} if the hints that depend on the whole library, such as unused imports, were
+   * generated again, in which case the hints associated with the source can be updated using
+   * {@link #updateErrors(DataDescriptor, AnalysisError[])}. Otherwise the hints for the library
+   * need to be generated again.
+   * 
+   * @return {@code true} if the hints that depend on the whole library were generated again
+   */
+  public boolean isLibraryHintsUpdated() {
+    return libraryHints != null;
+  }
+
+  /**
+   * Update the element model to match the updated function body: the elements that follow the body
+   * are moved and the elements defined in the original body are replaced by the elements defined in
+   * the updated body. This method must only be invoked once the results of this task have been
+   * accepted; it has no effect if the task did not update a function body or has already been
+   * invoked.
+   */
+  public void updateElements() {
+    if (updatedElement == null) {
+      return;
+    }
+    moveElements(
+        updatedElement.getAncestor(CompilationUnitElement.class),
+        oldBodyEnd,
+        cache.getNewLength() - cache.getOldLength());
+    updatedElement.setFunctions(functions);
+    updatedElement.setLabels(labels);
+    updatedElement.setLocalVariables(localVariables);
+    updatedElement = null;
+  }
+
+  /**
+   * Return the errors of the kind described by the given descriptor that are associated with the
+   * updated contents, given the errors of that kind that were associated with the original
+   * contents. Errors within the function body that was analyzed again, and errors elsewhere in its
+   * declaration that depend only on the body, are replaced by the errors that were found when
+   * analyzing it, and errors following the body are moved to account for the change in the length
+   * of the body. Hints that depend on the whole library are replaced by the hints that were
+   * generated again, if any.
+   * 
+   * @param descriptor the descriptor of the kind of errors being updated
+   * @param oldErrors the errors associated with the original contents
+   * @return the errors associated with the updated contents
+   */
+  public AnalysisError[] updateErrors(DataDescriptor<AnalysisError[]> descriptor,
+      AnalysisError[] oldErrors) {
+    AnalysisError[] newErrors = AnalysisError.NO_ERRORS;
+    boolean replaceLibraryHints = false;
+    if (descriptor == DartEntry.PARSE_ERRORS) {
+      newErrors = parseErrors;
+    } else if (descriptor == DartEntry.RESOLUTION_ERRORS) {
+      newErrors = resolutionErrors;
+    } else if (descriptor == DartEntry.VERIFICATION_ERRORS) {
+      newErrors = verificationErrors;
+    } else if (descriptor == DartEntry.HINTS) {
+      newErrors = hints;
+      replaceLibraryHints = libraryHints != null;
+    }
+    int delta = cache.getNewLength() - cache.getOldLength();
+    int start = bodyRange.getOffset();
+    int oldEnd = bodyRange.getEnd() - delta;
+    int declarationStart = declarationRange.getOffset();
+    int oldDeclarationEnd = declarationRange.getEnd() - delta;
+    ArrayList<AnalysisError> errors = new ArrayList<AnalysisError>(oldErrors.length
+        + newErrors.length);
+    for (AnalysisError error : oldErrors) {
+      int offset = error.getOffset();
+      if (offset >= declarationStart && offset < oldDeclarationEnd && isBodyDependent(error)) {
+        continue;
+      } else if (replaceLibraryHints && isLibraryDependent(error)) {
+        continue;
+      } else if (offset < start) {
+        errors.add(error);
+      } else if (offset >= oldEnd) {
+        errors.add(error.createMovedCopy(delta));
+      }
+    }
+    for (AnalysisError error : newErrors) {
+      errors.add(error);
+    }
+    if (replaceLibraryHints) {
+      for (AnalysisError error : libraryHints) {
+        errors.add(error);
+      }
+    }
+    return errors.toArray(new AnalysisError[errors.size()]);
+  }
+
   @Override
   protected String getTaskDescription() {
     return "incremental analysis " + (cache != null ? cache.getSource() : "null");
@@ -99,6 +348,13 @@ public class IncrementalAnalysisTask extends AnalysisTask {
     if (cache == null) {
       return;
     }
+    if (cache.isBodyChange()) {
+      TypeProvider typeProvider = getTypeProvider();
+      if (typeProvider != null) {
+        updateBody(typeProvider);
+      }
+      return;
+    }
 
     // Only handle small changes
     if (cache.getOldLength() > 0 || cache.getNewLength() > 30) {
@@ -148,6 +404,71 @@ public class IncrementalAnalysisTask extends AnalysisTask {
     }
   }
 
+  /**
+   * Return the line information for the given contents. The line starts are computed in the same
+   * way as the scanner computes them.
+   * 
+   * @param contents the contents for which line information is to be computed
+   * @return the line information for the given contents
+   */
+  private LineInfo computeLineInfo(String contents) {
+    IntList lineStarts = new IntList(1024);
+    lineStarts.add(0);
+    int length = contents.length();
+    for (int i = 0; i < length; i++) {
+      char c = contents.charAt(i);
+      if (c == '\r') {
+        if (i + 1 < length && contents.charAt(i + 1) == '\n') {
+          i++;
+        }
+        lineStarts.add(i + 1);
+      } else if (c == '\n') {
+        lineStarts.add(i + 1);
+      }
+    }
+    return new LineInfo(lineStarts.toArray());
+  }
+
+  /**
+   * Return {@code true} if any of the tokens of the given block is the given keyword.
+   * 
+   * @param block the block whose tokens are to be searched
+   * @param keyword the keyword being searched for
+   * @return {@code true} if the block contains the given keyword
+   */
+  private boolean containsKeyword(Block block, Keyword keyword) {
+    Token token = block.getLeftBracket();
+    Token endToken = block.getRightBracket();
+    while (token != endToken && token.getNext() != token) {
+      if (token instanceof KeywordToken && ((KeywordToken) token).getKeyword() == keyword) {
+        return true;
+      }
+      token = token.getNext();
+    }
+    return false;
+  }
+
+  /**
+   * Return only those of the given errors that are located within the updated function body, or
+   * that are located elsewhere in its declaration but depend only on the body.
+   * 
+   * @param errors the errors to be filtered
+   * @return the errors located within the updated function body
+   */
+  private AnalysisError[] errorsInBody(AnalysisError[] errors) {
+    ArrayList<AnalysisError> result = new ArrayList<AnalysisError>(errors.length);
+    for (AnalysisError error : errors) {
+      int offset = error.getOffset();
+      if (offset >= bodyRange.getOffset() && offset < bodyRange.getEnd()) {
+        result.add(error);
+      } else if (offset >= declarationRange.getOffset() && offset < declarationRange.getEnd()
+          && isBodyDependent(error)) {
+        result.add(error);
+      }
+    }
+    return result.toArray(new AnalysisError[result.size()]);
+  }
+
   /**
    * Return the type provider used for incremental resolution.
    * 
@@ -160,4 +481,208 @@ public class IncrementalAnalysisTask extends AnalysisTask {
       return null;
     }
   }
+
+  /**
+   * Move the elements in the given compilation unit that follow the given offset by the given
+   * number of characters, and extend the visible ranges that span the given offset.
+   * 
+   * @param unitElement the compilation unit whose elements are to be moved
+   * @param offset the offset in the original contents of the end of the changed function body
+   * @param delta the number of characters by which the elements are to be moved
+   */
+  private void moveElements(CompilationUnitElement unitElement, final int offset, final int delta) {
+    unitElement.accept(new GeneralizingElementVisitor<Void>() {
+      @Override
+      public Void visitElement(Element element) {
+        if (element instanceof ElementImpl) {
+          ElementImpl elementImpl = (ElementImpl) element;
+          if (elementImpl.getNameOffset() >= offset) {
+            elementImpl.setNameOffset(elementImpl.getNameOffset() + delta);
+          }
+        }
+        if (element instanceof FunctionElementImpl) {
+          FunctionElementImpl function = (FunctionElementImpl) element;
+          SourceRange range = moveRange(function.getVisibleRange(), offset, delta);
+          if (range != null) {
+            function.setVisibleRange(range.getOffset(), range.getLength());
+          }
+        } else if (element instanceof LocalVariableElementImpl) {
+          LocalVariableElementImpl variable = (LocalVariableElementImpl) element;
+          SourceRange range = moveRange(variable.getVisibleRange(), offset, delta);
+          if (range != null) {
+            variable.setVisibleRange(range.getOffset(), range.getLength());
+          }
+        } else if (element instanceof ParameterElementImpl) {
+          ParameterElementImpl parameter = (ParameterElementImpl) element;
+          SourceRange range = moveRange(parameter.getVisibleRange(), offset, delta);
+          if (range != null) {
+            parameter.setVisibleRange(range.getOffset(), range.getLength());
+          }
+          range = moveRange(parameter.getDefaultValueRange(), offset, delta);
+          if (range != null) {
+            parameter.setDefaultValueRange(range.getOffset(), range.getLength());
+          }
+        }
+        return super.visitElement(element);
+      }
+    });
+  }
+
+  /**
+   * Return the range that results from moving the given range, or {@code null} if the range does
+   * not need to be changed. Ranges that start at or after the given offset are moved by the given
+   * number of characters and ranges that span the given offset are extended by that number.
+   * 
+   * @param range the range to be moved
+   * @param offset the offset in the original contents of the end of the changed function body
+   * @param delta the number of characters by which the range is to be moved
+   * @return the moved range
+   */
+  private SourceRange moveRange(SourceRange range, int offset, int delta) {
+    if (range == null) {
+      return null;
+    } else if (range.getOffset() >= offset) {
+      return range.getTranslated(delta);
+    } else if (range.getEnd() >= offset) {
+      return range.getMoveEnd(delta);
+    }
+    return null;
+  }
+
+  /**
+   * Analyze the function body containing the change recorded in the cache again, leaving the rest
+   * of the compilation unit unchanged. If the body cannot be updated in isolation, then the task
+   * completes without producing an updated compilation unit. The elements of the new body are
+   * built, but the element model is not changed until {@link #updateElements()} is invoked.
+   * 
+   * @param typeProvider the type provider used to resolve the updated body
+   * @throws AnalysisException if the updated body could not be resolved
+   */
+  private void updateBody(TypeProvider typeProvider) throws AnalysisException {
+    Source source = cache.getSource();
+    CompilationUnit oldUnit = cache.getResolvedUnit();
+    BlockFunctionBody oldBody = cache.getEnclosingBody();
+    CompilationUnitElement unitElement = oldUnit.getElement();
+    if (oldBody == null || unitElement == null || unitElement.getLibrary() == null) {
+      return;
+    }
+    LibraryElement library = unitElement.getLibrary();
+    //
+    // Produce an updated token stream.
+    //
+    BooleanErrorListener scanListener = new BooleanErrorListener();
+    IncrementalScanner scanner = new IncrementalScanner(source, new CharSequenceReader(
+        cache.getNewContents()), scanListener);
+    scanner.rescan(
+        oldUnit.getBeginToken(),
+        cache.getOffset(),
+        cache.getOldLength(),
+        cache.getNewLength());
+    if (scanListener.getErrorReported()) {
+      return;
+    }
+    //
+    // Parse the block of the body again.
+    //
+    Block oldBlock = oldBody.getBlock();
+    RecordingErrorListener parseListener = new RecordingErrorListener();
+    IncrementalParser parser = new IncrementalParser(source, scanner.getTokenMap(), parseListener);
+    CompilationUnit unit = parser.reparse(
+        oldUnit,
+        scanner.getLeftToken(),
+        scanner.getRightToken(),
+        oldBlock.getOffset(),
+        oldBlock.getEnd());
+    AstNode updatedNode = parser.getUpdatedNode();
+    if (unit == null || !(updatedNode instanceof Block)
+        || !(updatedNode.getParent() instanceof BlockFunctionBody)) {
+      return;
+    }
+    Block block = (Block) updatedNode;
+    BlockFunctionBody body = (BlockFunctionBody) block.getParent();
+    Declaration declaration = body.getAncestor(Declaration.class);
+    if (!(declaration instanceof MethodDeclaration || declaration instanceof FunctionDeclaration)) {
+      return;
+    }
+    ExecutableElement element = (ExecutableElement) declaration.getElement();
+    if (!(element instanceof ExecutableElementImpl)) {
+      return;
+    }
+    //
+    // Constant values are computed for the whole library, and whether a class can be used as a
+    // mixin depends on the bodies of its methods, so bodies that could change either fall back to
+    // a full analysis.
+    //
+    ClassDeclaration classDeclaration = declaration.getAncestor(ClassDeclaration.class);
+    if (containsKeyword(block, Keyword.CONST)) {
+      return;
+    } else if (classDeclaration != null
+        && containsKeyword(block, Keyword.SUPER) != containsKeyword(oldBlock, Keyword.SUPER)) {
+      return;
+    }
+    ClassElement classElement = classDeclaration == null ? null : classDeclaration.getElement();
+    //
+    // Build the elements defined in the new body. They are enclosed by the element of the body, so
+    // that the body can be resolved, but do not replace the elements of the original body yet.
+    //
+    body.accept(new ResolutionEraser());
+    ElementHolder holder = new ElementHolder();
+    new ElementBuilder(holder).buildElementsInBody(body, classElement);
+    ExecutableElementImpl executable = (ExecutableElementImpl) element;
+    FunctionElement[] newFunctions = holder.getFunctions();
+    LabelElement[] newLabels = holder.getLabels();
+    LocalVariableElement[] newLocalVariables = holder.getLocalVariables();
+    holder.validate();
+    executable.encloseBodyElements(newFunctions, newLabels, newLocalVariables);
+    //
+    // Resolve and verify the new body.
+    //
+    bodyRange = new SourceRange(block.getOffset(), block.getLength());
+    declarationRange = new SourceRange(declaration.getOffset(), declaration.getLength());
+    RecordingErrorListener resolutionListener = new RecordingErrorListener();
+    IncrementalResolver resolver = new IncrementalResolver(
+        library,
+        source,
+        typeProvider,
+        resolutionListener);
+    resolver.resolve(body);
+    RecordingErrorListener verificationListener = new RecordingErrorListener();
+    ErrorReporter errorReporter = new ErrorReporter(verificationListener, source);
+    declaration.accept(new ConstantVerifier(errorReporter, typeProvider));
+    ErrorVerifier errorVerifier = new ErrorVerifier(
+        errorReporter,
+        library,
+        typeProvider,
+        new InheritanceManager(library));
+    errorVerifier.verifyDeclaration(declaration);
+    if (getContext().getAnalysisOptions().getHint()) {
+      RecordingErrorListener hintListener = new RecordingErrorListener();
+      HintGenerator hintGenerator = new HintGenerator(
+          new CompilationUnit[] {unit},
+          getContext(),
+          hintListener);
+      hintGenerator.generateForDeclaration(declaration, source);
+      hints = errorsInBody(hintListener.getErrorsForSource(source));
+      if (library.getParts().length == 0) {
+        // the unit is the whole library, so the hints that depend on the library can be generated
+        RecordingErrorListener libraryHintListener = new RecordingErrorListener();
+        new HintGenerator(
+            new CompilationUnit[] {unit},
+            getContext(),
+            libraryHintListener).generateImportHints();
+        libraryHints = libraryHintListener.getErrorsForSource(source);
+      }
+    }
+    parseErrors = errorsInBody(parseListener.getErrorsForSource(source));
+    resolutionErrors = errorsInBody(resolutionListener.getErrorsForSource(source));
+    verificationErrors = errorsInBody(verificationListener.getErrorsForSource(source));
+    lineInfo = computeLineInfo(cache.getNewContents());
+    unit.setLineInfo(lineInfo);
+    updatedUnit = unit;
+    updatedElement = executable;
+    functions = newFunctions;
+    labels = newLabels;
+    localVariables = newLocalVariables;
+    oldBodyEnd = oldBlock.getEnd();
+  }
 }
@@ -0,0 +1,243 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.task;
+
+import com.google.dart.engine.AnalysisEngine;
+import com.google.dart.engine.context.AnalysisException;
+import com.google.dart.engine.internal.context.InternalAnalysisContext;
+import com.google.dart.engine.internal.context.PerformanceStatistics;
+import com.google.dart.engine.utilities.general.TimeCounter.TimeCounterHandle;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+
+/**
+ * Instances of the class {@code ParseDartSourcesTask} get the contents of, scan and parse several
+ * Dart sources concurrently. The work for each source starts with a {@link GetContentTask}, a
+ * {@link ScanDartTask} or a {@link ParseDartTask}, and continues with the tasks that follow it
+ * until the source has been parsed or one of the tasks fails. The results of the individual tasks
+ * are not recorded by this task; they are available from {@link #getPerformedTasks()}. If the task
+ * is interrupted or fails, the tasks of the sources that were not processed are available from
+ * {@link #getUnprocessedTasks()}, so that the state of those sources can be reset.
+ */
+public class ParseDartSourcesTask extends AnalysisTask {
+  /**
+   * The tasks with which the work for each of the sources is to start.
+   */
+  private List<AnalysisTask> sourceTasks;
+
+  /**
+   * The maximum number of threads used to process sources.
+   */
+  private int threadCount;
+
+  /**
+   * The tasks that were performed, grouped by source in the same order as {@link #sourceTasks}.
+   */
+  private ArrayList<AnalysisTask> performedTasks = new ArrayList<AnalysisTask>();
+
+  /**
+   * The tasks with which the work for the sources that were not processed was to start.
+   */
+  private ArrayList<AnalysisTask> unprocessedTasks = new ArrayList<AnalysisTask>();
+
+  /**
+   * Initialize a newly created task to perform analysis within the given context.
+   * 
+   * @param context the context in which the task is to be performed
+   * @param sourceTasks the tasks with which the work for each of the sources is to start
+   * @param threadCount the maximum number of threads used to process sources
+   */
+  public ParseDartSourcesTask(InternalAnalysisContext context, List<AnalysisTask> sourceTasks,
+      int threadCount) {
+    super(context);
+    this.sourceTasks = sourceTasks;
+    this.threadCount = threadCount;
+  }
+
+  @Override
+  public <E> E accept(AnalysisTaskVisitor<E> visitor) throws AnalysisException {
+    return visitor.visitParseDartSourcesTask(this);
+  }
+
+  /**
+   * Return the tasks that were performed. The tasks for each source are adjacent and are in the
+   * order in which they were performed, so that the results of each task can be recorded before
+   * the results of the task that consumed them.
+   * 
+   * @return the tasks that were performed
+   */
+  public List<AnalysisTask> getPerformedTasks() {
+    return performedTasks;
+  }
+
+  /**
+   * Return the tasks with which the work for each of the sources is to start.
+   * 
+   * @return the tasks with which the work for each of the sources is to start
+   */
+  public List<AnalysisTask> getSourceTasks() {
+    return sourceTasks;
+  }
+
+  /**
+   * Return the tasks with which the work for the sources that were not processed was to start.
+   * This is empty unless the task was interrupted or failed before all of the sources were
+   * processed.
+   * 
+   * @return the tasks of the sources that were not processed
+   */
+  public List<AnalysisTask> getUnprocessedTasks() {
+    return unprocessedTasks;
+  }
+
+  @Override
+  protected String getTaskDescription() {
+    if (sourceTasks.isEmpty()) {
+      return "parse no sources";
+    }
+    return "parse " + sourceTasks.size() + " sources starting with "
+        + sourceTasks.get(0).getTaskDescription();
+  }
+
+  @Override
+  protected void internalPerform() throws AnalysisException {
+    int sourceCount = sourceTasks.size();
+    if (sourceCount == 0) {
+      return;
+    }
+    //
+    // The time spent on each thread is recorded by the scan and parse counters, so the difference
+    // between their sum and the elapsed time recorded here is the time saved by using threads. The
+    // executor is shared with other tasks, so at most threadCount sources are submitted at once.
+    //
+    TimeCounterHandle timeCounter = PerformanceStatistics.parallelScanParse.start();
+    List<List<AnalysisTask>> results = new ArrayList<List<AnalysisTask>>(sourceCount);
+    for (int i = 0; i < sourceCount; i++) {
+      results.add(null);
+    }
+    results = Collections.synchronizedList(results);
+    ArrayList<Future<Integer>> futures = new ArrayList<Future<Integer>>(sourceCount);
+    try {
+      CompletionService<Integer> completionService = new ExecutorCompletionService<Integer>(
+          AnalysisEngine.getInstance().getTaskExecutor());
+      int nextIndex = 0;
+      int runningCount = 0;
+      while (runningCount < threadCount && nextIndex < sourceCount) {
+        futures.add(submit(completionService, nextIndex++, results));
+        runningCount++;
+      }
+      while (runningCount > 0) {
+        try {
+          completionService.take().get();
+        } catch (InterruptedException exception) {
+          throw new AnalysisException("Interrupted while parsing sources", exception);
+        } catch (ExecutionException exception) {
+          throw new AnalysisException(exception.getCause());
+        }
+        runningCount--;
+        if (nextIndex < sourceCount) {
+          futures.add(submit(completionService, nextIndex++, results));
+          runningCount++;
+        }
+      }
+    } finally {
+      // Stop any sources that are still being processed if parsing was abandoned.
+      for (Future<Integer> future : futures) {
+        future.cancel(true);
+      }
+      // Any source without results was not processed, even if its work finishes after this point.
+      for (int i = 0; i < sourceCount; i++) {
+        List<AnalysisTask> tasks = results.get(i);
+        if (tasks != null) {
+          performedTasks.addAll(tasks);
+        } else {
+          unprocessedTasks.add(sourceTasks.get(i));
+        }
+      }
+      timeCounter.stop();
+    }
+  }
+
+  /**
+   * Return the task that consumes the results of the given task, or {@code null} if the given task
+   * is the last task needed to parse its source.
+   * 
+   * @param task the task that was performed successfully
+   * @return the task that consumes the results of the given task
+   */
+  private AnalysisTask createNextTask(AnalysisTask task) {
+    if (task instanceof GetContentTask) {
+      GetContentTask contentTask = (GetContentTask) task;
+      return new ScanDartTask(
+          getContext(),
+          contentTask.getSource(),
+          contentTask.getModificationTime(),
+          contentTask.getContent());
+    } else if (task instanceof ScanDartTask) {
+      ScanDartTask scanTask = (ScanDartTask) task;
+      return new ParseDartTask(
+          getContext(),
+          scanTask.getSource(),
+          scanTask.getModificationTime(),
+          scanTask.getTokenStream(),
+          scanTask.getLineInfo());
+    }
+    return null;
+  }
+
+  /**
+   * Perform the given task followed by the tasks that consume its results, stopping when the source
+   * has been parsed or one of the tasks fails.
+   * 
+   * @param firstTask the first task to be performed
+   * @return the tasks that were performed, in the order in which they were performed
+   */
+  private List<AnalysisTask> performTasksStartingWith(AnalysisTask firstTask) {
+    ArrayList<AnalysisTask> tasks = new ArrayList<AnalysisTask>();
+    AnalysisTask task = firstTask;
+    while (task != null) {
+      task.performWithoutVisiting();
+      tasks.add(task);
+      task = task.getException() == null ? createNextTask(task) : null;
+    }
+    return tasks;
+  }
+
+  /**
+   * Submit the work for the source with the given index to the given completion service. The tasks
+   * that were performed for the source are stored at the same index in the given list.
+   * 
+   * @param completionService the completion service used to perform the work
+   * @param index the index of the task with which the work is to start
+   * @param results the list in which the performed tasks are to be stored
+   * @return the future representing the work, whose result is the index
+   */
+  private Future<Integer> submit(CompletionService<Integer> completionService, final int index,
+      final List<List<AnalysisTask>> results) {
+    return completionService.submit(new Callable<Integer>() {
+      @Override
+      public Integer call() {
+        results.set(index, performTasksStartingWith(sourceTasks.get(index)));
+        return index;
+      }
+    });
+  }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.task;
+
+import com.google.dart.engine.AnalysisEngine;
+import com.google.dart.engine.context.AnalysisException;
+import com.google.dart.engine.internal.context.InternalAnalysisContext;
+import com.google.dart.engine.utilities.collection.DirectedGraph;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+
+/**
+ * Instances of the class {@code ResolveDartLibraryCyclesTask} resolve several cycles of libraries
+ * concurrently. Each cycle is resolved by a {@link ResolveDartLibraryCycleTask} as soon as all of
+ * the cycles it depends on have been resolved. The results of the individual tasks are not
+ * recorded by this task; they are available, in the order in which the cycles were resolved, from
+ * {@link #getPerformedTasks()}.
+ */
+public class ResolveDartLibraryCyclesTask extends AnalysisTask {
+  /**
+   * The tasks used to resolve the individual cycles of libraries.
+   */
+  private List<ResolveDartLibraryCycleTask> cycleTasks;
+
+  /**
+   * A graph containing an edge from each of the tasks in {@link #cycleTasks} to each of the tasks
+   * resolving a cycle of libraries that it depends on.
+   */
+  private DirectedGraph<ResolveDartLibraryCycleTask> dependencyGraph;
+
+  /**
+   * The maximum number of threads used to resolve cycles of libraries.
+   */
+  private int threadCount;
+
+  /**
+   * The tasks that were performed, in the order in which they were completed.
+   */
+  private ArrayList<ResolveDartLibraryCycleTask> performedTasks = new ArrayList<ResolveDartLibraryCycleTask>();
+
+  /**
+   * Initialize a newly created task to perform analysis within the given context.
+   * 
+   * @param context the context in which the task is to be performed
+   * @param cycleTasks the tasks used to resolve the individual cycles of libraries
+   * @param dependencyGraph a graph containing an edge from each of the tasks to each of the tasks
+   *          that it depends on
+   * @param threadCount the maximum number of threads used to resolve cycles of libraries
+   */
+  public ResolveDartLibraryCyclesTask(InternalAnalysisContext context,
+      List<ResolveDartLibraryCycleTask> cycleTasks,
+      DirectedGraph<ResolveDartLibraryCycleTask> dependencyGraph, int threadCount) {
+    super(context);
+    this.cycleTasks = cycleTasks;
+    this.dependencyGraph = dependencyGraph;
+    this.threadCount = threadCount;
+  }
+
+  @Override
+  public <E> E accept(AnalysisTaskVisitor<E> visitor) throws AnalysisException {
+    return visitor.visitResolveDartLibraryCyclesTask(this);
+  }
+
+  /**
+   * Return the tasks used to resolve the individual cycles of libraries.
+   * 
+   * @return the tasks used to resolve the individual cycles of libraries
+   */
+  public List<ResolveDartLibraryCycleTask> getCycleTasks() {
+    return cycleTasks;
+  }
+
+  /**
+   * Return the tasks that were performed, in the order in which they were completed. A task is not
+   * performed if a cycle that it depends on could not be resolved.
+   * 
+   * @return the tasks that were performed
+   */
+  public List<ResolveDartLibraryCycleTask> getPerformedTasks() {
+    return performedTasks;
+  }
+
+  @Override
+  protected String getTaskDescription() {
+    if (cycleTasks.isEmpty()) {
+      return "resolve no library cycles";
+    }
+    return "resolve " + cycleTasks.size() + " library cycles starting with "
+        + cycleTasks.get(0).getTaskDescription();
+  }
+
+  @Override
+  protected void internalPerform() throws AnalysisException {
+    int cycleCount = cycleTasks.size();
+    if (cycleCount == 0) {
+      return;
+    }
+    //
+    // Compute the number of cycles each cycle is waiting for and the cycles waiting for each cycle.
+    //
+    HashMap<ResolveDartLibraryCycleTask, Integer> waitCounts = new HashMap<ResolveDartLibraryCycleTask, Integer>();
+    HashMap<ResolveDartLibraryCycleTask, ArrayList<ResolveDartLibraryCycleTask>> dependents = new HashMap<ResolveDartLibraryCycleTask, ArrayList<ResolveDartLibraryCycleTask>>();
+    ArrayDeque<ResolveDartLibraryCycleTask> readyTasks = new ArrayDeque<ResolveDartLibraryCycleTask>();
+    for (ResolveDartLibraryCycleTask task : cycleTasks) {
+      Set<ResolveDartLibraryCycleTask> dependencies = dependencyGraph.getTails(task);
+      waitCounts.put(task, dependencies.size());
+      if (dependencies.isEmpty()) {
+        readyTasks.add(task);
+      }
+      for (ResolveDartLibraryCycleTask dependency : dependencies) {
+        ArrayList<ResolveDartLibraryCycleTask> waitingTasks = dependents.get(dependency);
+        if (waitingTasks == null) {
+          waitingTasks = new ArrayList<ResolveDartLibraryCycleTask>();
+          dependents.put(dependency, waitingTasks);
+        }
+        waitingTasks.add(task);
+      }
+    }
+    //
+    // Resolve the cycles, starting each one as soon as the cycles it depends on have been resolved.
+    // The tasks are scheduled from this thread so that the bookkeeping does not need to be shared.
+    // The executor is shared with other tasks, so at most threadCount cycles are submitted at once.
+    //
+    ArrayList<Future<ResolveDartLibraryCycleTask>> futures = new ArrayList<Future<ResolveDartLibraryCycleTask>>(
+        cycleCount);
+    try {
+      CompletionService<ResolveDartLibraryCycleTask> completionService = new ExecutorCompletionService<ResolveDartLibraryCycleTask>(
+          AnalysisEngine.getInstance().getTaskExecutor());
+      int runningCount = 0;
+      while (runningCount < threadCount && !readyTasks.isEmpty()) {
+        futures.add(submit(completionService, readyTasks.removeFirst()));
+        runningCount++;
+      }
+      while (runningCount > 0) {
+        ResolveDartLibraryCycleTask task;
+        try {
+          task = completionService.take().get();
+        } catch (InterruptedException exception) {
+          throw new AnalysisException("Interrupted while resolving library cycles", exception);
+        } catch (ExecutionException exception) {
+          throw new AnalysisException(exception.getCause());
+        }
+        runningCount--;
+        performedTasks.add(task);
+        // The cycles that depend on a cycle that could not be resolved cannot be resolved.
+        ArrayList<ResolveDartLibraryCycleTask> waitingTasks = dependents.get(task);
+        if (task.getException() == null && waitingTasks != null) {
+          for (ResolveDartLibraryCycleTask waitingTask : waitingTasks) {
+            int waitCount = waitCounts.get(waitingTask) - 1;
+            waitCounts.put(waitingTask, waitCount);
+            if (waitCount == 0) {
+              readyTasks.addLast(waitingTask);
+            }
+          }
+        }
+        while (runningCount < threadCount && !readyTasks.isEmpty()) {
+          futures.add(submit(completionService, readyTasks.removeFirst()));
+          runningCount++;
+        }
+      }
+    } finally {
+      // Stop any cycles that are still running if resolution was abandoned.
+      for (Future<ResolveDartLibraryCycleTask> future : futures) {
+        future.cancel(true);
+      }
+    }
+  }
+
+  /**
+   * Submit the given task to the given completion service.
+   * 
+   * @param completionService the completion service used to perform the task
+   * @param task the task to be performed
+   * @return the future representing the result of the task
+   */
+  private Future<ResolveDartLibraryCycleTask> submit(
+      CompletionService<ResolveDartLibraryCycleTask> completionService,
+      final ResolveDartLibraryCycleTask task) {
+    return completionService.submit(new Callable<ResolveDartLibraryCycleTask>() {
+      @Override
+      public ResolveDartLibraryCycleTask call() {
+        task.performWithoutVisiting();
+        return task;
+      }
+    });
+  }
+}
@@ -144,6 +144,7 @@ public class ScanDartTask extends AnalysisTask {
     try {
       Scanner scanner = new Scanner(source, new CharSequenceReader(content), errorListener);
       scanner.setPreserveComments(getContext().getAnalysisOptions().getPreserveComments());
+      scanner.setSymbolTable(getContext().getSymbolTable());
       tokenStream = scanner.tokenize();
       lineInfo = new LineInfo(scanner.getLineStarts());
       errors = errorListener.getErrorsForSource(source);
@@ -23,6 +23,7 @@ import com.google.dart.engine.element.PropertyAccessorElement;
 import com.google.dart.engine.element.TypeParameterElement;
 import com.google.dart.engine.internal.element.ClassElementImpl;
 import com.google.dart.engine.internal.element.ElementPair;
+import com.google.dart.engine.internal.element.LibraryElementImpl;
 import com.google.dart.engine.internal.element.member.ConstructorMember;
 import com.google.dart.engine.internal.element.member.MethodMember;
 import com.google.dart.engine.internal.element.member.PropertyAccessorMember;
@@ -74,6 +75,90 @@ public class InterfaceTypeImpl extends TypeImpl implements InterfaceType {
     return computeSuperinterfaceSet(type, new HashSet<InterfaceType>());
   }
 
+  /**
+   * Return {@code true} if the relationships between the given type and the types defined in the
+   * given library can be cached by that library. This is only the case if the type and all of its
+   * type arguments are defined either in the library or in the SDK.
+   * 
+   * @param type the type being tested
+   * @param library the library that would cache the relationships
+   * @return {@code true} if the relationships of the type can be cached by the library
+   */
+  private static boolean canBeCached(Type type, LibraryElement library) {
+    if (type.isDynamic()) {
+      return true;
+    } else if (!(type instanceof InterfaceType)) {
+      return false;
+    }
+    InterfaceType interfaceType = (InterfaceType) type;
+    ClassElement element = interfaceType.getElement();
+    if (element == null) {
+      return false;
+    }
+    LibraryElement typeLibrary = element.getLibrary();
+    if (typeLibrary != library && (typeLibrary == null || !typeLibrary.isInSdk())) {
+      return false;
+    }
+    for (Type argument : interfaceType.getTypeArguments()) {
+      if (!canBeCached(argument, library)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Return the least upper bound of the given types, or {@code null} if it cannot be computed.
+   * 
+   * @param i the first type
+   * @param j the second type
+   * @return the least upper bound of the given types
+   * @see #getLeastUpperBound(Type)
+   */
+  private static InterfaceType computeLeastUpperBound(InterfaceType i, InterfaceType j) {
+    // compute set of supertypes
+    Set<InterfaceType> si = computeSuperinterfaceSet(i);
+    Set<InterfaceType> sj = computeSuperinterfaceSet(j);
+
+    // union si with i and sj with j
+    si.add(i);
+    sj.add(j);
+
+    // compute intersection, reference as set 's'
+    InterfaceType[] s = intersection(si, sj);
+
+    // for each element in Set s, compute the largest inheritance path to Object
+    int[] depths = new int[s.length];
+    int maxDepth = 0;
+    for (int n = 0; n < s.length; n++) {
+      depths[n] = computeLongestInheritancePathToObject(s[n]);
+      if (depths[n] > maxDepth) {
+        maxDepth = depths[n];
+      }
+    }
+
+    // ensure that the currently computed maxDepth is unique,
+    // otherwise, decrement and test for uniqueness again
+    for (; maxDepth >= 0; maxDepth--) {
+      int indexOfLeastUpperBound = -1;
+      int numberOfTypesAtMaxDepth = 0;
+      for (int m = 0; m < depths.length; m++) {
+        if (depths[m] == maxDepth) {
+          numberOfTypesAtMaxDepth++;
+          indexOfLeastUpperBound = m;
+        }
+      }
+      if (numberOfTypesAtMaxDepth == 1) {
+        return s[indexOfLeastUpperBound];
+      }
+    }
+
+    // illegal state, log and return null- Object at maxDepth == 0 should always return itself as
+    // the least upper bound.
+    // TODO (jwren) log the error state 
+    return null;
+  }
+
   /**
    * This method computes the longest inheritance path from some passed {@link Type} to Object. This
    * method calls itself recursively, callers should use the public method
@@ -322,48 +407,19 @@ public class InterfaceTypeImpl extends TypeImpl implements InterfaceType {
     // new names to match up with the spec
     InterfaceType i = this;
     InterfaceType j = (InterfaceType) type;
-
-    // compute set of supertypes
-    Set<InterfaceType> si = computeSuperinterfaceSet(i);
-    Set<InterfaceType> sj = computeSuperinterfaceSet(j);
-
-    // union si with i and sj with j
-    si.add(i);
-    sj.add(j);
-
-    // compute intersection, reference as set 's'
-    InterfaceType[] s = intersection(si, sj);
-
-    // for each element in Set s, compute the largest inheritance path to Object
-    int[] depths = new int[s.length];
-    int maxDepth = 0;
-    for (int n = 0; n < s.length; n++) {
-      depths[n] = computeLongestInheritancePathToObject(s[n]);
-      if (depths[n] > maxDepth) {
-        maxDepth = depths[n];
-      }
+    TypeRelationCache cache = getRelationCache(j);
+    if (cache == null) {
+      return computeLeastUpperBound(i, j);
     }
-
-    // ensure that the currently computed maxDepth is unique,
-    // otherwise, decrement and test for uniqueness again
-    for (; maxDepth >= 0; maxDepth--) {
-      int indexOfLeastUpperBound = -1;
-      int numberOfTypesAtMaxDepth = 0;
-      for (int m = 0; m < depths.length; m++) {
-        if (depths[m] == maxDepth) {
-          numberOfTypesAtMaxDepth++;
-          indexOfLeastUpperBound = m;
-        }
-      }
-      if (numberOfTypesAtMaxDepth == 1) {
-        return s[indexOfLeastUpperBound];
+    TypePair pair = new TypePair(i, j);
+    Type leastUpperBound = cache.getLeastUpperBound(pair);
+    if (leastUpperBound == null) {
+      leastUpperBound = computeLeastUpperBound(i, j);
+      if (leastUpperBound != null) {
+        cache.putLeastUpperBound(pair, leastUpperBound);
       }
     }
-
-    // illegal state, log and return null- Object at maxDepth == 0 should always return itself as
-    // the least upper bound.
-    // TODO (jwren) log the error state 
-    return null;
+    return leastUpperBound;
   }
 
   @Override
@@ -697,11 +753,29 @@ public class InterfaceTypeImpl extends TypeImpl implements InterfaceType {
     } else if (!(type instanceof InterfaceType)) {
       return false;
     }
-    return isMoreSpecificThan(
-        (InterfaceType) type,
-        new HashSet<ClassElement>(),
-        withDynamic,
-        visitedTypePairs);
+    //
+    // The results of top-level questions are cached. Nested questions are not, because their
+    // answers can depend on the questions that are already being asked.
+    //
+    TypeRelationCache cache = visitedTypePairs.size() == 1 ? getRelationCache(type) : null;
+    if (cache == null) {
+      return isMoreSpecificThan(
+          (InterfaceType) type,
+          new HashSet<ClassElement>(),
+          withDynamic,
+          visitedTypePairs);
+    }
+    TypePair pair = new TypePair(this, type);
+    Boolean result = cache.isMoreSpecificThan(pair, withDynamic);
+    if (result == null) {
+      result = Boolean.valueOf(isMoreSpecificThan(
+          (InterfaceType) type,
+          new HashSet<ClassElement>(),
+          withDynamic,
+          visitedTypePairs));
+      cache.putMoreSpecificThan(pair, withDynamic, result.booleanValue());
+    }
+    return result.booleanValue();
   }
 
   @Override
@@ -725,7 +799,44 @@ public class InterfaceTypeImpl extends TypeImpl implements InterfaceType {
     } else if (this.equals(type)) {
       return true;
     }
-    return isSubtypeOf((InterfaceType) type, new HashSet<ClassElement>(), visitedTypePairs);
+    //
+    // The results of top-level questions are cached. Nested questions are not, because their
+    // answers can depend on the questions that are already being asked.
+    //
+    TypeRelationCache cache = visitedTypePairs.size() == 1 ? getRelationCache(type) : null;
+    if (cache == null) {
+      return isSubtypeOf((InterfaceType) type, new HashSet<ClassElement>(), visitedTypePairs);
+    }
+    TypePair pair = new TypePair(this, type);
+    Boolean result = cache.isSubtypeOf(pair);
+    if (result == null) {
+      result = Boolean.valueOf(isSubtypeOf(
+          (InterfaceType) type,
+          new HashSet<ClassElement>(),
+          visitedTypePairs));
+      cache.putSubtypeOf(pair, result.booleanValue());
+    }
+    return result.booleanValue();
+  }
+
+  /**
+   * Return the cache in which the relationships between this type and the given type can be
+   * recorded, or {@code null} if they cannot be cached.
+   * 
+   * @param type the type being related to this type
+   * @return the cache in which the relationships between the types can be recorded
+   */
+  private TypeRelationCache getRelationCache(Type type) {
+    ClassElement element = getElement();
+    if (element == null) {
+      return null;
+    }
+    LibraryElement library = element.getLibrary();
+    if (!(library instanceof LibraryElementImpl) || !canBeCached(this, library)
+        || !canBeCached(type, library)) {
+      return null;
+    }
+    return ((LibraryElementImpl) library).getTypeRelationCache();
   }
 
   // TODO(jwren) Remove "visitedClasses" parameter, as the logic for "visitedTypePairs" should
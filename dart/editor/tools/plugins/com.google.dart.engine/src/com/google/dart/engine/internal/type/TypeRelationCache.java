@@ -0,0 +1,253 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.type;
+
+import com.google.dart.engine.internal.type.TypeImpl.TypePair;
+import com.google.dart.engine.type.Type;
+
+import java.util.HashMap;
+
+/**
+ * Instances of the class {@code TypeRelationCache} hold the results of the subtype, more specific
+ * than and least upper bound computations performed for the interface types defined in a single
+ * library, so that the supertype chains of those types do not need to be walked again every time
+ * the same question is asked.
+ * <p>
+ * A cache is owned by the element of the library defining the first type of each pair, and is
+ * discarded along with that element when the library is resolved again. Because of this, results
+ * are only recorded for pairs whose types, including their type arguments, are all defined either
+ * in that library or in the SDK, the only libraries whose re-resolution is guaranteed to also
+ * cause the owning library to be re-resolved.
+ * <p>
+ * The cache counts its hits and misses. The lookups are also counted per thread, across all caches,
+ * so that the library resolvers can report the hits and misses of the lookups performed while
+ * resolving a single library (see {@link #getThreadHitCount()}).
+ * <p>
+ * Instances of this class are thread-safe.
+ * 
+ * @coverage dart.engine.type
+ */
+public class TypeRelationCache {
+  /**
+   * The number of hits and misses, in that order, of the lookups performed by each thread in all
+   * caches.
+   */
+  private static final ThreadLocal<int[]> threadCounts = new ThreadLocal<int[]>();
+
+  /**
+   * Return the number of lookups performed by the current thread, in any cache, that found a
+   * result. Clients interested in the lookups performed by an operation should compare the values
+   * returned before and after the operation.
+   * 
+   * @return the number of lookups performed by the current thread that found a result
+   */
+  public static int getThreadHitCount() {
+    return getThreadCounts()[0];
+  }
+
+  /**
+   * Return the number of lookups performed by the current thread, in any cache, that did not find a
+   * result. Clients interested in the lookups performed by an operation should compare the values
+   * returned before and after the operation.
+   * 
+   * @return the number of lookups performed by the current thread that did not find a result
+   */
+  public static int getThreadMissCount() {
+    return getThreadCounts()[1];
+  }
+
+  /**
+   * Return the hit and miss counts of the current thread.
+   * 
+   * @return the hit and miss counts of the current thread
+   */
+  private static int[] getThreadCounts() {
+    int[] counts = threadCounts.get();
+    if (counts == null) {
+      counts = new int[2];
+      threadCounts.set(counts);
+    }
+    return counts;
+  }
+
+  /**
+   * A table mapping pairs of types (T, S) to whether T is a subtype of S.
+   */
+  private HashMap<TypePair, Boolean> subtypeResults = new HashMap<TypePair, Boolean>();
+
+  /**
+   * A table mapping pairs of types (T, S) to whether T is more specific than S when "dynamic" is
+   * not considered to be a subtype of every type.
+   */
+  private HashMap<TypePair, Boolean> moreSpecificResults = new HashMap<TypePair, Boolean>();
+
+  /**
+   * A table mapping pairs of types (T, S) to whether T is more specific than S when "dynamic" is
+   * considered to be a subtype of every type.
+   */
+  private HashMap<TypePair, Boolean> moreSpecificWithDynamicResults = new HashMap<TypePair, Boolean>();
+
+  /**
+   * A table mapping pairs of types to their least upper bound.
+   */
+  private HashMap<TypePair, Type> leastUpperBounds = new HashMap<TypePair, Type>();
+
+  /**
+   * The number of lookups that found a result in this cache.
+   */
+  private int hitCount = 0;
+
+  /**
+   * The number of lookups that did not find a result in this cache.
+   */
+  private int missCount = 0;
+
+  /**
+   * Initialize a newly created, empty cache.
+   */
+  public TypeRelationCache() {
+    super();
+  }
+
+  /**
+   * Remove all of the results from this cache.
+   */
+  public synchronized void clear() {
+    subtypeResults.clear();
+    moreSpecificResults.clear();
+    moreSpecificWithDynamicResults.clear();
+    leastUpperBounds.clear();
+  }
+
+  /**
+   * Return the number of lookups that found a result in this cache.
+   * 
+   * @return the number of lookups that found a result in this cache
+   */
+  public synchronized int getHitCount() {
+    return hitCount;
+  }
+
+  /**
+   * Return the least upper bound of the given pair of types, or {@code null} if it has not been
+   * cached.
+   * 
+   * @param pair the pair of types whose least upper bound is to be returned
+   * @return the least upper bound of the given pair of types
+   */
+  public synchronized Type getLeastUpperBound(TypePair pair) {
+    return record(leastUpperBounds.get(pair));
+  }
+
+  /**
+   * Return the number of lookups that did not find a result in this cache.
+   * 
+   * @return the number of lookups that did not find a result in this cache
+   */
+  public synchronized int getMissCount() {
+    return missCount;
+  }
+
+  /**
+   * Return the number of results that have been cached.
+   * 
+   * @return the number of results that have been cached
+   */
+  public synchronized int getSize() {
+    return subtypeResults.size() + moreSpecificResults.size()
+        + moreSpecificWithDynamicResults.size() + leastUpperBounds.size();
+  }
+
+  /**
+   * Return whether the first type of the given pair is more specific than the second, or
+   * {@code null} if the result has not been cached.
+   * 
+   * @param pair the pair of types being compared
+   * @param withDynamic {@code true} if "dynamic" is considered to be a subtype of any type
+   * @return whether the first type is more specific than the second
+   */
+  public synchronized Boolean isMoreSpecificThan(TypePair pair, boolean withDynamic) {
+    return record(getMoreSpecificResults(withDynamic).get(pair));
+  }
+
+  /**
+   * Return whether the first type of the given pair is a subtype of the second, or {@code null} if
+   * the result has not been cached.
+   * 
+   * @param pair the pair of types being compared
+   * @return whether the first type is a subtype of the second
+   */
+  public synchronized Boolean isSubtypeOf(TypePair pair) {
+    return record(subtypeResults.get(pair));
+  }
+
+  /**
+   * Record the least upper bound of the given pair of types.
+   * 
+   * @param pair the pair of types whose least upper bound was computed
+   * @param leastUpperBound the least upper bound of the given pair of types
+   */
+  public synchronized void putLeastUpperBound(TypePair pair, Type leastUpperBound) {
+    leastUpperBounds.put(pair, leastUpperBound);
+  }
+
+  /**
+   * Record whether the first type of the given pair is more specific than the second.
+   * 
+   * @param pair the pair of types that were compared
+   * @param withDynamic {@code true} if "dynamic" was considered to be a subtype of any type
+   * @param result whether the first type is more specific than the second
+   */
+  public synchronized void putMoreSpecificThan(TypePair pair, boolean withDynamic, boolean result) {
+    getMoreSpecificResults(withDynamic).put(pair, Boolean.valueOf(result));
+  }
+
+  /**
+   * Record whether the first type of the given pair is a subtype of the second.
+   * 
+   * @param pair the pair of types that were compared
+   * @param result whether the first type is a subtype of the second
+   */
+  public synchronized void putSubtypeOf(TypePair pair, boolean result) {
+    subtypeResults.put(pair, Boolean.valueOf(result));
+  }
+
+  /**
+   * Return the table holding the more specific than results for the given mode.
+   * 
+   * @param withDynamic {@code true} if "dynamic" is considered to be a subtype of any type
+   * @return the table holding the results for the given mode
+   */
+  private HashMap<TypePair, Boolean> getMoreSpecificResults(boolean withDynamic) {
+    return withDynamic ? moreSpecificWithDynamicResults : moreSpecificResults;
+  }
+
+  /**
+   * Update the hit and miss counts to reflect a lookup that produced the given result.
+   * 
+   * @param result the result of the lookup, or {@code null} if nothing was found
+   * @return the result that was given
+   */
+  private <E> E record(E result) {
+    int[] counts = getThreadCounts();
+    if (result == null) {
+      missCount++;
+      counts[1]++;
+    } else {
+      hitCount++;
+      counts[0]++;
+    }
+    return result;
+  }
+}
@@ -460,6 +460,30 @@ public class ErrorVerifier extends RecursiveAstVisitor<Void> {
         typeProvider.getDoubleType(), boolType, typeProvider.getStringType()};
   }
 
+  /**
+   * Verify the given declaration, which is either a top-level declaration or a member of a class,
+   * without first visiting the class that encloses it. This is used when a single declaration is
+   * being verified again after its body was modified.
+   * 
+   * @param node the declaration to be verified
+   */
+  public void verifyDeclaration(Declaration node) {
+    ClassDeclaration classDeclaration = node.getAncestor(ClassDeclaration.class);
+    if (classDeclaration == null) {
+      node.accept(this);
+      return;
+    }
+    ClassElement outerClass = enclosingClass;
+    try {
+      isInNativeClass = classDeclaration.getNativeClause() != null;
+      enclosingClass = classDeclaration.getElement();
+      node.accept(this);
+    } finally {
+      isInNativeClass = false;
+      enclosingClass = outerClass;
+    }
+  }
+
   @Override
   public Void visitArgumentList(ArgumentList node) {
     checkForArgumentTypesNotAssignableInList(node);
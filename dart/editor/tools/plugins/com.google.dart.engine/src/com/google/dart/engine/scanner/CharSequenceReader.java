@@ -57,6 +57,11 @@ public class CharSequenceReader implements CharacterReader {
     return charOffset;
   }
 
+  @Override
+  public String getInternedString(int start, int endDelta, SymbolTable symbolTable) {
+    return symbolTable.intern(sequence, start, charOffset + 1 + endDelta);
+  }
+
   @Override
   public String getString(int start, int endDelta) {
     return sequence.subSequence(start, charOffset + 1 + endDelta).toString();
@@ -33,6 +33,20 @@ public interface CharacterReader {
    */
   public int getOffset();
 
+  /**
+   * Return the canonical string for the substring of the source code between the start offset and
+   * the modified current position, as returned by {@link SymbolTable#intern}. The current position
+   * is modified by adding the end delta.
+   * 
+   * @param start the offset to the beginning of the string, relative to the start of the file
+   * @param endDelta the number of characters after the current location to be included in the
+   *          string, or the number of characters before the current location to be excluded if the
+   *          offset is negative
+   * @param symbolTable the symbol table used to canonicalize the string
+   * @return the canonical string for the specified substring of the source code
+   */
+  public String getInternedString(int start, int endDelta, SymbolTable symbolTable);
+
   /**
    * Return the substring of the source code between the start offset and the modified current
    * position. The current position is modified by adding the end delta.
@@ -120,6 +120,7 @@ public class IncrementalScanner extends Scanner {
    * @param insertedLength the number of characters added to the modified source
    */
   public Token rescan(Token originalStream, int index, int removedLength, int insertedLength) {
+    Token originalFirst = originalStream;
     //
     // Copy all of the tokens in the originalStream whose end is less than the replacement start.
     // (If the replacement start is equal to the end of an existing token, then it means that the
@@ -218,11 +219,11 @@ public class IncrementalScanner extends Scanner {
     hasNonWhitespaceChange = leftToken.getNext() != rightToken
         || oldLeftToken.getNext() != oldRightToken;
     //
-    // TODO(brianwilkerson) Begin tokens are not getting associated with the corresponding end
-    //     tokens (because the end tokens have not been copied when we're copying the begin tokens).
-    //     This could have implications for parsing.
+    // Begin tokens are not associated with the corresponding end tokens when they are copied
+    // (because the end tokens have not been copied yet), so associate them now.
     // TODO(brianwilkerson) Update the lineInfo.
     //
+    linkCopiedGroups(originalFirst);
     return getFirstToken();
   }
 
@@ -254,4 +255,26 @@ public class IncrementalScanner extends Scanner {
     return oldToken.getType() == newToken.getType() && oldToken.getLength() == newToken.getLength()
         && oldToken.getLexeme().equals(newToken.getLexeme());
   }
+
+  /**
+   * Associate the copy of each begin token in the original stream with the copy of the
+   * corresponding end token, if both tokens were copied.
+   * 
+   * @param originalStream the first token in the original stream
+   */
+  private void linkCopiedGroups(Token originalStream) {
+    while (originalStream.getType() != TokenType.EOF) {
+      if (originalStream instanceof BeginToken) {
+        Token endToken = ((BeginToken) originalStream).getEndToken();
+        Token copiedBegin = tokenMap.get(originalStream);
+        if (endToken != null && copiedBegin instanceof BeginToken) {
+          Token copiedEnd = tokenMap.get(endToken);
+          if (copiedEnd != null) {
+            ((BeginToken) copiedBegin).setEndToken(copiedEnd);
+          }
+        }
+      }
+      originalStream = originalStream.getNext();
+    }
+  }
 }
@@ -17,6 +17,7 @@ import com.google.dart.engine.error.AnalysisError;
 import com.google.dart.engine.error.AnalysisErrorListener;
 import com.google.dart.engine.source.Source;
 import com.google.dart.engine.utilities.collection.IntList;
+import com.google.dart.engine.utilities.general.StringUtilities;
 import com.google.dart.engine.utilities.instrumentation.Instrumentation;
 import com.google.dart.engine.utilities.instrumentation.InstrumentationBuilder;
 
@@ -101,6 +102,12 @@ public class Scanner {
    */
   private boolean hasUnmatchedGroups = false;
 
+  /**
+   * The symbol table used to canonicalize the lexemes of identifiers, or {@code null} if the
+   * lexemes should be interned as strings.
+   */
+  private SymbolTable symbolTable;
+
   /**
    * Initialize a newly created scanner.
    * 
@@ -168,6 +175,16 @@ public class Scanner {
     lineStarts.add(offset - column + 1);
   }
 
+  /**
+   * Set the symbol table used to canonicalize the lexemes of identifiers. Sharing a symbol table
+   * between scanners allows identifiers to be interned directly from the characters being scanned.
+   * 
+   * @param symbolTable the symbol table used to canonicalize the lexemes of identifiers
+   */
+  public void setSymbolTable(SymbolTable symbolTable) {
+    this.symbolTable = symbolTable;
+  }
+
   /**
    * Scan the source code to produce a list of tokens representing the source.
    * 
@@ -469,26 +486,36 @@ public class Scanner {
     }
   }
 
-  private void appendKeywordToken(Keyword keyword) {
+  /**
+   * Append a token of the given type whose lexeme is the given canonical string.
+   * 
+   * @param type the type of the token
+   * @param value the interned lexeme of the token
+   */
+  private void appendInternedStringToken(TokenType type, String value) {
     if (firstComment == null) {
-      tail = tail.setNext(new KeywordToken(keyword, tokenStart));
+      tail = tail.setNext(new StringToken(type, value, tokenStart, false));
     } else {
-      tail = tail.setNext(new KeywordTokenWithComment(keyword, tokenStart, firstComment));
+      tail = tail.setNext(new StringTokenWithComment(type, value, tokenStart, firstComment, false));
       firstComment = null;
       lastComment = null;
     }
   }
 
-  private void appendStringToken(TokenType type, String value) {
+  private void appendKeywordToken(Keyword keyword) {
     if (firstComment == null) {
-      tail = tail.setNext(new StringToken(type, value, tokenStart));
+      tail = tail.setNext(new KeywordToken(keyword, tokenStart));
     } else {
-      tail = tail.setNext(new StringTokenWithComment(type, value, tokenStart, firstComment));
+      tail = tail.setNext(new KeywordTokenWithComment(keyword, tokenStart, firstComment));
       firstComment = null;
       lastComment = null;
     }
   }
 
+  private void appendStringToken(TokenType type, String value) {
+    appendInternedStringToken(type, StringUtilities.intern(value));
+  }
+
   private void appendStringTokenWithOffset(TokenType type, String value, int offset) {
     if (firstComment == null) {
       tail = tail.setNext(new StringToken(type, value, tokenStart + offset));
@@ -770,7 +797,14 @@ public class Scanner {
         || ('0' <= next && next <= '9') || next == '_' || (next == '$' && allowDollar)) {
       next = reader.advance();
     }
-    appendStringToken(TokenType.IDENTIFIER, reader.getString(start, next < 0 ? 0 : -1));
+    int endDelta = next < 0 ? 0 : -1;
+    if (symbolTable == null) {
+      appendStringToken(TokenType.IDENTIFIER, reader.getString(start, endDelta));
+    } else {
+      appendInternedStringToken(
+          TokenType.IDENTIFIER,
+          reader.getInternedString(start, endDelta, symbolTable));
+    }
     return next;
   }
 
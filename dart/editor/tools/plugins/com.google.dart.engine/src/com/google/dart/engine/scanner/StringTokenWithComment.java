@@ -34,7 +34,22 @@ public class StringTokenWithComment extends StringToken {
    * @param precedingComment the first comment in the list of comments that precede this token
    */
   public StringTokenWithComment(TokenType type, String value, int offset, Token precedingComment) {
-    super(type, value, offset);
+    this(type, value, offset, precedingComment, true);
+  }
+
+  /**
+   * Initialize a newly created token to have the given type and offset and to be preceded by the
+   * comments reachable from the given comment.
+   * 
+   * @param type the type of the token
+   * @param offset the offset from the beginning of the file to the first character in the token
+   * @param precedingComment the first comment in the list of comments that precede this token
+   * @param intern {@code true} if the value needs to be interned, or {@code false} if it is already
+   *          canonical
+   */
+  StringTokenWithComment(TokenType type, String value, int offset, Token precedingComment,
+      boolean intern) {
+    super(type, value, offset, intern);
     this.precedingComment = precedingComment;
   }
 
@@ -44,7 +59,8 @@ public class StringTokenWithComment extends StringToken {
         getType(),
         getLexeme(),
         getOffset(),
-        copyComments(precedingComment));
+        copyComments(precedingComment),
+        false);
   }
 
   @Override
@@ -41,6 +41,11 @@ public class SubSequenceReader extends CharSequenceReader {
     return offsetDelta + super.getOffset();
   }
 
+  @Override
+  public String getInternedString(int start, int endDelta, SymbolTable symbolTable) {
+    return super.getInternedString(start - offsetDelta, endDelta, symbolTable);
+  }
+
   @Override
   public String getString(int start, int endDelta) {
     return super.getString(start - offsetDelta, endDelta);
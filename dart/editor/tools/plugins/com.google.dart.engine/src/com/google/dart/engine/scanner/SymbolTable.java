@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.scanner;
+
+import com.google.dart.engine.utilities.general.StringUtilities;
+
+/**
+ * Instances of the class {@code SymbolTable} canonicalize the lexemes of the identifiers produced
+ * by a {@link Scanner}. Lexemes are looked up directly from a range of characters in the source, so
+ * a lexeme that has been seen before is returned without creating any new strings.
+ * <p>
+ * The table does not define its own canonical strings: a lexeme that is new to the table is
+ * canonicalized by {@link StringUtilities#intern(String)}, so that it is the same string as the one
+ * used by tokens, elements and literals that are interned elsewhere.
+ * <p>
+ * The table is divided into segments that are selected by the hash code of the lexeme, and each
+ * segment is locked independently, so symbol tables can be shared by scanners running on different
+ * threads without making them wait for each other. Each segment is bounded: when it contains its
+ * share of the maximum number of lexemes it is emptied, and the lexemes that are still in use are
+ * added again as they are encountered.
+ * 
+ * @coverage dart.engine.parser
+ */
+public class SymbolTable {
+  /**
+   * Instances of the class {@code Entry} represent a single lexeme in the table.
+   */
+  private static class Entry {
+    /**
+     * The lexeme represented by this entry.
+     */
+    private final String value;
+
+    /**
+     * The hash code of the lexeme.
+     */
+    private final int hash;
+
+    /**
+     * The next entry in the same bucket, or {@code null} if this is the last entry.
+     */
+    private final Entry next;
+
+    public Entry(String value, int hash, Entry next) {
+      this.value = value;
+      this.hash = hash;
+      this.next = next;
+    }
+  }
+
+  /**
+   * Instances of the class {@code Segment} hold the lexemes whose hash codes select the segment.
+   */
+  private static class Segment {
+    /**
+     * The maximum number of lexemes in this segment.
+     */
+    private final int maxSize;
+
+    /**
+     * The buckets containing the entries in this segment. The number of buckets is always a power
+     * of two.
+     */
+    private Entry[] buckets = new Entry[INITIAL_CAPACITY];
+
+    /**
+     * The number of lexemes in this segment.
+     */
+    private int size = 0;
+
+    /**
+     * Initialize a newly created segment to contain at most the given number of lexemes.
+     * 
+     * @param maxSize the maximum number of lexemes in the segment
+     */
+    public Segment(int maxSize) {
+      this.maxSize = maxSize;
+    }
+
+    /**
+     * Return the canonical string containing the characters in the given range of the given
+     * sequence, whose hash code is given.
+     * 
+     * @param sequence the sequence containing the characters of the lexeme
+     * @param start the index of the first character of the lexeme
+     * @param end the index one past the last character of the lexeme
+     * @param hash the hash code of the lexeme
+     * @return the canonical string containing the characters in the range
+     */
+    public synchronized String intern(CharSequence sequence, int start, int end, int hash) {
+      int index = hash & (buckets.length - 1);
+      for (Entry entry = buckets[index]; entry != null; entry = entry.next) {
+        if (entry.hash == hash && matches(entry.value, sequence, start, end)) {
+          return entry.value;
+        }
+      }
+      String value = StringUtilities.intern(createString(sequence, start, end));
+      if (size >= maxSize) {
+        buckets = new Entry[INITIAL_CAPACITY];
+        size = 0;
+      } else if (size >= buckets.length - (buckets.length >> 2)) {
+        rehash();
+      }
+      index = hash & (buckets.length - 1);
+      buckets[index] = new Entry(value, hash, buckets[index]);
+      size++;
+      return value;
+    }
+
+    /**
+     * Return the number of lexemes in this segment.
+     * 
+     * @return the number of lexemes in this segment
+     */
+    public synchronized int size() {
+      return size;
+    }
+
+    /**
+     * Double the number of buckets in this segment.
+     */
+    private void rehash() {
+      Entry[] newBuckets = new Entry[buckets.length * 2];
+      for (Entry entry : buckets) {
+        while (entry != null) {
+          int index = entry.hash & (newBuckets.length - 1);
+          newBuckets[index] = new Entry(entry.value, entry.hash, newBuckets[index]);
+          entry = entry.next;
+        }
+      }
+      buckets = newBuckets;
+    }
+  }
+
+  /**
+   * The default maximum number of lexemes in a table.
+   */
+  public static final int DEFAULT_MAX_SIZE = 1 << 16;
+
+  /**
+   * The number of buckets in an empty segment.
+   */
+  private static final int INITIAL_CAPACITY = 64;
+
+  /**
+   * The maximum number of segments in a table. This must be a power of two.
+   */
+  private static final int MAX_SEGMENT_COUNT = 16;
+
+  /**
+   * Return a string containing the characters in the given range of the given sequence.
+   * 
+   * @param sequence the sequence containing the characters
+   * @param start the index of the first character in the range
+   * @param end the index one past the last character in the range
+   * @return a string containing the characters in the range
+   */
+  private static String createString(CharSequence sequence, int start, int end) {
+    if (sequence instanceof String) {
+      return ((String) sequence).substring(start, end);
+    }
+    char[] chars = new char[end - start];
+    for (int i = start; i < end; i++) {
+      chars[i - start] = sequence.charAt(i);
+    }
+    return new String(chars);
+  }
+
+  /**
+   * Return {@code true} if the given string contains the characters in the given range of the given
+   * sequence.
+   * 
+   * @param value the string being compared
+   * @param sequence the sequence containing the characters being compared
+   * @param start the index of the first character in the range
+   * @param end the index one past the last character in the range
+   * @return {@code true} if the string contains the characters in the range
+   */
+  private static boolean matches(String value, CharSequence sequence, int start, int end) {
+    int length = end - start;
+    if (value.length() != length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (value.charAt(i) != sequence.charAt(start + i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * The segments of this table. The number of segments is a power of two.
+   */
+  private final Segment[] segments;
+
+  /**
+   * Initialize a newly created table to contain at most {@link #DEFAULT_MAX_SIZE} lexemes.
+   */
+  public SymbolTable() {
+    this(DEFAULT_MAX_SIZE);
+  }
+
+  /**
+   * Initialize a newly created table to contain at most the given number of lexemes.
+   * 
+   * @param maxSize the maximum number of lexemes in the table
+   */
+  public SymbolTable(int maxSize) {
+    maxSize = Math.max(1, maxSize);
+    int segmentCount = Math.min(MAX_SEGMENT_COUNT, Integer.highestOneBit(maxSize));
+    segments = new Segment[segmentCount];
+    for (int i = 0; i < segmentCount; i++) {
+      segments[i] = new Segment(maxSize / segmentCount);
+    }
+  }
+
+  /**
+   * Return the canonical string containing the characters in the given range of the given
+   * sequence. A new string is created only if the characters have not been seen before.
+   * 
+   * @param sequence the sequence containing the characters of the lexeme
+   * @param start the index of the first character of the lexeme
+   * @param end the index one past the last character of the lexeme
+   * @return the canonical string containing the characters in the range
+   */
+  public String intern(CharSequence sequence, int start, int end) {
+    // same as String.hashCode(), spread so that the high bits also select the bucket
+    int hash = 0;
+    for (int i = start; i < end; i++) {
+      hash = 31 * hash + sequence.charAt(i);
+    }
+    hash ^= hash >>> 16;
+    // the bucket is selected by the low bits, so mix all of the bits to select the segment
+    Segment segment = segments[((hash * 0x9E3779B9) >>> 16) & (segments.length - 1)];
+    return segment.intern(sequence, start, end, hash);
+  }
+
+  /**
+   * Return the number of lexemes in this table.
+   * 
+   * @return the number of lexemes in this table
+   */
+  public int size() {
+    int size = 0;
+    for (Segment segment : segments) {
+      size += segment.size();
+    }
+    return size;
+  }
+}
@@ -19,11 +19,18 @@ import com.google.dart.engine.element.PropertyInducingElement;
 import com.google.dart.engine.type.Type;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
  * The interface <code>SearchEngine</code> defines the behavior of objects that can be used to
  * search for various pieces of information.
+ * <p>
+ * The synchronous methods block until all of the matches have been found, even if the waiting
+ * thread is interrupted, in which case its interrupt status is restored when they return. The
+ * asynchronous methods return immediately and pass the matches to a listener as they are found; a
+ * {@link SearchFuture} can be used as the listener in order to limit the number of matches, to
+ * wait for the matches with a timeout, or to abandon the search.
  * 
  * @coverage dart.engine.search
  */
@@ -148,6 +155,21 @@ public interface SearchEngine {
   void searchReferences(Element element, SearchScope scope, SearchFilter filter,
       SearchListener listener);
 
+  /**
+   * Synchronously search for the direct and indirect subtypes of the given type within the given
+   * scope. Return a table mapping the given type and each of the found subtypes that has subtypes
+   * of its own to the list of its direct subtypes, so that the hierarchy below the given type can
+   * be walked without consulting the element model. A list may contain equal elements from
+   * different contexts.
+   * 
+   * @param type the type being subtyped by the found subtypes
+   * @param scope the scope containing the subtypes to be searched, may be {@code null} if all
+   *          subtypes should be returned
+   * @return a table mapping supertypes to their direct subtypes
+   */
+  Map<ClassElement, List<ClassElement>> searchSubtypeHierarchy(ClassElement type,
+      SearchScope scope);
+
   /**
    * Synchronously search for subtypes of the given type within the given scope. Return all matches
    * that pass the optional filter.
@@ -175,6 +197,40 @@ public interface SearchEngine {
   void searchSubtypes(ClassElement type, SearchScope scope, SearchFilter filter,
       SearchListener listener);
 
+  /**
+   * Synchronously search for the subtypes of the given type within the given scope. If the search
+   * is transitive, the subtypes of the found subtypes are also found, so that the whole hierarchy
+   * below the given type is returned by a single search. Return all matches that pass the optional
+   * filter.
+   * 
+   * @param type the type being subtyped by the found matches
+   * @param transitive {@code true} if the indirect subtypes should be found along with the direct
+   *          subtypes
+   * @param scope the scope containing the subtypes to be searched, may be {@code null} if all
+   *          subtypes should be returned
+   * @param filter the filter used to determine which matches should be returned, or {@code null} if
+   *          all of the matches should be returned
+   */
+  List<SearchMatch> searchSubtypes(ClassElement type, boolean transitive, SearchScope scope,
+      SearchFilter filter);
+
+  /**
+   * Search for the subtypes of the given type within the given scope. If the search is transitive,
+   * the subtypes of the found subtypes are also found.
+   * 
+   * @param type the type being subtyped by the found matches
+   * @param transitive {@code true} if the indirect subtypes should be found along with the direct
+   *          subtypes
+   * @param scope the scope containing the subtypes to be searched, may be {@code null} if all
+   *          subtypes should be returned
+   * @param filter the filter used to determine which matches should be passed to the listener
+   *          (those that pass the filter), or {@code null} if all of the matches should be passed
+   *          to the listener
+   * @param listener the listener that will be notified when matches are found
+   */
+  void searchSubtypes(ClassElement type, boolean transitive, SearchScope scope,
+      SearchFilter filter, SearchListener listener);
+
   /**
    * Synchronously search for all of the type declarations that are defined in the given scope and
    * match the given pattern. Return all matches that pass the optional filter.
@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.search;
+
+import com.google.common.collect.Lists;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Instances of the class {@code SearchFuture} are search listeners that collect the matches passed
+ * to them and make them available as a {@link Future}. This allows a search to be started using
+ * one of the asynchronous methods of {@link SearchEngine} without blocking the caller, which can
+ * later wait for the results, possibly with a timeout, or abandon the search by cancelling the
+ * future.
+ * <p>
+ * A future can optionally be given a limit on the number of matches, in which case it is complete
+ * as soon as that many matches have been found, and a listener to which each match is passed as
+ * soon as it is found, so that matches can be presented incrementally. Once a future is complete
+ * or has been cancelled, any further matches are ignored, and the index queries of the search that
+ * have not yet been performed are discarded without accessing the index.
+ * <p>
+ * Instances of this class are thread-safe. The listener is invoked while holding the lock of the
+ * future, so it is never invoked concurrently, is not passed any match after it has been told that
+ * the search is complete, and is not passed any match after the future has been cancelled.
+ * 
+ * @coverage dart.engine.search
+ */
+public class SearchFuture implements Future<List<SearchMatch>>, SearchListener {
+  /**
+   * The value of the limit used to indicate that all matches should be collected.
+   */
+  public static final int NO_LIMIT = Integer.MAX_VALUE;
+
+  /**
+   * The maximum number of matches to be collected.
+   */
+  private final int limit;
+
+  /**
+   * The listener to which matches are passed as they are found, or {@code null} if there is no such
+   * listener.
+   */
+  private final SearchListener listener;
+
+  /**
+   * The matches that have been collected so far.
+   */
+  private final List<SearchMatch> matches = Lists.newArrayList();
+
+  /**
+   * The latch that is released when this future is complete or cancelled.
+   */
+  private final CountDownLatch latch = new CountDownLatch(1);
+
+  /**
+   * A flag indicating whether this future is complete or has been cancelled.
+   */
+  private boolean isDone = false;
+
+  /**
+   * A flag indicating whether this future has been cancelled.
+   */
+  private boolean isCancelled = false;
+
+  /**
+   * Initialize a newly created future to collect all of the matches that are found.
+   */
+  public SearchFuture() {
+    this(NO_LIMIT, null);
+  }
+
+  /**
+   * Initialize a newly created future to collect at most the given number of matches, passing each
+   * of them to the given listener as soon as it is found.
+   * 
+   * @param limit the maximum number of matches to be collected
+   * @param listener the listener to which matches are to be passed as they are found, or
+   *          {@code null} if there is no such listener
+   */
+  public SearchFuture(int limit, SearchListener listener) {
+    this.limit = limit;
+    this.listener = listener;
+  }
+
+  @Override
+  public boolean cancel(boolean mayInterruptIfRunning) {
+    synchronized (this) {
+      if (isDone) {
+        return false;
+      }
+      isDone = true;
+      isCancelled = true;
+    }
+    latch.countDown();
+    return true;
+  }
+
+  /**
+   * Wait for the search to be complete and return the matches that were collected, sorted by the
+   * names of their elements.
+   * 
+   * @return the matches that were collected
+   * @throws CancellationException if this future was cancelled
+   * @throws InterruptedException if the current thread was interrupted while waiting
+   */
+  @Override
+  public List<SearchMatch> get() throws InterruptedException {
+    latch.await();
+    return getMatches();
+  }
+
+  /**
+   * Wait at most the given time for the search to be complete and return the matches that were
+   * collected, sorted by the names of their elements.
+   * 
+   * @return the matches that were collected
+   * @throws CancellationException if this future was cancelled
+   * @throws InterruptedException if the current thread was interrupted while waiting
+   * @throws TimeoutException if the search was not complete before the time elapsed
+   */
+  @Override
+  public List<SearchMatch> get(long timeout, TimeUnit unit) throws InterruptedException,
+      TimeoutException {
+    if (!latch.await(timeout, unit)) {
+      throw new TimeoutException();
+    }
+    return getMatches();
+  }
+
+  /**
+   * Return the number of matches that have been collected so far.
+   * 
+   * @return the number of matches that have been collected so far
+   */
+  public synchronized int getMatchCount() {
+    return matches.size();
+  }
+
+  @Override
+  public synchronized boolean isCancelled() {
+    return isCancelled;
+  }
+
+  @Override
+  public synchronized boolean isDone() {
+    return isDone;
+  }
+
+  @Override
+  public void matchFound(SearchMatch match) {
+    synchronized (this) {
+      if (isDone) {
+        return;
+      }
+      matches.add(match);
+      if (listener != null) {
+        listener.matchFound(match);
+      }
+      if (matches.size() < limit) {
+        return;
+      }
+      complete();
+    }
+    latch.countDown();
+  }
+
+  @Override
+  public void searchComplete() {
+    synchronized (this) {
+      if (isDone) {
+        return;
+      }
+      complete();
+    }
+    latch.countDown();
+  }
+
+  /**
+   * Mark this future as being complete and notify the listener that the search is complete. The
+   * threads waiting for the results are released by the caller, after the lock has been released.
+   */
+  private void complete() {
+    isDone = true;
+    if (listener != null) {
+      listener.searchComplete();
+    }
+  }
+
+  /**
+   * Return a sorted copy of the matches that were collected.
+   * 
+   * @return the matches that were collected
+   * @throws CancellationException if this future was cancelled
+   */
+  private synchronized List<SearchMatch> getMatches() {
+    if (isCancelled) {
+      throw new CancellationException();
+    }
+    List<SearchMatch> result = Lists.newArrayList(matches);
+    Collections.sort(result, SearchMatch.SORT_BY_ELEMENT_NAME);
+    return result;
+  }
+}
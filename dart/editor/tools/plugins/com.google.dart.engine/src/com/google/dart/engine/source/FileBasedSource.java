@@ -21,6 +21,7 @@ import com.google.dart.engine.utilities.general.TimeCounter.TimeCounterHandle;
 import com.google.dart.engine.utilities.instrumentation.Instrumentation;
 import com.google.dart.engine.utilities.instrumentation.InstrumentationBuilder;
 import com.google.dart.engine.utilities.io.FileUtilities;
+import com.google.dart.engine.utilities.io.Utf8CharSequence;
 import com.google.dart.engine.utilities.translation.DartBlockBody;
 import com.google.dart.engine.utilities.translation.DartOmit;
 
@@ -33,7 +34,6 @@ import java.net.URI;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedByInterruptException;
 import java.nio.channels.FileChannel;
-import java.nio.charset.Charset;
 
 /**
  * Instances of the class {@code FileBasedSource} implement a source that represents a file.
@@ -56,12 +56,6 @@ public class FileBasedSource implements Source {
    */
   private final UriKind uriKind;
 
-  /**
-   * The character set used to decode bytes into characters.
-   */
-  @DartOmit
-  private static final Charset UTF_8_CHARSET = Charset.forName("UTF-8");
-
   /**
    * Initialize a newly created source object. The source object is assumed to not be in a system
    * library.
@@ -223,7 +217,8 @@ public class FileBasedSource implements Source {
       }
       if (byteBuffer != null) {
         byteBuffer.rewind();
-        return new TimestampedData<CharSequence>(modificationTime, UTF_8_CHARSET.decode(byteBuffer));
+        return new TimestampedData<CharSequence>(modificationTime, new Utf8CharSequence(
+            byteBuffer));
       }
     } catch (IOException exception) {
       // Ignored so that we can try reading using non-native I/O
@@ -286,7 +281,7 @@ public class FileBasedSource implements Source {
       }
       if (byteBuffer != null) {
         byteBuffer.rewind();
-        receiver.accept(UTF_8_CHARSET.decode(byteBuffer), modificationTime);
+        receiver.accept(new Utf8CharSequence(byteBuffer), modificationTime);
         return;
       }
     } catch (IOException exception) {
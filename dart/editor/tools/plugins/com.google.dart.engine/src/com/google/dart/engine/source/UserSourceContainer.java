@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.source;
+
+import java.io.File;
+
+/**
+ * Instances of the class {@code UserSourceContainer} represent a source container that contains
+ * the sources owned by the user within a given root directory. These are all of the sources within
+ * the directory except for those within a directory named {@code packages}, which pub fills with
+ * links to the packages being depended on, so that the sources of those packages are excluded even
+ * when they are reached by their file paths.
+ * 
+ * @coverage dart.engine.source
+ */
+public class UserSourceContainer implements SourceContainer {
+  /**
+   * The name of the directories containing the packages being depended on.
+   */
+  private static final String PACKAGES_DIRECTORY_NAME = "packages";
+
+  /**
+   * The container of all of the sources within the root directory.
+   */
+  private final DirectoryBasedSourceContainer root;
+
+  /**
+   * Initialize a newly created container to contain the sources owned by the user within the given
+   * directory.
+   * 
+   * @param directory the root directory of the sources owned by the user
+   */
+  public UserSourceContainer(File directory) {
+    root = new DirectoryBasedSourceContainer(directory);
+  }
+
+  @Override
+  public boolean contains(Source source) {
+    if (!root.contains(source)) {
+      return false;
+    }
+    // the path of the root ends with a separator, which is included in the relative path
+    String relativePath = source.getFullName().substring(root.getPath().length() - 1);
+    return !relativePath.contains(File.separator + PACKAGES_DIRECTORY_NAME + File.separator);
+  }
+
+  /**
+   * Return the path of the root directory, ending with a file separator.
+   * 
+   * @return the path of the root directory
+   */
+  public String getPath() {
+    return root.getPath();
+  }
+
+  @Override
+  public String toString() {
+    return "UserSourceContainer[" + root.getPath() + "]";
+  }
+}
@@ -23,6 +23,9 @@ import java.util.LinkedList;
  * Helper for measuring how much time is spent doing some operation. Each call to
  * {@link #recordElapsedNanos(long)} or each pair of calls to {@link #start()} and
  * {@link TimeCounterHandle#stop()} adds the specified time interval to the total recorded time.
+ * <p>
+ * A counter can be started and stopped on several threads at the same time. The time spent in
+ * nested counters is excluded separately on each thread.
  */
 public class TimeCounter {
   /**
@@ -31,6 +34,21 @@ public class TimeCounter {
   public class TimeCounterHandle {
     final long startTime = System.nanoTime();
 
+    /**
+     * The time spent in counters that were started and stopped on the same thread while this handle
+     * was running. It is only accessed by the thread that started the handle.
+     */
+    long correctionTime = 0L;
+
+    /**
+     * Return the counter that this handle updates.
+     * 
+     * @return the counter that this handle updates
+     */
+    TimeCounter getCounter() {
+      return TimeCounter.this;
+    }
+
     /**
      * Stops counting time and calls {@link TimeCounter#recordElapsedNanos(long)} to add the elapse
      * time to the counter.
@@ -44,15 +62,15 @@ public class TimeCounter {
     }
   }
 
-  private static final ThreadLocal<LinkedList<TimeCounter>> stacks = new ThreadLocal<LinkedList<TimeCounter>>();
+  private static final ThreadLocal<LinkedList<TimeCounterHandle>> stacks = new ThreadLocal<LinkedList<TimeCounterHandle>>();
   public static final int NANOS_PER_MILLI = 1000 * 1000;
 
   /**
-   * Returns the stack of {@link TimeCounter} started on the current {@link Thread} and not stopped
-   * yet.
+   * Returns the stack of {@link TimeCounterHandle} started on the current {@link Thread} and not
+   * stopped yet.
    */
-  private static LinkedList<TimeCounter> getCountersStack() {
-    LinkedList<TimeCounter> stack = stacks.get();
+  private static LinkedList<TimeCounterHandle> getCountersStack() {
+    LinkedList<TimeCounterHandle> stack = stacks.get();
     if (stack == null) {
       stack = Lists.newLinkedList();
       stacks.set(stack);
@@ -61,7 +79,6 @@ public class TimeCounter {
   }
 
   private long totalTime = 0L;
-  private long correctionTime = 0L;
   private long maxInterval = 0L;
   private long minInterval = Long.MAX_VALUE;
 
@@ -72,7 +89,7 @@ public class TimeCounter {
    *         {@link #recordElapsedNanos(long)} or {@link #start()} and
    *         {@link TimeCounterHandle#stop()}
    */
-  public long getAverage() {
+  public synchronized long getAverage() {
     if (intervalCount == 0) {
       return 0;
     }
@@ -83,7 +100,7 @@ public class TimeCounter {
    * @return the number of times that {@link #recordElapsedNanos(long)} and {@link #start()} and
    *         {@link TimeCounterHandle#stop()} were called
    */
-  public int getCount() {
+  public synchronized int getCount() {
     return intervalCount;
   }
 
@@ -92,7 +109,7 @@ public class TimeCounter {
    *         {@link #recordElapsedNanos(long)} or {@link #start()} and
    *         {@link TimeCounterHandle#stop()}
    */
-  public long getMax() {
+  public synchronized long getMax() {
     return maxInterval / NANOS_PER_MILLI;
   }
 
@@ -101,7 +118,7 @@ public class TimeCounter {
    *         {@link #recordElapsedNanos(long)} or {@link #start()} and
    *         {@link TimeCounterHandle#stop()}
    */
-  public long getMin() {
+  public synchronized long getMin() {
     if (intervalCount == 0) {
       return 0;
     }
@@ -111,7 +128,7 @@ public class TimeCounter {
   /**
    * @return the number of milliseconds spent between {@link #start()} and {@link #stop()}.
    */
-  public long getResult() {
+  public synchronized long getResult() {
     return totalTime / NANOS_PER_MILLI;
   }
 
@@ -121,24 +138,25 @@ public class TimeCounter {
    * 
    * @param delta the number of nanoseconds
    */
-  public synchronized void recordElapsedNanos(long delta) {
+  public void recordElapsedNanos(long delta) {
     // apply correction to the other counters on the thread stack
-    LinkedList<TimeCounter> stack = getCountersStack();
-    TimeCounter removed = stack.removeFirst();
-    if (removed != this) {
+    LinkedList<TimeCounterHandle> stack = getCountersStack();
+    TimeCounterHandle removed = stack.removeFirst();
+    if (removed.getCounter() != this) {
       AnalysisEngine.getInstance().getLogger().logInformation(
           "Unexpected TimeCounter instance stack in " + Thread.currentThread(),
           new IllegalStateException());
     }
-    for (TimeCounter timeCounter : stack) {
-      timeCounter.correctionTime += delta;
+    for (TimeCounterHandle handle : stack) {
+      handle.correctionTime += delta;
     }
     // update statistics
-    totalTime += delta - correctionTime;
-    correctionTime = 0;
-    intervalCount++;
-    minInterval = Math.min(minInterval, delta);
-    maxInterval = Math.max(maxInterval, delta);
+    synchronized (this) {
+      totalTime += delta - removed.correctionTime;
+      intervalCount++;
+      minInterval = Math.min(minInterval, delta);
+      maxInterval = Math.max(maxInterval, delta);
+    }
   }
 
   /**
@@ -146,8 +164,9 @@ public class TimeCounter {
    * 
    * @return the {@link TimeCounterHandle} that should be used to stop counting.
    */
-  public synchronized TimeCounterHandle start() {
-    getCountersStack().addFirst(this);
-    return new TimeCounterHandle();
+  public TimeCounterHandle start() {
+    TimeCounterHandle handle = new TimeCounterHandle();
+    getCountersStack().addFirst(handle);
+    return handle;
   }
 }
@@ -0,0 +1,301 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.utilities.io;
+
+import com.google.dart.engine.utilities.translation.DartOmit;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+
+/**
+ * Instances of the class {@code Utf8CharSequence} implement a character sequence whose characters
+ * are read directly from a buffer containing UTF-8 encoded bytes, such as the contents of a file.
+ * <p>
+ * Only the runs of non-ASCII bytes are decoded, when the sequence is created. The characters
+ * between those runs are read from the buffer when they are accessed, so the contents of a file
+ * that is mostly ASCII are kept in half of the memory needed for a character array. A string
+ * containing all of the characters is only created by {@link #toString()}, which copies the
+ * characters between the runs and the decoded runs in bulk, as does {@link #subSequence(int, int)}.
+ * 
+ * @coverage dart.engine.utilities
+ */
+@DartOmit
+public class Utf8CharSequence implements CharSequence {
+  /**
+   * The character set used to decode the runs of non-ASCII bytes.
+   */
+  private static final Charset UTF_8_CHARSET = Charset.forName("UTF-8");
+
+  /**
+   * The buffer containing the encoded characters.
+   */
+  private final ByteBuffer bytes;
+
+  /**
+   * The index of the first byte of the encoded characters in the buffer.
+   */
+  private final int byteOffset;
+
+  /**
+   * The number of characters in this sequence.
+   */
+  private final int length;
+
+  /**
+   * The number of runs of non-ASCII bytes.
+   */
+  private final int runCount;
+
+  /**
+   * The index of the first character of each run of non-ASCII bytes.
+   */
+  private final int[] runCharStarts;
+
+  /**
+   * The index, relative to the byte offset, of the byte following each run of non-ASCII bytes.
+   */
+  private final int[] runByteEnds;
+
+  /**
+   * The decoded characters of each run of non-ASCII bytes.
+   */
+  private final char[][] runChars;
+
+  /**
+   * The index of the run that contained or preceded the last character that was accessed. Most
+   * characters are accessed in order, so this is usually the run for the next character as well.
+   */
+  private int lastRun = -1;
+
+  /**
+   * Return the index of the first ASCII byte at or after the given index, or the given length if
+   * there is no such byte.
+   * 
+   * @param bytes the buffer containing the bytes
+   * @param offset the index in the buffer of the byte at index zero
+   * @param index the index of the first byte to be tested
+   * @param length the number of bytes
+   * @return the index of the first ASCII byte at or after the index
+   */
+  private static int indexOfAscii(ByteBuffer bytes, int offset, int index, int length) {
+    while (index < length && bytes.get(offset + index) < 0) {
+      index++;
+    }
+    return index;
+  }
+
+  /**
+   * Return the index of the first non-ASCII byte at or after the given index, or the given length
+   * if there is no such byte.
+   * 
+   * @param bytes the buffer containing the bytes
+   * @param offset the index in the buffer of the byte at index zero
+   * @param index the index of the first byte to be tested
+   * @param length the number of bytes
+   * @return the index of the first non-ASCII byte at or after the index
+   */
+  private static int indexOfNonAscii(ByteBuffer bytes, int offset, int index, int length) {
+    while (index < length && bytes.get(offset + index) >= 0) {
+      index++;
+    }
+    return index;
+  }
+
+  /**
+   * Initialize a newly created sequence to contain the characters encoded by the remaining bytes
+   * in the given buffer. The position and limit of the buffer are not changed, and the bytes must
+   * not be modified while the sequence is in use.
+   * 
+   * @param bytes the buffer containing the UTF-8 encoded characters
+   */
+  public Utf8CharSequence(ByteBuffer bytes) {
+    this.bytes = bytes;
+    this.byteOffset = bytes.position();
+    int byteLength = bytes.remaining();
+    ArrayList<Integer> charStarts = new ArrayList<Integer>();
+    ArrayList<Integer> byteEnds = new ArrayList<Integer>();
+    ArrayList<char[]> chars = new ArrayList<char[]>();
+    int charCount = 0;
+    int asciiStart = 0;
+    int runStart = indexOfNonAscii(bytes, byteOffset, 0, byteLength);
+    while (runStart < byteLength) {
+      // decode a run of non-ASCII bytes, which always ends on a character boundary
+      int runEnd = indexOfAscii(bytes, byteOffset, runStart, byteLength);
+      ByteBuffer run = bytes.duplicate();
+      run.position(byteOffset + runStart);
+      run.limit(byteOffset + runEnd);
+      CharBuffer decoded = UTF_8_CHARSET.decode(run);
+      char[] runCharacters = new char[decoded.remaining()];
+      decoded.get(runCharacters);
+      charCount += runStart - asciiStart;
+      charStarts.add(charCount);
+      byteEnds.add(runEnd);
+      chars.add(runCharacters);
+      charCount += runCharacters.length;
+      asciiStart = runEnd;
+      runStart = indexOfNonAscii(bytes, byteOffset, runEnd, byteLength);
+    }
+    charCount += byteLength - asciiStart;
+    this.length = charCount;
+    this.runCount = chars.size();
+    this.runCharStarts = new int[runCount];
+    this.runByteEnds = new int[runCount];
+    this.runChars = chars.toArray(new char[runCount][]);
+    for (int i = 0; i < runCount; i++) {
+      runCharStarts[i] = charStarts.get(i);
+      runByteEnds[i] = byteEnds.get(i);
+    }
+  }
+
+  @Override
+  public char charAt(int index) {
+    if (index < 0 || index >= length) {
+      throw new IndexOutOfBoundsException("Index " + index + " not in [0, " + length + ")");
+    }
+    if (runCount == 0) {
+      return (char) bytes.get(byteOffset + index);
+    }
+    int run = findRun(index);
+    if (run < 0) {
+      return (char) bytes.get(byteOffset + index);
+    }
+    int runCharEnd = runCharStarts[run] + runChars[run].length;
+    if (index < runCharEnd) {
+      return runChars[run][index - runCharStarts[run]];
+    }
+    return (char) bytes.get(byteOffset + runByteEnds[run] + index - runCharEnd);
+  }
+
+  @Override
+  public int length() {
+    return length;
+  }
+
+  @Override
+  public CharSequence subSequence(int start, int end) {
+    if (start < 0 || end > length || start > end) {
+      throw new IndexOutOfBoundsException("Range [" + start + ", " + end + ") not in [0, " + length
+          + ")");
+    }
+    char[] characters = new char[end - start];
+    int run = runCount == 0 ? -1 : findRun(start);
+    int index = start;
+    while (index < end) {
+      if (run >= 0) {
+        int runCharStart = runCharStarts[run];
+        int runCharEnd = runCharStart + runChars[run].length;
+        if (index < runCharEnd) {
+          int count = Math.min(end, runCharEnd) - index;
+          System.arraycopy(runChars[run], index - runCharStart, characters, index - start, count);
+          index += count;
+        }
+      }
+      // copy the ASCII characters following the run
+      int asciiCharStart = run < 0 ? 0 : runCharStarts[run] + runChars[run].length;
+      int asciiByteStart = run < 0 ? 0 : runByteEnds[run];
+      int asciiCharEnd = run + 1 < runCount ? runCharStarts[run + 1] : length;
+      int count = Math.min(end, asciiCharEnd) - index;
+      if (count > 0) {
+        getAscii(asciiByteStart + index - asciiCharStart, characters, index - start, count);
+        index += count;
+      }
+      run++;
+    }
+    return new String(characters);
+  }
+
+  @Override
+  public String toString() {
+    return subSequence(0, length).toString();
+  }
+
+  /**
+   * Return the index of the last run of non-ASCII bytes whose first character is at or before the
+   * given index, or {@code -1} if there is no such run.
+   * 
+   * @param index the index of the character being accessed
+   * @return the index of the run containing or preceding the character
+   */
+  private int findRun(int index) {
+    int run = lastRun;
+    if (isRunFor(run, index)) {
+      return run;
+    }
+    if (isRunFor(run + 1, index)) {
+      lastRun = run + 1;
+      return run + 1;
+    }
+    int low = 0;
+    int high = runCount - 1;
+    run = -1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      if (runCharStarts[middle] <= index) {
+        run = middle;
+        low = middle + 1;
+      } else {
+        high = middle - 1;
+      }
+    }
+    lastRun = run;
+    return run;
+  }
+
+  /**
+   * Copy the given number of ASCII characters, starting with the byte at the given index, into the
+   * given array.
+   * 
+   * @param byteIndex the index, relative to the byte offset, of the first byte to be copied
+   * @param characters the array into which the characters are to be copied
+   * @param charIndex the index in the array of the first character to be copied
+   * @param count the number of characters to be copied
+   */
+  private void getAscii(int byteIndex, char[] characters, int charIndex, int count) {
+    byte[] array;
+    int arrayIndex;
+    if (bytes.hasArray()) {
+      array = bytes.array();
+      arrayIndex = bytes.arrayOffset() + byteOffset + byteIndex;
+    } else {
+      array = new byte[count];
+      arrayIndex = 0;
+      ByteBuffer source = bytes.duplicate();
+      source.position(byteOffset + byteIndex);
+      source.get(array);
+    }
+    for (int i = 0; i < count; i++) {
+      characters[charIndex + i] = (char) array[arrayIndex + i];
+    }
+  }
+
+  /**
+   * Return {@code true} if the given run is the last run whose first character is at or before the
+   * given index.
+   * 
+   * @param run the index of the run being tested, which might not be a valid index
+   * @param index the index of the character being accessed
+   * @return {@code true} if the run is the run containing or preceding the character
+   */
+  private boolean isRunFor(int run, int index) {
+    if (run < -1 || run >= runCount) {
+      return false;
+    }
+    if (run >= 0 && runCharStarts[run] > index) {
+      return false;
+    }
+    return run + 1 == runCount || runCharStarts[run + 1] > index;
+  }
+}
@@ -44,6 +44,12 @@ public class AnalysisEngineTest extends EngineTestCase {
     assertNotNull(manager);
   }
 
+  public void test_getTaskExecutor() {
+    AnalysisEngine engine = AnalysisEngine.getInstance();
+    assertNotNull(engine.getTaskExecutor());
+    assertSame(engine.getTaskExecutor(), engine.getTaskExecutor());
+  }
+
   public void test_isDartFileName_false() {
     assertFalse(AnalysisEngine.isDartFileName("foo.css"));
   }
@@ -18,6 +18,8 @@ import com.google.dart.engine.source.Source;
 import com.google.dart.engine.source.TestSource;
 import com.google.dart.engine.utilities.collection.MapIterator;
 
+import java.util.concurrent.locks.ReentrantLock;
+
 import static com.google.dart.engine.utilities.io.FileUtilities2.createFile;
 
 public class AnalysisCacheTest extends EngineTestCase {
@@ -31,6 +33,29 @@ public class AnalysisCacheTest extends EngineTestCase {
     assertNull(cache.get(source));
   }
 
+  public void test_getSharedLocks() {
+    SdkCachePartition sdkPartition = new SdkCachePartition(8);
+    CachePartition partition = new UniversalCachePartition(8, new DefaultRetentionPolicy());
+    AnalysisCache cache = new AnalysisCache(new CachePartition[] {sdkPartition, partition});
+    ReentrantLock[] locks = cache.getSharedLocks();
+    assertLength(1, locks);
+    assertSame(sdkPartition.getLock(), locks[0]);
+  }
+
+  public void test_getSharedLocks_notShared() {
+    CachePartition partition = new UniversalCachePartition(8, new DefaultRetentionPolicy());
+    AnalysisCache cache = new AnalysisCache(new CachePartition[] {partition});
+    assertLength(0, cache.getSharedLocks());
+    assertLength(0, cache.getSharedLocks(new TestSource()));
+  }
+
+  public void test_getSharedLocks_source() {
+    SdkCachePartition sdkPartition = new SdkCachePartition(8);
+    CachePartition partition = new UniversalCachePartition(8, new DefaultRetentionPolicy());
+    AnalysisCache cache = new AnalysisCache(new CachePartition[] {sdkPartition, partition});
+    assertLength(0, cache.getSharedLocks(new TestSource()));
+  }
+
   public void test_iterator() {
     CachePartition partition = new UniversalCachePartition(8, new DefaultRetentionPolicy());
     AnalysisCache cache = new AnalysisCache(new CachePartition[] {partition});
@@ -36,4 +36,19 @@ public class PartitionManagerTest extends EngineTestCase {
     assertSame(partition2, manager.forSdk(sdk2));
     assertNotSame(partition1, partition2);
   }
+
+  public void test_getDefaultSdkCacheBudget() {
+    assertTrue(PartitionManager.getDefaultSdkCacheBudget() > 0L);
+  }
+
+  public void test_setSdkCacheBudget() {
+    PartitionManager manager = new PartitionManager();
+    assertEquals(0L, manager.getSdkCacheBudget());
+    SdkCachePartition existingPartition = manager.forSdk(new MockDartSdk());
+    manager.setSdkCacheBudget(1024L);
+    assertEquals(1024L, manager.getSdkCacheBudget());
+    // the budget applies to existing and new partitions alike
+    assertEquals(1024L, existingPartition.getMaxAstBytes());
+    assertEquals(1024L, manager.forSdk(new MockDartSdk()).getMaxAstBytes());
+  }
 }
@@ -38,4 +38,8 @@ public class SdkCachePartitionTest extends EngineTestCase {
   public void test_creation() {
     assertNotNull(new SdkCachePartition(8));
   }
+
+  public void test_isShared() {
+    assertTrue(new SdkCachePartition(8).isShared());
+  }
 }
@@ -14,9 +14,11 @@
 package com.google.dart.engine.internal.cache;
 
 import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.ast.CompilationUnit;
 import com.google.dart.engine.source.Source;
 import com.google.dart.engine.source.TestSource;
 
+import static com.google.dart.engine.parser.ParserTestCase.parseCompilationUnit;
 import static com.google.dart.engine.utilities.io.FileUtilities2.createFile;
 
 import java.util.Iterator;
@@ -24,6 +26,98 @@ import java.util.Map;
 import java.util.Map.Entry;
 
 public class UniversalCachePartitionTest extends EngineTestCase {
+  public void test_accessedAst_flushLeastRecentlyUsed() {
+    UniversalCachePartition partition = new UniversalCachePartition(3, new CacheRetentionPolicy() {
+      @Override
+      public RetentionPriority getAstPriority(Source source, SourceEntry sourceEntry) {
+        return RetentionPriority.LOW;
+      }
+    });
+    Source[] sources = createSources(partition, 4);
+    partition.accessedAst(sources[0]);
+    partition.accessedAst(sources[1]);
+    partition.accessedAst(sources[2]);
+    // access "0" again, so "1" is the least recently used
+    partition.accessedAst(sources[0]);
+    partition.accessedAst(sources[3]);
+    assertFlushed(partition, sources[1]);
+    assertNonFlushedCount(3, partition);
+  }
+
+  public void test_accessedAst_highPriorityCheckedOnce() {
+    final Source[] sources = new Source[6];
+    final int[] checkCount = {0};
+    UniversalCachePartition partition = new UniversalCachePartition(2, new CacheRetentionPolicy() {
+      @Override
+      public RetentionPriority getAstPriority(Source source, SourceEntry sourceEntry) {
+        if (source == sources[0]) {
+          checkCount[0]++;
+          return RetentionPriority.HIGH;
+        }
+        return RetentionPriority.LOW;
+      }
+    });
+    System.arraycopy(createSources(partition, 6), 0, sources, 0, 6);
+    for (Source source : sources) {
+      partition.accessedAst(source);
+    }
+    // "0" is found to have a high priority once, and is not checked again by later flushes
+    assertEquals(1, checkCount[0]);
+    assertFlushed(partition, sources[4]);
+    assertNonFlushedCount(2, partition);
+  }
+
+  public void test_accessedAst_keepHighPriority() {
+    final Source[] sources = new Source[4];
+    UniversalCachePartition partition = new UniversalCachePartition(2, new CacheRetentionPolicy() {
+      @Override
+      public RetentionPriority getAstPriority(Source source, SourceEntry sourceEntry) {
+        if (source == sources[0]) {
+          return RetentionPriority.HIGH;
+        } else if (source == sources[1]) {
+          return RetentionPriority.MEDIUM;
+        }
+        return RetentionPriority.LOW;
+      }
+    });
+    System.arraycopy(createSources(partition, 4), 0, sources, 0, 4);
+    partition.accessedAst(sources[0]);
+    partition.accessedAst(sources[1]);
+    // "1" has a medium priority and is flushed, "0" has a high priority and is kept
+    partition.accessedAst(sources[2]);
+    assertFlushed(partition, sources[1]);
+    // "2" has a low priority, so it is flushed even though "0" was used less recently
+    partition.accessedAst(sources[3]);
+    assertFlushed(partition, sources[2]);
+    assertNonFlushedCount(2, partition);
+  }
+
+  public void test_accessedAst_lostHighPriority() {
+    final Source[] sources = new Source[5];
+    final boolean[] isPriority = {true};
+    UniversalCachePartition partition = new UniversalCachePartition(3, new CacheRetentionPolicy() {
+      @Override
+      public RetentionPriority getAstPriority(Source source, SourceEntry sourceEntry) {
+        if (source == sources[0] && isPriority[0]) {
+          return RetentionPriority.HIGH;
+        }
+        return RetentionPriority.LOW;
+      }
+    });
+    System.arraycopy(createSources(partition, 5), 0, sources, 0, 5);
+    partition.accessedAst(sources[0]);
+    partition.accessedAst(sources[1]);
+    partition.accessedAst(sources[2]);
+    partition.accessedAst(sources[3]);
+    assertFlushed(partition, sources[1]);
+    // "0" is no longer a priority, and is still the least recently used
+    isPriority[0] = false;
+    partition.updateRetainedPriorities();
+    partition.accessedAst(sources[4]);
+    assertFlushed(partition, sources[0]);
+    assertNonFlushedCount(3, partition);
+  }
+
   public void test_contains() {
     UniversalCachePartition partition = new UniversalCachePartition(8, null);
     TestSource source = new TestSource();
@@ -34,6 +128,10 @@ public class UniversalCachePartitionTest extends EngineTestCase {
     assertNotNull(new UniversalCachePartition(8, null));
   }
 
+  public void test_isShared() {
+    assertFalse(new UniversalCachePartition(8, null).isShared());
+  }
+
   public void test_entrySet() {
     UniversalCachePartition partition = new UniversalCachePartition(8, null);
     TestSource source = new TestSource();
@@ -47,12 +145,59 @@ public class UniversalCachePartitionTest extends EngineTestCase {
     assertFalse(entries.hasNext());
   }
 
+  public void test_estimateAstBytes() throws Exception {
+    CompilationUnit unit = parseCompilationUnit("class A {}");
+    assertEquals(
+        10 * CachePartition.ESTIMATED_BYTES_PER_CHARACTER,
+        CachePartition.estimateAstBytes(unit));
+  }
+
+  public void test_estimateAstBytes_null() {
+    assertEquals(0L, CachePartition.estimateAstBytes((CompilationUnit) null));
+  }
+
   public void test_get() {
     UniversalCachePartition partition = new UniversalCachePartition(8, null);
     TestSource source = new TestSource();
     assertNull(partition.get(source));
   }
 
+  public void test_put_flushOverBudget() throws Exception {
+    UniversalCachePartition partition = new UniversalCachePartition(8, new CacheRetentionPolicy() {
+      @Override
+      public RetentionPriority getAstPriority(Source source, SourceEntry sourceEntry) {
+        return RetentionPriority.LOW;
+      }
+    });
+    long unitBytes = CachePartition.estimateAstBytes(parseCompilationUnit("class A {}"));
+    partition.setMaxAstBytes(2 * unitBytes);
+    Source[] sources = createSources(partition, 3);
+    for (Source source : sources) {
+      storeAst(partition, source, "class A {}");
+    }
+    // "0" is the least recently used source, so it is flushed to stay within the budget
+    assertFlushed(partition, sources[0]);
+    assertNonFlushedCount(2, partition);
+    assertEquals(2 * unitBytes, partition.getAstBytes());
+  }
+
+  public void test_put_keepMostRecentlyUsed() throws Exception {
+    UniversalCachePartition partition = new UniversalCachePartition(8, new CacheRetentionPolicy() {
+      @Override
+      public RetentionPriority getAstPriority(Source source, SourceEntry sourceEntry) {
+        return RetentionPriority.LOW;
+      }
+    });
+    partition.setMaxAstBytes(1L);
+    Source[] sources = createSources(partition, 2);
+    storeAst(partition, sources[0], "class A {}");
+    // the AST that was just stored is kept, even though it exceeds the budget
+    assertNonFlushedCount(2, partition);
+    storeAst(partition, sources[1], "class B {}");
+    assertFlushed(partition, sources[0]);
+    assertNonFlushedCount(1, partition);
+  }
+
   public void test_put_noFlush() {
     UniversalCachePartition partition = new UniversalCachePartition(8, null);
     TestSource source = new TestSource();
@@ -61,6 +206,16 @@ public class UniversalCachePartitionTest extends EngineTestCase {
     assertSame(entry, partition.get(source));
   }
 
+  public void test_put_updatesAstBytes() throws Exception {
+    UniversalCachePartition partition = new UniversalCachePartition(8, null);
+    Source source = createSources(partition, 1)[0];
+    assertEquals(0L, partition.getAstBytes());
+    CompilationUnit unit = storeAst(partition, source, "class A {}");
+    assertEquals(CachePartition.estimateAstBytes(unit), partition.getAstBytes());
+    partition.removedAst(source);
+    assertEquals(0L, partition.getAstBytes());
+  }
+
   public void test_remove() {
     UniversalCachePartition partition = new UniversalCachePartition(8, null);
     TestSource source = new TestSource();
@@ -71,6 +226,25 @@ public class UniversalCachePartitionTest extends EngineTestCase {
     assertNull(partition.get(source));
   }
 
+  public void test_setMaxAstBytes() throws Exception {
+    UniversalCachePartition partition = new UniversalCachePartition(8, new CacheRetentionPolicy() {
+      @Override
+      public RetentionPriority getAstPriority(Source source, SourceEntry sourceEntry) {
+        return RetentionPriority.LOW;
+      }
+    });
+    Source[] sources = createSources(partition, 3);
+    long totalBytes = 0L;
+    for (Source source : sources) {
+      totalBytes += CachePartition.estimateAstBytes(storeAst(partition, source, "class A {}"));
+    }
+    assertNonFlushedCount(3, partition);
+    assertEquals(totalBytes, partition.getAstBytes());
+    partition.setMaxAstBytes(totalBytes - 1);
+    assertFlushed(partition, sources[0]);
+    assertNonFlushedCount(2, partition);
+  }
+
   public void test_setMaxCacheSize() {
     UniversalCachePartition partition = new UniversalCachePartition(8, new CacheRetentionPolicy() {
       @Override
@@ -103,6 +277,10 @@ public class UniversalCachePartitionTest extends EngineTestCase {
     assertEquals(size, partition.size());
   }
 
+  private void assertFlushed(UniversalCachePartition partition, Source source) {
+    assertSame(CacheState.FLUSHED, partition.get(source).getState(DartEntry.PARSED_UNIT));
+  }
+
   private void assertNonFlushedCount(int expectedCount, UniversalCachePartition partition) {
     int nonFlushedCount = 0;
     Iterator<Entry<Source, SourceEntry>> entries = partition.getMap().entrySet().iterator();
@@ -114,4 +292,25 @@ public class UniversalCachePartitionTest extends EngineTestCase {
     }
     assertEquals(expectedCount, nonFlushedCount);
   }
+
+  private Source[] createSources(UniversalCachePartition partition, int count) {
+    Source[] sources = new Source[count];
+    for (int i = 0; i < count; i++) {
+      sources[i] = new TestSource(createFile("/test" + i + ".dart"), "");
+      DartEntryImpl entry = new DartEntryImpl();
+      entry.setValue(DartEntry.PARSED_UNIT, null);
+      partition.put(sources[i], entry);
+    }
+    return sources;
+  }
+
+  private CompilationUnit storeAst(UniversalCachePartition partition, Source source, String code)
+      throws Exception {
+    CompilationUnit unit = parseCompilationUnit(code);
+    partition.storedAst(source);
+    DartEntryImpl entry = ((DartEntry) partition.get(source)).getWritableCopy();
+    entry.setValue(DartEntry.PARSED_UNIT, unit);
+    partition.put(source, entry);
+    return unit;
+  }
 }
@@ -19,13 +19,16 @@ import com.google.dart.engine.ast.ImportDirective;
 import com.google.dart.engine.ast.SimpleIdentifier;
 import com.google.dart.engine.ast.TopLevelVariableDeclaration;
 import com.google.dart.engine.context.AnalysisContentStatistics;
+import com.google.dart.engine.context.AnalysisContext;
 import com.google.dart.engine.context.AnalysisContextFactory;
 import com.google.dart.engine.context.AnalysisDelta;
 import com.google.dart.engine.context.AnalysisDelta.AnalysisLevel;
 import com.google.dart.engine.context.AnalysisErrorInfo;
 import com.google.dart.engine.context.AnalysisException;
 import com.google.dart.engine.context.AnalysisOptions;
+import com.google.dart.engine.context.AnalysisResult;
 import com.google.dart.engine.context.ChangeNotice;
+import com.google.dart.engine.context.ChangeNoticeListener;
 import com.google.dart.engine.context.ChangeSet;
 import com.google.dart.engine.element.ClassElement;
 import com.google.dart.engine.element.CompilationUnitElement;
@@ -36,11 +39,14 @@ import com.google.dart.engine.element.LibraryElement;
 import com.google.dart.engine.element.PropertyAccessorElement;
 import com.google.dart.engine.error.AnalysisError;
 import com.google.dart.engine.error.ErrorSeverity;
+import com.google.dart.engine.error.HintCode;
 import com.google.dart.engine.html.ast.HtmlScriptTagNode;
 import com.google.dart.engine.html.ast.HtmlUnit;
 import com.google.dart.engine.html.ast.XmlTagNode;
 import com.google.dart.engine.internal.cache.DartEntry;
 import com.google.dart.engine.internal.scope.Namespace;
+import com.google.dart.engine.internal.task.ParseDartSourcesTask;
+import com.google.dart.engine.internal.task.ResolveDartLibraryCyclesTask;
 import com.google.dart.engine.internal.task.ResolveDartLibraryTask;
 import com.google.dart.engine.sdk.DirectoryBasedDartSdk;
 import com.google.dart.engine.source.DartUriResolver;
@@ -51,12 +57,15 @@ import com.google.dart.engine.source.SourceContainer;
 import com.google.dart.engine.source.SourceFactory;
 import com.google.dart.engine.source.SourceKind;
 import com.google.dart.engine.source.TestSource;
+import com.google.dart.engine.source.UriKind;
+import com.google.dart.engine.source.UserSourceContainer;
 import com.google.dart.engine.utilities.source.LineInfo;
 
 import static com.google.dart.engine.utilities.io.FileUtilities2.createFile;
 
 import java.lang.reflect.Field;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class AnalysisContextImplTest extends EngineTestCase {
@@ -119,14 +128,45 @@ public class AnalysisContextImplTest extends EngineTestCase {
 
   @Override
   public void setUp() {
-    context = new AnalysisContextImpl();
-    sourceFactory = new SourceFactory(
-        new DartUriResolver(DirectoryBasedDartSdk.getDefaultSdk()),
-        new FileUriResolver());
-    context.setSourceFactory(sourceFactory);
-    AnalysisOptionsImpl options = new AnalysisOptionsImpl(context.getAnalysisOptions());
-    options.setCacheSize(256);
-    context.setAnalysisOptions(options);
+    context = createContext();
+    sourceFactory = context.getSourceFactory();
+  }
+
+  public void test_addListener() throws Exception {
+    final ArrayList<ChangeNotice> received = new ArrayList<ChangeNotice>();
+    context.addListener(new ChangeNoticeListener() {
+      @Override
+      public void resultsChanged(AnalysisContext changedContext, ChangeNotice[] notices) {
+        assertSame(context, changedContext);
+        assertTrue(notices.length > 0);
+        received.addAll(Arrays.asList(notices));
+      }
+    });
+    Source source = addSource("/test.dart", "main() { int x = ''; }");
+    ArrayList<ChangeNotice> returned = new ArrayList<ChangeNotice>();
+    for (int i = 0; i < 512; i++) {
+      ChangeNotice[] notices = context.performAnalysisTask().getChangeNotices();
+      if (notices == null) {
+        break;
+      }
+      returned.addAll(Arrays.asList(notices));
+    }
+    assertEquals(returned, received);
+    CompilationUnit unit = null;
+    AnalysisError[] errors = null;
+    for (ChangeNotice notice : received) {
+      if (notice.getSource().equals(source)) {
+        if (notice.getCompilationUnit() != null) {
+          unit = notice.getCompilationUnit();
+        }
+        if (notice.getErrors() != null) {
+          errors = notice.getErrors();
+        }
+      }
+    }
+    assertSame(context.getResolvedCompilationUnit(source, source), unit);
+    assertNotNull(errors);
+    assertEquals(context.getErrors(source).getErrors().length, errors.length);
   }
 
   public void test_applyChanges_add() {
@@ -843,6 +883,37 @@ public class AnalysisContextImplTest extends EngineTestCase {
     assertLength(0, statistics.getCacheRows());
     assertLength(0, statistics.getExceptions());
     assertLength(0, statistics.getSources());
+    assertEquals(0L, statistics.getEstimatedAstBytes());
+  }
+
+  public void test_getStatistics_estimatedAstBytes() throws Exception {
+    Source source = addSource("/test.dart", "class A {}");
+    context.parseCompilationUnit(source);
+    AnalysisContentStatistics statistics = context.getStatistics();
+    assertTrue(statistics.getEstimatedAstBytes() > 0L);
+  }
+
+  public void test_getStatistics_concurrentContexts() throws Exception {
+    // the contexts share the partition for the SDK
+    AnalysisContextImpl context2 = createContext();
+    Source source = addSource("/test.dart", "import 'dart:async'; Future f = new Future.value(1);");
+    Source source2 = addSource(context2, "/test2.dart", "import 'dart:math'; num x = max(1, 2);");
+    Throwable[] failure = new Throwable[1];
+    Thread thread = analyzeOnThread(context2, failure);
+    while (thread.isAlive()) {
+      assertNotNull(context.getStatistics());
+      assertNotNull(context.performAnalysisTask());
+    }
+    thread.join();
+    if (failure[0] != null) {
+      throw new Exception(failure[0]);
+    }
+    analyzeAll_assertFinished(10000);
+    assertNotNull(context.getResolvedCompilationUnit(source, source));
+    assertLength(0, context.getErrors(source).getErrors());
+    assertNotNull(context2.getResolvedCompilationUnit(source2, source2));
+    assertLength(0, context2.getErrors(source2).getErrors());
+    assertTrue(context.getStatistics().getCacheRows().length > 0);
   }
 
   public void test_isClientLibrary_dart() throws Exception {
@@ -1042,6 +1113,27 @@ public class AnalysisContextImplTest extends EngineTestCase {
     assertLength(0, context.getErrors(partSource).getErrors());
   }
 
+  public void test_performAnalysisTask_concurrentContexts() throws Exception {
+    // the contexts share the partition for the SDK
+    AnalysisContextImpl context2 = createContext();
+    Source source = addSource("/test.dart", "import 'dart:async'; Future f = new Future.value(1);");
+    Source source2 = addSource(context2, "/test2.dart", "import 'dart:async'; Stream s = null;");
+    Throwable[] failure = new Throwable[2];
+    Thread thread = analyzeOnThread(context, failure);
+    Thread thread2 = analyzeOnThread(context2, failure);
+    thread.join();
+    thread2.join();
+    for (Throwable exception : failure) {
+      if (exception != null) {
+        throw new Exception(exception);
+      }
+    }
+    assertNotNull(context.getResolvedCompilationUnit(source, source));
+    assertLength(0, context.getErrors(source).getErrors());
+    assertNotNull(context2.getResolvedCompilationUnit(source2, source2));
+    assertLength(0, context2.getErrors(source2).getErrors());
+  }
+
   public void test_performAnalysisTask_importedLibraryAdd() throws Exception {
     Source libASource = addSource("/libA.dart", "library libA; import 'libB.dart';");
     analyzeAll_assertFinished();
@@ -1136,6 +1228,135 @@ public class AnalysisContextImplTest extends EngineTestCase {
         context.getLibraryElement(source));
   }
 
+  public void test_performAnalysisTask_packageErrors_notGenerated() throws Exception {
+    AnalysisOptionsImpl options = new AnalysisOptionsImpl(context.getAnalysisOptions());
+    options.setGeneratePackageErrors(false);
+    context.setAnalysisOptions(options);
+    Source source = addPackageSource("/pkg/lib.dart", "int x = '';");
+    analyzeAll_assertFinished();
+    assertLength(0, context.getErrors(source).getErrors());
+    assertLength(1, context.computeErrors(source));
+  }
+
+  public void test_performAnalysisTask_packageErrors_priority() throws Exception {
+    AnalysisOptionsImpl options = new AnalysisOptionsImpl(context.getAnalysisOptions());
+    options.setGeneratePackageErrors(false);
+    context.setAnalysisOptions(options);
+    Source source = addPackageSource("/pkg/lib.dart", "int x = '';");
+    ArrayList<Source> sources = new ArrayList<Source>();
+    sources.add(source);
+    context.setAnalysisPriorityOrder(sources);
+    analyzeAll_assertFinished();
+    assertLength(1, context.getErrors(source).getErrors());
+  }
+
+  public void test_performAnalysisTask_packageErrors_userSources() throws Exception {
+    AnalysisOptionsImpl options = new AnalysisOptionsImpl(context.getAnalysisOptions());
+    options.setGeneratePackageErrors(false);
+    options.setUserSources(new UserSourceContainer(createFile("/project")));
+    context.setAnalysisOptions(options);
+    // a package reached by its file path is not owned by the user
+    Source packageSource = addSource("/project/packages/pkg/lib.dart", "int x = '';");
+    Source userSource = addSource("/project/test.dart", "int y = '';");
+    analyzeAll_assertFinished();
+    assertLength(0, context.getErrors(packageSource).getErrors());
+    assertLength(1, context.getErrors(userSource).getErrors());
+  }
+
+  public void test_performAnalysisTask_parseThreads() throws Exception {
+    AnalysisOptionsImpl options = new AnalysisOptionsImpl(context.getAnalysisOptions());
+    options.setParseThreadCount(4);
+    context.setAnalysisOptions(options);
+    Source sourceA = addSource("/a.dart", createSource(//
+        "library a;",
+        "import 'b.dart';",
+        "part 'c.dart';",
+        "B b = new B();",
+        "int x = '';"));
+    Source sourceB = addSource("/b.dart", createSource(//
+        "library b;",
+        "class B {}"));
+    Source sourceC = addSource("/c.dart", createSource(//
+        "part of a;",
+        "int y = '';"));
+    boolean parsedConcurrently = false;
+    for (int i = 0; i < 1000; i++) {
+      AnalysisResult result = context.performAnalysisTask();
+      if (ParseDartSourcesTask.class.getName().equals(result.getTaskClassName())) {
+        parsedConcurrently = true;
+      }
+      if (result.getChangeNotices() == null) {
+        break;
+      }
+    }
+    assertTrue(parsedConcurrently);
+    assertEquals(SourceKind.LIBRARY, context.getKindOf(sourceA));
+    assertEquals(SourceKind.LIBRARY, context.getKindOf(sourceB));
+    assertEquals(SourceKind.PART, context.getKindOf(sourceC));
+    assertNotNull(context.getLibraryElement(sourceA));
+    assertLength(1, context.getErrors(sourceA).getErrors());
+    assertLength(1, context.getErrors(sourceC).getErrors());
+  }
+
+  public void test_performAnalysisTask_resolutionThreads() throws Exception {
+    AnalysisOptionsImpl options = new AnalysisOptionsImpl(context.getAnalysisOptions());
+    options.setResolutionThreadCount(4);
+    context.setAnalysisOptions(options);
+    Source sourceA = addSource("/a.dart", createSource(//
+        "library a;",
+        "import 'b.dart';",
+        "import 'c.dart';",
+        "B b = new B();",
+        "C c = new C();",
+        "int x = '';"));
+    Source sourceB = addSource("/b.dart", createSource(//
+        "library b;",
+        "class B {}"));
+    Source sourceC = addSource("/c.dart", createSource(//
+        "library c;",
+        "import 'd.dart';",
+        "class C extends D {}"));
+    Source sourceD = addSource("/d.dart", createSource(//
+        "library d;",
+        "import 'c.dart';",
+        "class D {}"));
+    boolean resolvedConcurrently = false;
+    for (int i = 0; i < 1000; i++) {
+      AnalysisResult result = context.performAnalysisTask();
+      if (ResolveDartLibraryCyclesTask.class.getName().equals(result.getTaskClassName())) {
+        resolvedConcurrently = true;
+      }
+      if (result.getChangeNotices() == null) {
+        break;
+      }
+    }
+    assertTrue(resolvedConcurrently);
+    for (Source source : new Source[] {sourceA, sourceB, sourceC, sourceD}) {
+      assertNotNull(context.getLibraryElement(source));
+    }
+    ClassElement classC = context.getLibraryElement(sourceC).getType("C");
+    assertSame(
+        context.getLibraryElement(sourceD).getType("D"),
+        classC.getSupertype().getElement());
+    assertLength(1, context.getErrors(sourceA).getErrors());
+    assertLength(0, context.getErrors(sourceC).getErrors());
+  }
+
+  public void test_removeListener() throws Exception {
+    final int[] count = {0};
+    ChangeNoticeListener listener = new ChangeNoticeListener() {
+      @Override
+      public void resultsChanged(AnalysisContext changedContext, ChangeNotice[] notices) {
+        count[0]++;
+      }
+    };
+    context.addListener(listener);
+    context.removeListener(listener);
+    addSource("/test.dart", "main() {}");
+    analyzeAll_assertFinished();
+    assertEquals(0, count[0]);
+  }
+
   public void test_resolveCompilationUnit_library() throws Exception {
     context = AnalysisContextFactory.contextWithCore();
     sourceFactory = context.getSourceFactory();
@@ -1180,14 +1401,20 @@ public class AnalysisContextImplTest extends EngineTestCase {
 
   public void test_setAnalysisOptions() {
     AnalysisOptionsImpl options = new AnalysisOptionsImpl();
+    options.setCacheBudget(1024 * 1024);
     options.setCacheSize(42);
     options.setDart2jsHint(false);
     options.setHint(false);
+    options.setParseThreadCount(2);
+    options.setResolutionThreadCount(4);
     context.setAnalysisOptions(options);
     AnalysisOptions result = context.getAnalysisOptions();
+    assertEquals(options.getCacheBudget(), result.getCacheBudget());
     assertEquals(options.getCacheSize(), result.getCacheSize());
     assertEquals(options.getDart2jsHint(), result.getDart2jsHint());
     assertEquals(options.getHint(), result.getHint());
+    assertEquals(options.getParseThreadCount(), result.getParseThreadCount());
+    assertEquals(options.getResolutionThreadCount(), result.getResolutionThreadCount());
   }
 
   public void test_setAnalysisOptions_reduceAnalysisPriorityOrder() throws Exception {
@@ -1223,6 +1450,180 @@ public class AnalysisContextImplTest extends EngineTestCase {
     context.setAnalysisPriorityOrder(sources);
   }
 
+  public void test_setChangedContents_functionBody() throws Exception {
+    AnalysisOptionsImpl options = new AnalysisOptionsImpl();
+    options.setIncremental(true);
+    context = AnalysisContextFactory.contextWithCoreAndOptions(options);
+    sourceFactory = context.getSourceFactory();
+    String oldCode = createSource(//
+        "library lib;",
+        "part 'part.dart';",
+        "class A {",
+        "  int m() {",
+        "    return 0;",
+        "  }",
+        "}",
+        "int f() => x;");
+    Source librarySource = addSource("/lib.dart", oldCode);
+    Source partSource = addSource("/part.dart", createSource(//
+        "part of lib;",
+        "int b = f();"));
+    analyzeAll_assertFinished();
+    CompilationUnit unit = context.getResolvedCompilationUnit(librarySource, librarySource);
+    CompilationUnit partUnit = context.getResolvedCompilationUnit(partSource, librarySource);
+    assertNotNull(unit);
+    assertNotNull(partUnit);
+    assertLength(1, context.getErrors(librarySource).getErrors());
+
+    int offset = oldCode.indexOf("0;");
+    String newCode = createSource(//
+        "library lib;",
+        "part 'part.dart';",
+        "class A {",
+        "  int m() {",
+        "    return yy;",
+        "  }",
+        "}",
+        "int f() => x;");
+    context.setChangedContents(librarySource, newCode, offset, 1, 2);
+    assertTrue(getIncrementalAnalysisCache(context).isBodyChange());
+    assertSame(partUnit, context.getResolvedCompilationUnit(partSource, librarySource));
+    analyzeAll_assertFinished();
+    CompilationUnit newUnit = context.getResolvedCompilationUnit(librarySource, librarySource);
+    assertNotNull(newUnit);
+    assertNotSame(unit, newUnit);
+    assertSame(partUnit, context.getResolvedCompilationUnit(partSource, librarySource));
+    assertEquals(newCode.indexOf("f()"), newUnit.getElement().getFunctions()[0].getNameOffset());
+    AnalysisError[] errors = context.getErrors(librarySource).getErrors();
+    assertLength(2, errors);
+    int yOffset = newCode.indexOf("yy");
+    int xOffset = newCode.indexOf("x;");
+    if (errors[0].getOffset() == xOffset) {
+      assertEquals(yOffset, errors[1].getOffset());
+    } else {
+      assertEquals(yOffset, errors[0].getOffset());
+      assertEquals(xOffset, errors[1].getOffset());
+    }
+  }
+
+  public void test_setChangedContents_functionBody_const() throws Exception {
+    assertFunctionBodyFallback("return 0;", "return const [];");
+  }
+
+  public void test_setChangedContents_functionBody_missingReturn() throws Exception {
+    AnalysisOptionsImpl options = new AnalysisOptionsImpl();
+    options.setIncremental(true);
+    context = AnalysisContextFactory.contextWithCoreAndOptions(options);
+    sourceFactory = context.getSourceFactory();
+    String oldCode = createSource(//
+        "library lib;",
+        "part 'part.dart';",
+        "class A {",
+        "  int m() {",
+        "  }",
+        "}");
+    Source librarySource = addSource("/lib.dart", oldCode);
+    Source partSource = addSource("/part.dart", createSource(//
+        "part of lib;"));
+    analyzeAll_assertFinished();
+    CompilationUnit partUnit = context.getResolvedCompilationUnit(partSource, librarySource);
+    AnalysisError[] errors = context.getErrors(librarySource).getErrors();
+    assertLength(1, errors);
+    assertSame(HintCode.MISSING_RETURN, errors[0].getErrorCode());
+
+    int offset = oldCode.indexOf("{\n  }") + 1;
+    String newCode = createSource(//
+        "library lib;",
+        "part 'part.dart';",
+        "class A {",
+        "  int m() {return 0;",
+        "  }",
+        "}");
+    context.setChangedContents(librarySource, newCode, offset, 0, "return 0;".length());
+    assertTrue(getIncrementalAnalysisCache(context).isBodyChange());
+    analyzeAll_assertFinished();
+    // the hint reported on the return type is replaced along with the errors in the body
+    assertSame(partUnit, context.getResolvedCompilationUnit(partSource, librarySource));
+    assertLength(0, context.getErrors(librarySource).getErrors());
+  }
+
+  public void test_setChangedContents_functionBody_scanError() throws Exception {
+    assertFunctionBodyFallback("return 0;", "return '0;");
+  }
+
+  public void test_setChangedContents_functionBody_super() throws Exception {
+    assertFunctionBodyFallback("return 0;", "return super.m();");
+  }
+
+  public void test_setChangedContents_functionBody_unusedImport() throws Exception {
+    AnalysisOptionsImpl options = new AnalysisOptionsImpl();
+    options.setIncremental(true);
+    context = AnalysisContextFactory.contextWithCoreAndOptions(options);
+    sourceFactory = context.getSourceFactory();
+    String oldCode = createSource(//
+        "library lib;",
+        "import 'dart:math';",
+        "int f() {",
+        "  return 0;",
+        "}");
+    Source librarySource = addSource("/lib.dart", oldCode);
+    analyzeAll_assertFinished();
+    LibraryElement library = context.getLibraryElement(librarySource);
+    AnalysisError[] errors = context.getErrors(librarySource).getErrors();
+    assertLength(1, errors);
+    assertSame(HintCode.UNUSED_IMPORT, errors[0].getErrorCode());
+
+    int offset = oldCode.indexOf("0;");
+    String newCode = createSource(//
+        "library lib;",
+        "import 'dart:math';",
+        "int f() {",
+        "  return max(0, 1);",
+        "}");
+    context.setChangedContents(librarySource, newCode, offset, 1, "max(0, 1)".length());
+    assertTrue(getIncrementalAnalysisCache(context).isBodyChange());
+    analyzeAll_assertFinished();
+    // the import hints are generated again without resolving the library again
+    assertSame(library, context.getLibraryElement(librarySource));
+    assertLength(0, context.getErrors(librarySource).getErrors());
+  }
+
+  public void test_setChangedContents_functionBody_unusedImport_part() throws Exception {
+    AnalysisOptionsImpl options = new AnalysisOptionsImpl();
+    options.setIncremental(true);
+    context = AnalysisContextFactory.contextWithCoreAndOptions(options);
+    sourceFactory = context.getSourceFactory();
+    Source librarySource = addSource("/lib.dart", createSource(//
+        "library lib;",
+        "import 'dart:math';",
+        "part 'part.dart';"));
+    String oldCode = createSource(//
+        "part of lib;",
+        "int f() {",
+        "  return 0;",
+        "}");
+    Source partSource = addSource("/part.dart", oldCode);
+    analyzeAll_assertFinished();
+    LibraryElement library = context.getLibraryElement(librarySource);
+    AnalysisError[] errors = context.getErrors(librarySource).getErrors();
+    assertLength(1, errors);
+    assertSame(HintCode.UNUSED_IMPORT, errors[0].getErrorCode());
+
+    int offset = oldCode.indexOf("0;");
+    String newCode = createSource(//
+        "part of lib;",
+        "int f() {",
+        "  return max(0, 1);",
+        "}");
+    context.setChangedContents(partSource, newCode, offset, 1, "max(0, 1)".length());
+    assertTrue(getIncrementalAnalysisCache(context).isBodyChange());
+    analyzeAll_assertFinished();
+    // the hints are generated again for the whole library, which is not resolved again
+    assertSame(library, context.getLibraryElement(librarySource));
+    assertLength(0, context.getErrors(librarySource).getErrors());
+    assertLength(0, context.getErrors(partSource).getErrors());
+  }
+
   public void test_setChangedContents_libraryWithPart() throws Exception {
     AnalysisOptionsImpl options = new AnalysisOptionsImpl();
     options.setIncremental(true);
@@ -1380,10 +1781,23 @@ public class AnalysisContextImplTest extends EngineTestCase {
     }
   }
 
-  private Source addSource(String fileName, String contents) {
+  private Source addSource(AnalysisContext analysisContext, String fileName, String contents) {
     Source source = new FileBasedSource(createFile(fileName));
     ChangeSet changeSet = new ChangeSet();
     changeSet.addedSource(source);
+    analysisContext.applyChanges(changeSet);
+    analysisContext.setContents(source, contents);
+    return source;
+  }
+
+  private Source addSource(String fileName, String contents) {
+    return addSource(context, fileName, contents);
+  }
+
+  private Source addPackageSource(String fileName, String contents) {
+    Source source = new FileBasedSource(createFile(fileName), UriKind.PACKAGE_URI);
+    ChangeSet changeSet = new ChangeSet();
+    changeSet.addedSource(source);
     context.applyChanges(changeSet);
     context.setContents(source, contents);
     return source;
@@ -1424,6 +1838,84 @@ public class AnalysisContextImplTest extends EngineTestCase {
     fail("performAnalysisTask failed to terminate after analyzing all sources");
   }
 
+  /**
+   * Start a thread that performs analysis tasks in the given context until all of the sources have
+   * been analyzed. If the analysis fails, then the exception is stored in the first empty slot of
+   * the given array.
+   * 
+   * @param analysisContext the context in which analysis is to be performed
+   * @param failure the array in which an exception is to be stored
+   * @return the thread that was started
+   */
+  private Thread analyzeOnThread(final AnalysisContext analysisContext, final Throwable[] failure) {
+    Thread thread = new Thread() {
+      @Override
+      public void run() {
+        try {
+          for (int i = 0; i < 10000; i++) {
+            if (analysisContext.performAnalysisTask().getChangeNotices() == null) {
+              return;
+            }
+          }
+          fail("performAnalysisTask failed to terminate after analyzing all sources");
+        } catch (Throwable exception) {
+          synchronized (failure) {
+            for (int i = 0; i < failure.length; i++) {
+              if (failure[i] == null) {
+                failure[i] = exception;
+                break;
+              }
+            }
+          }
+        }
+      }
+    };
+    thread.start();
+    return thread;
+  }
+
+  /**
+   * Assert that changing the body of a method from the given code to the given code is not handled
+   * incrementally: the library is invalidated and analyzed again from scratch.
+   */
+  private void assertFunctionBodyFallback(String oldBody, String newBody) throws Exception {
+    AnalysisOptionsImpl options = new AnalysisOptionsImpl();
+    options.setIncremental(true);
+    context = AnalysisContextFactory.contextWithCoreAndOptions(options);
+    sourceFactory = context.getSourceFactory();
+    String oldCode = createSource(//
+        "library lib;",
+        "part 'part.dart';",
+        "class A {",
+        "  m() => null;",
+        "}",
+        "class B extends A {",
+        "  m() {",
+        "    " + oldBody,
+        "  }",
+        "}");
+    Source librarySource = addSource("/lib.dart", oldCode);
+    Source partSource = addSource("/part.dart", createSource(//
+        "part of lib;"));
+    analyzeAll_assertFinished();
+    CompilationUnit unit = context.getResolvedCompilationUnit(librarySource, librarySource);
+    assertNotNull(context.getResolvedCompilationUnit(partSource, librarySource));
+
+    int offset = oldCode.indexOf(oldBody);
+    String newCode = oldCode.substring(0, offset) + newBody
+        + oldCode.substring(offset + oldBody.length());
+    context.setChangedContents(librarySource, newCode, offset, oldBody.length(), newBody.length());
+    assertTrue(getIncrementalAnalysisCache(context).isBodyChange());
+    // the incremental analysis task is performed first, and invalidates the library
+    context.performAnalysisTask();
+    assertNull(context.getResolvedCompilationUnit(partSource, librarySource));
+    analyzeAll_assertFinished();
+    CompilationUnit newUnit = context.getResolvedCompilationUnit(librarySource, librarySource);
+    assertNotNull(newUnit);
+    assertNotSame(unit, newUnit);
+    assertNotNull(context.getResolvedCompilationUnit(partSource, librarySource));
+  }
+
   private void changeSource(TestSource source, String contents) {
     source.setContents(contents);
     ChangeSet changeSet = new ChangeSet();
@@ -1431,6 +1923,20 @@ public class AnalysisContextImplTest extends EngineTestCase {
     context.applyChanges(changeSet);
   }
 
+  /**
+   * Return a new context that can resolve the SDK and files.
+   */
+  private AnalysisContextImpl createContext() {
+    AnalysisContextImpl newContext = new AnalysisContextImpl();
+    newContext.setSourceFactory(new SourceFactory(
+        new DartUriResolver(DirectoryBasedDartSdk.getDefaultSdk()),
+        new FileUriResolver()));
+    AnalysisOptionsImpl options = new AnalysisOptionsImpl(newContext.getAnalysisOptions());
+    options.setCacheSize(256);
+    newContext.setAnalysisOptions(options);
+    return newContext;
+  }
+
   /**
    * Search the given compilation unit for a class with the given name. Return the class with the
    * given name, or {@code null} if the class cannot be found.
@@ -14,8 +14,15 @@
 package com.google.dart.engine.internal.context;
 
 import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.source.DirectoryBasedSourceContainer;
+import com.google.dart.engine.source.SourceContainer;
 
 public class AnalysisOptionsImplTest extends EngineTestCase {
+  public void test_getDefaultCacheBudget() {
+    long budget = AnalysisOptionsImpl.getDefaultCacheBudget();
+    assertTrue(budget > 0L);
+  }
+
   public void test_getHint() {
     AnalysisOptionsImpl options = new AnalysisOptionsImpl();
     boolean value = !options.getHint();
@@ -29,4 +36,13 @@ public class AnalysisOptionsImplTest extends EngineTestCase {
     options.setIncremental(value);
     assertEquals(value, options.getIncremental());
   }
+
+  public void test_getUserSources() {
+    AnalysisOptionsImpl options = new AnalysisOptionsImpl();
+    assertNull(options.getUserSources());
+    SourceContainer container = new DirectoryBasedSourceContainer("/project");
+    options.setUserSources(container);
+    assertSame(container, options.getUserSources());
+    assertSame(container, new AnalysisOptionsImpl(options).getUserSources());
+  }
 }
@@ -13,6 +13,7 @@
  */
 package com.google.dart.engine.internal.context;
 
+import com.google.dart.engine.ast.BlockFunctionBody;
 import com.google.dart.engine.ast.CompilationUnit;
 import com.google.dart.engine.error.AnalysisErrorListener;
 import com.google.dart.engine.internal.cache.DartEntry;
@@ -102,6 +103,34 @@ public class IncrementalAnalysisCacheTest extends TestCase {
     assertNull(result);
   }
 
+  public void test_getEnclosingBody_constructor() throws Exception {
+    assertNull(getEnclosingBody("class A { A() {foo;} }", "class A { A() {boo;} }", 15));
+  }
+
+  public void test_getEnclosingBody_function() throws Exception {
+    BlockFunctionBody body = getEnclosingBody("main() {foo;}", "main() {boo;}", 8);
+    assertNotNull(body);
+    assertEquals(7, body.getOffset());
+  }
+
+  public void test_getEnclosingBody_localFunction() throws Exception {
+    String oldCode = "main() {f() {foo;} f();}";
+    String newCode = "main() {f() {boo;} f();}";
+    BlockFunctionBody body = getEnclosingBody(oldCode, newCode, 13);
+    assertNotNull(body);
+    assertEquals(7, body.getOffset());
+  }
+
+  public void test_getEnclosingBody_method() throws Exception {
+    BlockFunctionBody body = getEnclosingBody("class A { m() {foo;} }", "class A { m() {boo;} }", 15);
+    assertNotNull(body);
+    assertEquals(14, body.getOffset());
+  }
+
+  public void test_getEnclosingBody_outsideBody() throws Exception {
+    assertNull(getEnclosingBody("main() {foo;}", "moin() {foo;}", 1));
+  }
+
   public void test_update_append() throws Exception {
     IncrementalAnalysisCache cache = update(null, source, "hello", "hbazlo", 1, 2, 3, entry);
 
@@ -358,6 +387,12 @@ public class IncrementalAnalysisCacheTest extends TestCase {
     entry.setValueInLibrary(DartEntry.RESOLVED_UNIT, source, unit);
   }
 
+  private BlockFunctionBody getEnclosingBody(String oldCode, String newCode, int offset) {
+    entry.setValueInLibrary(DartEntry.RESOLVED_UNIT, source, parse(oldCode));
+    IncrementalAnalysisCache cache = update(null, source, oldCode, newCode, offset, 1, 1, entry);
+    return cache.getEnclosingBody();
+  }
+
   private CompilationUnit parse(String code) {
     Scanner scanner = new Scanner(
         source,
@@ -22,6 +22,7 @@ import com.google.dart.engine.context.AnalysisException;
 import com.google.dart.engine.context.AnalysisOptions;
 import com.google.dart.engine.context.AnalysisResult;
 import com.google.dart.engine.context.ChangeNotice;
+import com.google.dart.engine.context.ChangeNoticeListener;
 import com.google.dart.engine.context.ChangeSet;
 import com.google.dart.engine.element.CompilationUnitElement;
 import com.google.dart.engine.element.Element;
@@ -45,6 +46,38 @@ import java.util.List;
 import java.util.Map;
 
 public class InstrumentedAnalysisContextImplTest extends EngineTestCase {
+  public void test_addListener_removeListener() {
+    final ChangeNoticeListener[] basisListener = {null};
+    InstrumentedAnalysisContextImpl context = new InstrumentedAnalysisContextImpl(
+        new TestAnalysisContext() {
+          @Override
+          public void addListener(ChangeNoticeListener listener) {
+            basisListener[0] = listener;
+          }
+
+          @Override
+          public void removeListener(ChangeNoticeListener listener) {
+            if (listener == basisListener[0]) {
+              basisListener[0] = null;
+            }
+          }
+        });
+    final AnalysisContext[] notifiedContext = {null};
+    ChangeNoticeListener listener = new ChangeNoticeListener() {
+      @Override
+      public void resultsChanged(AnalysisContext context, ChangeNotice[] notices) {
+        notifiedContext[0] = context;
+      }
+    };
+    context.addListener(listener);
+    assertNotNull(basisListener[0]);
+    // the listener is passed the context it was registered on
+    basisListener[0].resultsChanged(new TestAnalysisContext(), new ChangeNotice[0]);
+    assertSame(context, notifiedContext[0]);
+    context.removeListener(listener);
+    assertNull(basisListener[0]);
+  }
+
   public void test_addSourceInfo() {
     final boolean[] invoked = {false};
     InstrumentedAnalysisContextImpl context = new InstrumentedAnalysisContextImpl(
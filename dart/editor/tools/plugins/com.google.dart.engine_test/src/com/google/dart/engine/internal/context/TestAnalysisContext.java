@@ -21,6 +21,7 @@ import com.google.dart.engine.context.AnalysisException;
 import com.google.dart.engine.context.AnalysisOptions;
 import com.google.dart.engine.context.AnalysisResult;
 import com.google.dart.engine.context.AnalysisDelta;
+import com.google.dart.engine.context.ChangeNoticeListener;
 import com.google.dart.engine.context.ChangeSet;
 import com.google.dart.engine.element.CompilationUnitElement;
 import com.google.dart.engine.element.Element;
@@ -31,8 +32,11 @@ import com.google.dart.engine.error.AnalysisError;
 import com.google.dart.engine.html.ast.HtmlUnit;
 import com.google.dart.engine.internal.cache.SourceEntry;
 import com.google.dart.engine.internal.element.angular.AngularApplication;
+import com.google.dart.engine.internal.resolver.MemberMapCache;
 import com.google.dart.engine.internal.resolver.TypeProvider;
+import com.google.dart.engine.internal.scope.CompletionCandidateCache;
 import com.google.dart.engine.internal.scope.Namespace;
+import com.google.dart.engine.scanner.SymbolTable;
 import com.google.dart.engine.source.Source;
 import com.google.dart.engine.source.Source.ContentReceiver;
 import com.google.dart.engine.source.SourceContainer;
@@ -50,6 +54,11 @@ import java.util.Map;
  * method will cause a test to fail when invoked.
  */
 public class TestAnalysisContext implements InternalAnalysisContext {
+  @Override
+  public void addListener(ChangeNoticeListener listener) {
+    fail("Unexpected invocation of addListener");
+  }
+
   @Override
   public void addSourceInfo(Source source, SourceEntry info) {
     fail("Unexpected invocation of addSourceInfo");
@@ -157,6 +166,12 @@ public class TestAnalysisContext implements InternalAnalysisContext {
     return 0;
   }
 
+  @Override
+  public CompletionCandidateCache getCompletionCandidateCache() {
+    fail("Unexpected invocation of getCompletionCandidateCache");
+    return null;
+  }
+
   @Override
   public CompilationUnitElement getCompilationUnitElement(Source unitSource, Source librarySource) {
     fail("Unexpected invocation of getCompilationUnitElement");
@@ -259,6 +274,12 @@ public class TestAnalysisContext implements InternalAnalysisContext {
     return null;
   }
 
+  @Override
+  public MemberMapCache getMemberMapCache() {
+    fail("Unexpected invocation of getMemberMapCache");
+    return null;
+  }
+
   @Override
   public long getModificationStamp(Source source) {
     fail("Unexpected invocation of getModificationStamp");
@@ -307,6 +328,12 @@ public class TestAnalysisContext implements InternalAnalysisContext {
     return null;
   }
 
+  @Override
+  public SymbolTable getSymbolTable() {
+    fail("Unexpected invocation of getSymbolTable");
+    return null;
+  }
+
   @Override
   public TypeProvider getTypeProvider() throws AnalysisException {
     fail("Unexpected invocation of getTypeProvider");
@@ -359,6 +386,11 @@ public class TestAnalysisContext implements InternalAnalysisContext {
     fail("Unexpected invocation of recordLibraryElements");
   }
 
+  @Override
+  public void removeListener(ChangeNoticeListener listener) {
+    fail("Unexpected invocation of removeListener");
+  }
+
   @Override
   public CompilationUnit resolveCompilationUnit(Source unitSource, LibraryElement library)
       throws AnalysisException {
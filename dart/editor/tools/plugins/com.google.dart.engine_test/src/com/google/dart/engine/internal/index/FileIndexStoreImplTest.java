@@ -0,0 +1,329 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.index;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import com.google.dart.engine.AnalysisEngine;
+import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.ast.CompilationUnit;
+import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.context.ChangeSet;
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.element.ElementKind;
+import com.google.dart.engine.element.FunctionElement;
+import com.google.dart.engine.element.LibraryElement;
+import com.google.dart.engine.element.TopLevelVariableElement;
+import com.google.dart.engine.index.Location;
+import com.google.dart.engine.index.LocationWithData;
+import com.google.dart.engine.sdk.DirectoryBasedDartSdk;
+import com.google.dart.engine.source.DartUriResolver;
+import com.google.dart.engine.source.FileBasedSource;
+import com.google.dart.engine.source.FileUriResolver;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.SourceFactory;
+import com.google.dart.engine.type.Type;
+import com.google.dart.engine.utilities.io.FileUtilities2;
+
+import java.io.File;
+
+public class FileIndexStoreImplTest extends EngineTestCase {
+  private static final String LIBRARY_CODE = "library lib; part 'part.dart'; main() { foo(); }";
+
+  private static final String PART_CODE = "part of lib; foo() {} var v = 1;";
+
+  private File directory;
+
+  private File libraryFile;
+
+  private File partFile;
+
+  private FileIndexStoreImpl store;
+
+  private AnalysisContext context;
+
+  public void test_aboutToIndexDart_again() throws Exception {
+    indexLibrary();
+    String statistics = store.getStatistics();
+    // the segments are current, so the units are not indexed again
+    LibraryElement library = context.computeLibraryElement(new FileBasedSource(libraryFile));
+    assertFalse(indexUnit(library, new FileBasedSource(libraryFile)));
+    assertFalse(indexUnit(library, new FileBasedSource(partFile)));
+    assertLength(1, getInvocations());
+    assertEquals(statistics, store.getStatistics());
+  }
+
+  public void test_aboutToIndexDart_modified() throws Exception {
+    indexLibrary();
+    context.setContents(new FileBasedSource(partFile), PART_CODE + " bar() {}");
+    // the library depends on the modified part, so both units are indexed again
+    LibraryElement library = context.computeLibraryElement(new FileBasedSource(libraryFile));
+    assertTrue(indexUnit(library, new FileBasedSource(libraryFile)));
+    assertTrue(indexUnit(library, new FileBasedSource(partFile)));
+    assertLength(1, getInvocations());
+  }
+
+  public void test_getRelationships() throws Exception {
+    indexLibrary();
+    Location[] locations = getInvocations();
+    assertLength(1, locations);
+    Location location = locations[0];
+    assertEquals("main", location.getElement().getName());
+    assertEquals(LIBRARY_CODE.indexOf("foo();"), location.getOffset());
+    assertEquals("foo".length(), location.getLength());
+  }
+
+  @SuppressWarnings("unchecked")
+  public void test_getRelationships_locationWithData() throws Exception {
+    store.setContextName(context, "test");
+    indexLibrary();
+    restart();
+    store.setContextName(context, "test");
+    context.computeLibraryElement(new FileBasedSource(libraryFile));
+    Location[] locations = store.getRelationships(getVariable(), IndexConstants.IS_DEFINED_BY);
+    assertLength(1, locations);
+    Type type = ((LocationWithData<Type>) locations[0]).getData();
+    assertEquals("int", type.getName());
+  }
+
+  public void test_getRelationships_unresolvedLibrary() throws Exception {
+    store.setContextName(context, "test");
+    indexLibrary();
+    Element foo = getFunction();
+    restart();
+    store.setContextName(context, "test");
+    // the library is not resolved to find the locations
+    Location[] locations = store.getRelationships(foo, IndexConstants.IS_INVOKED_BY);
+    assertLength(1, locations);
+    Element element = locations[0].getElement();
+    assertEquals(ElementKind.FUNCTION, element.getKind());
+    assertSame(context, element.getContext());
+    assertNull(context.getLibraryElement(new FileBasedSource(libraryFile)));
+    // the library is resolved when the element is used
+    assertEquals("main", element.getName());
+    assertNotNull(context.getLibraryElement(new FileBasedSource(libraryFile)));
+  }
+
+  public void test_getRelationships_universe() throws Exception {
+    store.setContextName(context, "test");
+    indexLibrary();
+    restart();
+    store.setContextName(context, "test");
+    // the declarations are kept in memory, without resolving the library
+    Location[] locations = store.getRelationships(
+        UniverseElementImpl.INSTANCE,
+        IndexConstants.DEFINES_FUNCTION);
+    assertLength(2, locations);
+    assertNull(context.getLibraryElement(new FileBasedSource(libraryFile)));
+    // the declarations of a removed source are removed
+    store.removeSource(context, new FileBasedSource(partFile));
+    locations = store.getRelationships(
+        UniverseElementImpl.INSTANCE,
+        IndexConstants.DEFINES_FUNCTION);
+    assertLength(1, locations);
+    assertEquals("main", locations[0].getElement().getName());
+  }
+
+  public void test_getRelationships_universe_pattern() throws Exception {
+    store.setContextName(context, "test");
+    indexLibrary();
+    restart();
+    store.setContextName(context, "test");
+    // the declarations are found by name, without resolving the library
+    Location[] locations = store.getRelationships(
+        UniverseElementImpl.INSTANCE,
+        IndexConstants.DEFINES_FUNCTION,
+        "FO",
+        false);
+    assertLength(1, locations);
+    assertNull(context.getLibraryElement(new FileBasedSource(libraryFile)));
+    assertEquals("foo", locations[0].getElement().getName());
+    // the names of the declarations of a removed source are removed
+    store.removeSource(context, new FileBasedSource(partFile));
+    locations = store.getRelationships(
+        UniverseElementImpl.INSTANCE,
+        IndexConstants.DEFINES_FUNCTION,
+        "FO",
+        false);
+    assertLength(0, locations);
+  }
+
+  public void test_removeContext() throws Exception {
+    store.setContextName(context, "test");
+    indexLibrary();
+    store.removeContext(context);
+    assertLength(0, getInvocations());
+    // nothing is restored
+    restart();
+    store.setContextName(context, "test");
+    assertLength(0, getInvocations());
+  }
+
+  public void test_removeSource_definingElement() throws Exception {
+    indexLibrary();
+    store.removeSource(context, new FileBasedSource(partFile));
+    assertLength(0, getInvocations());
+  }
+
+  public void test_removeSource_location() throws Exception {
+    indexLibrary();
+    store.removeSource(context, new FileBasedSource(libraryFile));
+    assertLength(0, getInvocations());
+  }
+
+  public void test_removeSource_restore() throws Exception {
+    store.setContextName(context, "test");
+    indexLibrary();
+    store.removeSource(context, new FileBasedSource(partFile));
+    // the removed keys are not restored
+    restart();
+    store.setContextName(context, "test");
+    assertLength(0, getInvocations());
+  }
+
+  public void test_restore() throws Exception {
+    store.setContextName(context, "test");
+    indexLibrary();
+    restart();
+    store.setContextName(context, "test");
+    Location[] locations = getInvocations();
+    assertLength(1, locations);
+    assertEquals("main", locations[0].getElement().getName());
+    assertSame(context, locations[0].getElement().getContext());
+  }
+
+  public void test_restore_current() throws Exception {
+    store.setContextName(context, "test");
+    indexLibrary();
+    restart();
+    store.setContextName(context, "test");
+    // the restored segments are current, so the units are not indexed again
+    LibraryElement library = context.computeLibraryElement(new FileBasedSource(libraryFile));
+    assertFalse(indexUnit(library, new FileBasedSource(libraryFile)));
+    assertFalse(indexUnit(library, new FileBasedSource(partFile)));
+    assertLength(1, getInvocations());
+  }
+
+  public void test_restore_modified() throws Exception {
+    store.setContextName(context, "test");
+    indexLibrary();
+    restart();
+    libraryFile.setLastModified(libraryFile.lastModified() + 10000);
+    store.setContextName(context, "test");
+    assertLength(0, getInvocations());
+  }
+
+  public void test_restore_unnamed() throws Exception {
+    indexLibrary();
+    restart();
+    store.setContextName(context, "test");
+    assertLength(0, getInvocations());
+  }
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    File sourceDirectory = FileUtilities2.createTempDir("sources");
+    libraryFile = new File(sourceDirectory, "lib.dart");
+    Files.write(LIBRARY_CODE, libraryFile, Charsets.UTF_8);
+    partFile = new File(sourceDirectory, "part.dart");
+    Files.write(PART_CODE, partFile, Charsets.UTF_8);
+    directory = FileUtilities2.createTempDir("index");
+    store = new FileIndexStoreImpl(directory);
+    context = createContext();
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    FileUtilities2.deleteTempDir();
+    store = null;
+    context = null;
+    super.tearDown();
+  }
+
+  private AnalysisContext createContext() {
+    AnalysisContext context = AnalysisEngine.getInstance().createAnalysisContext();
+    context.setSourceFactory(new SourceFactory(
+        new DartUriResolver(DirectoryBasedDartSdk.getDefaultSdk()),
+        new FileUriResolver()));
+    ChangeSet changeSet = new ChangeSet();
+    changeSet.addedSource(new FileBasedSource(libraryFile));
+    changeSet.addedSource(new FileBasedSource(partFile));
+    context.applyChanges(changeSet);
+    return context;
+  }
+
+  /**
+   * Return the function {@code foo} defined in the part.
+   */
+  private Element getFunction() throws Exception {
+    LibraryElement library = context.computeLibraryElement(new FileBasedSource(libraryFile));
+    Element foo = null;
+    for (FunctionElement function : library.getParts()[0].getFunctions()) {
+      if (function.getName().equals("foo")) {
+        foo = function;
+      }
+    }
+    assertNotNull(foo);
+    return foo;
+  }
+
+  /**
+   * Return the locations at which the function {@code foo} is invoked.
+   */
+  private Location[] getInvocations() throws Exception {
+    return store.getRelationships(getFunction(), IndexConstants.IS_INVOKED_BY);
+  }
+
+  /**
+   * Return the variable {@code v} defined in the part.
+   */
+  private Element getVariable() throws Exception {
+    LibraryElement library = context.computeLibraryElement(new FileBasedSource(libraryFile));
+    for (TopLevelVariableElement variable : library.getParts()[0].getTopLevelVariables()) {
+      if (variable.getName().equals("v")) {
+        return variable;
+      }
+    }
+    fail("variable v not found");
+    return null;
+  }
+
+  private void indexLibrary() throws Exception {
+    LibraryElement library = context.computeLibraryElement(new FileBasedSource(libraryFile));
+    indexUnit(library, new FileBasedSource(libraryFile));
+    indexUnit(library, new FileBasedSource(partFile));
+  }
+
+  /**
+   * Index the given unit if its segment is not current, and return {@code true} if it was indexed.
+   */
+  private boolean indexUnit(LibraryElement library, Source source) throws Exception {
+    CompilationUnit unit = context.resolveCompilationUnit(source, library);
+    if (!store.aboutToIndexDart(context, unit.getElement())) {
+      return false;
+    }
+    unit.accept(new IndexContributor(store));
+    store.doneIndex();
+    return true;
+  }
+
+  /**
+   * Simulate a restart by creating a new store and a new context.
+   */
+  private void restart() {
+    store = new FileIndexStoreImpl(directory);
+    context = createContext();
+  }
+}
@@ -16,6 +16,7 @@ package com.google.dart.engine.internal.index;
 import com.google.dart.engine.EngineTestCase;
 import com.google.dart.engine.ast.CompilationUnit;
 import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.element.ClassElement;
 import com.google.dart.engine.element.CompilationUnitElement;
 import com.google.dart.engine.element.Element;
 import com.google.dart.engine.element.HtmlElement;
@@ -24,6 +25,7 @@ import com.google.dart.engine.index.IndexStore;
 import com.google.dart.engine.index.Relationship;
 import com.google.dart.engine.index.RelationshipCallback;
 import com.google.dart.engine.internal.index.operation.GetRelationshipsOperation;
+import com.google.dart.engine.internal.index.operation.GetSubtypesOperation;
 import com.google.dart.engine.internal.index.operation.IndexHtmlUnitOperation;
 import com.google.dart.engine.internal.index.operation.IndexUnitOperation;
 import com.google.dart.engine.internal.index.operation.OperationProcessor;
@@ -67,6 +69,32 @@ public class IndexImplTest extends EngineTestCase {
     assertSame(callback, argument.getValue().getCallback());
   }
 
+  public void test_getRelationships_pattern() throws Exception {
+    Element element = mock(Element.class);
+    Relationship relationship = Relationship.getRelationship("test-relationship");
+    RelationshipCallback callback = mock(RelationshipCallback.class);
+    index.getRelationships(element, relationship, "NPE", true, callback);
+    // verify
+    ArgumentCaptor<GetRelationshipsOperation> argument = ArgumentCaptor.forClass(GetRelationshipsOperation.class);
+    verify(queue).enqueue(argument.capture());
+    assertSame(element, argument.getValue().getElement());
+    assertSame(relationship, argument.getValue().getRelationship());
+    assertEquals("NPE", argument.getValue().getPattern());
+    assertSame(callback, argument.getValue().getCallback());
+  }
+
+  public void test_getSubtypes() throws Exception {
+    ClassElement type = mock(ClassElement.class);
+    RelationshipCallback callback = mock(RelationshipCallback.class);
+    index.getSubtypes(type, true, callback);
+    // verify
+    ArgumentCaptor<GetSubtypesOperation> argument = ArgumentCaptor.forClass(GetSubtypesOperation.class);
+    verify(queue).enqueue(argument.capture());
+    assertSame(type, argument.getValue().getType());
+    assertTrue(argument.getValue().isTransitive());
+    assertSame(callback, argument.getValue().getCallback());
+  }
+
   public void test_indexHtmlUnit() throws Exception {
     Source unitSource = mock(Source.class);
     // Dart CompilationUnitElement
@@ -349,6 +349,73 @@ public class MemoryIndexStoreImplTest extends EngineTestCase {
     assertLocations(locations, locationA, locationB);
   }
 
+  public void test_getRelationships_namePattern_camelCase() throws Exception {
+    Location[] locations = recordUniverseDeclarations();
+    assertLocations(
+        store.getRelationships(IndexConstants.UNIVERSE, relationship, "NPE", true),
+        locations[0]);
+    assertLocations(
+        store.getRelationships(IndexConstants.UNIVERSE, relationship, "NuFE", true),
+        locations[1]);
+    assertLocations(
+        store.getRelationships(IndexConstants.UNIVERSE, relationship, "N", true),
+        locations[0],
+        locations[1],
+        locations[2]);
+    assertLocations(
+        store.getRelationships(IndexConstants.UNIVERSE, relationship, "nu", true),
+        locations[3]);
+    assertThat(store.getRelationships(IndexConstants.UNIVERSE, relationship, "NPX", true)).isEmpty();
+  }
+
+  public void test_getRelationships_namePattern_library() throws Exception {
+    when(libraryElement.getContext()).thenReturn(contextA);
+    when(elementA.getDisplayName()).thenReturn("NullPointerException");
+    when(elementB.getDisplayName()).thenReturn("NumberFormatException");
+    Location locationA = mockLocation(elementA);
+    Location locationB = mockLocation(elementB);
+    store.recordRelationship(libraryElement, relationship, locationA);
+    store.recordRelationship(libraryElement, relationship, locationB);
+    assertLocations(
+        store.getRelationships(libraryElement, relationship, "NPE", true),
+        locationA);
+    assertLocations(
+        store.getRelationships(libraryElement, relationship, "numb", false),
+        locationB);
+  }
+
+  public void test_getRelationships_namePattern_prefix() throws Exception {
+    Location[] locations = recordUniverseDeclarations();
+    assertLocations(
+        store.getRelationships(IndexConstants.UNIVERSE, relationship, "nu", false),
+        locations[0],
+        locations[1],
+        locations[3]);
+    assertLocations(
+        store.getRelationships(IndexConstants.UNIVERSE, relationship, "NoSuch", false),
+        locations[2]);
+    assertThat(store.getRelationships(IndexConstants.UNIVERSE, relationship, "x", false)).isEmpty();
+    assertThat(
+        store.getRelationships(
+            IndexConstants.UNIVERSE,
+            Relationship.getRelationship("no-such-relationship"),
+            "nu",
+            false)).isEmpty();
+  }
+
+  public void test_getRelationships_namePattern_removeSource() throws Exception {
+    Location[] locations = recordUniverseDeclarations();
+    store.removeSource(contextA, sourceA);
+    assertLocations(
+        store.getRelationships(IndexConstants.UNIVERSE, relationship, "nu", false),
+        locations[1],
+        locations[3]);
+    store.removeSource(contextA, sourceB);
+    store.removeSource(contextA, sourceC);
+    store.removeSource(contextA, sourceD);
+    assertThat(store.getRelationships(IndexConstants.UNIVERSE, relationship, "", false)).isEmpty();
+  }
+
   public void test_getRelationships_noRelations() throws Exception {
     store.recordRelationship(elementA, relationship, location);
     Location[] locations = store.getRelationships(
@@ -789,6 +856,74 @@ public class MemoryIndexStoreImplTest extends EngineTestCase {
     }
   }
 
+  public void test_writeRead_manyLocations() throws Exception {
+    when(contextA.getElement(eq(elementLocationA))).thenReturn(elementA);
+    when(contextA.getElement(eq(elementLocationB))).thenReturn(elementB);
+    when(elementA.getContext()).thenReturn(contextA);
+    when(elementB.getContext()).thenReturn(contextA);
+    // fill store
+    Location locationA1 = new Location(elementA, 10, 1);
+    Location locationA2 = new Location(elementA, 2, 3);
+    Location locationB = new Location(elementB, 5, 0);
+    store.aboutToIndexDart(contextA, unitElementA);
+    store.recordRelationship(elementA, relationship, locationA1);
+    store.recordRelationship(elementA, relationship, locationB);
+    store.recordRelationship(elementA, relationship, locationA2);
+    // write
+    byte[] content;
+    {
+      ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      store.writeIndex(contextA, baos);
+      content = baos.toByteArray();
+    }
+    // clear
+    store.removeContext(contextA);
+    assertEquals(0, store.internalGetLocationCount());
+    // read
+    {
+      ByteArrayInputStream bais = new ByteArrayInputStream(content);
+      store.readIndex(contextA, bais);
+    }
+    // validate after read
+    assertEquals(1, store.internalGetKeyCount());
+    assertEquals(3, store.internalGetLocationCount());
+    {
+      Location[] locations = store.getRelationships(elementA, relationship);
+      assertLocations(locations, locationA1, locationA2, locationB);
+    }
+  }
+
+  public void test_writeRead_version1() throws Exception {
+    when(contextA.getElement(eq(elementLocationA))).thenReturn(elementA);
+    when(elementA.getContext()).thenReturn(contextA);
+    // write content in version 1 format
+    byte[] content;
+    {
+      ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      DataOutputStream dos = new DataOutputStream(baos);
+      dos.writeInt(1);
+      dos.writeInt(1);
+      dos.writeUTF(elementLocationA.getEncoding());
+      dos.writeUTF(relationship.getIdentifier());
+      dos.writeInt(1);
+      dos.writeUTF(elementLocationA.getEncoding());
+      dos.writeInt(1);
+      dos.writeInt(2);
+      content = baos.toByteArray();
+    }
+    // read
+    {
+      ByteArrayInputStream bais = new ByteArrayInputStream(content);
+      store.readIndex(contextA, bais);
+    }
+    // validate after read
+    assertEquals(1, store.internalGetKeyCount());
+    {
+      Location[] locations = store.getRelationships(elementA, relationship);
+      assertLocations(locations, new Location(elementA, 1, 2));
+    }
+  }
+
   @Override
   protected void setUp() throws Exception {
     super.setUp();
@@ -842,4 +977,22 @@ public class MemoryIndexStoreImplTest extends EngineTestCase {
     store.aboutToIndexDart(contextA, unitElementC);
     store.aboutToIndexDart(contextA, unitElementD);
   }
+
+  /**
+   * Records the declarations of the elements A to D, named so that they can be found by different
+   * name patterns, in {@link IndexConstants#UNIVERSE} and returns their locations.
+   */
+  private Location[] recordUniverseDeclarations() {
+    when(elementA.getDisplayName()).thenReturn("NullPointerException");
+    when(elementB.getDisplayName()).thenReturn("NumberFormatException");
+    when(elementC.getDisplayName()).thenReturn("NoSuchMethodError");
+    when(elementD.getDisplayName()).thenReturn("nullable");
+    Location[] locations = {
+        mockLocation(elementA), mockLocation(elementB), mockLocation(elementC),
+        mockLocation(elementD)};
+    for (Location location : locations) {
+      store.recordRelationship(IndexConstants.UNIVERSE, relationship, location);
+    }
+    return locations;
+  }
 }
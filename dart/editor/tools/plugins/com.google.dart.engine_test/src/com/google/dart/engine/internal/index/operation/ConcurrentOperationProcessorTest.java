@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.index.operation;
+
+import com.google.common.collect.Lists;
+import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.source.Source;
+
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class ConcurrentOperationProcessorTest extends EngineTestCase {
+  private final OperationQueue queue = new OperationQueue();
+
+  private final ConcurrentOperationProcessor processor = new ConcurrentOperationProcessor(queue, 4);
+
+  private final List<String> events = Collections.synchronizedList(Lists.<String> newArrayList());
+
+  public void test_performOperation_differentSources() throws Exception {
+    final CountDownLatch bothStarted = new CountDownLatch(2);
+    Answer<Void> answer = new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws Throwable {
+        bothStarted.countDown();
+        // times out if the operations are performed one after another
+        if (bothStarted.await(5, TimeUnit.SECONDS)) {
+          events.add("concurrent");
+        }
+        return null;
+      }
+    };
+    IndexOperation operationA = mockIndexOperation(mock(Source.class), answer);
+    IndexOperation operationB = mockIndexOperation(mock(Source.class), answer);
+    queue.enqueue(operationA);
+    queue.enqueue(operationB);
+    runProcessor();
+    waitForEvents(2);
+    processor.stop(true);
+    assertEquals(Lists.newArrayList("concurrent", "concurrent"), events);
+  }
+
+  public void test_performOperation_daemonThread() throws Exception {
+    IndexOperation operation = mockIndexOperation(mock(Source.class), new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws Throwable {
+        // the threads of the engine do not keep the VM alive
+        events.add(Thread.currentThread().isDaemon() ? "daemon" : "user");
+        return null;
+      }
+    });
+    queue.enqueue(operation);
+    runProcessor();
+    waitForEvents(1);
+    processor.stop(true);
+    assertEquals(Lists.newArrayList("daemon"), events);
+  }
+
+  public void test_performOperation_remove() throws Exception {
+    final CountDownLatch release = new CountDownLatch(1);
+    IndexOperation indexOperation = mockIndexOperation(mock(Source.class), new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws Throwable {
+        release.await(5, TimeUnit.SECONDS);
+        events.add("index");
+        return null;
+      }
+    });
+    IndexOperation removeOperation = mock(RemoveContextOperation.class);
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws Throwable {
+        events.add("remove");
+        return null;
+      }
+    }).when(removeOperation).performOperation();
+    queue.enqueue(indexOperation);
+    queue.enqueue(removeOperation);
+    runProcessor();
+    release.countDown();
+    waitForEvents(2);
+    processor.stop(true);
+    assertEquals(Lists.newArrayList("index", "remove"), events);
+  }
+
+  public void test_performOperation_sameSource() throws Exception {
+    Source source = mock(Source.class);
+    final CountDownLatch release = new CountDownLatch(1);
+    IndexOperation operationA = mockIndexOperation(source, new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws Throwable {
+        release.await(5, TimeUnit.SECONDS);
+        events.add("A");
+        return null;
+      }
+    });
+    IndexOperation operationB = mockIndexOperation(source, new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws Throwable {
+        events.add("B");
+        return null;
+      }
+    });
+    queue.enqueue(operationA);
+    queue.enqueue(operationB);
+    runProcessor();
+    release.countDown();
+    waitForEvents(2);
+    processor.stop(true);
+    assertEquals(Lists.newArrayList("A", "B"), events);
+  }
+
+  public void test_stop_waitsForOperations() throws Exception {
+    final CountDownLatch started = new CountDownLatch(1);
+    IndexOperation operation = mockIndexOperation(mock(Source.class), new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws Throwable {
+        started.countDown();
+        Thread.sleep(50);
+        events.add("index");
+        return null;
+      }
+    });
+    queue.enqueue(operation);
+    runProcessor();
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    processor.stop(true);
+    assertEquals(Lists.newArrayList("index"), events);
+  }
+
+  private IndexOperation mockIndexOperation(Source source, Answer<Void> answer) {
+    IndexUnitOperation operation = mock(IndexUnitOperation.class);
+    when(operation.getSource()).thenReturn(source);
+    doAnswer(answer).when(operation).performOperationConcurrently();
+    return operation;
+  }
+
+  private void runProcessor() {
+    new Thread() {
+      @Override
+      public void run() {
+        processor.run();
+      }
+    }.start();
+    processor.waitForRunning();
+  }
+
+  private void waitForEvents(int count) throws InterruptedException {
+    long endTime = System.currentTimeMillis() + 5000;
+    while (events.size() < count && System.currentTimeMillis() < endTime) {
+      Thread.sleep(1);
+    }
+  }
+}
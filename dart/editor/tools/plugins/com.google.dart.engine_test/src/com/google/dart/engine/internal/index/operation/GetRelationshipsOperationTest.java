@@ -15,6 +15,7 @@ package com.google.dart.engine.internal.index.operation;
 
 import com.google.dart.engine.EngineTestCase;
 import com.google.dart.engine.element.Element;
+import com.google.dart.engine.index.CancellableRelationshipCallback;
 import com.google.dart.engine.index.IndexStore;
 import com.google.dart.engine.index.Location;
 import com.google.dart.engine.index.Relationship;
@@ -23,6 +24,8 @@ import com.google.dart.engine.source.Source;
 
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 public class GetRelationshipsOperationTest extends EngineTestCase {
@@ -47,6 +50,34 @@ public class GetRelationshipsOperationTest extends EngineTestCase {
     verify(callback).hasRelationships(elementLocation, relationship, locations);
   }
 
+  public void test_performOperation_cancelled() throws Exception {
+    CancellableRelationshipCallback cancelledCallback = mock(CancellableRelationshipCallback.class);
+    when(cancelledCallback.isCancelled()).thenReturn(true);
+    operation = new GetRelationshipsOperation(
+        store,
+        elementLocation,
+        relationship,
+        cancelledCallback);
+    operation.performOperation();
+    verifyZeroInteractions(store);
+    verify(cancelledCallback).isCancelled();
+    verifyNoMoreInteractions(cancelledCallback);
+  }
+
+  public void test_performOperation_pattern() throws Exception {
+    Location locations[] = new Location[1];
+    when(store.getRelationships(elementLocation, relationship, "NPE", true)).thenReturn(locations);
+    operation = new GetRelationshipsOperation(
+        store,
+        elementLocation,
+        relationship,
+        "NPE",
+        true,
+        callback);
+    operation.performOperation();
+    verify(callback).hasRelationships(elementLocation, relationship, locations);
+  }
+
   public void test_removeWhenSourceRemoved() throws Exception {
     Source source = mock(Source.class);
     assertFalse(operation.removeWhenSourceRemoved(source));
@@ -57,4 +88,16 @@ public class GetRelationshipsOperationTest extends EngineTestCase {
     assertEquals("GetRelationships(myElement, test-relationship)", operation.toString());
   }
 
+  public void test_toString_pattern() throws Exception {
+    when(elementLocation.toString()).thenReturn("myElement");
+    operation = new GetRelationshipsOperation(
+        store,
+        elementLocation,
+        relationship,
+        "NPE",
+        true,
+        callback);
+    assertEquals("GetRelationships(myElement, test-relationship, NPE)", operation.toString());
+  }
+
 }
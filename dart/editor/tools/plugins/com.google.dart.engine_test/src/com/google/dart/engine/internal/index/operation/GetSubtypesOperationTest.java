@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.index.operation;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.element.ClassElement;
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.index.IndexFactory;
+import com.google.dart.engine.index.IndexStore;
+import com.google.dart.engine.index.Location;
+import com.google.dart.engine.index.LocationWithData;
+import com.google.dart.engine.index.Relationship;
+import com.google.dart.engine.index.RelationshipCallback;
+import com.google.dart.engine.internal.index.IndexConstants;
+import com.google.dart.engine.source.Source;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Map;
+import java.util.Set;
+
+public class GetSubtypesOperationTest extends EngineTestCase {
+  /**
+   * Instances of the class {@code RecordingCallback} record the locations they are given for each
+   * relationship.
+   */
+  private class RecordingCallback implements RelationshipCallback {
+    private Map<Relationship, Location[]> locations = Maps.newHashMap();
+
+    @Override
+    public void hasRelationships(Element element, Relationship relationship, Location[] locations) {
+      assertSame(classA, element);
+      assertNull(this.locations.put(relationship, locations));
+    }
+
+    void assertLocations(Relationship relationship, Location... expected) {
+      Location[] actual = locations.get(relationship);
+      assertNotNull(actual);
+      assertEquals(getKeys(expected), getKeys(actual));
+      assertEquals(expected.length, actual.length);
+    }
+  }
+
+  /**
+   * Return the elements and offsets of the given locations, which are copied by the store.
+   */
+  private static Set<String> getKeys(Location[] locations) {
+    Set<String> keys = Sets.newHashSet();
+    for (Location location : locations) {
+      keys.add(location.getElement().getDisplayName() + "@" + location.getOffset());
+    }
+    return keys;
+  }
+
+  private IndexStore store = IndexFactory.newMemoryIndexStore();
+  private ClassElement classA = mock(ClassElement.class);
+  private ClassElement classB = mock(ClassElement.class);
+  private ClassElement classC = mock(ClassElement.class);
+  private ClassElement classD = mock(ClassElement.class);
+  private RecordingCallback callback = new RecordingCallback();
+  private Location locationB = new Location(classB, 1, 2);
+  private Location locationC = new Location(classC, 3, 4);
+  private Location locationD_extends = new Location(classD, 5, 6);
+  private Location locationD_with = new Location(classD, 7, 8);
+
+  public void test_isQuery() throws Exception {
+    GetSubtypesOperation operation = new GetSubtypesOperation(store, classA, false, callback);
+    assertTrue(operation.isQuery());
+  }
+
+  public void test_performOperation_cycle() throws Exception {
+    Location locationA = new Location(classA, 9, 10);
+    store.recordRelationship(classD, IndexConstants.IS_IMPLEMENTED_BY, locationA);
+    GetSubtypesOperation operation = new GetSubtypesOperation(store, classA, true, callback);
+    operation.performOperation();
+    callback.assertLocations(IndexConstants.IS_EXTENDED_BY, locationB, locationD_extends);
+    callback.assertLocations(IndexConstants.IS_MIXED_IN_BY, locationD_with);
+    callback.assertLocations(IndexConstants.IS_IMPLEMENTED_BY, locationC, locationA);
+  }
+
+  public void test_performOperation_direct() throws Exception {
+    GetSubtypesOperation operation = new GetSubtypesOperation(store, classA, false, callback);
+    operation.performOperation();
+    callback.assertLocations(IndexConstants.IS_EXTENDED_BY, locationB);
+    callback.assertLocations(IndexConstants.IS_MIXED_IN_BY);
+    callback.assertLocations(IndexConstants.IS_IMPLEMENTED_BY, locationC);
+  }
+
+  public void test_performOperation_transitive() throws Exception {
+    GetSubtypesOperation operation = new GetSubtypesOperation(store, classA, true, callback);
+    operation.performOperation();
+    callback.assertLocations(IndexConstants.IS_EXTENDED_BY, locationB, locationD_extends);
+    callback.assertLocations(IndexConstants.IS_MIXED_IN_BY, locationD_with);
+    callback.assertLocations(IndexConstants.IS_IMPLEMENTED_BY, locationC);
+  }
+
+  public void test_performOperation_transitive_supertypes() throws Exception {
+    GetSubtypesOperation operation = new GetSubtypesOperation(store, classA, true, callback);
+    operation.performOperation();
+    Map<String, Object> supertypes = Maps.newHashMap();
+    for (Location[] locations : callback.locations.values()) {
+      for (Location location : locations) {
+        String key = location.getElement().getDisplayName() + "@" + location.getOffset();
+        supertypes.put(key, ((LocationWithData<?>) location).getData());
+      }
+    }
+    assertSame(classA, supertypes.get("B@1"));
+    assertSame(classA, supertypes.get("C@3"));
+    assertSame(classB, supertypes.get("D@5"));
+    assertSame(classC, supertypes.get("D@7"));
+  }
+
+  public void test_removeWhenSourceRemoved() throws Exception {
+    GetSubtypesOperation operation = new GetSubtypesOperation(store, classA, true, callback);
+    Source source = mock(Source.class);
+    assertFalse(operation.removeWhenSourceRemoved(source));
+  }
+
+  public void test_toString() throws Exception {
+    when(classA.toString()).thenReturn("A");
+    GetSubtypesOperation operation = new GetSubtypesOperation(store, classA, true, callback);
+    assertEquals("GetSubtypes(A, true)", operation.toString());
+  }
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    AnalysisContext context = mock(AnalysisContext.class);
+    Source source = mock(Source.class);
+    for (ClassElement element : new ClassElement[] {classA, classB, classC, classD}) {
+      when(element.getContext()).thenReturn(context);
+      when(element.getSource()).thenReturn(source);
+    }
+    when(classA.getDisplayName()).thenReturn("A");
+    when(classB.getDisplayName()).thenReturn("B");
+    when(classC.getDisplayName()).thenReturn("C");
+    when(classD.getDisplayName()).thenReturn("D");
+    // B extends A, C implements A, D extends B with C
+    store.recordRelationship(classA, IndexConstants.IS_EXTENDED_BY, locationB);
+    store.recordRelationship(classA, IndexConstants.IS_IMPLEMENTED_BY, locationC);
+    store.recordRelationship(classB, IndexConstants.IS_EXTENDED_BY, locationD_extends);
+    store.recordRelationship(classC, IndexConstants.IS_MIXED_IN_BY, locationD_with);
+  }
+}
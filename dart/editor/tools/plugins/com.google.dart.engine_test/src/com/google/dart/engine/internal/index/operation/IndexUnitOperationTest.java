@@ -23,9 +23,14 @@ import com.google.dart.engine.internal.index.IndexContributor;
 import com.google.dart.engine.source.Source;
 import com.google.dart.engine.utilities.logging.Logger;
 
+import org.mockito.InOrder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.isA;
 import static org.mockito.Matchers.same;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
@@ -63,6 +68,19 @@ public class IndexUnitOperationTest extends EngineTestCase {
     verify(unit, never()).accept(isA(IndexContributor.class));
   }
 
+  public void test_performOperation_visitsWithStore() throws Exception {
+    when(unit.accept(isA(IndexContributor.class))).thenAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws Throwable {
+        // the real store is used, so the visit must hold its lock
+        assertTrue(Thread.holdsLock(store));
+        return null;
+      }
+    });
+    operation.performOperation();
+    verify(store).doneIndex();
+  }
+
   public void test_performOperation_whenException() throws Exception {
     Logger oldLogger = AnalysisEngine.getInstance().getLogger();
     try {
@@ -80,6 +98,28 @@ public class IndexUnitOperationTest extends EngineTestCase {
     }
   }
 
+  public void test_performOperationConcurrently() throws Exception {
+    when(unit.accept(isA(IndexContributor.class))).thenAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws Throwable {
+        // the unit is visited without holding the lock on the store
+        assertFalse(Thread.holdsLock(store));
+        return null;
+      }
+    });
+    operation.performOperationConcurrently();
+    InOrder inOrder = inOrder(store);
+    inOrder.verify(store).aboutToIndexDart(context, unitElement);
+    inOrder.verify(store).doneIndex();
+  }
+
+  public void test_performOperationConcurrently_aboutToIndex_false() throws Exception {
+    when(store.aboutToIndexDart(context, unitElement)).thenReturn(false);
+    operation.performOperationConcurrently();
+    verify(unit, never()).accept(isA(IndexContributor.class));
+    verify(store, never()).doneIndex();
+  }
+
   public void test_removeWhenSourceRemoved() throws Exception {
     Source someSource = mock(Source.class);
     assertFalse(operation.removeWhenSourceRemoved(someSource));
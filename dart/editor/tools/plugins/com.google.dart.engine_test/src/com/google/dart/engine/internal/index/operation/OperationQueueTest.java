@@ -47,6 +47,20 @@ public class OperationQueueTest extends EngineTestCase {
     assertSame(null, queue.dequeue(-1));
   }
 
+  public void test_dequeue_queriesFirst() throws Exception {
+    IndexOperation notQueryOperation = mock(IndexOperation.class);
+    IndexOperation isQueryOperation = mock(IndexOperation.class);
+    when(isQueryOperation.isQuery()).thenReturn(true);
+    // enqueue 2 operations
+    OperationQueue queue = new OperationQueue();
+    queue.enqueue(notQueryOperation);
+    queue.enqueue(isQueryOperation);
+    // do dequeue, first "isQuery"
+    assertSame(isQueryOperation, queue.dequeue(0, true));
+    assertSame(notQueryOperation, queue.dequeue(0, true));
+    assertSame(null, queue.dequeue(0, true));
+  }
+
   public void test_enqueue_isQuery() throws Exception {
     IndexOperation notQueryOperation = mock(IndexOperation.class);
     IndexOperation isQueryOperation = mock(IndexOperation.class);
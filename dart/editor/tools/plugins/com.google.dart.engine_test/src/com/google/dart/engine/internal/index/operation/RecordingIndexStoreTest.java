@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.index.operation;
+
+import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.index.IndexStore;
+import com.google.dart.engine.index.Location;
+import com.google.dart.engine.index.Relationship;
+import com.google.dart.engine.source.Source;
+
+import org.mockito.InOrder;
+
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+public class RecordingIndexStoreTest extends EngineTestCase {
+  private final IndexStore store = mock(IndexStore.class);
+  private final RecordingIndexStore recordingStore = new RecordingIndexStore(store);
+  private final AnalysisContext context = mock(AnalysisContext.class);
+  private final Element element = mock(Element.class);
+  private final Relationship relationship = Relationship.getRelationship("test-relationship");
+
+  public void test_doneIndex() throws Exception {
+    Location locationA = new Location(element, 1, 2);
+    Location locationB = new Location(element, 10, 20);
+    recordingStore.recordRelationship(element, relationship, locationA);
+    recordingStore.recordRelationship(element, relationship, locationB);
+    verifyZeroInteractions(store);
+    recordingStore.doneIndex();
+    InOrder inOrder = inOrder(store);
+    inOrder.verify(store).recordRelationship(element, relationship, locationA);
+    inOrder.verify(store).recordRelationship(element, relationship, locationB);
+    inOrder.verify(store).doneIndex();
+  }
+
+  public void test_getRelationships() throws Exception {
+    Location[] locations = {new Location(element, 1, 2)};
+    when(store.getRelationships(element, relationship)).thenReturn(locations);
+    assertSame(locations, recordingStore.getRelationships(element, relationship));
+  }
+
+  public void test_getRelationships_pattern() throws Exception {
+    Location[] locations = {new Location(element, 1, 2)};
+    when(store.getRelationships(element, relationship, "A", true)).thenReturn(locations);
+    assertSame(locations, recordingStore.getRelationships(element, relationship, "A", true));
+  }
+
+  public void test_getStatistics() throws Exception {
+    when(store.getStatistics()).thenReturn("statistics");
+    assertEquals("statistics", recordingStore.getStatistics());
+  }
+
+  public void test_removeSource() throws Exception {
+    Source source = mock(Source.class);
+    recordingStore.removeSource(context, source);
+    verify(store).removeSource(context, source);
+  }
+}
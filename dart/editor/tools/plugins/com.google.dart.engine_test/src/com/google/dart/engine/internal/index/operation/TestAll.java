@@ -21,7 +21,9 @@ import junit.framework.TestSuite;
 public class TestAll {
   public static Test suite() {
     TestSuite suite = new ExtendedTestSuite("Tests in " + TestAll.class.getPackage().getName());
+    suite.addTestSuite(ConcurrentOperationProcessorTest.class);
     suite.addTestSuite(GetRelationshipsOperationTest.class);
+    suite.addTestSuite(GetSubtypesOperationTest.class);
     suite.addTestSuite(IndexUnitOperationTest.class);
     suite.addTestSuite(IndexHtmlUnitOperationTest.class);
     suite.addTestSuite(RemoveContextOperationTest.class);
@@ -29,6 +31,7 @@ public class TestAll {
     suite.addTestSuite(RemoveSourcesOperationTest.class);
     suite.addTestSuite(OperationQueueTest.class);
     suite.addTestSuite(OperationProcessorTest.class);
+    suite.addTestSuite(RecordingIndexStoreTest.class);
     return suite;
   }
 }
@@ -145,6 +145,15 @@ public class InheritanceManagerTest extends EngineTestCase {
     assertNoErrors(classA);
   }
 
+  public void test_getMapOfMembersInheritedFromClasses_localClassNotShared() throws Exception {
+    // class A {}
+    ClassElementImpl classA = classElement("A");
+    MemberMap mapA = inheritanceManager.getMapOfMembersInheritedFromClasses(classA);
+    MemberMapCache cache = ((AnalysisContextImpl) definingLibrary.getContext()).getMemberMapCache();
+    assertNotNull(mapA);
+    assertNull(cache.getClassMap(classA));
+  }
+
   public void test_getMapOfMembersInheritedFromClasses_method_extends() throws Exception {
     // class A { int g(); }
     // class B extends A {}
@@ -473,6 +482,32 @@ public class InheritanceManagerTest extends EngineTestCase {
     assertNoErrors(classB);
   }
 
+  public void test_getMapOfMembersInheritedFromInterfaces_sdkClassReleased() throws Exception {
+    AnalysisContextImpl context = (AnalysisContextImpl) definingLibrary.getContext();
+    ClassElement listElement = context.getTypeProvider().getListType().getElement();
+    MemberMapCache cache = context.getMemberMapCache();
+    inheritanceManager.getMapOfMembersInheritedFromInterfaces(listElement);
+    assertNotNull(cache.getInterfaceMap(listElement));
+    // another context using the same SDK records a new element model for "dart:core"
+    AnalysisContextImpl otherContext = AnalysisContextFactory.contextWithCore();
+    assertSame(cache, otherContext.getMemberMapCache());
+    assertNull(cache.getInterfaceMap(listElement));
+  }
+
+  public void test_getMapOfMembersInheritedFromInterfaces_sdkClassShared() throws Exception {
+    AnalysisContextImpl context = (AnalysisContextImpl) definingLibrary.getContext();
+    ClassElement listElement = context.getTypeProvider().getListType().getElement();
+    LibraryElementImpl otherLibrary = library(context, "other");
+    CompilationUnitElementImpl otherUnit = new CompilationUnitElementImpl("other.dart");
+    otherUnit.setSource(new FileBasedSource(FileUtilities2.createFile("/other.dart")));
+    otherLibrary.setDefiningCompilationUnit(otherUnit);
+    InheritanceManager otherManager = new InheritanceManager(otherLibrary);
+
+    MemberMap map = inheritanceManager.getMapOfMembersInheritedFromInterfaces(listElement);
+    assertSame(map, otherManager.getMapOfMembersInheritedFromInterfaces(listElement));
+    assertSame(map, context.getMemberMapCache().getInterfaceMap(listElement));
+  }
+
   public void test_getMapOfMembersInheritedFromInterfaces_union_differentNames() throws Exception {
     // class I1 { int m1(); }
     // class I2 { int m2(); }
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.scope;
+
+import com.google.common.collect.Lists;
+import com.google.dart.engine.element.Element;
+
+import junit.framework.TestCase;
+
+import static com.google.dart.engine.element.ElementFactory.functionElement;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class CandidateTableTest extends TestCase {
+  public void test_getElements_duplicateNames() throws Exception {
+    Element first = functionElement("foo");
+    Element second = functionElement("Foo");
+    Element third = functionElement("foo");
+    CandidateTable table = new CandidateTable(Lists.newArrayList(first, second, third));
+    List<Element> elements = table.getElements("f");
+    assertEquals(3, elements.size());
+    assertSame(first, elements.get(0));
+    assertSame(second, elements.get(1));
+    assertSame(third, elements.get(2));
+  }
+
+  public void test_getElements_emptyPrefix() throws Exception {
+    CandidateTable table = createTable("b", "c", "a");
+    assertEquals(3, table.getSize());
+    assertNames(table.getElements(""), "a", "b", "c");
+  }
+
+  public void test_getElements_emptyTable() throws Exception {
+    CandidateTable table = new CandidateTable(new ArrayList<Element>());
+    assertEquals(0, table.getSize());
+    assertNames(table.getElements(""));
+    assertNames(table.getElements("a"));
+  }
+
+  public void test_getElements_modifiable() throws Exception {
+    CandidateTable table = createTable("a", "ab");
+    table.getElements("a").clear();
+    assertNames(table.getElements("a"), "a", "ab");
+  }
+
+  public void test_getElements_noMatch() throws Exception {
+    CandidateTable table = createTable("bar", "baz", "foo");
+    assertNames(table.getElements("bb"));
+    assertNames(table.getElements("a"));
+    assertNames(table.getElements("z"));
+  }
+
+  public void test_getElements_prefix() throws Exception {
+    CandidateTable table = createTable("getFoo", "Bar", "get", "baz", "getBar", "set");
+    assertNames(table.getElements("ba"), "Bar", "baz");
+    assertNames(table.getElements("get"), "get", "getBar", "getFoo");
+    assertNames(table.getElements("getb"), "getBar");
+    assertNames(table.getElements("s"), "set");
+  }
+
+  private void assertNames(List<Element> elements, String... expectedNames) {
+    assertEquals(expectedNames.length, elements.size());
+    for (int i = 0; i < expectedNames.length; i++) {
+      assertEquals(expectedNames[i], elements.get(i).getName());
+    }
+  }
+
+  private CandidateTable createTable(String... names) {
+    List<Element> elements = Lists.newArrayList();
+    for (String name : names) {
+      elements.add(functionElement(name));
+    }
+    return new CandidateTable(elements);
+  }
+}
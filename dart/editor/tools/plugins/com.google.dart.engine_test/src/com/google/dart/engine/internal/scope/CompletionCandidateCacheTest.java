@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.scope;
+
+import com.google.dart.engine.element.Element;
+import com.google.dart.engine.element.LibraryElement;
+import com.google.dart.engine.internal.context.AnalysisContextImpl;
+import com.google.dart.engine.internal.context.InternalAnalysisContext;
+import com.google.dart.engine.resolver.ResolverTestCase;
+import com.google.dart.engine.source.Source;
+
+import java.util.List;
+
+public class CompletionCandidateCacheTest extends ResolverTestCase {
+  private CompletionCandidateCache cache = new CompletionCandidateCache();
+
+  public void test_clear() throws Exception {
+    Source source = addSource("var v;");
+    cache.getImportTable(resolve(source));
+    assertEquals(1, cache.getSize());
+    cache.clear();
+    assertEquals(0, cache.getSize());
+  }
+
+  public void test_getCompletionCandidateCache() throws Exception {
+    InternalAnalysisContext context = (InternalAnalysisContext) getAnalysisContext();
+    CompletionCandidateCache contextCache = context.getCompletionCandidateCache();
+    assertNotNull(contextCache);
+    assertSame(contextCache, context.getCompletionCandidateCache());
+    assertNotSame(contextCache, new AnalysisContextImpl().getCompletionCandidateCache());
+  }
+
+  public void test_getExportTable() throws Exception {
+    addNamedSource("/lib.dart", "library lib; class Exported {} class _Private {}");
+    Source source = addSource("library test; export 'lib.dart'; class Declared {}");
+    LibraryElement library = resolve(source);
+    CandidateTable table = cache.getExportTable(library);
+    assertNames(table.getElements("e"), "Exported");
+    assertNames(table.getElements("d"), "Declared");
+    assertNames(table.getElements("_"));
+    assertSame(table, cache.getExportTable(library));
+  }
+
+  public void test_getImportTable() throws Exception {
+    addNamedSource("/lib.dart", "library lib; class Imported {} class Hidden {}");
+    Source source = addSource("library test; import 'lib.dart' hide Hidden; class Declared {}");
+    LibraryElement library = resolve(source);
+    CandidateTable table = cache.getImportTable(library);
+    assertNames(table.getElements("imp"), "Imported");
+    assertNames(table.getElements("decl"), "Declared");
+    assertNames(table.getElements("hid"));
+    assertSame(table, cache.getImportTable(library));
+  }
+
+  public void test_getImportTable_importedLibraryChanged() throws Exception {
+    Source libSource = addNamedSource("/lib.dart", "library lib; class Alpha {}");
+    Source source = addSource("library test; import 'lib.dart';");
+    LibraryElement library = resolve(source);
+    CandidateTable table = cache.getImportTable(library);
+    assertNames(table.getElements("alp"), "Alpha");
+    assertNames(table.getElements("bet"));
+    // change the public namespace of the imported library
+    getAnalysisContext().setContents(libSource, "library lib; class Alpha {} class Beta {}");
+    resolve(libSource);
+    CandidateTable newTable = cache.getImportTable(library);
+    assertNotSame(table, newTable);
+    assertEquals(1, cache.getSize());
+    // the new library sees the new class
+    LibraryElement newLibrary = resolve(source);
+    assertNotSame(library, newLibrary);
+    assertNames(cache.getImportTable(newLibrary).getElements("bet"), "Beta");
+  }
+
+  private void assertNames(List<Element> elements, String... expectedNames) {
+    assertEquals(expectedNames.length, elements.size());
+    for (int i = 0; i < expectedNames.length; i++) {
+      assertEquals(expectedNames[i], elements.get(i).getName());
+    }
+  }
+}
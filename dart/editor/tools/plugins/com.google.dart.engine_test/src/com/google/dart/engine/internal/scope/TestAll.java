@@ -21,6 +21,8 @@ import junit.framework.TestSuite;
 public class TestAll {
   public static Test suite() {
     TestSuite suite = new ExtendedTestSuite("Tests in " + TestAll.class.getPackage().getName());
+    suite.addTestSuite(CandidateTableTest.class);
+    suite.addTestSuite(CompletionCandidateCacheTest.class);
     suite.addTestSuite(EnclosedScopeTest.class);
     suite.addTestSuite(LibraryImportScopeTest.class);
     suite.addTestSuite(LibraryScopeTest.class);
@@ -14,6 +14,8 @@
 package com.google.dart.engine.internal.search;
 
 import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.dart.engine.EngineTestCase;
 import com.google.dart.engine.context.AnalysisContext;
@@ -57,6 +59,7 @@ import com.google.dart.engine.search.MatchQuality;
 import com.google.dart.engine.search.SearchEngine;
 import com.google.dart.engine.search.SearchEngineFactory;
 import com.google.dart.engine.search.SearchFilter;
+import com.google.dart.engine.search.SearchFuture;
 import com.google.dart.engine.search.SearchListener;
 import com.google.dart.engine.search.SearchMatch;
 import com.google.dart.engine.search.SearchPattern;
@@ -69,9 +72,11 @@ import com.google.dart.engine.utilities.source.SourceRange;
 
 import static org.fest.assertions.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
@@ -253,6 +258,23 @@ public class SearchEngineImplTest extends EngineTestCase {
         new ExpectedMatch(elementB, MatchKind.NAME_DECLARATION, 10, 20));
   }
 
+  public void test_searchDeclarations_interrupted() throws Exception {
+    Element referencedElement = new NameElementImpl("test");
+    Location location = new Location(elementA, 1, 2);
+    indexStore.recordRelationship(referencedElement, IndexConstants.IS_DEFINED_BY, location);
+    // an interrupt does not abandon a synchronous search
+    List<SearchMatch> matches = runSearch(new SearchRunner<List<SearchMatch>>() {
+      @Override
+      public List<SearchMatch> run(OperationQueue queue, OperationProcessor processor, Index index,
+          SearchEngine engine) throws Exception {
+        Thread.currentThread().interrupt();
+        return engine.searchDeclarations("test", scope, filter);
+      }
+    });
+    assertTrue(Thread.interrupted());
+    assertMatches(matches, new ExpectedMatch(elementA, MatchKind.NAME_DECLARATION, 1, 2));
+  }
+
   public void test_searchFunctionDeclarations() throws Exception {
     LibraryElement library = mockElement(LibraryElement.class, ElementKind.LIBRARY);
     defineFunctionsAB(library);
@@ -304,6 +326,46 @@ public class SearchEngineImplTest extends EngineTestCase {
         new ExpectedMatch(elementB, MatchKind.FUNCTION_DECLARATION, 10, 20));
   }
 
+  public void test_searchFunctionDeclarations_inUniverse_usePattern() throws Exception {
+    when(elementA.getDisplayName()).thenReturn("NullPointerException");
+    when(elementB.getDisplayName()).thenReturn("NumberFormatException");
+    indexStore.recordRelationship(
+        IndexConstants.UNIVERSE,
+        IndexConstants.DEFINES_FUNCTION,
+        new Location(elementA, 1, 2));
+    indexStore.recordRelationship(
+        IndexConstants.UNIVERSE,
+        IndexConstants.DEFINES_FUNCTION,
+        new Location(elementB, 10, 20));
+    scope = SearchScopeFactory.createUniverseScope();
+    // camel case
+    {
+      pattern = SearchPatternFactory.createCamelCasePattern("NPE", false);
+      List<SearchMatch> matches = searchFunctionDeclarationsSync();
+      assertMatches(matches, new ExpectedMatch(elementA, MatchKind.FUNCTION_DECLARATION, 1, 2));
+    }
+    // prefix, case sensitive
+    {
+      pattern = SearchPatternFactory.createPrefixPattern("Numb", true);
+      List<SearchMatch> matches = searchFunctionDeclarationsSync();
+      assertMatches(matches, new ExpectedMatch(elementB, MatchKind.FUNCTION_DECLARATION, 10, 20));
+    }
+    {
+      pattern = SearchPatternFactory.createPrefixPattern("numb", true);
+      List<SearchMatch> matches = searchFunctionDeclarationsSync();
+      assertMatches(matches);
+    }
+    // wildcard
+    {
+      pattern = SearchPatternFactory.createWildcardPattern("nu*exception", false);
+      List<SearchMatch> matches = searchFunctionDeclarationsSync();
+      assertMatches(
+          matches,
+          new ExpectedMatch(elementA, MatchKind.FUNCTION_DECLARATION, 1, 2),
+          new ExpectedMatch(elementB, MatchKind.FUNCTION_DECLARATION, 10, 20));
+    }
+  }
+
   public void test_searchFunctionDeclarations_useFilter() throws Exception {
     LibraryElement library = mockElement(LibraryElement.class, ElementKind.LIBRARY);
     defineFunctionsAB(library);
@@ -473,6 +535,51 @@ public class SearchEngineImplTest extends EngineTestCase {
         new ExpectedMatch(elementB, MatchKind.ANGULAR_REFERENCE, 10, 20));
   }
 
+  public void test_searchReferences_cancelled() throws Exception {
+    ClassElement referencedElement = mockElement(ClassElement.class, ElementKind.CLASS);
+    IndexStore store = mock(IndexStore.class);
+    OperationQueue queue = new OperationQueue();
+    SearchEngine engine = createStoppedEngine(store, queue);
+    filter = new SearchFilter() {
+      @Override
+      public boolean passes(SearchMatch match) {
+        return true;
+      }
+    };
+    SearchFuture future = new SearchFuture();
+    engine.searchReferences(referencedElement, scope, filter, future);
+    assertTrue(future.cancel(false));
+    // the queued operation is discarded without accessing the index
+    performOperations(queue);
+    verifyZeroInteractions(store);
+    assertTrue(future.isCancelled());
+  }
+
+  public void test_searchReferences_limitReached() throws Exception {
+    ClassElement referencedElement = mockElement(ClassElement.class, ElementKind.CLASS);
+    IndexStore store = mock(IndexStore.class);
+    OperationQueue queue = new OperationQueue();
+    SearchEngine engine = createStoppedEngine(store, queue);
+    filter = new SearchFilter() {
+      @Override
+      public boolean passes(SearchMatch match) {
+        return true;
+      }
+    };
+    SearchFuture future = new SearchFuture(1, null);
+    engine.searchReferences(referencedElement, scope, filter, future);
+    future.matchFound(new SearchMatch(
+        MatchQuality.EXACT,
+        MatchKind.TYPE_REFERENCE,
+        elementA,
+        new SourceRange(1, 2)));
+    // the future is done, so the queued operation is discarded without accessing the index
+    performOperations(queue);
+    verifyZeroInteractions(store);
+    assertTrue(future.isDone());
+    assertFalse(future.isCancelled());
+  }
+
   public void test_searchReferences_ClassElement() throws Exception {
     ClassElement referencedElement = mockElement(ClassElement.class, ElementKind.CLASS);
     {
@@ -947,6 +1054,46 @@ public class SearchEngineImplTest extends EngineTestCase {
         new ExpectedMatch(elementC, MatchKind.VARIABLE_READ_WRITE, 3, 30));
   }
 
+  public void test_searchSubtypeHierarchy() throws Exception {
+    final ClassElement classA = mockElement(ClassElement.class, ElementKind.CLASS);
+    ClassElement classB = mockElement(ClassElement.class, ElementKind.CLASS);
+    ClassElement classC = mockElement(ClassElement.class, ElementKind.CLASS);
+    ClassElement classD = mockElement(ClassElement.class, ElementKind.CLASS);
+    when(classA.getDisplayName()).thenReturn("A");
+    when(classB.getDisplayName()).thenReturn("B");
+    when(classC.getDisplayName()).thenReturn("C");
+    when(classD.getDisplayName()).thenReturn("D");
+    // B extends A, C implements A, D extends B with C
+    indexStore.recordRelationship(classA, IndexConstants.IS_EXTENDED_BY, new Location(
+        classB,
+        10,
+        1));
+    indexStore.recordRelationship(classA, IndexConstants.IS_IMPLEMENTED_BY, new Location(
+        classC,
+        20,
+        2));
+    indexStore.recordRelationship(classB, IndexConstants.IS_EXTENDED_BY, new Location(
+        classD,
+        30,
+        3));
+    indexStore.recordRelationship(classC, IndexConstants.IS_MIXED_IN_BY, new Location(
+        classD,
+        40,
+        4));
+    Map<ClassElement, List<ClassElement>> hierarchy = runSearch(
+        new SearchRunner<Map<ClassElement, List<ClassElement>>>() {
+          @Override
+          public Map<ClassElement, List<ClassElement>> run(OperationQueue queue,
+              OperationProcessor processor, Index index, SearchEngine engine) throws Exception {
+            return engine.searchSubtypeHierarchy(classA, null);
+          }
+        });
+    assertEquals(ImmutableSet.of(classA, classB, classC), hierarchy.keySet());
+    assertEquals(ImmutableSet.of(classB, classC), ImmutableSet.copyOf(hierarchy.get(classA)));
+    assertEquals(ImmutableList.of(classD), hierarchy.get(classB));
+    assertEquals(ImmutableList.of(classD), hierarchy.get(classC));
+  }
+
   public void test_searchSubtypes() throws Exception {
     final ClassElement referencedElement = mockElement(ClassElement.class, ElementKind.CLASS);
     {
@@ -977,6 +1124,57 @@ public class SearchEngineImplTest extends EngineTestCase {
         new ExpectedMatch(elementC, MatchKind.IMPLEMENTS_REFERENCE, 30, 3));
   }
 
+  public void test_searchSubtypes_transitive() throws Exception {
+    final ClassElement classA = mockElement(ClassElement.class, ElementKind.CLASS);
+    ClassElement classB = mockElement(ClassElement.class, ElementKind.CLASS);
+    ClassElement classC = mockElement(ClassElement.class, ElementKind.CLASS);
+    ClassElement classD = mockElement(ClassElement.class, ElementKind.CLASS);
+    when(classA.getDisplayName()).thenReturn("A");
+    when(classB.getDisplayName()).thenReturn("B");
+    when(classC.getDisplayName()).thenReturn("C");
+    when(classD.getDisplayName()).thenReturn("D");
+    indexStore.recordRelationship(classA, IndexConstants.IS_EXTENDED_BY, new Location(
+        classB,
+        10,
+        1));
+    indexStore.recordRelationship(classB, IndexConstants.IS_IMPLEMENTED_BY, new Location(
+        classC,
+        20,
+        2));
+    indexStore.recordRelationship(classC, IndexConstants.IS_MIXED_IN_BY, new Location(
+        classD,
+        30,
+        3));
+    // cycle, should not cause infinite loop
+    indexStore.recordRelationship(classD, IndexConstants.IS_IMPLEMENTED_BY, new Location(
+        classA,
+        40,
+        4));
+    // direct subtypes only
+    List<SearchMatch> matches = runSearch(new SearchRunner<List<SearchMatch>>() {
+      @Override
+      public List<SearchMatch> run(OperationQueue queue, OperationProcessor processor, Index index,
+          SearchEngine engine) throws Exception {
+        return engine.searchSubtypes(classA, false, scope, filter);
+      }
+    });
+    assertMatches(matches, new ExpectedMatch(classB, MatchKind.EXTENDS_REFERENCE, 10, 1));
+    // whole hierarchy
+    matches = runSearch(new SearchRunner<List<SearchMatch>>() {
+      @Override
+      public List<SearchMatch> run(OperationQueue queue, OperationProcessor processor, Index index,
+          SearchEngine engine) throws Exception {
+        return engine.searchSubtypes(classA, true, scope, filter);
+      }
+    });
+    assertMatches(
+        matches,
+        new ExpectedMatch(classB, MatchKind.EXTENDS_REFERENCE, 10, 1),
+        new ExpectedMatch(classC, MatchKind.IMPLEMENTS_REFERENCE, 20, 2),
+        new ExpectedMatch(classD, MatchKind.WITH_REFERENCE, 30, 3),
+        new ExpectedMatch(classA, MatchKind.IMPLEMENTS_REFERENCE, 40, 4));
+  }
+
   public void test_searchTypeDeclarations_async() throws Exception {
     LibraryElement library = mockElement(LibraryElement.class, ElementKind.LIBRARY);
     {
@@ -1125,6 +1323,11 @@ public class SearchEngineImplTest extends EngineTestCase {
     when(elementE.getContext()).thenReturn(CONTEXT);
   }
 
+  private SearchEngine createStoppedEngine(IndexStore store, OperationQueue queue) {
+    OperationProcessor processor = new OperationProcessor(queue);
+    return SearchEngineFactory.createSearchEngine(new IndexImpl(store, queue, processor));
+  }
+
   private void defineFunctionsAB(LibraryElement library) {
     {
       when(elementA.getAncestor(LibraryElement.class)).thenReturn(library);
@@ -1159,6 +1362,12 @@ public class SearchEngineImplTest extends EngineTestCase {
     return element;
   }
 
+  private void performOperations(OperationQueue queue) {
+    for (IndexOperation operation : queue.getOperations()) {
+      operation.performOperation();
+    }
+  }
+
   private <T> T runSearch(SearchRunner<T> runner) throws Exception {
     final OperationQueue queue = new OperationQueue();
     final OperationProcessor processor = new OperationProcessor(queue);
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.task;
+
+import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.context.AnalysisException;
+import com.google.dart.engine.internal.context.AnalysisContextImpl;
+import com.google.dart.engine.internal.context.InternalAnalysisContext;
+import com.google.dart.engine.source.FileUriResolver;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.SourceFactory;
+import com.google.dart.engine.source.TestSource;
+
+import static com.google.dart.engine.utilities.io.FileUtilities2.createFile;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ParseDartSourcesTaskTest extends EngineTestCase {
+  public void test_accept() throws AnalysisException {
+    ParseDartSourcesTask task = new ParseDartSourcesTask(null, new ArrayList<AnalysisTask>(), 2);
+    assertTrue(task.accept(new TestTaskVisitor<Boolean>() {
+      @Override
+      public Boolean visitParseDartSourcesTask(ParseDartSourcesTask task)
+          throws AnalysisException {
+        return true;
+      }
+    }));
+  }
+
+  public void test_getException() {
+    ParseDartSourcesTask task = new ParseDartSourcesTask(null, new ArrayList<AnalysisTask>(), 2);
+    assertNull(task.getException());
+  }
+
+  public void test_perform_interrupted() throws AnalysisException {
+    InternalAnalysisContext context = new AnalysisContextImpl();
+    context.setSourceFactory(new SourceFactory(new FileUriResolver()));
+    Source sourceA = new TestSource(createFile("/a.dart"), "library a;");
+    Source sourceB = new TestSource(createFile("/b.dart"), "library b;");
+    ArrayList<AnalysisTask> sourceTasks = new ArrayList<AnalysisTask>();
+    sourceTasks.add(new GetContentTask(context, sourceA));
+    sourceTasks.add(new GetContentTask(context, sourceB));
+    // with one thread, the second source is never started
+    ParseDartSourcesTask task = new ParseDartSourcesTask(context, sourceTasks, 1);
+    Thread.currentThread().interrupt();
+    try {
+      task.perform(new TestTaskVisitor<Boolean>() {
+        @Override
+        public Boolean visitParseDartSourcesTask(ParseDartSourcesTask task)
+            throws AnalysisException {
+          assertNotNull(task.getException());
+          return true;
+        }
+      });
+    } finally {
+      Thread.interrupted();
+    }
+    List<AnalysisTask> unprocessedTasks = task.getUnprocessedTasks();
+    assertTrue(unprocessedTasks.contains(sourceTasks.get(1)));
+    // each source is either processed or unprocessed
+    int processedCount = task.getPerformedTasks().isEmpty() ? 0 : 1;
+    assertEquals(2, processedCount + unprocessedTasks.size());
+  }
+
+  public void test_perform_valid() throws AnalysisException {
+    InternalAnalysisContext context = new AnalysisContextImpl();
+    context.setSourceFactory(new SourceFactory(new FileUriResolver()));
+    Source sourceA = new TestSource(createFile("/a.dart"), createSource(//
+        "library a;",
+        "class A {}"));
+    String contentB = createSource(//
+    "part of a;");
+    Source sourceB = new TestSource(createFile("/b.dart"), contentB);
+    ArrayList<AnalysisTask> sourceTasks = new ArrayList<AnalysisTask>();
+    sourceTasks.add(new GetContentTask(context, sourceA));
+    sourceTasks.add(new ScanDartTask(context, sourceB, sourceB.getModificationStamp(), contentB));
+    ParseDartSourcesTask task = new ParseDartSourcesTask(context, sourceTasks, 2);
+    task.perform(new TestTaskVisitor<Boolean>() {
+      @Override
+      public Boolean visitParseDartSourcesTask(ParseDartSourcesTask task)
+          throws AnalysisException {
+        assertNull(task.getException());
+        return true;
+      }
+    });
+    List<AnalysisTask> performedTasks = task.getPerformedTasks();
+    assertSizeOfList(5, performedTasks);
+    assertInstanceOf(GetContentTask.class, performedTasks.get(0));
+    assertInstanceOf(ScanDartTask.class, performedTasks.get(1));
+    ParseDartTask parseTaskA = assertInstanceOf(ParseDartTask.class, performedTasks.get(2));
+    assertSame(sourceA, parseTaskA.getSource());
+    assertTrue(parseTaskA.hasNonPartOfDirective());
+    assertInstanceOf(ScanDartTask.class, performedTasks.get(3));
+    ParseDartTask parseTaskB = assertInstanceOf(ParseDartTask.class, performedTasks.get(4));
+    assertSame(sourceB, parseTaskB.getSource());
+    assertTrue(parseTaskB.hasPartOfDirective());
+  }
+}
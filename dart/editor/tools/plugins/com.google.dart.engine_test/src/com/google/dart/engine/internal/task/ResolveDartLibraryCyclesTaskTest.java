@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.internal.task;
+
+import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.context.AnalysisException;
+import com.google.dart.engine.internal.resolver.ResolvableLibrary;
+import com.google.dart.engine.utilities.collection.DirectedGraph;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ResolveDartLibraryCyclesTaskTest extends EngineTestCase {
+  public void test_accept() throws AnalysisException {
+    ResolveDartLibraryCyclesTask task = new ResolveDartLibraryCyclesTask(
+        null,
+        new ArrayList<ResolveDartLibraryCycleTask>(),
+        new DirectedGraph<ResolveDartLibraryCycleTask>(),
+        2);
+    assertTrue(task.accept(new TestTaskVisitor<Boolean>() {
+      @Override
+      public Boolean visitResolveDartLibraryCyclesTask(ResolveDartLibraryCyclesTask task)
+          throws AnalysisException {
+        return true;
+      }
+    }));
+  }
+
+  public void test_getException() {
+    ResolveDartLibraryCyclesTask task = new ResolveDartLibraryCyclesTask(
+        null,
+        new ArrayList<ResolveDartLibraryCycleTask>(),
+        new DirectedGraph<ResolveDartLibraryCycleTask>(),
+        2);
+    assertNull(task.getException());
+  }
+
+  public void test_perform_dependencyFailed() throws AnalysisException {
+    // Tasks without a context fail when they are performed.
+    ResolveDartLibraryCycleTask dependency = createCycleTask();
+    ResolveDartLibraryCycleTask dependent = createCycleTask();
+    ResolveDartLibraryCycleTask independent = createCycleTask();
+    ArrayList<ResolveDartLibraryCycleTask> cycleTasks = new ArrayList<ResolveDartLibraryCycleTask>();
+    cycleTasks.add(dependent);
+    cycleTasks.add(dependency);
+    cycleTasks.add(independent);
+    DirectedGraph<ResolveDartLibraryCycleTask> dependencyGraph = new DirectedGraph<ResolveDartLibraryCycleTask>();
+    dependencyGraph.addEdge(dependent, dependency);
+    dependencyGraph.addNode(independent);
+    ResolveDartLibraryCyclesTask task = new ResolveDartLibraryCyclesTask(
+        null,
+        cycleTasks,
+        dependencyGraph,
+        2);
+    task.perform(new TestTaskVisitor<Boolean>() {
+      @Override
+      public Boolean visitResolveDartLibraryCyclesTask(ResolveDartLibraryCyclesTask task)
+          throws AnalysisException {
+        assertNull(task.getException());
+        return true;
+      }
+    });
+    List<ResolveDartLibraryCycleTask> performedTasks = task.getPerformedTasks();
+    assertSizeOfList(2, performedTasks);
+    assertTrue(performedTasks.contains(dependency));
+    assertTrue(performedTasks.contains(independent));
+    assertNotNull(dependency.getException());
+    assertNull(dependent.getException());
+  }
+
+  public void test_perform_singleThread() throws AnalysisException {
+    ArrayList<ResolveDartLibraryCycleTask> cycleTasks = new ArrayList<ResolveDartLibraryCycleTask>();
+    DirectedGraph<ResolveDartLibraryCycleTask> dependencyGraph = new DirectedGraph<ResolveDartLibraryCycleTask>();
+    for (int i = 0; i < 3; i++) {
+      ResolveDartLibraryCycleTask cycleTask = createCycleTask();
+      cycleTasks.add(cycleTask);
+      dependencyGraph.addNode(cycleTask);
+    }
+    ResolveDartLibraryCyclesTask task = new ResolveDartLibraryCyclesTask(
+        null,
+        cycleTasks,
+        dependencyGraph,
+        1);
+    task.perform(new TestTaskVisitor<Boolean>() {
+      @Override
+      public Boolean visitResolveDartLibraryCyclesTask(ResolveDartLibraryCyclesTask task)
+          throws AnalysisException {
+        assertNull(task.getException());
+        return true;
+      }
+    });
+    // the cycles are resolved one at a time, in the order in which they became ready
+    assertEquals(cycleTasks, task.getPerformedTasks());
+  }
+
+  private ResolveDartLibraryCycleTask createCycleTask() {
+    return new ResolveDartLibraryCycleTask(
+        null,
+        null,
+        null,
+        new ArrayList<ResolvableLibrary>());
+  }
+}
@@ -26,8 +26,10 @@ public class TestAll {
     suite.addTestSuite(GenerateDartHintsTaskTest.class);
     suite.addTestSuite(GetContentTaskTest.class);
     suite.addTestSuite(IncrementalAnalysisTaskTest.class);
+    suite.addTestSuite(ParseDartSourcesTaskTest.class);
     suite.addTestSuite(ParseDartTaskTest.class);
     suite.addTestSuite(ParseHtmlTaskTest.class);
+    suite.addTestSuite(ResolveDartLibraryCyclesTaskTest.class);
     suite.addTestSuite(ResolveDartLibraryTaskTest.class);
     suite.addTestSuite(ResolveDartUnitTaskTest.class);
     suite.addTestSuite(ResolveHtmlTaskTest.class);
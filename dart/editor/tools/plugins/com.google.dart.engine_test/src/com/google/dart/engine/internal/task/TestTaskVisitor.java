@@ -54,6 +54,12 @@ public class TestTaskVisitor<E> implements AnalysisTaskVisitor<E> {
     return null;
   }
 
+  @Override
+  public E visitParseDartSourcesTask(ParseDartSourcesTask task) throws AnalysisException {
+    Assert.fail("Unexpectedly invoked visitParseDartSourcesTask");
+    return null;
+  }
+
   @Override
   public E visitParseDartTask(ParseDartTask task) throws AnalysisException {
     Assert.fail("Unexpectedly invoked visitParseDartTask");
@@ -99,6 +105,13 @@ public class TestTaskVisitor<E> implements AnalysisTaskVisitor<E> {
     return null;
   }
 
+  @Override
+  public E visitResolveDartLibraryCyclesTask(ResolveDartLibraryCyclesTask task)
+      throws AnalysisException {
+    Assert.fail("Unexpectedly invoked visitResolveDartLibraryCyclesTask");
+    return null;
+  }
+
   @Override
   public E visitResolveDartLibraryTask(ResolveDartLibraryTask task) throws AnalysisException {
     Assert.fail("Unexpectedly invoked visitResolveDartLibraryTask");
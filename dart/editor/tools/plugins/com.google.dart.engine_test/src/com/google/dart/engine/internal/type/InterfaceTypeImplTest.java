@@ -477,6 +477,24 @@ public class InterfaceTypeImplTest extends EngineTestCase {
     assertSame(typeI, result.getTypeArguments()[0]);
   }
 
+  public void test_getLeastUpperBound_cached() {
+    ClassElementImpl classA = classElement("A");
+    ClassElementImpl classB = classElement("B", classA.getType());
+    ClassElementImpl classC = classElement("C", classA.getType());
+    InterfaceType typeA = classA.getType();
+    InterfaceType typeB = classB.getType();
+    InterfaceType typeC = classC.getType();
+    LibraryElementImpl library = library(createAnalysisContext(), "lib");
+    ((CompilationUnitElementImpl) library.getDefiningCompilationUnit()).setTypes(
+        new ClassElement[] {classA, classB, classC});
+    TypeRelationCache cache = library.getTypeRelationCache();
+
+    assertEquals(typeA, typeB.getLeastUpperBound(typeC));
+    assertEquals(0, cache.getHitCount());
+    assertEquals(typeA, typeB.getLeastUpperBound(typeC));
+    assertEquals(1, cache.getHitCount());
+  }
+
   public void test_getLeastUpperBound_directInterfaceCase() {
     //
     // class A
@@ -1130,6 +1148,42 @@ public class InterfaceTypeImplTest extends EngineTestCase {
     assertTrue(parameterAEType.isMoreSpecificThan(typeA));
   }
 
+  public void test_isSubtypeOf_cached() {
+    ClassElementImpl classA = classElement("A");
+    ClassElementImpl classB = classElement("B", classA.getType());
+    InterfaceType typeA = classA.getType();
+    InterfaceType typeB = classB.getType();
+    LibraryElementImpl library = library(createAnalysisContext(), "lib");
+    ((CompilationUnitElementImpl) library.getDefiningCompilationUnit()).setTypes(
+        new ClassElement[] {classA, classB});
+    TypeRelationCache cache = library.getTypeRelationCache();
+
+    assertTrue(typeB.isSubtypeOf(typeA));
+    assertFalse(typeA.isSubtypeOf(typeB));
+    assertEquals(0, cache.getHitCount());
+    assertEquals(2, cache.getSize());
+    assertTrue(typeB.isSubtypeOf(typeA));
+    assertFalse(typeA.isSubtypeOf(typeB));
+    assertEquals(2, cache.getHitCount());
+  }
+
+  public void test_isSubtypeOf_cached_threadCounts() {
+    ClassElementImpl classA = classElement("A");
+    ClassElementImpl classB = classElement("B", classA.getType());
+    InterfaceType typeA = classA.getType();
+    InterfaceType typeB = classB.getType();
+    LibraryElementImpl library = library(createAnalysisContext(), "lib");
+    ((CompilationUnitElementImpl) library.getDefiningCompilationUnit()).setTypes(
+        new ClassElement[] {classA, classB});
+    int hitCount = TypeRelationCache.getThreadHitCount();
+    int missCount = TypeRelationCache.getThreadMissCount();
+
+    assertTrue(typeB.isSubtypeOf(typeA));
+    assertTrue(typeB.isSubtypeOf(typeA));
+    assertEquals(1, TypeRelationCache.getThreadHitCount() - hitCount);
+    assertEquals(1, TypeRelationCache.getThreadMissCount() - missCount);
+  }
+
   public void test_isSubtypeOf_directSubtype() {
     ClassElement classA = classElement("A");
     ClassElement classB = classElement("B", classA.getType());
@@ -1214,6 +1268,23 @@ public class InterfaceTypeImplTest extends EngineTestCase {
     assertFalse(typeObject.isSubtypeOf(typeA));
   }
 
+  public void test_isSubtypeOf_otherLibrary() {
+    ClassElementImpl classA = classElement("A");
+    ClassElementImpl classB = classElement("B", classA.getType());
+    InterfaceType typeA = classA.getType();
+    InterfaceType typeB = classB.getType();
+    LibraryElementImpl libraryA = library(createAnalysisContext(), "libA");
+    ((CompilationUnitElementImpl) libraryA.getDefiningCompilationUnit()).setTypes(
+        new ClassElement[] {classA});
+    LibraryElementImpl libraryB = library(createAnalysisContext(), "libB");
+    ((CompilationUnitElementImpl) libraryB.getDefiningCompilationUnit()).setTypes(
+        new ClassElement[] {classB});
+
+    assertTrue(typeB.isSubtypeOf(typeA));
+    assertEquals(0, libraryA.getTypeRelationCache().getSize());
+    assertEquals(0, libraryB.getTypeRelationCache().getSize());
+  }
+
   public void test_isSubtypeOf_self() {
     ClassElement classA = classElement("A");
     InterfaceType typeA = classA.getType();
@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.scanner;
+
+import junit.framework.TestCase;
+
+public class StringTokenTest extends TestCase {
+  public void test_copy() {
+    StringToken token = new StringToken(TokenType.IDENTIFIER, "foo", 3);
+    Token copy = token.copy();
+    assertSame(token.getLexeme(), copy.getLexeme());
+    assertEquals(3, copy.getOffset());
+  }
+
+  public void test_new_interned() {
+    StringToken first = new StringToken(TokenType.IDENTIFIER, new String("foo"), 0);
+    StringToken second = new StringToken(TokenType.IDENTIFIER, new String("foo"), 4);
+    assertSame(first.getLexeme(), second.getLexeme());
+  }
+
+  public void test_new_withComment_interned() {
+    Token comment = new StringToken(TokenType.SINGLE_LINE_COMMENT, "// c", 0);
+    StringToken first = new StringTokenWithComment(
+        TokenType.IDENTIFIER,
+        new String("foo"),
+        5,
+        comment);
+    StringToken second = new StringToken(TokenType.IDENTIFIER, new String("foo"), 9);
+    assertSame(first.getLexeme(), second.getLexeme());
+  }
+}
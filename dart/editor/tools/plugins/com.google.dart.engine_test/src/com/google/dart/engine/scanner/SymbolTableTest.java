@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.scanner;
+
+import com.google.dart.engine.error.AnalysisErrorListener;
+import com.google.dart.engine.utilities.general.StringUtilities;
+
+import junit.framework.TestCase;
+
+import java.util.concurrent.CountDownLatch;
+
+public class SymbolTableTest extends TestCase {
+  public void test_intern_different() {
+    SymbolTable table = new SymbolTable();
+    String first = table.intern("foo bar", 0, 3);
+    String second = table.intern("foo bar", 4, 7);
+    assertEquals("foo", first);
+    assertEquals("bar", second);
+    assertEquals(2, table.size());
+  }
+
+  public void test_intern_concurrent() throws Exception {
+    final SymbolTable table = new SymbolTable();
+    final String[][] results = new String[4][1000];
+    final CountDownLatch start = new CountDownLatch(1);
+    Thread[] threads = new Thread[results.length];
+    for (int t = 0; t < threads.length; t++) {
+      final String[] threadResults = results[t];
+      threads[t] = new Thread() {
+        @Override
+        public void run() {
+          try {
+            start.await();
+          } catch (InterruptedException exception) {
+            return;
+          }
+          for (int i = 0; i < threadResults.length; i++) {
+            String name = "name" + i;
+            threadResults[i] = table.intern(name, 0, name.length());
+          }
+        }
+      };
+      threads[t].start();
+    }
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    for (int i = 0; i < 1000; i++) {
+      assertEquals("name" + i, results[0][i]);
+      for (int t = 1; t < results.length; t++) {
+        assertSame(results[0][i], results[t][i]);
+      }
+    }
+    assertEquals(1000, table.size());
+  }
+
+  public void test_intern_maxSize() {
+    SymbolTable table = new SymbolTable(16);
+    for (int i = 0; i < 100; i++) {
+      String name = "name" + i;
+      assertEquals(name, table.intern(name, 0, name.length()));
+      assertTrue(table.size() <= 16);
+    }
+  }
+
+  public void test_intern_notString() {
+    SymbolTable table = new SymbolTable();
+    String first = table.intern(new StringBuilder("foo bar"), 4, 7);
+    assertEquals("bar", first);
+    assertSame(first, table.intern("bar", 0, 3));
+  }
+
+  public void test_intern_rehash() {
+    SymbolTable table = new SymbolTable();
+    for (int i = 0; i < 5000; i++) {
+      table.intern("name" + i, 0, ("name" + i).length());
+    }
+    assertEquals(5000, table.size());
+    for (int i = 0; i < 5000; i++) {
+      String name = "name" + i;
+      assertEquals(name, table.intern(name, 0, name.length()));
+    }
+    assertEquals(5000, table.size());
+  }
+
+  public void test_intern_same() {
+    SymbolTable table = new SymbolTable();
+    String first = table.intern("foo foo", 0, 3);
+    String second = table.intern("foo foo", 4, 7);
+    assertEquals("foo", first);
+    assertSame(first, second);
+    assertEquals(1, table.size());
+  }
+
+  public void test_intern_stringUtilities() {
+    SymbolTable table = new SymbolTable();
+    String first = table.intern("foo bar", 4, 7);
+    assertSame(first, StringUtilities.intern(new String("bar")));
+    // a lexeme that is added again after the table has been emptied is the same string
+    SymbolTable smallTable = new SymbolTable(1);
+    String second = smallTable.intern("foo", 0, 3);
+    smallTable.intern("bar", 0, 3);
+    assertSame(second, smallTable.intern("foo", 0, 3));
+  }
+
+  public void test_scanner() {
+    SymbolTable table = new SymbolTable();
+    Token first = scan("foo", table);
+    Token second = scan("bar foo", table);
+    assertSame(first.getLexeme(), second.getNext().getLexeme());
+    assertEquals(2, table.size());
+  }
+
+  private Token scan(String source, SymbolTable table) {
+    Scanner scanner = new Scanner(
+        null,
+        new CharSequenceReader(source),
+        AnalysisErrorListener.NULL_LISTENER);
+    scanner.setSymbolTable(table);
+    return scanner.tokenize();
+  }
+}
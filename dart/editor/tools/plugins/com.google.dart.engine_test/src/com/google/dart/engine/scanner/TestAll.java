@@ -25,6 +25,8 @@ public class TestAll {
     suite.addTestSuite(IncrementalScannerTest.class);
     suite.addTestSuite(KeywordStateTest.class);
     suite.addTestSuite(ScannerTest.class);
+    suite.addTestSuite(StringTokenTest.class);
+    suite.addTestSuite(SymbolTableTest.class);
     suite.addTestSuite(TokenTypeTest.class);
     return suite;
   }
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.search;
+
+import com.google.dart.engine.EngineTestCase;
+import com.google.dart.engine.element.Element;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+public class SearchFutureTest extends EngineTestCase {
+  private final SearchMatch matchA = mockMatch("A");
+  private final SearchMatch matchB = mockMatch("B");
+  private final SearchMatch matchC = mockMatch("C");
+
+  public void test_cancel() throws Exception {
+    SearchFuture future = new SearchFuture();
+    future.matchFound(matchA);
+    assertTrue(future.cancel(false));
+    assertTrue(future.isCancelled());
+    assertTrue(future.isDone());
+    // matches after cancel are ignored
+    future.matchFound(matchB);
+    assertEquals(1, future.getMatchCount());
+    try {
+      future.get();
+      fail("Expected CancellationException");
+    } catch (CancellationException exception) {
+      // expected
+    }
+    // cannot cancel twice
+    assertFalse(future.cancel(false));
+  }
+
+  public void test_cancel_afterComplete() throws Exception {
+    SearchFuture future = new SearchFuture();
+    future.searchComplete();
+    assertFalse(future.cancel(false));
+    assertFalse(future.isCancelled());
+    assertThat(future.get()).isEmpty();
+  }
+
+  public void test_get() throws Exception {
+    SearchFuture future = new SearchFuture();
+    future.matchFound(matchB);
+    future.matchFound(matchA);
+    assertFalse(future.isDone());
+    future.searchComplete();
+    assertTrue(future.isDone());
+    assertThat(future.get()).containsExactly(matchA, matchB);
+  }
+
+  public void test_get_timeout() throws Exception {
+    SearchFuture future = new SearchFuture();
+    future.matchFound(matchA);
+    try {
+      future.get(1, TimeUnit.MILLISECONDS);
+      fail("Expected TimeoutException");
+    } catch (TimeoutException exception) {
+      // expected
+    }
+    future.searchComplete();
+    assertThat(future.get(1, TimeUnit.MILLISECONDS)).containsExactly(matchA);
+  }
+
+  public void test_limit() throws Exception {
+    SearchListener listener = mock(SearchListener.class);
+    SearchFuture future = new SearchFuture(2, listener);
+    future.matchFound(matchA);
+    future.matchFound(matchB);
+    assertTrue(future.isDone());
+    future.matchFound(matchC);
+    future.searchComplete();
+    assertThat(future.get()).containsExactly(matchA, matchB);
+    verify(listener).matchFound(matchA);
+    verify(listener).matchFound(matchB);
+    verify(listener).searchComplete();
+    verifyNoMoreInteractions(listener);
+  }
+
+  public void test_listener() throws Exception {
+    SearchListener listener = mock(SearchListener.class);
+    SearchFuture future = new SearchFuture(SearchFuture.NO_LIMIT, listener);
+    future.matchFound(matchA);
+    verify(listener).matchFound(matchA);
+    future.searchComplete();
+    future.searchComplete();
+    verify(listener).searchComplete();
+    verifyNoMoreInteractions(listener);
+  }
+
+  private SearchMatch mockMatch(String name) {
+    Element element = mock(Element.class);
+    when(element.getDisplayName()).thenReturn(name);
+    SearchMatch match = mock(SearchMatch.class);
+    when(match.getElement()).thenReturn(element);
+    return match;
+  }
+}
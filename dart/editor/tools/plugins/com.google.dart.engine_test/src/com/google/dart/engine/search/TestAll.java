@@ -23,6 +23,7 @@ public class TestAll {
     TestSuite suite = new ExtendedTestSuite("Tests in " + TestAll.class.getPackage().getName());
     suite.addTestSuite(SearchEngineFactoryTest.class);
     suite.addTestSuite(SearchFilterTest.class);
+    suite.addTestSuite(SearchFutureTest.class);
     suite.addTestSuite(SearchMatchTest.class);
     suite.addTestSuite(SearchPatternFactoryTest.class);
     suite.addTestSuite(SearchScopeFactoryTest.class);
@@ -32,6 +32,7 @@ public class TestAll {
     suite.addTestSuite(SourceFactoryTest.class);
     suite.addTestSuite(FileBasedSourceTest.class);
     suite.addTestSuite(UriKindTest.class);
+    suite.addTestSuite(UserSourceContainerTest.class);
     return suite;
   }
 }
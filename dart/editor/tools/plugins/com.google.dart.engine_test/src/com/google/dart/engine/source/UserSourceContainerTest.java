@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.source;
+
+import static com.google.dart.engine.utilities.io.FileUtilities2.createFile;
+
+import junit.framework.TestCase;
+
+public class UserSourceContainerTest extends TestCase {
+  public void test_contains() {
+    UserSourceContainer container = new UserSourceContainer(createFile("/project"));
+    assertTrue(container.contains(new FileBasedSource(createFile("/project/a.dart"))));
+    assertTrue(container.contains(new FileBasedSource(createFile("/project/lib/b.dart"))));
+    assertTrue(container.contains(new FileBasedSource(createFile("/project/lib/packages.dart"))));
+    assertFalse(container.contains(new FileBasedSource(createFile("/project2/a.dart"))));
+  }
+
+  public void test_contains_packages() {
+    UserSourceContainer container = new UserSourceContainer(createFile("/project"));
+    assertFalse(container.contains(new FileBasedSource(createFile("/project/packages/p/p.dart"))));
+    assertFalse(container.contains(new FileBasedSource(
+        createFile("/project/web/packages/p/p.dart"))));
+  }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.timing;
+
+import com.google.dart.engine.internal.cache.CachePartition;
+import com.google.dart.engine.internal.cache.CacheRetentionPolicy;
+import com.google.dart.engine.internal.cache.DartEntry;
+import com.google.dart.engine.internal.cache.DartEntryImpl;
+import com.google.dart.engine.internal.cache.RetentionPriority;
+import com.google.dart.engine.internal.cache.SourceEntry;
+import com.google.dart.engine.internal.cache.UniversalCachePartition;
+import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.TestSource;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import static com.google.dart.engine.utilities.io.FileUtilities2.createFile;
+
+/**
+ * The class {@code CachePartitionTimings} defines a test that compares the time it takes to record
+ * AST accesses in a {@link CachePartition} with the time it takes to do the same using the
+ * list-based LRU that was previously used by the partition.
+ */
+public class CachePartitionTimings extends TestCase {
+  /**
+   * A copy of the list-based LRU that was previously used by {@link CachePartition}.
+   */
+  private static class ListLru {
+    private final int maxCacheSize;
+
+    private final CacheRetentionPolicy retentionPolicy;
+
+    private final ArrayList<Source> recentlyUsed;
+
+    public ListLru(int maxCacheSize, CacheRetentionPolicy retentionPolicy) {
+      this.maxCacheSize = maxCacheSize;
+      this.retentionPolicy = retentionPolicy;
+      recentlyUsed = new ArrayList<Source>(maxCacheSize);
+    }
+
+    public void accessedAst(Source source) {
+      if (recentlyUsed.remove(source)) {
+        recentlyUsed.add(source);
+        return;
+      }
+      while (recentlyUsed.size() >= maxCacheSize) {
+        if (removeAstToFlush() == null) {
+          break;
+        }
+      }
+      recentlyUsed.add(source);
+    }
+
+    private Source removeAstToFlush() {
+      int sourceToRemove = -1;
+      for (int i = 0; i < recentlyUsed.size(); i++) {
+        Source source = recentlyUsed.get(i);
+        RetentionPriority priority = retentionPolicy.getAstPriority(source, null);
+        if (priority == RetentionPriority.LOW) {
+          return recentlyUsed.remove(i);
+        } else if (priority == RetentionPriority.MEDIUM && sourceToRemove < 0) {
+          sourceToRemove = i;
+        }
+      }
+      if (sourceToRemove < 0) {
+        return null;
+      }
+      return recentlyUsed.remove(sourceToRemove);
+    }
+  }
+
+  /**
+   * The maximum number of ASTs retained by the cache.
+   */
+  private static final int CACHE_SIZE = 4096;
+
+  /**
+   * The number of sources being accessed, more than {@link #CACHE_SIZE} so that ASTs are flushed.
+   */
+  private static final int SOURCE_COUNT = CACHE_SIZE * 2;
+
+  /**
+   * The number of AST accesses being measured.
+   */
+  private static final int ACCESS_COUNT = 200000;
+
+  /**
+   * A retention policy that keeps every 16th source with a high priority, and every other source
+   * with a low priority.
+   */
+  private static final CacheRetentionPolicy POLICY = new CacheRetentionPolicy() {
+    @Override
+    public RetentionPriority getAstPriority(Source source, SourceEntry sourceEntry) {
+      if (((TestSource) source).getFullName().endsWith("0.dart")) {
+        return RetentionPriority.HIGH;
+      }
+      return RetentionPriority.LOW;
+    }
+  };
+
+  public void test_accessedAst() {
+    Source[] sources = new Source[SOURCE_COUNT];
+    for (int i = 0; i < SOURCE_COUNT; i++) {
+      sources[i] = new TestSource(createFile("/test" + Integer.toHexString(i) + ".dart"), "");
+    }
+    int[] accessOrder = new int[ACCESS_COUNT];
+    Random random = new Random(0);
+    for (int i = 0; i < ACCESS_COUNT; i++) {
+      // favor a working set that fits into the cache
+      accessOrder[i] = random.nextInt(4) == 0 ? random.nextInt(SOURCE_COUNT)
+          : random.nextInt(CACHE_SIZE);
+    }
+    //
+    // Measure the list-based LRU.
+    //
+    ListLru listLru = new ListLru(CACHE_SIZE, POLICY);
+    // Warm-up
+    for (int i = 0; i < ACCESS_COUNT / 10; i++) {
+      listLru.accessedAst(sources[accessOrder[i]]);
+    }
+    // Measured
+    long listStart = System.nanoTime();
+    for (int i = 0; i < ACCESS_COUNT; i++) {
+      listLru.accessedAst(sources[accessOrder[i]]);
+    }
+    long listTime = System.nanoTime() - listStart;
+    //
+    // Measure the partition.
+    //
+    CachePartition partition = new UniversalCachePartition(CACHE_SIZE, POLICY);
+    for (Source source : sources) {
+      DartEntryImpl entry = new DartEntryImpl();
+      entry.setValue(DartEntry.PARSED_UNIT, null);
+      partition.put(source, entry);
+    }
+    // Warm-up
+    for (int i = 0; i < ACCESS_COUNT / 10; i++) {
+      partition.accessedAst(sources[accessOrder[i]]);
+    }
+    // Measured
+    long partitionStart = System.nanoTime();
+    for (int i = 0; i < ACCESS_COUNT; i++) {
+      partition.accessedAst(sources[accessOrder[i]]);
+    }
+    long partitionTime = System.nanoTime() - partitionStart;
+    //
+    // Print the results.
+    //
+    System.out.print("List LRU  = ");
+    System.out.print(listTime / 1000000);
+    System.out.println(" ms");
+    System.out.print("Partition = ");
+    System.out.print(partitionTime / 1000000);
+    System.out.println(" ms");
+  }
+}
@@ -25,6 +25,7 @@ public class TestAll {
     suite.addTestSuite(CharOperationTest.class);
     suite.addTestSuite(ObjectUtilitiesTest.class);
     suite.addTestSuite(StringUtilitiesTest.class);
+    suite.addTestSuite(TimeCounterTest.class);
     return suite;
   }
 }
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.utilities.general;
+
+import com.google.dart.engine.utilities.general.TimeCounter.TimeCounterHandle;
+
+import junit.framework.TestCase;
+
+import java.util.concurrent.CountDownLatch;
+
+public class TimeCounterTest extends TestCase {
+  public void test_nested() throws Exception {
+    TimeCounter outer = new TimeCounter();
+    TimeCounter inner = new TimeCounter();
+    TimeCounterHandle outerHandle = outer.start();
+    TimeCounterHandle innerHandle = inner.start();
+    Thread.sleep(20);
+    innerHandle.stop();
+    outerHandle.stop();
+    assertEquals(1, outer.getCount());
+    assertEquals(1, inner.getCount());
+    assertTrue(inner.getResult() >= 20);
+    assertTrue(outer.getResult() < inner.getResult());
+  }
+
+  public void test_nested_otherThread() throws Exception {
+    final TimeCounter outer = new TimeCounter();
+    final TimeCounter inner = new TimeCounter();
+    final CountDownLatch outerStarted = new CountDownLatch(1);
+    final CountDownLatch innerStopped = new CountDownLatch(1);
+    Thread thread = new Thread() {
+      @Override
+      public void run() {
+        try {
+          outerStarted.await();
+          TimeCounterHandle outerHandle = outer.start();
+          TimeCounterHandle innerHandle = inner.start();
+          Thread.sleep(20);
+          innerHandle.stop();
+          innerStopped.countDown();
+          outerHandle.stop();
+        } catch (InterruptedException exception) {
+          // ignored
+        }
+      }
+    };
+    thread.start();
+    TimeCounterHandle outerHandle = outer.start();
+    outerStarted.countDown();
+    innerStopped.await();
+    outerHandle.stop();
+    thread.join();
+    // the time spent in the nested counter on the other thread is not excluded from this thread
+    assertEquals(2, outer.getCount());
+    assertEquals(1, inner.getCount());
+    assertTrue(outer.getResult() >= 20);
+  }
+}
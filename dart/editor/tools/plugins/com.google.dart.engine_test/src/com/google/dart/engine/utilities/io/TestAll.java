@@ -22,6 +22,7 @@ public class TestAll {
   public static Test suite() {
     TestSuite suite = new ExtendedTestSuite("Tests in " + TestAll.class.getPackage().getName());
     suite.addTestSuite(PrintStringWriterTest.class);
+    suite.addTestSuite(Utf8CharSequenceTest.class);
     return suite;
   }
 }
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.engine.utilities.io;
+
+import com.google.common.base.Charsets;
+import com.google.dart.engine.scanner.CharSequenceReader;
+import com.google.dart.engine.scanner.SymbolTable;
+
+import junit.framework.TestCase;
+
+import java.nio.ByteBuffer;
+
+public class Utf8CharSequenceTest extends TestCase {
+  public void test_ascii() {
+    Utf8CharSequence sequence = sequence("class A {}");
+    assertEquals(10, sequence.length());
+    assertEquals('c', sequence.charAt(0));
+    assertEquals('}', sequence.charAt(9));
+    assertEquals("A {", sequence.subSequence(6, 9).toString());
+    assertEquals("class A {}", sequence.toString());
+  }
+
+  public void test_charAt_outOfRange() {
+    Utf8CharSequence sequence = sequence("ab");
+    try {
+      sequence.charAt(2);
+      fail("Expected IndexOutOfBoundsException");
+    } catch (IndexOutOfBoundsException exception) {
+      // expected
+    }
+  }
+
+  public void test_empty() {
+    Utf8CharSequence sequence = sequence("");
+    assertEquals(0, sequence.length());
+    assertEquals("", sequence.toString());
+  }
+
+  public void test_nonAscii() {
+    String text = "a = '\u00e9t\u00e9 \u4e2d\u6587'; // \ud83d\ude00 end";
+    Utf8CharSequence sequence = sequence(text);
+    assertEquals(text.length(), sequence.length());
+    for (int i = 0; i < text.length(); i++) {
+      assertEquals(text.charAt(i), sequence.charAt(i));
+    }
+    // random access
+    for (int i = text.length() - 1; i >= 0; i -= 3) {
+      assertEquals(text.charAt(i), sequence.charAt(i));
+    }
+    assertEquals(text, sequence.toString());
+    assertEquals(text.substring(4, 13), sequence.subSequence(4, 13).toString());
+  }
+
+  public void test_offset() {
+    ByteBuffer buffer = ByteBuffer.wrap("xx\u00e9a".getBytes(Charsets.UTF_8));
+    buffer.position(2);
+    Utf8CharSequence sequence = new Utf8CharSequence(buffer);
+    assertEquals("\u00e9a", sequence.toString());
+    assertEquals(2, buffer.position());
+  }
+
+  public void test_reader() {
+    String text = "\u00e9l\u00e8ve = 1;";
+    CharSequenceReader reader = new CharSequenceReader(sequence(text));
+    StringBuilder builder = new StringBuilder();
+    int next = reader.advance();
+    while (next != -1) {
+      builder.append((char) next);
+      next = reader.advance();
+    }
+    assertEquals(text, builder.toString());
+    assertEquals("\u00e8ve", reader.getString(2, -5));
+    assertEquals("\u00e8ve", reader.getInternedString(2, -5, new SymbolTable()));
+  }
+
+  public void test_subSequence() {
+    String text = "\u00e9a\u4e2d\u6587bc \ud83d\ude00d\u00e9";
+    assertSubSequences(text, sequence(text));
+  }
+
+  public void test_subSequence_direct() {
+    String text = "ab\u00e9 = '\u4e2d'; // c\u00e8";
+    byte[] bytes = text.getBytes(Charsets.UTF_8);
+    ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+    buffer.put(bytes);
+    buffer.flip();
+    assertSubSequences(text, new Utf8CharSequence(buffer));
+  }
+
+  private void assertSubSequences(String text, Utf8CharSequence sequence) {
+    for (int start = 0; start <= text.length(); start++) {
+      for (int end = start; end <= text.length(); end++) {
+        assertEquals(text.substring(start, end), sequence.subSequence(start, end).toString());
+      }
+    }
+    assertEquals(text, sequence.toString());
+  }
+
+  private Utf8CharSequence sequence(String text) {
+    return new Utf8CharSequence(ByteBuffer.wrap(text.getBytes(Charsets.UTF_8)));
+  }
+}
@@ -25,8 +25,11 @@ import com.google.dart.engine.context.AnalysisOptions;
 import com.google.dart.engine.context.AnalysisResult;
 import com.google.dart.engine.context.ChangeNotice;
 import com.google.dart.engine.context.ChangeSet;
+import com.google.dart.engine.index.FileIndexStore;
 import com.google.dart.engine.index.Index;
 import com.google.dart.engine.index.IndexFactory;
+import com.google.dart.engine.internal.cache.PartitionManager;
+import com.google.dart.engine.internal.context.AnalysisOptionsImpl;
 import com.google.dart.engine.internal.context.ChangeNoticeImpl;
 import com.google.dart.engine.sdk.DartSdk;
 import com.google.dart.engine.sdk.DirectoryBasedDartSdk;
@@ -35,6 +38,7 @@ import com.google.dart.engine.search.SearchEngineFactory;
 import com.google.dart.engine.source.DartUriResolver;
 import com.google.dart.engine.source.FileUriResolver;
 import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.SourceContainer;
 import com.google.dart.engine.source.SourceFactory;
 import com.google.dart.server.AnalysisServer;
 import com.google.dart.server.AnalysisServerError;
@@ -70,6 +74,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * In-process implementation of {@link AnalysisServer}.
@@ -93,11 +98,13 @@ public class LocalAnalysisServerImpl implements AnalysisServer {
   }
 
   /**
-   * The thread that executes {@link ServerOperation}.
+   * The worker thread that executes {@link ServerOperation}s. There may be several such threads,
+   * {@link ServerOperationQueue} guarantees that every context is analyzed by at most one of them
+   * at any time.
    */
   private class LocalAnalysisServerOperationThread extends Thread {
-    public LocalAnalysisServerOperationThread() {
-      setName("LocalAnalysisServerOperationThread");
+    public LocalAnalysisServerOperationThread(int index) {
+      setName("LocalAnalysisServerOperationThread-" + index);
       setDaemon(true);
     }
 
@@ -111,39 +118,72 @@ public class LocalAnalysisServerImpl implements AnalysisServer {
         if (operation == ShutdownOperation.INSTANCE) {
           break;
         }
+        long startTime = System.nanoTime();
         try {
           operation.performOperation(LocalAnalysisServerImpl.this);
         } catch (AnalysisServerErrorException serverException) {
           onServerError(serverException.error);
         } catch (Throwable e) {
           onServerError(AnalysisServerErrorCode.EXCEPTION, e.getMessage());
+        } finally {
+          busyTime.addAndGet(System.nanoTime() - startTime);
+          operationQueue.markOperationCompleted(operation);
         }
-        operationQueue.markLastOperationCompleted();
       }
     }
   }
 
   private static final String VERSION = "0.0.1";
 
+  /**
+   * The default number of worker threads executing {@link ServerOperation}s, one for each available
+   * processor.
+   */
+  private static final int DEFAULT_WORKER_COUNT = Math.max(
+      Runtime.getRuntime().availableProcessors(),
+      1);
+
   /**
    * A table mapping SDK directories to the corresponding {@link DartSdk} instances.
    */
   private static final Map<String, DartSdk> sdkMap = Maps.newHashMap();
 
+  /**
+   * The number of worker threads executing {@link ServerOperation}s.
+   */
+  private final int workerCount;
+
+  /**
+   * The time (in nanoseconds) when this server was started.
+   */
+  private final long startTime = System.nanoTime();
+
+  /**
+   * The total time (in nanoseconds) spent by all workers performing {@link ServerOperation}s.
+   */
+  private final AtomicLong busyTime = new AtomicLong();
+
   /**
    * The queue of {@link ServerOperation}s to execute.
    */
   private final ServerOperationQueue operationQueue = new ServerOperationQueue();
 
   /**
-   * The {@link Index} instance for this server.
+   * The {@link Index} instance for this server, which indexes up to {@link #workerCount} units at
+   * the same time.
+   */
+  private final Index index;
+
+  /**
+   * The store used by {@link #index} if it keeps relationships in files, or {@code null} if it
+   * keeps them in memory.
    */
-  private final Index index = IndexFactory.newIndex(IndexFactory.newMemoryIndexStore());
+  private final FileIndexStore indexStore;
 
   /**
    * The {@link SearchEngine} instance for this server.
    */
-  private final SearchEngine searchEngine = SearchEngineFactory.createSearchEngine(index);
+  private final SearchEngine searchEngine;
 
   /**
    * This is used only for testing purposes and allows tests to control the order of operations on
@@ -159,46 +199,109 @@ public class LocalAnalysisServerImpl implements AnalysisServer {
   /**
    * This is used only for testing purposes and allows tests to check the order of operations.
    */
-  private List<String> test_analyzedContexts;
+  private volatile List<String> test_analyzedContexts;
 
   /**
    * The unique ID for the next context.
    */
   private final AtomicInteger nextId = new AtomicInteger();
 
+  /**
+   * A table mapping the id's of the contexts whose relationships are kept under a name in
+   * {@link #indexStore} to that name. The name is derived from the name of the context and its SDK,
+   * so that it does not depend on the order in which contexts are created. Access to the table is
+   * synchronized on the table.
+   */
+  private final Map<String, String> contextStoreNames = Maps.newHashMap();
+
   /**
    * A table mapping context id's to the analysis contexts associated with them.
    */
-  private final Map<String, AnalysisContext> contextMap = Maps.newHashMap();
+  private final Map<String, AnalysisContext> contextMap = Maps.newConcurrentMap();
 
   /**
    * A table mapping context id's to the sources known in the associated contexts.
    */
-  private final Map<String, Set<Source>> contextKnownSourcesMap = Maps.newHashMap();
+  private final Map<String, Set<Source>> contextKnownSourcesMap = Maps.newConcurrentMap();
 
   /**
    * A table mapping context id's to the sources explicitly added to the associated contexts.
    */
-  private final Map<String, Set<Source>> contextAddedSourcesMap = Maps.newHashMap();
+  private final Map<String, Set<Source>> contextAddedSourcesMap = Maps.newConcurrentMap();
 
   /**
    * A set of context id's with priority sources.
    */
-  private final Set<String> priorityContexts = Sets.newHashSet();
+  private final Set<String> priorityContexts = Sets.newSetFromMap(Maps.<String, Boolean> newConcurrentMap());
 
   /**
    * A table mapping context id's to the subscriptions for notifications associated with them.
    */
-  private final Map<String, Map<NotificationKind, SourceSetBaseProvider>> notificationMap = Maps.newHashMap();
+  private final Map<String, Map<NotificationKind, SourceSetBaseProvider>> notificationMap = Maps.newConcurrentMap();
 
   /**
    * The listener that will receive notification when new analysis results become available.
    */
   private final BroadcastAnalysisServerListener listener = new BroadcastAnalysisServerListener();
 
+  /**
+   * Initialize a newly created server to execute operations using one worker thread for each
+   * available processor.
+   */
   public LocalAnalysisServerImpl() {
+    this(DEFAULT_WORKER_COUNT);
+  }
+
+  /**
+   * Initialize a newly created server to execute operations using one worker thread for each
+   * available processor, and to keep the relationships of the index in files in the given
+   * directory.
+   * 
+   * @param indexDirectory the directory in which the index keeps relationships
+   */
+  public LocalAnalysisServerImpl(File indexDirectory) {
+    this(DEFAULT_WORKER_COUNT, indexDirectory);
+  }
+
+  /**
+   * Initialize a newly created server to execute operations using the given number of worker
+   * threads. Operations for different contexts are executed in parallel, but every context is
+   * analyzed by at most one worker at any time. The index uses the same number of threads and keeps
+   * relationships in memory.
+   * 
+   * @param workerCount the number of worker threads, at least {@code 1}
+   */
+  public LocalAnalysisServerImpl(int workerCount) {
+    this(workerCount, null);
+  }
+
+  /**
+   * Initialize a newly created server to execute operations using the given number of worker
+   * threads. The index keeps relationships in files in the given directory, and restores the
+   * relationships recorded for a context with the same identifier by a previous server, or keeps
+   * them in memory if the directory is {@code null}.
+   * 
+   * @param workerCount the number of worker threads, at least {@code 1}
+   * @param indexDirectory the directory in which the index keeps relationships, may be
+   *          {@code null}
+   */
+  public LocalAnalysisServerImpl(int workerCount, File indexDirectory) {
+    this.workerCount = Math.max(workerCount, 1);
+    // bound the AST structures of the SDK, which are shared by all of the contexts
+    AnalysisEngine.getInstance().getPartitionManager().setSdkCacheBudget(
+        PartitionManager.getDefaultSdkCacheBudget());
+    if (indexDirectory != null) {
+      indexStore = IndexFactory.newFileIndexStore(indexDirectory);
+      index = IndexFactory.newIndex(indexStore, this.workerCount);
+    } else {
+      indexStore = null;
+      index = IndexFactory.newIndex(IndexFactory.newMemoryIndexStore(), this.workerCount);
+    }
+    searchEngine = SearchEngineFactory.createSearchEngine(index);
     new LocalAnalysisServerIndexThread().start();
-    new LocalAnalysisServerOperationThread().start();
+    for (int i = 0; i < this.workerCount; i++) {
+      new LocalAnalysisServerOperationThread(i).start();
+    }
   }
 
   @Override
@@ -214,7 +317,7 @@ public class LocalAnalysisServerImpl implements AnalysisServer {
   @Override
   public String createContext(String name, String sdkDirectory, Map<String, String> packageMap) {
     String contextId = name + "-" + nextId.getAndIncrement();
-    operationQueue.add(new CreateContextOperation(contextId, sdkDirectory, packageMap));
+    operationQueue.add(new CreateContextOperation(contextId, name, sdkDirectory, packageMap));
     return contextId;
   }
 
@@ -223,6 +326,33 @@ public class LocalAnalysisServerImpl implements AnalysisServer {
     operationQueue.add(new DeleteContextOperation(contextId));
   }
 
+  /**
+   * Returns a table mapping context identifiers to the number of operations queued for these
+   * contexts.
+   */
+  public Map<String, Integer> getContextQueueDepths() {
+    return operationQueue.getContextQueueDepths();
+  }
+
+  /**
+   * Returns the number of worker threads executing operations.
+   */
+  public int getWorkerCount() {
+    return workerCount;
+  }
+
+  /**
+   * Returns the fraction of the available worker time, since this server was started, that the
+   * workers spent performing operations; a value between {@code 0.0} and {@code 1.0}.
+   */
+  public double getWorkerUtilization() {
+    long totalTime = (System.nanoTime() - startTime) * workerCount;
+    if (totalTime <= 0) {
+      return 0.0;
+    }
+    return Math.min(1.0, (double) busyTime.get() / totalTime);
+  }
+
   /**
    * Implementation for {@link #applyChanges(String, ChangeSet)}.
    */
@@ -236,7 +366,7 @@ public class LocalAnalysisServerImpl implements AnalysisServer {
   /**
    * Implementation for {@link #createContext(String, String, Map)}.
    */
-  public void internalCreateContext(String contextId, String sdkDirectory,
+  public void internalCreateContext(String contextId, String name, String sdkDirectory,
       Map<String, String> packageMap) throws Exception {
     AnalysisContext context = AnalysisEngine.getInstance().createAnalysisContext();
     DartSdk sdk = getSdk(contextId, sdkDirectory);
@@ -255,6 +385,25 @@ public class LocalAnalysisServerImpl implements AnalysisServer {
         new FileUriResolver(),
         new PackageMapUriResolver(packageResourceMap));
     context.setSourceFactory(sourceFactory);
+    // bound the cached AST structures by their estimated size
+    AnalysisOptionsImpl options = new AnalysisOptionsImpl(context.getAnalysisOptions());
+    options.setCacheBudget(AnalysisOptionsImpl.getDefaultCacheBudget());
+    // the sources owned by the user are those explicitly added by the client, the errors of the
+    // other sources are only generated when they become priority sources
+    options.setGeneratePackageErrors(false);
+    options.setUserSources(createUserSources(getSourcesMap(contextId, contextAddedSourcesMap)));
+    context.setAnalysisOptions(options);
+    // restore the relationships recorded for the context by a previous server
+    if (indexStore != null) {
+      String storeName = name + "\n" + sdkDirectory;
+      synchronized (contextStoreNames) {
+        // two contexts with the same name and SDK cannot share the relationships in the store
+        if (!contextStoreNames.containsValue(storeName)) {
+          contextStoreNames.put(contextId, storeName);
+          indexStore.setContextName(context, storeName);
+        }
+      }
+    }
     // add context
     contextMap.put(contextId, context);
     schedulePerformAnalysisOperation(contextId, false);
@@ -268,6 +417,9 @@ public class LocalAnalysisServerImpl implements AnalysisServer {
     contextKnownSourcesMap.remove(contextId);
     contextAddedSourcesMap.remove(contextId);
     notificationMap.remove(contextId);
+    synchronized (contextStoreNames) {
+      contextStoreNames.remove(contextId);
+    }
     if (context == null) {
       onServerError(AnalysisServerErrorCode.INVALID_CONTEXT_ID, contextId);
       return;
@@ -384,6 +536,12 @@ public class LocalAnalysisServerImpl implements AnalysisServer {
    */
   public void internalSetOptions(String contextId, AnalysisOptions options) throws Exception {
     AnalysisContext context = getAnalysisContext(contextId);
+    if (options.getUserSources() == null) {
+      // keep taking the sources added by the client to be the sources owned by the user
+      AnalysisOptionsImpl newOptions = new AnalysisOptionsImpl(options);
+      newOptions.setUserSources(context.getAnalysisOptions().getUserSources());
+      options = newOptions;
+    }
     context.setAnalysisOptions(options);
     schedulePerformAnalysisOperation(contextId, false);
   }
@@ -485,6 +643,11 @@ public class LocalAnalysisServerImpl implements AnalysisServer {
     this.test_disableForcedSdkAnalysis = true;
   }
 
+  @VisibleForTesting
+  public AnalysisContext test_getContext(String contextId) {
+    return contextMap.get(contextId);
+  }
+
   @VisibleForTesting
   public void test_pingListeners() {
     listener.computedErrors(null, null, null);
@@ -514,6 +677,19 @@ public class LocalAnalysisServerImpl implements AnalysisServer {
     return VERSION;
   }
 
+  /**
+   * Returns the {@link SourceContainer} of the sources owned by the user of a context, which are the
+   * given sources explicitly added to the context.
+   */
+  private SourceContainer createUserSources(final Set<Source> addedSources) {
+    return new SourceContainer() {
+      @Override
+      public boolean contains(Source source) {
+        return addedSources.contains(source);
+      }
+    };
+  }
+
   /**
    * Returns the {@link AnalysisContext} for the given identifier, maybe {@code null}.
    */
@@ -526,22 +702,24 @@ public class LocalAnalysisServerImpl implements AnalysisServer {
   }
 
   private DartSdk getSdk(String contextId, String directory) {
-    DartSdk sdk = sdkMap.get(directory);
-    if (sdk == null) {
-      File directoryFile = new File(directory);
-      sdk = new DirectoryBasedDartSdk(directoryFile);
-      sdkMap.put(directory, sdk);
-      // schedule SDK libraries analysis
-      DartUriResolver dartUriResolver = new DartUriResolver(sdk);
-      ChangeSet changeSet = new ChangeSet();
-      for (String uri : sdk.getUris()) {
-        if (!test_disableForcedSdkAnalysis || uri.equals(DartSdk.DART_CORE)) {
-          changeSet.addedSource(dartUriResolver.resolveAbsolute(URI.create(uri)));
+    synchronized (sdkMap) {
+      DartSdk sdk = sdkMap.get(directory);
+      if (sdk == null) {
+        File directoryFile = new File(directory);
+        sdk = new DirectoryBasedDartSdk(directoryFile);
+        sdkMap.put(directory, sdk);
+        // schedule SDK libraries analysis
+        DartUriResolver dartUriResolver = new DartUriResolver(sdk);
+        ChangeSet changeSet = new ChangeSet();
+        for (String uri : sdk.getUris()) {
+          if (!test_disableForcedSdkAnalysis || uri.equals(DartSdk.DART_CORE)) {
+            changeSet.addedSource(dartUriResolver.resolveAbsolute(URI.create(uri)));
+          }
         }
+        applyChanges(contextId, changeSet);
       }
-      applyChanges(contextId, changeSet);
+      return sdk;
     }
-    return sdk;
   }
 
   /**
@@ -550,7 +728,8 @@ public class LocalAnalysisServerImpl implements AnalysisServer {
   private Set<Source> getSourcesMap(String contextId, Map<String, Set<Source>> contextSourcesMap) {
     Set<Source> sources = contextSourcesMap.get(contextId);
     if (sources == null) {
-      sources = Sets.newHashSet();
+      // the added sources are read by the analysis of the context, see createUserSources()
+      sources = Sets.newSetFromMap(Maps.<Source, Boolean> newConcurrentMap());
       contextSourcesMap.put(contextId, sources);
     }
     return sources;
@@ -24,6 +24,7 @@ import com.google.dart.engine.element.Element;
 import com.google.dart.engine.element.ElementKind;
 import com.google.dart.engine.search.MatchKind;
 import com.google.dart.engine.search.SearchEngine;
+import com.google.dart.engine.search.SearchListener;
 import com.google.dart.engine.search.SearchMatch;
 import com.google.dart.engine.source.Source;
 import com.google.dart.engine.utilities.source.SourceRange;
@@ -48,6 +49,11 @@ public class DartUnitReferencesComputer {
   @VisibleForTesting
   public static boolean test_simulateUknownMatchKind = false;
 
+  /**
+   * The maximum number of {@link SearchResult}s sent to the consumer in a single notification.
+   */
+  private static final int BATCH_SIZE = 100;
+
   /**
    * Returns the {@link SearchResultKind} that corresponds to the {@link MatchKind}, may be
    * {@code null} if unknown.
@@ -109,31 +115,46 @@ public class DartUnitReferencesComputer {
   }
 
   /**
-   * Computes {@link SearchResult}s and notifies the {@link SearchResultsConsumer}.
+   * Starts computing {@link SearchResult}s and returns without waiting for the search to complete.
+   * The results are sent to the {@link SearchResultsConsumer} in batches as they are found, and the
+   * last notification is sent when the search is complete.
    */
   public void compute() {
     AstNode node = new NodeLocator(offset).searchWithin(unit);
     Element element = ElementLocator.locateWithOffset(node, offset);
-    // do search
-    if (element != null) {
-      List<SearchResult> results = Lists.newArrayList();
-      List<SearchMatch> searchMatches = searchEngine.searchReferences(element, null, null);
-      for (SearchMatch match : searchMatches) {
+    // no element, done
+    if (element == null) {
+      consumer.computedReferences(contextId, source, offset, SearchResult.EMPTY_ARRAY, true);
+      return;
+    }
+    // do search, the listener is invoked on the index threads, so the batches are sent while
+    // holding its lock, which also ensures that the last batch is sent after all of the others
+    searchEngine.searchReferences(element, null, null, new SearchListener() {
+      private final List<SearchResult> results = Lists.newArrayList();
+
+      @Override
+      public synchronized void matchFound(SearchMatch match) {
         SearchResultImpl result = newSearchResult(match);
         if (result == null) {
-          continue;
+          return;
         }
         results.add(result);
+        if (results.size() >= BATCH_SIZE) {
+          sendResults(false);
+        }
       }
-      consumer.computedReferences(
-          contextId,
-          source,
-          offset,
-          results.toArray(new SearchResult[results.size()]),
-          true);
-    }
-    // done
-    consumer.computedReferences(contextId, source, offset, SearchResult.EMPTY_ARRAY, true);
+
+      @Override
+      public synchronized void searchComplete() {
+        sendResults(true);
+      }
+
+      private void sendResults(boolean isLastResult) {
+        SearchResult[] resultArray = results.toArray(new SearchResult[results.size()]);
+        results.clear();
+        consumer.computedReferences(contextId, source, offset, resultArray, isLastResult);
+      }
+    });
   }
 
   private Outline newOutline(Element element) {
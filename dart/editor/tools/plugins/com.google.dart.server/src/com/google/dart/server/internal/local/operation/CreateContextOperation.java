@@ -26,12 +26,14 @@ import java.util.Map;
  */
 public class CreateContextOperation implements ContextServerOperation {
   private final String contextId;
+  private final String name;
   private final String sdkDirectory;
   private final Map<String, String> packageMap;
 
-  public CreateContextOperation(String contextId, String sdkDirectory,
+  public CreateContextOperation(String contextId, String name, String sdkDirectory,
       Map<String, String> packageMap) {
     this.contextId = contextId;
+    this.name = name;
     this.sdkDirectory = sdkDirectory;
     this.packageMap = packageMap;
   }
@@ -48,6 +50,6 @@ public class CreateContextOperation implements ContextServerOperation {
 
   @Override
   public void performOperation(LocalAnalysisServerImpl server) throws Exception {
-    server.internalCreateContext(contextId, sdkDirectory, packageMap);
+    server.internalCreateContext(contextId, name, sdkDirectory, packageMap);
   }
 }
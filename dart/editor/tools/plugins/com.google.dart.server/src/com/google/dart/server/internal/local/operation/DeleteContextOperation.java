@@ -22,13 +22,18 @@ import com.google.dart.server.internal.local.LocalAnalysisServerImpl;
  * 
  * @coverage dart.server.local
  */
-public class DeleteContextOperation implements ServerOperation {
+public class DeleteContextOperation implements ContextServerOperation {
   private final String contextId;
 
   public DeleteContextOperation(String contextId) {
     this.contextId = contextId;
   }
 
+  @Override
+  public String getContextId() {
+    return contextId;
+  }
+
   @Override
   public ServerOperationPriority getPriority() {
     return ServerOperationPriority.SERVER;
@@ -24,7 +24,7 @@ import com.google.dart.server.internal.local.LocalAnalysisServerImpl;
  * 
  * @coverage dart.server.local
  */
-public class NotificationOperation implements ServerOperation {
+public class NotificationOperation implements ContextServerOperation {
   private final String contextId;
   private final ChangeNotice changeNotice;
   private final NotificationKind kind;
@@ -35,6 +35,11 @@ public class NotificationOperation implements ServerOperation {
     this.kind = kind;
   }
 
+  @Override
+  public String getContextId() {
+    return contextId;
+  }
+
   @Override
   public ServerOperationPriority getPriority() {
     return ServerOperationPriority.CONTEXT_NOTIFICATION;
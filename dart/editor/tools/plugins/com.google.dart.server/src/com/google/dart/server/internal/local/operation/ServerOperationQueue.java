@@ -16,12 +16,26 @@ package com.google.dart.server.internal.local.operation;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Instances of the {@link ServerOperation} represent a queue of operations in a server.
+ * <p>
+ * The queue can be used by several worker threads at once. It guarantees that
+ * <ul>
+ * <li>operations are taken in priority order, and in FIFO order within the same priority, so
+ * contexts which continue analysis are served round-robin;</li>
+ * <li>at most one {@link ContextServerOperation} for any given context is being performed at any
+ * time, so each context is pinned to at most one worker.</li>
+ * </ul>
+ * Operations which are not {@link ContextServerOperation}s are not associated with any context, so
+ * they can be performed at the same time as any other operation.
  * 
  * @coverage dart.server.local
  */
@@ -37,9 +51,15 @@ public class ServerOperationQueue {
   private final Object operationsLock = new Object();
 
   /**
-   * The last taken {@link ServerOperation} that hasn't been yet completed.
+   * The taken {@link ServerOperation}s that haven't been yet completed.
    */
-  private ServerOperation lastOperation;
+  private final Set<ServerOperation> activeOperations = Sets.newHashSet();
+
+  /**
+   * The identifiers of the contexts of the {@link ContextServerOperation}s in
+   * {@link #activeOperations}.
+   */
+  private final Set<String> activeContexts = Sets.newHashSet();
 
   @SuppressWarnings("unchecked")
   public ServerOperationQueue() {
@@ -72,16 +92,45 @@ public class ServerOperationQueue {
       }
       // add to the end
       operationQueue.addLast(operation);
-      operationsLock.notify();
+      operationsLock.notifyAll();
+    }
+  }
+
+  /**
+   * Returns the number of {@link ServerOperation}s that have been taken, but not completed yet.
+   */
+  public int getActiveCount() {
+    synchronized (operationsLock) {
+      return activeOperations.size();
     }
   }
 
+  /**
+   * Returns a table mapping context identifiers to the number of queued
+   * {@link ContextServerOperation}s for these contexts.
+   */
+  public Map<String, Integer> getContextQueueDepths() {
+    Map<String, Integer> depths = Maps.newHashMap();
+    synchronized (operationsLock) {
+      for (LinkedList<ServerOperation> operationQueue : operationQueues) {
+        for (ServerOperation operation : operationQueue) {
+          if (operation instanceof ContextServerOperation) {
+            String contextId = ((ContextServerOperation) operation).getContextId();
+            Integer depth = depths.get(contextId);
+            depths.put(contextId, depth == null ? 1 : depth + 1);
+          }
+        }
+      }
+    }
+    return depths;
+  }
+
   /**
    * Returns {@code true} if there are no queued or incomplete {@link ServerOperation}s.
    */
   public boolean isEmpty() {
     synchronized (operationsLock) {
-      if (lastOperation != null) {
+      if (!activeOperations.isEmpty()) {
         return false;
       }
       for (LinkedList<ServerOperation> operationQueue : operationQueues) {
@@ -94,11 +143,17 @@ public class ServerOperationQueue {
   }
 
   /**
-   * Marks the last {@link ServerOperation} returned from {@link #take(long)} as completed.
+   * Marks the given {@link ServerOperation} returned from {@link #take(long)} as completed.
    */
-  public void markLastOperationCompleted() {
+  public void markOperationCompleted(ServerOperation operation) {
     synchronized (operationsLock) {
-      lastOperation = null;
+      if (!activeOperations.remove(operation)) {
+        return;
+      }
+      if (operation instanceof ContextServerOperation) {
+        activeContexts.remove(((ContextServerOperation) operation).getContextId());
+      }
+      operationsLock.notifyAll();
     }
   }
 
@@ -107,13 +162,15 @@ public class ServerOperationQueue {
    */
   @VisibleForTesting
   public void removeWithContextId(String contextId) {
-    for (LinkedList<ServerOperation> otherQueue : operationQueues) {
-      for (Iterator<ServerOperation> iter = otherQueue.iterator(); iter.hasNext();) {
-        ServerOperation otherOperation = iter.next();
-        if (otherOperation instanceof ContextServerOperation) {
-          String otherContextId = ((ContextServerOperation) otherOperation).getContextId();
-          if (otherContextId.equals(contextId)) {
-            iter.remove();
+    synchronized (operationsLock) {
+      for (LinkedList<ServerOperation> otherQueue : operationQueues) {
+        for (Iterator<ServerOperation> iter = otherQueue.iterator(); iter.hasNext();) {
+          ServerOperation otherOperation = iter.next();
+          if (otherOperation instanceof ContextServerOperation) {
+            String otherContextId = ((ContextServerOperation) otherOperation).getContextId();
+            if (otherContextId.equals(contextId)) {
+              iter.remove();
+            }
           }
         }
       }
@@ -122,17 +179,19 @@ public class ServerOperationQueue {
 
   /**
    * Returns the next operation to perform or {@code null} if timeout happens.
+   * <p>
+   * The {@link ShutdownOperation} is never removed from the queue, so that every worker thread
+   * receives it. Any other returned operation must be marked as completed using
+   * {@link #markOperationCompleted(ServerOperation)}.
    * 
    * @param timeout the maximum time to wait in milliseconds, if {@code 0} then wait infinitely
    */
   public ServerOperation take(long timeout) {
     synchronized (operationsLock) {
       while (true) {
-        for (LinkedList<ServerOperation> operationQueue : operationQueues) {
-          if (!operationQueue.isEmpty()) {
-            lastOperation = operationQueue.removeFirst();
-            return lastOperation;
-          }
+        ServerOperation operation = findOperationToStart();
+        if (operation != null) {
+          return operation;
         }
         // wait for "queue is updated" notification
         long waitStart = System.currentTimeMillis();
@@ -150,4 +209,33 @@ public class ServerOperationQueue {
       }
     }
   }
+
+  /**
+   * Returns the first queued operation which can be started now, removes it from the queue and
+   * marks it as active. Returns {@code null} if there are no such operations.
+   * <p>
+   * <b>Note:</b> This method must only be invoked while we are synchronized on
+   * {@link #operationsLock}.
+   */
+  private ServerOperation findOperationToStart() {
+    for (LinkedList<ServerOperation> operationQueue : operationQueues) {
+      for (Iterator<ServerOperation> iter = operationQueue.iterator(); iter.hasNext();) {
+        ServerOperation operation = iter.next();
+        if (operation instanceof ShutdownOperation) {
+          return operation;
+        }
+        if (operation instanceof ContextServerOperation) {
+          String contextId = ((ContextServerOperation) operation).getContextId();
+          if (activeContexts.contains(contextId)) {
+            continue;
+          }
+          activeContexts.add(contextId);
+        }
+        iter.remove();
+        activeOperations.add(operation);
+        return operation;
+      }
+    }
+    return null;
+  }
 }
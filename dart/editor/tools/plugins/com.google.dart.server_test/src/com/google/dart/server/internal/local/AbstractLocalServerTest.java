@@ -62,7 +62,8 @@ public class AbstractLocalServerTest extends TestCase {
   @Override
   protected void setUp() throws Exception {
     super.setUp();
-    server = new LocalAnalysisServerImpl();
+    // use a single worker, so that operations are performed in a predictable order
+    server = new LocalAnalysisServerImpl(1);
     server.addAnalysisServerListener(serverListener);
     server.test_disableForcedSdkAnalysis();
   }
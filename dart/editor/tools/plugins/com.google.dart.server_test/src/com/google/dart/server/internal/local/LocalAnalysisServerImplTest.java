@@ -16,9 +16,11 @@ package com.google.dart.server.internal.local;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
+import com.google.dart.engine.context.AnalysisOptions;
 import com.google.dart.engine.internal.context.AnalysisOptionsImpl;
 import com.google.dart.engine.parser.ParserErrorCode;
 import com.google.dart.engine.source.Source;
+import com.google.dart.engine.source.TestSource;
 import com.google.dart.server.AnalysisServerErrorCode;
 import com.google.dart.server.AnalysisServerListener;
 import com.google.dart.server.ListSourceSet;
@@ -27,6 +29,7 @@ import com.google.dart.server.SourceSet;
 import com.google.dart.server.internal.local.operation.ServerOperation;
 import com.google.dart.server.internal.local.operation.ServerOperationPriority;
 
+import static com.google.dart.engine.utilities.io.FileUtilities2.createFile;
 import static org.fest.assertions.Assertions.assertThat;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
@@ -35,6 +38,7 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.Collections;
 import java.util.List;
 
 public class LocalAnalysisServerImplTest extends AbstractLocalServerTest {
@@ -73,6 +77,22 @@ public class LocalAnalysisServerImplTest extends AbstractLocalServerTest {
     serverListener.assertNoServerErrors();
   }
 
+  public void test_createContext_userSources() throws Exception {
+    String contextId = createContext("test");
+    Source source = addSource(contextId, "/test.dart", "");
+    server.test_waitForWorkerComplete();
+    AnalysisOptions options = server.test_getContext(contextId).getAnalysisOptions();
+    // only the sources added by the client are owned by the user
+    assertFalse(options.getGeneratePackageErrors());
+    assertTrue(options.getUserSources().contains(source));
+    assertFalse(options.getUserSources().contains(new TestSource(createFile("/other.dart"), "")));
+    // the user sources are kept when the client sets new options
+    server.setOptions(contextId, new AnalysisOptionsImpl());
+    server.test_waitForWorkerComplete();
+    options = server.test_getContext(contextId).getAnalysisOptions();
+    assertTrue(options.getUserSources().contains(source));
+  }
+
   public void test_deleteContext_noContext() throws Exception {
     server.deleteContext("no-such-context");
     server.test_waitForWorkerComplete();
@@ -106,6 +126,12 @@ public class LocalAnalysisServerImplTest extends AbstractLocalServerTest {
     assertEquals("0.0.1", server.version());
   }
 
+  public void test_getWorkerCount_default() throws Exception {
+    server.shutdown();
+    server = new LocalAnalysisServerImpl();
+    assertEquals(Runtime.getRuntime().availableProcessors(), server.getWorkerCount());
+  }
+
   public void test_performAnalysis_continueSingleContext() throws Exception {
     String contextA = createContext("testA");
     String contextB = createContext("testB");
@@ -133,6 +159,30 @@ public class LocalAnalysisServerImplTest extends AbstractLocalServerTest {
     assertThat(lastIndexB).isLessThan(indexC);
   }
 
+  public void test_performAnalysis_multipleWorkers() throws Exception {
+    server.shutdown();
+    server = new LocalAnalysisServerImpl(3);
+    server.addAnalysisServerListener(serverListener);
+    server.test_disableForcedSdkAnalysis();
+    assertEquals(3, server.getWorkerCount());
+    String contextA = createContext("testA");
+    String contextB = createContext("testB");
+    String contextC = createContext("testC");
+    server.test_waitForWorkerComplete();
+    // add sources
+    List<String> analyzedContexts = Collections.synchronizedList(Lists.<String> newArrayList());
+    server.test_setAnalyzedContexts(analyzedContexts);
+    addSource(contextA, "/testA.dart", "class A {}");
+    addSource(contextB, "/testB.dart", "class B {}");
+    addSource(contextC, "/testC.dart", "class C {}");
+    server.test_waitForWorkerComplete();
+    // all contexts are analyzed
+    assertThat(analyzedContexts).contains(contextA, contextB, contextC);
+    assertTrue(server.getContextQueueDepths().isEmpty());
+    assertThat(server.getWorkerUtilization()).isGreaterThan(0.0).isLessThanOrEqualTo(1.0);
+    serverListener.assertNoServerErrors();
+  }
+
   public void test_removeAnalysisServerListener() throws Exception {
     AnalysisServerListener listener = mock(AnalysisServerListener.class);
     server.addAnalysisServerListener(listener);
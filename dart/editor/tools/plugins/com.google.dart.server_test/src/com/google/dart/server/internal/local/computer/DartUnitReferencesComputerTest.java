@@ -38,6 +38,7 @@ public class DartUnitReferencesComputerTest extends AbstractLocalServerTest {
   private String code;
   private Source source;
   private List<SearchResult> searchResults = Lists.newArrayList();
+  private int notificationCount = 0;
 
   public void test_constructor_named() throws Exception {
     createContextWithSingleSource(makeSource(//
@@ -141,6 +142,21 @@ public class DartUnitReferencesComputerTest extends AbstractLocalServerTest {
     assertHasResult("vvv);", SearchResultKind.VARIABLE_READ);
   }
 
+  public void test_manyResults() throws Exception {
+    StringBuilder builder = new StringBuilder();
+    builder.append("fff() {}\n");
+    builder.append("main() {\n");
+    for (int i = 0; i < 250; i++) {
+      builder.append("  fff();\n");
+    }
+    builder.append("}\n");
+    createContextWithSingleSource(builder.toString());
+    doSearch("fff() {}");
+    assertThat(searchResults).hasSize(250);
+    // results are sent in batches, the last one with the remaining results
+    assertEquals(3, notificationCount);
+  }
+
   public void test_method() throws Exception {
     createContextWithSingleSource(makeSource(//
         "class A {",
@@ -362,6 +378,7 @@ public class DartUnitReferencesComputerTest extends AbstractLocalServerTest {
       public void computedReferences(String contextId, Source source, int offset,
           SearchResult[] searchResults, boolean isLastResult) {
         Collections.addAll(DartUnitReferencesComputerTest.this.searchResults, searchResults);
+        notificationCount++;
         if (isLastResult) {
           latch.countDown();
         }
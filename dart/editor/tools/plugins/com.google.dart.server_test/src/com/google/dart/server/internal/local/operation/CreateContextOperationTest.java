@@ -32,11 +32,15 @@ public class CreateContextOperationTest extends TestCase {
 
   public void test_perform() throws Exception {
     Map<String, String> packageMap = ImmutableMap.of("pkg-1", "dir-1");
-    CreateContextOperation operation = new CreateContextOperation("id", "my-dir", packageMap);
+    CreateContextOperation operation = new CreateContextOperation(
+        "id",
+        "name",
+        "my-dir",
+        packageMap);
     assertEquals("id", operation.getContextId());
     assertSame(ServerOperationPriority.SERVER, operation.getPriority());
     // perform
     operation.performOperation(server);
-    verify(server, times(1)).internalCreateContext("id", "my-dir", packageMap);
+    verify(server, times(1)).internalCreateContext("id", "name", "my-dir", packageMap);
   }
 }
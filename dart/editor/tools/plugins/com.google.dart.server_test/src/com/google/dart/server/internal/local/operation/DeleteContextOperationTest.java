@@ -30,6 +30,7 @@ public class DeleteContextOperationTest extends TestCase {
   public void test_perform() throws Exception {
     DeleteContextOperation operation = new DeleteContextOperation("id");
     assertSame(ServerOperationPriority.SERVER, operation.getPriority());
+    assertEquals("id", operation.getContextId());
     // perform
     operation.performOperation(server);
     verify(server, times(1)).internalDeleteContext("id");
@@ -19,9 +19,12 @@ import com.google.dart.server.internal.local.operation.MergeableOperation;
 import com.google.dart.server.internal.local.operation.ServerOperation;
 import com.google.dart.server.internal.local.operation.ServerOperationPriority;
 import com.google.dart.server.internal.local.operation.ServerOperationQueue;
+import com.google.dart.server.internal.local.operation.ShutdownOperation;
 
 import junit.framework.TestCase;
 
+import java.util.Map;
+
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -49,7 +52,7 @@ public class ServerOperationQueueTest extends TestCase {
     queue.add(mergeableOperationA);
     queue.add(mergeableOperationB);
     assertSame(mergeableOperationA, takeSafely());
-    queue.markLastOperationCompleted();
+    queue.markOperationCompleted(mergeableOperationA);
     assertTrue(queue.isEmpty());
   }
 
@@ -58,10 +61,22 @@ public class ServerOperationQueueTest extends TestCase {
     queue.add(operationB);
     assertSame(operationA, takeSafely());
     assertSame(operationB, takeSafely());
-    queue.markLastOperationCompleted();
+    queue.markOperationCompleted(operationA);
+    queue.markOperationCompleted(operationB);
     assertTrue(queue.isEmpty());
   }
 
+  public void test_getContextQueueDepths() throws Exception {
+    queue.add(operationA);
+    queue.add(mockContextOperation("id1"));
+    queue.add(mockContextOperation("id2"));
+    queue.add(mockContextOperation("id1"));
+    Map<String, Integer> depths = queue.getContextQueueDepths();
+    assertEquals(2, depths.size());
+    assertEquals(Integer.valueOf(2), depths.get("id1"));
+    assertEquals(Integer.valueOf(1), depths.get("id2"));
+  }
+
   public void test_isEmpty() throws Exception {
     // empty initially
     assertTrue(queue.isEmpty());
@@ -72,8 +87,8 @@ public class ServerOperationQueueTest extends TestCase {
     assertSame(operationA, takeSafely());
     // but it is not complete yet
     assertFalse(queue.isEmpty());
-    // do complete the last operation
-    queue.markLastOperationCompleted();
+    // do complete the operation
+    queue.markOperationCompleted(operationA);
     assertTrue(queue.isEmpty());
   }
 
@@ -105,6 +120,41 @@ public class ServerOperationQueueTest extends TestCase {
     assertTrue(queue.isEmpty());
   }
 
+  public void test_take_contextPinned() throws Exception {
+    ContextServerOperation operation1 = mockContextOperation("id");
+    ContextServerOperation operation2 = mockContextOperation("id");
+    queue.add(operation1);
+    queue.add(operation2);
+    assertSame(operation1, takeSafely());
+    assertEquals(1, queue.getActiveCount());
+    // "operation2" cannot be started while "operation1" is active
+    assertSame(null, takeSafely());
+    // complete "operation1"
+    queue.markOperationCompleted(operation1);
+    assertSame(operation2, takeSafely());
+  }
+
+  public void test_take_contextPinned_otherContext() throws Exception {
+    ContextServerOperation operation1 = mockContextOperation("id1");
+    ContextServerOperation operation2 = mockContextOperation("id1");
+    ContextServerOperation operation3 = mockContextOperation("id2");
+    queue.add(operation1);
+    queue.add(operation2);
+    queue.add(operation3);
+    // "operation3" is taken before "operation2", because context "id1" is busy
+    assertSame(operation1, takeSafely());
+    assertSame(operation3, takeSafely());
+    assertEquals(2, queue.getActiveCount());
+    assertSame(null, takeSafely());
+  }
+
+  public void test_take_shutdown() throws Exception {
+    queue.add(ShutdownOperation.INSTANCE);
+    // every worker gets the shutdown operation
+    assertSame(ShutdownOperation.INSTANCE, takeSafely());
+    assertSame(ShutdownOperation.INSTANCE, takeSafely());
+  }
+
   public void test_take_timeout() throws Exception {
     assertSame(null, takeSafely());
   }
@@ -116,6 +166,13 @@ public class ServerOperationQueueTest extends TestCase {
     when(operationB.getPriority()).thenReturn(ServerOperationPriority.SERVER);
   }
 
+  private ContextServerOperation mockContextOperation(String contextId) {
+    ContextServerOperation operation = mock(ContextServerOperation.class);
+    when(operation.getPriority()).thenReturn(ServerOperationPriority.CONTEXT_ANALYSIS);
+    when(operation.getContextId()).thenReturn(contextId);
+    return operation;
+  }
+
   private ServerOperation takeSafely() {
     return queue.take(TIMEOUT);
   }
@@ -15,6 +15,8 @@ package com.google.dart.tools.core;
 
 import com.google.dart.engine.AnalysisEngine;
 import com.google.dart.engine.error.ErrorCode;
+import com.google.dart.engine.internal.cache.PartitionManager;
+import com.google.dart.engine.internal.context.AnalysisOptionsImpl;
 import com.google.dart.engine.sdk.DirectoryBasedDartSdk;
 import com.google.dart.engine.utilities.instrumentation.Instrumentation;
 import com.google.dart.engine.utilities.instrumentation.InstrumentationBuilder;
@@ -183,6 +185,18 @@ public class DartCore extends Plugin implements DartSdkListener {
    */
   public static final String ENABLE_HINTS_DART2JS_PREFERENCE = "enableHints_dart2js";
 
+  /**
+   * Preference for the number of megabytes that can be used by the AST structures cached by each
+   * analysis context.
+   */
+  public static final String CACHE_BUDGET_PREFERENCE = "cacheBudgetMegabytes";
+
+  /**
+   * Preference for the number of megabytes that can be used by the cached AST structures of the
+   * SDK.
+   */
+  public static final String SDK_CACHE_BUDGET_PREFERENCE = "sdkCacheBudgetMegabytes";
+
   public static final String PROJECT_PREF_PACKAGE_ROOT = "projectPackageRoot";
 
   public static final String PREFS_DART2JS_FLAGS = "dart2jsFlags";
@@ -457,7 +471,8 @@ public class DartCore extends Plugin implements DartSdkListener {
   public static AnalysisServer getAnalysisServer() {
     synchronized (analysisServerLock) {
       if (analysisServer == null) {
-        analysisServer = new com.google.dart.server.internal.local.LocalAnalysisServerImpl();
+        analysisServer = new com.google.dart.server.internal.local.LocalAnalysisServerImpl(
+            getPlugin().getStateLocation().append("server-index").toFile());
         analysisServerDataImpl.setServer(analysisServer);
         analysisServer.addAnalysisServerListener(analysisServerListener);
       }
@@ -1503,6 +1518,16 @@ public class DartCore extends Plugin implements DartSdkListener {
   /**
    * Use dart2js if the SDK is present.
    */
+  /**
+   * Return the maximum estimated number of bytes that can be used by the AST structures cached by
+   * each analysis context, which defaults to a fraction of the maximum heap size.
+   * 
+   * @return the budget for the AST structures cached by each analysis context
+   */
+  public long getCacheBudget() {
+    return getBudgetPreference(CACHE_BUDGET_PREFERENCE, AnalysisOptionsImpl.getDefaultCacheBudget());
+  }
+
   public boolean getCompileWithDart2JS() {
     return DartSdkManager.getManager().hasSdk();
   }
@@ -1577,6 +1602,18 @@ public class DartCore extends Plugin implements DartSdkListener {
     return projectScope.getNode(PLUGIN_ID);
   }
 
+  /**
+   * Return the maximum estimated number of bytes that can be used by the cached AST structures of
+   * the SDK, which defaults to a fraction of the maximum heap size.
+   * 
+   * @return the budget for the cached AST structures of the SDK
+   */
+  public long getSdkCacheBudget() {
+    return getBudgetPreference(
+        SDK_CACHE_BUDGET_PREFERENCE,
+        PartitionManager.getDefaultSdkCacheBudget());
+  }
+
   public boolean isAutoRunPubEnabled() {
     return DartCore.getPlugin().getPrefs().getBoolean(PUB_AUTO_RUN_PREFERENCE, true);
   }
@@ -1656,6 +1693,7 @@ public class DartCore extends Plugin implements DartSdkListener {
     }
 
     AnalysisEngine analysisEngine = AnalysisEngine.getInstance();
+    analysisEngine.getPartitionManager().setSdkCacheBudget(getSdkCacheBudget());
     analysisEngine.setLogger(new Logger() {
       @Override
       public void logError(String message) {
@@ -1701,4 +1739,16 @@ public class DartCore extends Plugin implements DartSdkListener {
       super.stop(context);
     }
   }
+
+  /**
+   * Return the number of bytes given by the budget preference with the given key, which is
+   * expressed in megabytes, or the given default if the preference is not set or is not positive.
+   */
+  private long getBudgetPreference(String key, long defaultBytes) {
+    int megabytes = getPrefs().getInt(key, 0);
+    if (megabytes <= 0) {
+      return defaultBytes;
+    }
+    return megabytes * 1024L * 1024L;
+  }
 }
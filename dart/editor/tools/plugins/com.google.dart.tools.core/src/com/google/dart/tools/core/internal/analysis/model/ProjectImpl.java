@@ -31,6 +31,7 @@ import com.google.dart.engine.source.Source;
 import com.google.dart.engine.source.SourceContainer;
 import com.google.dart.engine.source.SourceFactory;
 import com.google.dart.engine.source.UriResolver;
+import com.google.dart.engine.source.UserSourceContainer;
 import com.google.dart.server.AnalysisServer;
 import com.google.dart.server.NotificationKind;
 import com.google.dart.server.SourceSet;
@@ -850,7 +851,14 @@ public class ProjectImpl extends ContextManagerImpl implements Project {
     AnalysisOptionsImpl options = new AnalysisOptionsImpl();
     options.setHint(DartCore.getPlugin().isHintsEnabled());
     options.setDart2jsHint(DartCore.getPlugin().isHintsDart2JSEnabled());
+    options.setCacheBudget(DartCore.getPlugin().getCacheBudget());
     options.setIncremental(DartCoreDebug.EXPERIMENTAL);
+    // errors are only generated for the packages being depended on when they are opened
+    options.setGeneratePackageErrors(false);
+    IPath location = container.getLocation();
+    if (location != null) {
+      options.setUserSources(new UserSourceContainer(location.toFile()));
+    }
 
     context.setSourceFactory(sourceFactory);
     context.setAnalysisOptions(options);
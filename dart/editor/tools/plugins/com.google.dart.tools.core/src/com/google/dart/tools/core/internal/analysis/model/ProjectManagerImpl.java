@@ -14,8 +14,10 @@
 package com.google.dart.tools.core.internal.analysis.model;
 
 import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.index.FileIndexStore;
 import com.google.dart.engine.index.Index;
 import com.google.dart.engine.index.IndexFactory;
+import com.google.dart.engine.index.IndexStore;
 import com.google.dart.engine.sdk.DartSdk;
 import com.google.dart.engine.sdk.DirectoryBasedDartSdk;
 import com.google.dart.engine.search.SearchEngine;
@@ -54,8 +56,11 @@ import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.NullProgressMonitor;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
 
 /**
  * Concrete implementation of {@link ProjectManager}.
@@ -66,9 +71,31 @@ public class ProjectManagerImpl extends ContextManagerImpl implements ProjectMan
 
   private static final PubFolder[] NO_PUB_FOLDERS = new PubFolder[] {};
 
+  /**
+   * The name under which the SDK context is known to the index store.
+   */
+  private static final String SDK_CONTEXT_NAME = "sdk";
+
+  /**
+   * Answer the store for the index, which keeps relationships in the state location of the plugin
+   * if the plugin is running.
+   */
+  private static IndexStore createIndexStore() {
+    DartCore plugin = DartCore.getPlugin();
+    if (plugin == null) {
+      return IndexFactory.newMemoryIndexStore();
+    }
+    return IndexFactory.newFileIndexStore(plugin.getStateLocation().append("index").toFile());
+  }
+
   private final IWorkspaceRoot resource;
   private final HashMap<IProject, Project> projects = new HashMap<IProject, Project>();
-  private final Index index = IndexFactory.newIndex(IndexFactory.newMemoryIndexStore());
+  private final IndexStore indexStore = createIndexStore();
+  private final Index index = IndexFactory.newIndex(
+      indexStore,
+      Runtime.getRuntime().availableProcessors());
+  private final Set<AnalysisContext> namedContexts = Collections.newSetFromMap(
+      new WeakHashMap<AnalysisContext, Boolean>());
   private final DartIgnoreManager ignoreManager;
   private final ArrayList<ProjectListener> listeners = new ArrayList<ProjectListener>();
 
@@ -79,11 +106,13 @@ public class ProjectManagerImpl extends ContextManagerImpl implements ProjectMan
 
     @Override
     public void resolved(ResolvedEvent event) {
+      nameContext(event.getContext());
       index.indexUnit(event.getContext(), event.getUnit());
     }
 
     @Override
     public void resolvedHtml(ResolvedHtmlEvent event) {
+      nameContext(event.getContext());
       index.indexHtmlUnit(event.getContext(), event.getUnit());
     }
   };
@@ -445,4 +474,31 @@ public class ProjectManagerImpl extends ContextManagerImpl implements ProjectMan
       }
     }
   }
+
+  /**
+   * Give the given context a name in the index store before its first unit is indexed, so that the
+   * relationships recorded for the container of the context are restored in the next session.
+   * Contexts that are not associated with a container are not named.
+   */
+  private void nameContext(AnalysisContext context) {
+    if (!(indexStore instanceof FileIndexStore)) {
+      return;
+    }
+    synchronized (namedContexts) {
+      if (!namedContexts.add(context)) {
+        return;
+      }
+    }
+    String name;
+    if (context == getSdkContext()) {
+      name = SDK_CONTEXT_NAME;
+    } else {
+      ResourceMap resourceMap = getResourceMap(context);
+      if (resourceMap == null) {
+        return;
+      }
+      name = resourceMap.getResource().getFullPath().toString();
+    }
+    ((FileIndexStore) indexStore).setContextName(context, name);
+  }
 }
@@ -15,6 +15,7 @@ package com.google.dart.tools.core.internal.analysis.model;
 
 import com.google.dart.engine.AnalysisEngine;
 import com.google.dart.engine.context.AnalysisContext;
+import com.google.dart.engine.context.AnalysisOptions;
 import com.google.dart.engine.element.LibraryElement;
 import com.google.dart.engine.index.Index;
 import com.google.dart.engine.internal.context.InstrumentedAnalysisContextImpl;
@@ -181,6 +182,20 @@ public class ProjectImplTest extends ContextManagerImplTest {
     assertFactoryInitialized(projectContainer, context1);
   }
 
+  public void test_getContext_userSources() {
+    ProjectImpl project = newTarget();
+    MockContext context = (MockContext) project.getContext(projectContainer);
+    AnalysisOptions options = context.getAnalysisOptions();
+    assertFalse(options.getGeneratePackageErrors());
+    // the sources of the project are owned by the user, but not those in the "packages" directories
+    File projectDir = projectContainer.getLocation().toFile();
+    SourceContainer userSources = options.getUserSources();
+    assertTrue(userSources.contains(new FileBasedSource(new File(projectDir, "web/a.dart"))));
+    assertFalse(userSources.contains(new FileBasedSource(new File(
+        projectDir,
+        "web/packages/foo/foo.dart"))));
+  }
+
   public void test_getLibrarySources() {
     ProjectImpl project = newTarget();
     // TODO(keertip): make this more meaningful
@@ -8,6 +8,7 @@ import com.google.dart.engine.context.AnalysisException;
 import com.google.dart.engine.context.AnalysisOptions;
 import com.google.dart.engine.context.AnalysisResult;
 import com.google.dart.engine.context.AnalysisDelta;
+import com.google.dart.engine.context.ChangeNoticeListener;
 import com.google.dart.engine.context.ChangeSet;
 import com.google.dart.engine.element.CompilationUnitElement;
 import com.google.dart.engine.element.Element;
@@ -23,8 +24,11 @@ import com.google.dart.engine.internal.context.InternalAnalysisContext;
 import com.google.dart.engine.internal.context.ResolvableCompilationUnit;
 import com.google.dart.engine.internal.context.TimestampedData;
 import com.google.dart.engine.internal.element.angular.AngularApplication;
+import com.google.dart.engine.internal.resolver.MemberMapCache;
 import com.google.dart.engine.internal.resolver.TypeProvider;
+import com.google.dart.engine.internal.scope.CompletionCandidateCache;
 import com.google.dart.engine.internal.scope.Namespace;
+import com.google.dart.engine.scanner.SymbolTable;
 import com.google.dart.engine.source.ContentCache;
 import com.google.dart.engine.source.DirectoryBasedSourceContainer;
 import com.google.dart.engine.source.FileBasedSource;
@@ -117,6 +121,11 @@ public class MockContext implements InternalAnalysisContext {
   private final ContentCache contentCache = new ContentCache();
   private SourceFactory factory = new SourceFactory();
 
+  @Override
+  public void addListener(ChangeNoticeListener listener) {
+    throw new UnsupportedOperationException();
+  }
+
   @Override
   public void addSourceInfo(Source source, SourceEntry info) {
     throw new UnsupportedOperationException();
@@ -307,6 +316,11 @@ public class MockContext implements InternalAnalysisContext {
     throw new UnsupportedOperationException();
   }
 
+  @Override
+  public CompletionCandidateCache getCompletionCandidateCache() {
+    throw new UnsupportedOperationException();
+  }
+
   @Override
   public CompilationUnitElement getCompilationUnitElement(Source unitSource, Source librarySource) {
     return null;
@@ -402,6 +416,11 @@ public class MockContext implements InternalAnalysisContext {
     return null;
   }
 
+  @Override
+  public MemberMapCache getMemberMapCache() {
+    throw new UnsupportedOperationException();
+  }
+
   @Override
   public long getModificationStamp(Source source) {
     Long stamp = contentCache.getModificationStamp(source);
@@ -446,6 +465,11 @@ public class MockContext implements InternalAnalysisContext {
     throw new UnsupportedOperationException();
   }
 
+  @Override
+  public SymbolTable getSymbolTable() {
+    throw new UnsupportedOperationException();
+  }
+
   @Override
   public TypeProvider getTypeProvider() throws AnalysisException {
     throw new UnsupportedOperationException();
@@ -492,6 +516,11 @@ public class MockContext implements InternalAnalysisContext {
     throw new UnsupportedOperationException();
   }
 
+  @Override
+  public void removeListener(ChangeNoticeListener listener) {
+    throw new UnsupportedOperationException();
+  }
+
   @Override
   public CompilationUnit resolveCompilationUnit(Source source, LibraryElement library)
       throws AnalysisException {
@@ -50,6 +50,8 @@ public class ServerDebugIndexedValue extends ServerDebugValue implements IIndexe
 
   @Override
   public IVariable[] getVariables(int offset, int length) throws DebugException {
+    prefetchListElements(offset, length);
+
     IVariable[] results = new IVariable[length];
 
     for (int i = 0; i < length; i++) {
@@ -54,6 +54,8 @@ public class ServerDebugStackFrame extends ServerDebugElement implements IStackF
 
   private List<ServerDebugVariable> locals;
 
+  private boolean localsPrefetched;
+
   private IValue classValue;
 
   private IVariable globalVariable;
@@ -278,6 +280,21 @@ public class ServerDebugStackFrame extends ServerDebugElement implements IStackF
 
   @Override
   public IVariable[] getVariables() throws DebugException {
+    if (!localsPrefetched) {
+      localsPrefetched = true;
+
+      // Fetch the properties of the locals in one batch, rather than one request per local.
+      if (vmFrame.getLocals() != null) {
+        List<VmValue> values = new ArrayList<VmValue>();
+
+        for (VmVariable var : vmFrame.getLocals()) {
+          values.add(var.getValue());
+        }
+
+        getConnection().prefetchObjectPropertiesSync(vmFrame.getIsolate(), values);
+      }
+    }
+
     return locals.toArray(new IVariable[locals.size()]);
   }
 
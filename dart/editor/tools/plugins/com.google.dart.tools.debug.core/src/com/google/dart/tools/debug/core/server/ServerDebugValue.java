@@ -40,6 +40,13 @@ import java.util.concurrent.CountDownLatch;
 public class ServerDebugValue extends ServerDebugElement implements IValue, IDartDebugValue,
     IExpressionEvaluator {
 
+  /**
+   * The maximum number of list elements that are prefetched when all of the elements of a list are
+   * requested. This is the size of the groups in which the Eclipse debugging framework displays
+   * the elements of arrays.
+   */
+  static final int MAX_LIST_PREFETCH = 100;
+
   static ServerDebugValue createValue(IDebugTarget target, VmValue value) {
     if (value != null && value.isList()) {
       return new ServerDebugIndexedValue(target, value);
@@ -208,7 +215,7 @@ public class ServerDebugValue extends ServerDebugElement implements IValue, IDar
       }
 
       if (value.isObject()) {
-        getVariables();
+        fillInFields();
 
         if (value.getVmObject() != null) {
           return DebuggerUtils.demangleVmName(getConnection().getClassNameSync(value.getVmObject()));
@@ -249,6 +256,18 @@ public class ServerDebugValue extends ServerDebugElement implements IValue, IDar
     try {
       fillInFields();
 
+      // The fields are displayed with their type names, which requires the properties of the field
+      // values; fetch them all in one batch rather than one request per field.
+      if (value != null && value.getVmObject() != null) {
+        List<VmValue> fieldValues = new ArrayList<VmValue>();
+
+        for (VmVariable vmVariable : value.getVmObject().getFields()) {
+          fieldValues.add(vmVariable.getValue());
+        }
+
+        getConnection().prefetchObjectPropertiesSync(value.getIsolate(), fieldValues);
+      }
+
       return fields.toArray(new IVariable[fields.size()]);
     } catch (Throwable t) {
       throw createDebugException(t);
@@ -371,6 +390,8 @@ public class ServerDebugValue extends ServerDebugElement implements IValue, IDar
     ServerDebugTarget target = getTarget();
     VmConnection connection = getConnection();
 
+    prefetchListElements(0, Math.min(value.getLength(), MAX_LIST_PREFETCH));
+
     for (int i = 0; i < value.getLength(); i++) {
       ServerDebugVariable variable = new ServerDebugVariable(target, VmVariable.createArrayEntry(
           connection,
@@ -385,6 +406,22 @@ public class ServerDebugValue extends ServerDebugElement implements IValue, IDar
     return valueRetriever != null;
   }
 
+  /**
+   * Fetch the given range of the elements of this list, and the properties of those elements that
+   * are objects, into the value cache of the isolate using pipelined requests.
+   */
+  protected void prefetchListElements(int offset, int length) {
+    VmConnection connection = getConnection();
+
+    List<VmValue> elements = connection.getListElementsSync(
+        value.getIsolate(),
+        value.getObjectId(),
+        offset,
+        length);
+
+    connection.prefetchObjectPropertiesSync(value.getIsolate(), elements);
+  }
+
   private List<IVariable> convert(VmObject vmObject) {
     List<IVariable> vars = new ArrayList<IVariable>();
 
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.dart.tools.debug.core.server;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Collects the results of a batch of pipelined requests, and passes them to a callback once all of
+ * the requests have been answered or skipped, and {@link #done()} has been called. The results of
+ * requests that failed or were skipped are {@code null}.
+ */
+public class VmBatchCallback<T> {
+  private int count;
+  private VmCallback<List<T>> callback;
+  private List<T> results;
+  private AtomicInteger remaining;
+
+  public VmBatchCallback(int count, VmCallback<List<T>> callback) {
+    this.count = count;
+    this.callback = callback;
+    this.results = new ArrayList<T>(Collections.<T> nCopies(count, null));
+    // The extra count is released by done(), once all of the requests have been sent.
+    this.remaining = new AtomicInteger(count + 1);
+  }
+
+  /**
+   * Return the callback for the request with the given index.
+   */
+  public VmCallback<T> createCallback(final int index) {
+    return new VmCallback<T>() {
+      @Override
+      public void handleResult(VmResult<T> result) {
+        if (!result.isError()) {
+          synchronized (results) {
+            results.set(index, result.getResult());
+          }
+        }
+
+        countDown();
+      }
+    };
+  }
+
+  /**
+   * Record that all of the requests have been sent or skipped.
+   */
+  public void done() {
+    countDown();
+  }
+
+  /**
+   * Record that the requests with the given index and all following indices will not be sent, so
+   * no results will be received for them.
+   */
+  public void skipFrom(int index) {
+    for (int i = index; i < count; i++) {
+      countDown();
+    }
+  }
+
+  private void countDown() {
+    if (remaining.decrementAndGet() == 0) {
+      List<T> list;
+
+      synchronized (results) {
+        list = new ArrayList<T>(results);
+      }
+
+      callback.handleResult(VmResult.createFrom(list));
+    }
+  }
+
+}
@@ -22,26 +22,43 @@ import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.io.BufferedReader;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.OutputStream;
 import java.io.Reader;
-import java.net.Socket;
-import java.net.SocketException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SocketChannel;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * A low level interface to the Dart VM debugger protocol.
+ * <p>
+ * Requests are pipelined: they are queued for a dedicated writer thread and sent over the socket
+ * channel without waiting for the responses to earlier requests, and responses are matched to their
+ * callbacks by id as they are read.
+ * <p>
+ * The connection uses blocking I/O over a {@link SocketChannel}: a dedicated reader thread and a
+ * dedicated writer thread each block on the channel, rather than multiplexing it through an NIO
+ * selector.
  */
 public class VmConnection {
 
@@ -65,19 +82,30 @@ public class VmConnection {
 
   private static Charset UTF8 = Charset.forName("UTF-8");
 
-  private static ExecutorService threadPool = Executors.newCachedThreadPool();
+  /**
+   * The maximum time that the batched synchronous calls wait for the VM to answer.
+   */
+  private static final long SYNC_TIMEOUT_MILLIS = 10000;
+
+  /**
+   * The buffer that is queued to stop the writer thread.
+   */
+  private static final ByteBuffer CLOSE_BUFFER = ByteBuffer.allocate(0);
+
+  private volatile ExecutorService threadPool;
 
   private List<VmListener> listeners = new ArrayList<VmListener>();
 
   private String host;
   private int port;
 
-  private Map<Integer, Callback> callbackMap = new HashMap<Integer, Callback>();
+  private Map<Integer, Callback> callbackMap = new ConcurrentHashMap<Integer, Callback>();
 
-  private int nextCommandId = 1;
+  private AtomicInteger nextCommandId = new AtomicInteger(1);
 
-  private Socket socket;
-  private OutputStream out;
+  private volatile SocketChannel channel;
+
+  private volatile BlockingQueue<ByteBuffer> writeQueue;
 
   private List<VmBreakpoint> breakpoints = Collections.synchronizedList(new ArrayList<VmBreakpoint>());
 
@@ -106,9 +134,16 @@ public class VmConnection {
   }
 
   public void close() throws IOException {
-    if (socket != null) {
-      socket.close();
-      socket = null;
+    SocketChannel currentChannel;
+
+    synchronized (this) {
+      currentChannel = channel;
+      channel = null;
+    }
+
+    if (currentChannel != null) {
+      writeQueue.offer(CLOSE_BUFFER);
+      currentChannel.close();
     }
   }
 
@@ -118,10 +153,27 @@ public class VmConnection {
    * @throws IOException
    */
   public void connect() throws IOException {
-    socket = new Socket(host, port);
+    final SocketChannel currentChannel = SocketChannel.open(new InetSocketAddress(host, port));
+    final InputStream in = Channels.newInputStream(currentChannel);
+
+    // Each connection has its own write queue and dispatch threads, so that the connection can be
+    // opened again once it has been closed.
+    final BlockingQueue<ByteBuffer> currentWriteQueue = new LinkedBlockingQueue<ByteBuffer>();
+    final ExecutorService currentThreadPool = Executors.newCachedThreadPool();
 
-    out = socket.getOutputStream();
-    final InputStream in = socket.getInputStream();
+    synchronized (this) {
+      writeQueue = currentWriteQueue;
+      threadPool = currentThreadPool;
+      channel = currentChannel;
+    }
+
+    // Start a writer thread, so that sending a request never blocks on the socket.
+    new Thread(new Runnable() {
+      @Override
+      public void run() {
+        processWriteQueue(currentChannel, currentWriteQueue);
+      }
+    }).start();
 
     // Start a reader thread.
     new Thread(new Runnable() {
@@ -135,17 +187,23 @@ public class VmConnection {
           processVmEvents(in);
         } catch (EOFException e) {
 
-        } catch (SocketException se) {
-          // ignore java.net.SocketException: Connection reset
+        } catch (ClosedChannelException e) {
+          // the connection was closed
+        } catch (IOException e) {
+          // ignore java.io.IOException: Connection reset
           final String reset = "Connection reset";
 
-          if (!(se.getMessage() != null && se.getMessage().contains(reset))) {
-            DartDebugCorePlugin.logError(se);
+          if (!(e.getMessage() != null && e.getMessage().contains(reset))) {
+            DartDebugCorePlugin.logError(e);
           }
-        } catch (IOException e) {
-          DartDebugCorePlugin.logError(e);
         } finally {
-          socket = null;
+          synchronized (VmConnection.this) {
+            if (channel == currentChannel) {
+              channel = null;
+            }
+          }
+
+          currentWriteQueue.offer(CLOSE_BUFFER);
         }
 
         for (VmListener listener : listeners) {
@@ -153,6 +211,8 @@ public class VmConnection {
         }
 
         handleTerminated();
+
+        currentThreadPool.shutdown();
       }
     }).start();
   }
@@ -210,6 +270,9 @@ public class VmConnection {
       sendRequest(request, isolate.getId(), new Callback() {
         @Override
         public void handleResult(JSONObject result) throws JSONException {
+          // the evaluation may have mutated objects whose values are cached
+          isolate.clearValueCache();
+
           VmResult<VmValue> evalResult = convertEvaluateObjectResult(isolate, result);
 
           callback.handleResult(evalResult);
@@ -237,6 +300,9 @@ public class VmConnection {
       sendRequest(request, isolate.getId(), new Callback() {
         @Override
         public void handleResult(JSONObject result) throws JSONException {
+          // the evaluation may have mutated objects whose values are cached
+          isolate.clearValueCache();
+
           VmResult<VmValue> evalResult = convertEvaluateObjectResult(isolate, result);
 
           callback.handleResult(evalResult);
@@ -264,6 +330,9 @@ public class VmConnection {
       sendRequest(request, isolate.getId(), new Callback() {
         @Override
         public void handleResult(JSONObject result) throws JSONException {
+          // the evaluation may have mutated objects whose values are cached
+          isolate.clearValueCache();
+
           VmResult<VmValue> evalResult = convertEvaluateObjectResult(isolate, result);
 
           callback.handleResult(evalResult);
@@ -291,6 +360,9 @@ public class VmConnection {
       sendRequest(request, isolate.getId(), new Callback() {
         @Override
         public void handleResult(JSONObject result) throws JSONException {
+          // the evaluation may have mutated objects whose values are cached
+          isolate.clearValueCache();
+
           VmResult<VmValue> evalResult = convertEvaluateObjectResult(isolate, result);
 
           callback.handleResult(evalResult);
@@ -526,12 +598,20 @@ public class VmConnection {
     }
   }
 
-  public void getListElements(final VmIsolate isolate, int listObjectId, int index,
+  public void getListElements(final VmIsolate isolate, final int listObjectId, final int index,
       final VmCallback<VmValue> callback) throws IOException {
     if (callback == null) {
       throw new IllegalArgumentException("a callback is required");
     }
 
+    VmValue cachedValue = isolate.getValueCache().getListElement(listObjectId, index);
+
+    if (cachedValue != null) {
+      callback.handleResult(VmResult.createFrom(cachedValue));
+
+      return;
+    }
+
     try {
       JSONObject request = new JSONObject();
 
@@ -543,6 +623,10 @@ public class VmConnection {
         public void handleResult(JSONObject result) throws JSONException {
           VmResult<VmValue> vmObjectResult = convertGetListElementsResult(isolate, result);
 
+          if (!vmObjectResult.isError() && isolate.isPaused()) {
+            isolate.getValueCache().putListElement(listObjectId, index, vmObjectResult.getResult());
+          }
+
           callback.handleResult(vmObjectResult);
         }
       });
@@ -551,12 +635,89 @@ public class VmConnection {
     }
   }
 
+  /**
+   * Fetch the elements of the given list in the range [offset, offset + length). The requests for
+   * the elements that are not already cached are pipelined, and the callback is invoked once all of
+   * them have been answered. The entries for elements that could not be fetched are {@code null}.
+   * The callback is invoked even if an exception is thrown part-way through sending the requests.
+   * 
+   * @param isolate
+   * @param listObjectId
+   * @param offset
+   * @param length
+   * @param callback
+   * @throws IOException
+   */
+  public void getListElements(VmIsolate isolate, int listObjectId, int offset, int length,
+      VmCallback<List<VmValue>> callback) throws IOException {
+    if (callback == null) {
+      throw new IllegalArgumentException("a callback is required");
+    }
+
+    VmBatchCallback<VmValue> batchCallback = new VmBatchCallback<VmValue>(length, callback);
+
+    int index = 0;
+
+    try {
+      for (; index < length; index++) {
+        getListElements(isolate, listObjectId, offset + index, batchCallback.createCallback(index));
+      }
+    } finally {
+      batchCallback.skipFrom(index);
+      batchCallback.done();
+    }
+  }
+
+  /**
+   * This synchronous call returns the elements of the given list in the range [offset, offset +
+   * length), fetching those that are not already cached in a single pipelined batch.
+   * 
+   * @param isolate
+   * @param listObjectId
+   * @param offset
+   * @param length
+   * @return the elements, with {@code null} entries for the elements that could not be fetched
+   */
+  public List<VmValue> getListElementsSync(VmIsolate isolate, int listObjectId, int offset,
+      int length) {
+    final AtomicReference<List<VmValue>> elements = new AtomicReference<List<VmValue>>();
+
+    final CountDownLatch latch = new CountDownLatch(1);
+
+    try {
+      getListElements(isolate, listObjectId, offset, length, new VmCallback<List<VmValue>>() {
+        @Override
+        public void handleResult(VmResult<List<VmValue>> result) {
+          elements.set(result.getResult());
+
+          latch.countDown();
+        }
+      });
+    } catch (IOException e) {
+      // The callback is still invoked, with the elements that could be fetched.
+    }
+
+    if (!awaitSync(latch)) {
+      return new ArrayList<VmValue>(Collections.<VmValue> nCopies(length, null));
+    }
+
+    return elements.get();
+  }
+
   public void getObjectProperties(final VmIsolate isolate, final int objectId,
       final VmCallback<VmObject> callback) throws IOException {
     if (callback == null) {
       throw new IllegalArgumentException("a callback is required");
     }
 
+    VmObject cachedObject = isolate.getValueCache().getObject(objectId);
+
+    if (cachedObject != null) {
+      callback.handleResult(VmResult.createFrom(cachedObject));
+
+      return;
+    }
+
     try {
       JSONObject request = new JSONObject();
 
@@ -571,6 +732,10 @@ public class VmConnection {
               objectId,
               result);
 
+          if (!vmObjectResult.isError() && isolate.isPaused()) {
+            isolate.getValueCache().putObject(objectId, vmObjectResult.getResult());
+          }
+
           callback.handleResult(vmObjectResult);
         }
       });
@@ -579,6 +744,39 @@ public class VmConnection {
     }
   }
 
+  /**
+   * Fetch the properties of the given objects. The requests for the objects that are not already
+   * cached are pipelined, and the callback is invoked once all of them have been answered. The
+   * entries for objects that could not be fetched are {@code null}. The callback is invoked even if
+   * an exception is thrown part-way through sending the requests.
+   * 
+   * @param isolate
+   * @param objectIds
+   * @param callback
+   * @throws IOException
+   */
+  public void getObjectProperties(VmIsolate isolate, List<Integer> objectIds,
+      VmCallback<List<VmObject>> callback) throws IOException {
+    if (callback == null) {
+      throw new IllegalArgumentException("a callback is required");
+    }
+
+    VmBatchCallback<VmObject> batchCallback = new VmBatchCallback<VmObject>(
+        objectIds.size(),
+        callback);
+
+    int index = 0;
+
+    try {
+      for (; index < objectIds.size(); index++) {
+        getObjectProperties(isolate, objectIds.get(index), batchCallback.createCallback(index));
+      }
+    } finally {
+      batchCallback.skipFrom(index);
+      batchCallback.done();
+    }
+  }
+
   /**
    * This synchronous, potentially long-running call returns the cached source for the given
    * libraryId and source url.
@@ -721,7 +919,63 @@ public class VmConnection {
    * @return whether the connection is still open
    */
   public boolean isConnected() {
-    return socket != null;
+    return channel != null;
+  }
+
+  /**
+   * This synchronous call fetches the properties of those of the given values that are objects,
+   * and the class information of those objects, into the caches of the isolate. Everything that is
+   * not already cached is fetched in pipelined batches, so that displaying the values does not
+   * need a round trip to the VM for each of them.
+   * 
+   * @param isolate
+   * @param values
+   */
+  public void prefetchObjectPropertiesSync(final VmIsolate isolate, List<VmValue> values) {
+    List<Integer> objectIds = new ArrayList<Integer>();
+
+    for (VmValue value : values) {
+      if (value != null && value.isObject() && !value.isNull()
+          && !isolate.getValueCache().hasObject(value.getObjectId())) {
+        objectIds.add(value.getObjectId());
+      }
+    }
+
+    if (objectIds.isEmpty()) {
+      return;
+    }
+
+    final AtomicReference<List<VmObject>> objects = new AtomicReference<List<VmObject>>();
+
+    final CountDownLatch latch = new CountDownLatch(1);
+
+    try {
+      getObjectProperties(isolate, objectIds, new VmCallback<List<VmObject>>() {
+        @Override
+        public void handleResult(VmResult<List<VmObject>> result) {
+          objects.set(result.getResult());
+
+          latch.countDown();
+        }
+      });
+    } catch (IOException e) {
+      // The callback is still invoked, with the objects that could be fetched.
+    }
+
+    if (!awaitSync(latch)) {
+      return;
+    }
+
+    List<Integer> classIds = new ArrayList<Integer>();
+
+    for (VmObject object : objects.get()) {
+      if (object != null && object.getClassId() != -1 && !isolate.hasClassInfo(object.getClassId())
+          && !classIds.contains(object.getClassId())) {
+        classIds.add(object.getClassId());
+      }
+    }
+
+    populateClassInfo(isolate, classIds);
   }
 
   public void removeBreakpoint(VmIsolate isolate, final VmBreakpoint breakpoint) throws IOException {
@@ -938,17 +1192,20 @@ public class VmConnection {
 
   protected synchronized void handleTerminated() {
     // Clean up the callbackMap on termination.
-    List<Callback> callbacks = new ArrayList<VmConnection.Callback>(callbackMap.values());
+    List<Integer> ids = new ArrayList<Integer>(callbackMap.keySet());
 
-    for (Callback callback : callbacks) {
-      try {
-        callback.handleResult(VmResult.createJsonErrorResult("connection termination"));
-      } catch (JSONException e) {
+    for (Integer id : ids) {
+      Callback callback = callbackMap.remove(id);
+
+      if (callback != null) {
+        try {
+          callback.handleResult(VmResult.createJsonErrorResult("connection termination"));
+        } catch (JSONException e) {
 
+        }
       }
     }
 
-    callbackMap.clear();
   }
 
   protected void processJson(final JSONObject result) {
@@ -1012,33 +1269,44 @@ public class VmConnection {
       throw new IOException(jse);
     }
 
-    synchronized (this) {
-      id = nextCommandId++;
+    id = nextCommandId.getAndIncrement();
 
-      try {
-        request.put("id", id);
-      } catch (JSONException ex) {
-        throw new IOException(ex);
-      }
+    try {
+      request.put("id", id);
+    } catch (JSONException ex) {
+      throw new IOException(ex);
+    }
 
-      if (callback != null) {
-        callbackMap.put(id, callback);
-      }
+    if (callback != null) {
+      callbackMap.put(id, callback);
     }
 
     try {
       send(request.toString());
     } catch (IOException ex) {
       if (callback != null) {
-        synchronized (this) {
-          callbackMap.remove(id);
-        }
+        callbackMap.remove(id);
       }
 
       throw ex;
     }
   }
 
+  /**
+   * Wait at most {@link #SYNC_TIMEOUT_MILLIS} for the given latch to be released, and return
+   * {@code true} if it was. If the current thread is interrupted while waiting, its interrupt status
+   * is restored and {@code false} is returned.
+   */
+  private boolean awaitSync(CountDownLatch latch) {
+    try {
+      return latch.await(SYNC_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+
+      return false;
+    }
+  }
+
   private VmResult<VmValue> convertEvaluateObjectResult(VmIsolate isolate, JSONObject object)
       throws JSONException {
     VmResult<VmValue> result = VmResult.createFrom(object);
@@ -1238,12 +1506,40 @@ public class VmConnection {
 
   private void notifyDebuggerResumed(VmIsolate isolate) {
     isolate.clearClassInfoMap();
+    isolate.clearValueCache();
 
     for (VmListener listener : listeners) {
       listener.debuggerResumed(isolate);
     }
   }
 
+  /**
+   * Fetch the class information for the given classes using pipelined requests, and wait for all
+   * of it to arrive.
+   */
+  private void populateClassInfo(final VmIsolate isolate, List<Integer> classIds) {
+    final CountDownLatch latch = new CountDownLatch(classIds.size());
+
+    for (final int classId : classIds) {
+      try {
+        getClassProperties(isolate, classId, new VmCallback<VmClass>() {
+          @Override
+          public void handleResult(VmResult<VmClass> result) {
+            if (!result.isError()) {
+              isolate.setClassInfo(classId, result.getResult());
+            }
+
+            latch.countDown();
+          }
+        });
+      } catch (IOException e) {
+        latch.countDown();
+      }
+    }
+
+    awaitSync(latch);
+  }
+
   private void populateClassInfo(final VmIsolate isolate, final int classId) {
     final CountDownLatch latch = new CountDownLatch(1);
 
@@ -1308,6 +1604,9 @@ public class VmConnection {
 
         isolate.setPaused(true);
 
+        // Object ids are only valid for the duration of a pause.
+        isolate.clearValueCache();
+
         sendDelayedDebuggerPaused(PausedReason.parse(reason), isolate, location, exception);
       } else if (eventName.equals(EVENT_BREAKPOINTRESOLVED)) {
         // { "event": "breakpointResolved", "params": {"breakpointId": 2, "url": "file:///Users/devoncarew/tools/eclipse_37/eclipse/samples/time/time_server.dart", "line": 19 }}
@@ -1352,11 +1651,7 @@ public class VmConnection {
     // Process a command response.
     int id = result.getInt("id");
 
-    Callback callback;
-
-    synchronized (this) {
-      callback = callbackMap.remove(id);
-    }
+    Callback callback = callbackMap.remove(id);
 
     if (callback != null) {
       callback.handleResult(result);
@@ -1369,7 +1664,7 @@ public class VmConnection {
   }
 
   private void processVmEvents(InputStream in) throws IOException {
-    Reader reader = new InputStreamReader(in, UTF8);
+    Reader reader = new BufferedReader(new InputStreamReader(in, UTF8));
 
     JSONObject obj = readJson(reader);
 
@@ -1440,6 +1735,34 @@ public class VmConnection {
     }
   }
 
+  private void processWriteQueue(SocketChannel currentChannel,
+      BlockingQueue<ByteBuffer> currentWriteQueue) {
+    try {
+      ByteBuffer buffer = currentWriteQueue.take();
+
+      while (buffer != CLOSE_BUFFER) {
+        while (buffer.hasRemaining()) {
+          currentChannel.write(buffer);
+        }
+
+        buffer = currentWriteQueue.take();
+      }
+    } catch (InterruptedException e) {
+
+    } catch (ClosedChannelException e) {
+
+    } catch (IOException e) {
+      DartDebugCorePlugin.logError(e);
+
+      // Closing the channel terminates the reader thread, which fails any pending callbacks.
+      try {
+        currentChannel.close();
+      } catch (IOException ex) {
+
+      }
+    }
+  }
+
   private Callback resumeOnSuccess(final VmIsolate isolate) {
     return new Callback() {
       @Override
@@ -1476,10 +1799,11 @@ public class VmConnection {
   private void send(String str) throws IOException {
     DartDebugCorePlugin.log("==> " + str);
 
-    byte[] bytes = str.getBytes(UTF8);
+    if (!isConnected()) {
+      throw new IOException("connection closed");
+    }
 
-    out.write(bytes);
-    out.flush();
+    writeQueue.offer(ByteBuffer.wrap(str.getBytes(UTF8)));
   }
 
   private void sendDelayedDebuggerPaused(final PausedReason reason, final VmIsolate isolate,
@@ -14,6 +14,7 @@
 
 package com.google.dart.tools.debug.core.server;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -24,8 +25,12 @@ public class VmIsolate {
   private int id;
   private boolean paused = true;
 
-  private Map<Integer, VmClass> classInfoMap = new HashMap<Integer, VmClass>();
-  private Map<Integer, VmLibrary> libraryInfoMap = new HashMap<Integer, VmLibrary>();
+  private Map<Integer, VmClass> classInfoMap = Collections.synchronizedMap(
+      new HashMap<Integer, VmClass>());
+  private Map<Integer, VmLibrary> libraryInfoMap = Collections.synchronizedMap(
+      new HashMap<Integer, VmLibrary>());
+
+  private VmValueCache valueCache = new VmValueCache();
 
   protected VmIsolate(int isolateId) {
     this.id = isolateId;
@@ -95,6 +100,14 @@ public class VmIsolate {
     libraryInfoMap.clear();
   }
 
+  protected void clearValueCache() {
+    valueCache.clear();
+  }
+
+  protected VmValueCache getValueCache() {
+    return valueCache;
+  }
+
   protected void setClassInfo(int classId, VmClass vmClass) {
     classInfoMap.put(classId, vmClass);
   }
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.dart.tools.debug.core.server;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A cache of the object properties and list elements of an isolate that have been fetched from the
+ * VM while the isolate is paused. The VM only guarantees object ids for the duration of a pause,
+ * so the cache is cleared whenever the isolate is resumed or pauses again.
+ * <p>
+ * Instances of this class are thread-safe.
+ */
+public class VmValueCache {
+  private Map<Integer, VmObject> objectMap = new ConcurrentHashMap<Integer, VmObject>();
+  private Map<Long, VmValue> listElementMap = new ConcurrentHashMap<Long, VmValue>();
+
+  public VmValueCache() {
+
+  }
+
+  public void clear() {
+    objectMap.clear();
+    listElementMap.clear();
+  }
+
+  public VmValue getListElement(int listObjectId, int index) {
+    return listElementMap.get(getListElementKey(listObjectId, index));
+  }
+
+  public VmObject getObject(int objectId) {
+    return objectMap.get(objectId);
+  }
+
+  public boolean hasListElement(int listObjectId, int index) {
+    return listElementMap.containsKey(getListElementKey(listObjectId, index));
+  }
+
+  public boolean hasObject(int objectId) {
+    return objectMap.containsKey(objectId);
+  }
+
+  public void putListElement(int listObjectId, int index, VmValue value) {
+    if (value != null) {
+      listElementMap.put(getListElementKey(listObjectId, index), value);
+    }
+  }
+
+  public void putObject(int objectId, VmObject object) {
+    if (object != null) {
+      objectMap.put(objectId, object);
+    }
+  }
+
+  private long getListElementKey(int listObjectId, int index) {
+    return ((long) listObjectId << 32) | (index & 0xFFFFFFFFL);
+  }
+
+}
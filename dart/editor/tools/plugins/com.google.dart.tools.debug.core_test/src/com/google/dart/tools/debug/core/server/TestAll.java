@@ -21,6 +21,8 @@ public class TestAll {
   public static Test suite() {
     TestSuite suite = new TestSuite("Tests in " + TestAll.class.getPackage().getName());
     suite.addTestSuite(ServerDebuggerTest.class);
+    suite.addTestSuite(VmBatchCallbackTest.class);
+    suite.addTestSuite(VmValueCacheTest.class);
     return suite;
   }
 }
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.dart.tools.debug.core.server;
+
+import junit.framework.TestCase;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class VmBatchCallbackTest extends TestCase {
+
+  class RecordingCallback implements VmCallback<List<String>> {
+    public int count;
+    public List<String> results;
+
+    @Override
+    public void handleResult(VmResult<List<String>> result) {
+      count++;
+      results = result.getResult();
+    }
+  }
+
+  private RecordingCallback callback;
+
+  public void testDone_empty() {
+    VmBatchCallback<String> batch = new VmBatchCallback<String>(0, callback);
+
+    batch.done();
+
+    assertEquals(1, callback.count);
+    assertEquals(0, callback.results.size());
+  }
+
+  public void testResults_afterDone() {
+    VmBatchCallback<String> batch = new VmBatchCallback<String>(2, callback);
+    VmCallback<String> first = batch.createCallback(0);
+    VmCallback<String> second = batch.createCallback(1);
+
+    batch.done();
+    assertEquals(0, callback.count);
+
+    second.handleResult(result("b"));
+    assertEquals(0, callback.count);
+
+    first.handleResult(result("a"));
+    assertEquals(1, callback.count);
+    assertEquals(Arrays.asList("a", "b"), callback.results);
+  }
+
+  public void testResults_beforeDone() {
+    VmBatchCallback<String> batch = new VmBatchCallback<String>(2, callback);
+
+    batch.createCallback(0).handleResult(result("a"));
+    batch.createCallback(1).handleResult(result("b"));
+    assertEquals(0, callback.count);
+
+    batch.done();
+    assertEquals(1, callback.count);
+    assertEquals(Arrays.asList("a", "b"), callback.results);
+  }
+
+  public void testResults_error() {
+    VmBatchCallback<String> batch = new VmBatchCallback<String>(2, callback);
+
+    batch.createCallback(0).handleResult(errorResult());
+    batch.createCallback(1).handleResult(result("b"));
+    batch.done();
+
+    assertEquals(1, callback.count);
+    assertEquals(Arrays.asList(null, "b"), callback.results);
+  }
+
+  public void testSkipFrom() {
+    VmBatchCallback<String> batch = new VmBatchCallback<String>(3, callback);
+    VmCallback<String> first = batch.createCallback(0);
+
+    batch.skipFrom(1);
+    batch.done();
+    assertEquals(0, callback.count);
+
+    first.handleResult(result("a"));
+    assertEquals(1, callback.count);
+    assertEquals(Arrays.asList("a", null, null), callback.results);
+  }
+
+  public void testSkipFrom_end() {
+    VmBatchCallback<String> batch = new VmBatchCallback<String>(1, callback);
+
+    batch.createCallback(0).handleResult(result("a"));
+    batch.skipFrom(1);
+    batch.done();
+
+    assertEquals(1, callback.count);
+    assertEquals(Arrays.asList("a"), callback.results);
+  }
+
+  @Override
+  protected void setUp() throws Exception {
+    callback = new RecordingCallback();
+  }
+
+  @SuppressWarnings("unchecked")
+  private VmResult<String> errorResult() {
+    VmResult<String> result = mock(VmResult.class);
+    when(result.isError()).thenReturn(true);
+    return result;
+  }
+
+  @SuppressWarnings("unchecked")
+  private VmResult<String> result(String value) {
+    VmResult<String> result = mock(VmResult.class);
+    when(result.getResult()).thenReturn(value);
+    return result;
+  }
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.google.dart.tools.debug.core.server;
+
+import junit.framework.TestCase;
+
+import static org.mockito.Mockito.mock;
+
+public class VmValueCacheTest extends TestCase {
+
+  private VmValueCache cache;
+
+  public void testClear() {
+    cache.putObject(1, mock(VmObject.class));
+    cache.putListElement(2, 0, mock(VmValue.class));
+
+    cache.clear();
+
+    assertFalse(cache.hasObject(1));
+    assertNull(cache.getObject(1));
+    assertFalse(cache.hasListElement(2, 0));
+    assertNull(cache.getListElement(2, 0));
+  }
+
+  public void testListElement() {
+    VmValue first = mock(VmValue.class);
+    VmValue second = mock(VmValue.class);
+
+    cache.putListElement(1, 0, first);
+    cache.putListElement(1, 1, second);
+
+    assertSame(first, cache.getListElement(1, 0));
+    assertSame(second, cache.getListElement(1, 1));
+    assertTrue(cache.hasListElement(1, 1));
+    assertFalse(cache.hasListElement(1, 2));
+  }
+
+  public void testListElement_distinctLists() {
+    VmValue value = mock(VmValue.class);
+
+    cache.putListElement(1, 2, value);
+
+    assertSame(value, cache.getListElement(1, 2));
+    assertNull(cache.getListElement(2, 1));
+    assertNull(cache.getListElement(2, 2));
+  }
+
+  public void testListElement_null() {
+    cache.putListElement(1, 0, null);
+
+    assertFalse(cache.hasListElement(1, 0));
+  }
+
+  public void testObject() {
+    VmObject object = mock(VmObject.class);
+
+    cache.putObject(1, object);
+
+    assertSame(object, cache.getObject(1));
+    assertTrue(cache.hasObject(1));
+    assertFalse(cache.hasObject(2));
+    assertNull(cache.getObject(2));
+  }
+
+  public void testObject_null() {
+    cache.putObject(1, null);
+
+    assertFalse(cache.hasObject(1));
+  }
+
+  @Override
+  protected void setUp() throws Exception {
+    cache = new VmValueCache();
+  }
+
+}